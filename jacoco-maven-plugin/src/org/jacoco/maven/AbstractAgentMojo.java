@@ -149,6 +149,44 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 */
 	@Parameter(property = "jacoco.jmx")
 	Boolean jmx;
+	/**
+	 * If set to true probes are only written if they are not set yet. This
+	 * reduces contention on the probe arrays for heavily multi-threaded
+	 * applications.
+	 */
+	@Parameter(property = "jacoco.conditionalProbes")
+	Boolean conditionalProbes;
+	/**
+	 * Interval in seconds in which the agent periodically dumps the execution
+	 * data to a file next to the destination file. <code>0</code> disables
+	 * periodic dumps.
+	 */
+	@Parameter(property = "jacoco.dumpInterval")
+	Integer dumpInterval;
+	/**
+	 * Maximum random delay in seconds added to each periodic dump interval.
+	 */
+	@Parameter(property = "jacoco.dumpJitter")
+	Integer dumpJitter;
+	/**
+	 * Number of periodic dump files to retain. <code>0</code> writes every
+	 * periodic dump to the same file.
+	 */
+	@Parameter(property = "jacoco.dumpRetention")
+	Integer dumpRetention;
+	/**
+	 * Interval in seconds in which the agent counts the executed probes for
+	 * its instrumentation metrics. <code>0</code> disables sampling.
+	 */
+	@Parameter(property = "jacoco.metricsInterval")
+	Integer metricsInterval;
+	/**
+	 * Number of most recently instrumented classes for which the agent records
+	 * the instrumentation cost in a CSV file next to the destination file.
+	 * <code>0</code> disables recording.
+	 */
+	@Parameter(property = "jacoco.profileSize")
+	Integer profileSize;
 
 	@Override
 	public void executeMojo() {
@@ -224,6 +262,25 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 		if (jmx != null) {
 			agentOptions.setJmx(jmx.booleanValue());
 		}
+		if (conditionalProbes != null) {
+			agentOptions
+					.setConditionalProbes(conditionalProbes.booleanValue());
+		}
+		if (dumpInterval != null) {
+			agentOptions.setDumpInterval(dumpInterval.intValue());
+		}
+		if (dumpJitter != null) {
+			agentOptions.setDumpJitter(dumpJitter.intValue());
+		}
+		if (dumpRetention != null) {
+			agentOptions.setDumpRetention(dumpRetention.intValue());
+		}
+		if (metricsInterval != null) {
+			agentOptions.setMetricsInterval(metricsInterval.intValue());
+		}
+		if (profileSize != null) {
+			agentOptions.setProfileSize(profileSize.intValue());
+		}
 		return agentOptions;
 	}
 
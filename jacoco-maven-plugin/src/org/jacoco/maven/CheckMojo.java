@@ -23,10 +23,12 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.jacoco.core.analysis.ICoverageNode;
-import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.check.IViolationsOutput;
 import org.jacoco.report.check.Limit;
 import org.jacoco.report.check.Rule;
+import org.jacoco.report.check.RulesChecker;
+import org.jacoco.report.check.RulesViolatedException;
+import org.jacoco.report.check.StreamingChecker;
 
 /**
  * Checks that the code coverage metrics are being met.
@@ -122,6 +124,16 @@ public class CheckMojo extends AbstractJacocoMojo implements IViolationsOutput {
 	@Parameter(property = "jacoco.haltOnFailure", defaultValue = "true", required = true)
 	private boolean haltOnFailure;
 
+	/**
+	 * Stop the analysis as soon as the first rule violation has been found.
+	 * Rules for classes and methods are checked while the class files are
+	 * analyzed, so only the first violation is reported in this mode.
+	 * 
+	 * @since 0.8.4
+	 */
+	@Parameter(property = "jacoco.failFast", defaultValue = "false")
+	private boolean failFast;
+
 	/**
 	 * File with execution data.
 	 */
@@ -178,13 +190,18 @@ public class CheckMojo extends AbstractJacocoMojo implements IViolationsOutput {
 		for (final RuleConfiguration r : rules) {
 			checkerrules.add(r.rule);
 		}
-		support.addRulesChecker(checkerrules, this);
+		final RulesChecker checker = new RulesChecker();
+		checker.setRules(checkerrules);
+		final StreamingChecker streamingChecker = checker
+				.createStreamingChecker(getProject().getArtifactId(), this);
+		streamingChecker.setFailFast(failFast);
 
 		try {
-			final IReportVisitor visitor = support.initRootVisitor();
 			support.loadExecutionData(dataFile);
-			support.processProject(visitor, getProject(), includes, excludes);
-			visitor.visitEnd();
+			support.checkProject(streamingChecker, getProject(), includes,
+					excludes);
+		} catch (final RulesViolatedException e) {
+			// violation has already been reported
 		} catch (final IOException e) {
 			throw new MojoExecutionException(
 					"Error while checking code coverage: " + e.getMessage(), e);
@@ -18,7 +18,9 @@ import java.util.List;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.SelectorUtils;
 import org.codehaus.plexus.util.StringUtils;
+import org.jacoco.core.analysis.ZipEntryFilter;
 
 /**
  * A file filter using includes/excludes patterns.
@@ -71,6 +73,25 @@ public class FileFilter {
 		return FileUtils.getFiles(directory, getIncludes(), getExcludes());
 	}
 
+	/**
+	 * Creates a filter which selects the class files within JAR files with
+	 * the includes/excludes patterns, matched against the entry names.
+	 * 
+	 * @return filter for the entries of JAR files
+	 */
+	public ZipEntryFilter getZipEntryFilter() {
+		final String[] includePatterns = getPatterns(getIncludes());
+		final String[] excludePatterns = getPatterns(getExcludes());
+		return new ZipEntryFilter() {
+			@Override
+			public boolean accept(final String entryName) {
+				return super.accept(entryName)
+						&& matches(includePatterns, entryName)
+						&& !matches(excludePatterns, entryName);
+			}
+		};
+	}
+
 	/**
 	 * Get the includes pattern
 	 * 
@@ -97,4 +118,25 @@ public class FileFilter {
 		}
 		return pattern;
 	}
+
+	private static String[] getPatterns(final String patterns) {
+		final String[] result = StringUtils.split(patterns, ",");
+		for (int i = 0; i < result.length; i++) {
+			String pattern = result[i].trim().replace('\\', '/');
+			if (pattern.endsWith("/")) {
+				pattern += "**";
+			}
+			result[i] = pattern;
+		}
+		return result;
+	}
+
+	private static boolean matches(final String[] patterns, final String name) {
+		for (final String pattern : patterns) {
+			if (SelectorUtils.matchPath(pattern, name, "/", true)) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
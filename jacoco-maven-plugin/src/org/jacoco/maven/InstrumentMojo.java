@@ -59,6 +59,18 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 	@Parameter
 	private List<String> excludes;
 
+	/**
+	 * If set to <code>true</code> the instrumented classes use the static
+	 * runtime, which does not start the agent when the first class is
+	 * initialized. This allows to initialize classes at build time of ahead
+	 * of time compiled images. Execution data has to be retrieved explicitly
+	 * with <code>org.jacoco.agent.rt.RT.getStaticAgent()</code>.
+	 * 
+	 * @since 0.8.4
+	 */
+	@Parameter(property = "jacoco.staticRuntime", defaultValue = "false")
+	private boolean staticRuntime;
+
 	@Override
 	public void executeMojo() throws MojoExecutionException,
 			MojoFailureException {
@@ -84,7 +96,7 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 		}
 
 		final Instrumenter instrumenter = new Instrumenter(
-				new OfflineInstrumentationAccessGenerator());
+				new OfflineInstrumentationAccessGenerator(staticRuntime));
 		for (final String fileName : fileNames) {
 			if (fileName.endsWith(".class")) {
 				final File source = new File(classesDir, fileName);
@@ -87,6 +87,17 @@ public class ReportAggregateMojo extends AbstractReportMojo {
 	@Parameter(property = "reactorProjects", readonly = true)
 	private List<MavenProject> reactorProjects;
 
+	/**
+	 * Maximum number of threads used to load execution data files and to
+	 * analyze the class files of the aggregated projects. A value of
+	 * <code>0</code> or less uses the number of available processors. The
+	 * report content and its bundle order do not depend on this setting.
+	 * 
+	 * @since 0.8.4
+	 */
+	@Parameter(property = "jacoco.threads", defaultValue = "0")
+	int threads;
+
 	@Override
 	boolean canGenerateReportRegardingDataFiles() {
 		return true;
@@ -106,19 +117,14 @@ public class ReportAggregateMojo extends AbstractReportMojo {
 
 		final FileFilter filter = new FileFilter(dataFileIncludes,
 				dataFileExcludes);
-		loadExecutionData(support, filter, getProject().getBasedir());
+		final List<File> execFiles = new ArrayList<File>();
+		execFiles.addAll(filter.getFiles(getProject().getBasedir()));
 		for (final MavenProject dependency : findDependencies(
 				Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME,
 				Artifact.SCOPE_PROVIDED, Artifact.SCOPE_TEST)) {
-			loadExecutionData(support, filter, dependency.getBasedir());
-		}
-	}
-
-	private void loadExecutionData(final ReportSupport support,
-			final FileFilter filter, final File basedir) throws IOException {
-		for (final File execFile : filter.getFiles(basedir)) {
-			support.loadExecutionData(execFile);
+			execFiles.addAll(filter.getFiles(dependency.getBasedir()));
 		}
+		support.loadExecutionData(execFiles, getThreads());
 	}
 
 	@Override
@@ -132,12 +138,17 @@ public class ReportAggregateMojo extends AbstractReportMojo {
 	void createReport(final IReportGroupVisitor visitor,
 			final ReportSupport support) throws IOException {
 		final IReportGroupVisitor group = visitor.visitGroup(title);
-		for (final MavenProject dependency : findDependencies(
-				Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME,
-				Artifact.SCOPE_PROVIDED)) {
-			support.processProject(group, dependency.getArtifactId(),
-					dependency, getIncludes(), getExcludes(), sourceEncoding);
+		support.processProjects(group,
+				findDependencies(Artifact.SCOPE_COMPILE,
+						Artifact.SCOPE_RUNTIME, Artifact.SCOPE_PROVIDED),
+				getIncludes(), getExcludes(), sourceEncoding, getThreads());
+	}
+
+	private int getThreads() {
+		if (threads > 0) {
+			return threads;
 		}
+		return Runtime.getRuntime().availableProcessors();
 	}
 
 	@Override
@@ -22,8 +22,16 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
@@ -31,15 +39,16 @@ import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.ZipEntryFilter;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.MultiReportVisitor;
-import org.jacoco.report.check.IViolationsOutput;
-import org.jacoco.report.check.Rule;
-import org.jacoco.report.check.RulesChecker;
+import org.jacoco.report.check.RulesViolatedException;
+import org.jacoco.report.check.StreamingChecker;
 import org.jacoco.report.csv.CSVFormatter;
 import org.jacoco.report.html.HTMLFormatter;
 import org.jacoco.report.xml.XMLFormatter;
@@ -61,6 +70,7 @@ final class ReportSupport {
 	private final Log log;
 	private final ExecFileLoader loader;
 	private final List<IReportVisitor> formatters;
+	private boolean linesRequired;
 
 	/**
 	 * Construct a new instance with the given log output.
@@ -87,10 +97,30 @@ final class ReportSupport {
 		loader.load(execFile);
 	}
 
+	/**
+	 * Loads the given execution data files concurrently, see
+	 * {@link ExecFileLoader#load(List, int)}.
+	 * 
+	 * @param execFiles
+	 *            execution data files to load
+	 * @param threads
+	 *            maximum number of threads to use
+	 * @throws IOException
+	 *             if a file can't be loaded
+	 */
+	public void loadExecutionData(final List<File> execFiles, final int threads)
+			throws IOException {
+		for (final File execFile : execFiles) {
+			log.info("Loading execution data file " + execFile);
+		}
+		loader.load(execFiles, threads);
+	}
+
 	public void addXmlFormatter(final File targetfile, final String encoding)
 			throws IOException {
 		final XMLFormatter xml = new XMLFormatter();
 		xml.setOutputEncoding(encoding);
+		linesRequired = true;
 		formatters.add(xml.createVisitor(new FileOutputStream(targetfile)));
 	}
 
@@ -106,6 +136,7 @@ final class ReportSupport {
 		final HTMLFormatter htmlFormatter = new HTMLFormatter();
 		htmlFormatter.setOutputEncoding(encoding);
 		htmlFormatter.setLocale(locale);
+		linesRequired = true;
 		if (footer != null) {
 			htmlFormatter.setFooterText(footer);
 		}
@@ -121,13 +152,6 @@ final class ReportSupport {
 		addHtmlFormatter(targetdir, encoding, footer, locale);
 	}
 
-	public void addRulesChecker(final List<Rule> rules,
-			final IViolationsOutput output) {
-		final RulesChecker checker = new RulesChecker();
-		checker.setRules(rules);
-		formatters.add(checker.createVisitor(output));
-	}
-
 	public IReportVisitor initRootVisitor() throws IOException {
 		final IReportVisitor visitor = new MultiReportVisitor(formatters);
 		visitor.visitInfo(loader.getSessionInfoStore().getInfos(), loader
@@ -184,29 +208,185 @@ final class ReportSupport {
 				new SourceFileCollection(project, srcEncoding));
 	}
 
+	/**
+	 * Calculates coverage for the given projects concurrently and emits it to
+	 * the report group including source references. The bundles are emitted in
+	 * the order of the given projects, named after their artifact ids. Each
+	 * bundle is emitted as soon as it and all bundles before it are analyzed.
+	 * At most <code>threads</code> projects are analyzed or wait for emission
+	 * at the same time, so only that many coverage models are held in memory.
+	 * 
+	 * @param visitor
+	 *            group visitor to emit the projects' coverage to
+	 * @param projects
+	 *            the MavenProjects
+	 * @param includes
+	 *            list of includes patterns
+	 * @param excludes
+	 *            list of excludes patterns
+	 * @param srcEncoding
+	 *            encoding of the source files within the projects
+	 * @param threads
+	 *            maximum number of threads to use for analysis
+	 * @throws IOException
+	 *             if class files can't be read
+	 */
+	public void processProjects(final IReportGroupVisitor visitor,
+			final List<MavenProject> projects, final List<String> includes,
+			final List<String> excludes, final String srcEncoding,
+			final int threads) throws IOException {
+		if (threads <= 1 || projects.size() <= 1) {
+			for (final MavenProject project : projects) {
+				visitBundle(visitor,
+						analyze(project, includes, excludes, threads),
+						project.getArtifactId(),
+						new SourceFileCollection(project, srcEncoding));
+			}
+			return;
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(Math
+				.min(threads, projects.size()));
+		try {
+			final LinkedList<Future<CoverageBuilder>> pending = new LinkedList<Future<CoverageBuilder>>();
+			int submitted = 0;
+			for (final MavenProject project : projects) {
+				while (submitted < projects.size() && pending.size() < threads) {
+					final MavenProject next = projects.get(submitted++);
+					pending.add(executor.submit(new Callable<CoverageBuilder>() {
+						public CoverageBuilder call() throws IOException {
+							// the threads are already used for the projects
+							return analyze(next, includes, excludes, 1);
+						}
+					}));
+				}
+				visitBundle(visitor, get(pending.removeFirst()),
+						project.getArtifactId(),
+						new SourceFileCollection(project, srcEncoding));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private void processProject(final IReportGroupVisitor visitor,
 			final String bundeName, final MavenProject project,
 			final List<String> includes, final List<String> excludes,
 			final ISourceFileLocator locator) throws IOException {
-		final CoverageBuilder builder = new CoverageBuilder();
+		visitBundle(visitor,
+				analyze(project, includes, excludes, getDefaultThreads()),
+				bundeName, locator);
+	}
+
+	/**
+	 * Checks the coverage of the given project while its classes are analyzed.
+	 * No coverage model is created, violations are reported by the given
+	 * checker.
+	 * 
+	 * @param checker
+	 *            checker to emit the classes to
+	 * @param project
+	 *            the MavenProject
+	 * @param includes
+	 *            list of includes patterns
+	 * @param excludes
+	 *            list of excludes patterns
+	 * @throws IOException
+	 *             if class files can't be read
+	 * @throws RulesViolatedException
+	 *             if the checker is in fail fast mode and a rule is violated
+	 */
+	public void checkProject(final StreamingChecker checker,
+			final MavenProject project, final List<String> includes,
+			final List<String> excludes) throws IOException {
+		final ClassCounter counter = new ClassCounter(checker);
+		try {
+			analyze(project, includes, excludes, counter, getDefaultThreads());
+		} catch (final IOException e) {
+			final RulesViolatedException violation = RulesViolatedException
+					.find(e);
+			if (violation != null) {
+				throw violation;
+			}
+			throw e;
+		}
+		checker.visitEnd();
+		counter.logBundleInfo(project.getArtifactId());
+	}
+
+	private CoverageBuilder analyze(final MavenProject project,
+			final List<String> includes, final List<String> excludes,
+			final int threads) throws IOException {
+		// Only the XML and HTML reports contain line data of source files
+		final CoverageBuilder builder = new CoverageBuilder(!linesRequired);
+		analyze(project, includes, excludes, builder, threads);
+		return builder;
+	}
+
+	private void analyze(final MavenProject project,
+			final List<String> includes, final List<String> excludes,
+			final ICoverageVisitor visitor, final int threads)
+			throws IOException {
 		final File classesDir = new File(project.getBuild()
 				.getOutputDirectory());
 
 		if (classesDir.isDirectory()) {
 			final Analyzer analyzer = new Analyzer(
-					loader.getExecutionDataStore(), builder);
+					loader.getExecutionDataStore(), visitor);
 			final FileFilter filter = new FileFilter(includes, excludes);
+			final ZipEntryFilter entryFilter = filter.getZipEntryFilter();
 			for (final File file : filter.getFiles(classesDir)) {
-				analyzer.analyzeAll(file);
+				if (isZipFile(file)) {
+					// only the selected entries are extracted and analyzed
+					analyzer.analyzeZipFile(file, entryFilter, threads);
+				} else {
+					analyzer.analyzeAll(file);
+				}
 			}
 		}
+	}
+
+	private static boolean isZipFile(final File file) {
+		final String name = file.getName();
+		return name.endsWith(".jar") || name.endsWith(".war")
+				|| name.endsWith(".ear") || name.endsWith(".zip");
+	}
 
+	private static int getDefaultThreads() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	private void visitBundle(final IReportGroupVisitor visitor,
+			final CoverageBuilder builder, final String bundeName,
+			final ISourceFileLocator locator) throws IOException {
 		final IBundleCoverage bundle = builder.getBundle(bundeName);
 		logBundleInfo(bundle, builder.getNoMatchClasses());
 
 		visitor.visitBundle(bundle, locator);
 	}
 
+	private static <T> T get(final Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while creating report.");
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			final IOException ex = new IOException(cause.getMessage());
+			ex.initCause(cause);
+			throw ex;
+		}
+	}
+
 	private void logBundleInfo(final IBundleCoverage bundle,
 			final Collection<IClassCoverage> nomatch) {
 		log.info(format("Analyzed bundle '%s' with %s classes",
@@ -229,6 +409,53 @@ final class ReportSupport {
 		}
 	}
 
+	/**
+	 * Collects the information for the bundle log messages while classes are
+	 * passed to a delegate.
+	 */
+	private class ClassCounter implements ICoverageVisitor {
+
+		private final ICoverageVisitor delegate;
+		private final Set<String> classes = new HashSet<String>();
+		private final List<String> nomatch = new ArrayList<String>();
+		private boolean containsCode;
+		private boolean containsLines;
+
+		ClassCounter(final ICoverageVisitor delegate) {
+			this.delegate = delegate;
+		}
+
+		public void visitCoverage(final IClassCoverage coverage) {
+			delegate.visitCoverage(coverage);
+			if (classes.add(coverage.getName())) {
+				if (coverage.isNoMatch()) {
+					nomatch.add(coverage.getName());
+				}
+				containsCode |= coverage.containsCode();
+				containsLines |= coverage.getLineCounter().getTotalCount() > 0;
+			}
+		}
+
+		void logBundleInfo(final String bundleName) {
+			log.info(format("Analyzed bundle '%s' with %s classes",
+					bundleName, Integer.valueOf(classes.size())));
+			if (!nomatch.isEmpty()) {
+				log.warn(format(
+						"Classes in bundle '%s' do no match with execution data. "
+								+ "For report generation the same class files must be used as at runtime.",
+						bundleName));
+				for (final String c : nomatch) {
+					log.warn(format("Execution data for class %s does not match.",
+							c));
+				}
+			}
+			if (containsCode && !containsLines) {
+				log.warn(
+						"To enable source code annotation class files have to be compiled with debug information.");
+			}
+		}
+	}
+
 	private class NoSourceLocator implements ISourceFileLocator {
 
 		public Reader getSourceFile(final String packageName,
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 
@@ -26,10 +27,13 @@ import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
+import org.jacoco.agent.rt.internal.output.ChunkedFileOutput;
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MappedFileOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
+import org.jacoco.agent.rt.internal.output.TcpCollectorOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
 import org.jacoco.core.JaCoCo;
 import org.jacoco.core.runtime.AgentOptions;
@@ -37,13 +41,18 @@ import org.jacoco.core.runtime.AgentOptions.OutputMode;
 import org.jacoco.core.runtime.RuntimeData;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit tests for {@link Agent}.
  */
 public class AgentTest implements IExceptionLogger, IAgentOutput {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private AgentOptions options;
 
 	private Boolean writeExecutionDataReset;
@@ -74,6 +83,18 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		assertEquals(TcpClientOutput.class,
 				agent.createAgentOutput().getClass());
 
+		options.setOutput(OutputMode.tcpcollector);
+		assertEquals(TcpCollectorOutput.class,
+				agent.createAgentOutput().getClass());
+
+		options.setOutput(OutputMode.mmap);
+		assertEquals(MappedFileOutput.class,
+				agent.createAgentOutput().getClass());
+
+		options.setOutput(OutputMode.chunkedfile);
+		assertEquals(ChunkedFileOutput.class,
+				agent.createAgentOutput().getClass());
+
 		options.setOutput(OutputMode.none);
 		assertEquals(NoneOutput.class, agent.createAgentOutput().getClass());
 	}
@@ -147,6 +168,42 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		agent.shutdown();
 	}
 
+	@Test
+	public void startup_should_register_metrics_mbean_when_enabled()
+			throws Exception {
+		options.setJmx(true);
+		Agent agent = createAgent();
+
+		agent.startup();
+		agent.getData().getProbes(1, "Foo", 3);
+
+		ObjectName objectName = new ObjectName("org.jacoco:type=Metrics");
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(Long.valueOf(3),
+				server.getAttribute(objectName, "ProbesRegistered"));
+
+		// cleanup as MBean is registered globally
+		agent.shutdown();
+	}
+
+	@Test
+	public void startup_should_sample_metrics_when_enabled()
+			throws Exception {
+		options.setMetricsInterval(1);
+		Agent agent = createAgent();
+		agent.getData().getProbes(1, "Foo", 4)[1] = true;
+
+		agent.startup();
+		for (int i = 0; i < 100
+				&& agent.getMetrics().getLastSampleTime() == 0; i++) {
+			Thread.sleep(50);
+		}
+		agent.shutdown();
+
+		assertEquals(1, agent.getMetrics().getProbesHit());
+		assertNull(loggedException);
+	}
+
 	@Test
 	public void startup_should_not_register_mbean_when_disabled()
 			throws Exception {
@@ -163,6 +220,66 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		}
 	}
 
+	@Test
+	public void startup_should_start_periodic_dumps_when_enabled()
+			throws Exception {
+		options.setDestfile(
+				new File(folder.getRoot(), "jacoco.exec").getAbsolutePath());
+		options.setDumpInterval(1);
+		File dumpFile = new File(folder.getRoot(), "jacoco-dump.exec");
+		Agent agent = createAgent();
+
+		agent.startup();
+		for (int i = 0; i < 100 && !dumpFile.exists(); i++) {
+			Thread.sleep(50);
+		}
+		agent.shutdown();
+
+		assertTrue(dumpFile.exists());
+		assertNull(loggedException);
+	}
+
+	@Test
+	public void startup_should_append_periodic_dumps_to_chunked_file()
+			throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setOutput(OutputMode.chunkedfile);
+		options.setDumpInterval(1);
+		options.setDumpOnExit(false);
+		Agent agent = new Agent(options, this);
+
+		agent.startup();
+		agent.getData().getExecutionData(Long.valueOf(0x12345678L), "Foo", 2)
+				.getProbes()[1] = true;
+		for (int i = 0; i < 100 && destFile.length() == 0; i++) {
+			Thread.sleep(50);
+		}
+		agent.shutdown();
+
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(destFile);
+		assertTrue(loader.getExecutionDataStore().get(0x12345678L)
+				.getProbes()[1]);
+		assertFalse(new File(folder.getRoot(), "jacoco-dump.exec").exists());
+		assertNull(loggedException);
+	}
+
+	@Test
+	public void shutdown_should_write_profile_when_enabled()
+			throws Exception {
+		options.setDestfile(
+				new File(folder.getRoot(), "jacoco.exec").getAbsolutePath());
+		options.setProfileSize(100);
+		Agent agent = createAgent();
+		agent.startup();
+
+		agent.shutdown();
+
+		assertTrue(new File(folder.getRoot(), "jacoco-profile.csv").exists());
+		assertNull(loggedException);
+	}
+
 	@Test
 	public void shutdown_should_write_execution_data_when_enabled()
 			throws Exception {
@@ -12,13 +12,22 @@
 package org.jacoco.agent.rt.internal;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -34,9 +43,17 @@ public class ClassFileDumperTest {
 
 	private byte[] contents;
 
+	private ExecutorService executor;
+
 	@Before
 	public void setup() throws IOException {
 		contents = "just some bytes".getBytes("UTF-8");
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void teardown() {
+		executor.shutdownNow();
 	}
 
 	@Test
@@ -62,6 +79,104 @@ public class ClassFileDumperTest {
 		dumper.dump("Main", contents);
 	}
 
+	@Test
+	public void testDumpInBackground() throws Exception {
+		final File location = new File(folder.getRoot(), "classes");
+		final ExceptionRecorder recorder = new ExceptionRecorder();
+		final ClassFileDumper dumper = new ClassFileDumper(location.toString(),
+				recorder, executor);
+		final byte[] buffer = contents.clone();
+		dumper.dump("org/jacoco/examples/Foo$Inner", buffer);
+		// the caller may reuse its buffer immediately:
+		buffer[0] = 0;
+
+		shutdownExecutor();
+
+		assertContents(location,
+				"org/jacoco/examples/Foo$Inner.aff06045a340cd62.class");
+		recorder.assertNoException();
+	}
+
+	@Test
+	public void testDumpInBackgroundFailure() throws Exception {
+		final File location = folder.newFile("nofolder");
+		final List<Exception> exceptions = new ArrayList<Exception>();
+		final ClassFileDumper dumper = new ClassFileDumper(location.toString(),
+				new ExceptionCollector(exceptions), executor);
+		dumper.dump("Main", contents);
+
+		shutdownExecutor();
+
+		assertEquals(1, exceptions.size());
+		assertEquals(FileNotFoundException.class, exceptions.get(0).getClass());
+	}
+
+	@Test
+	public void testDumpAfterShutdown() throws Exception {
+		final File location = new File(folder.getRoot(), "classes");
+		final ExceptionRecorder recorder = new ExceptionRecorder();
+		final ClassFileDumper dumper = new ClassFileDumper(location.toString(),
+				recorder, executor);
+		shutdownExecutor();
+
+		dumper.dump("Main", contents);
+
+		assertContents(location, "Main.aff06045a340cd62.class");
+		recorder.assertNoException();
+	}
+
+	@Test
+	public void testDumpAfterShutdownFailure() throws Exception {
+		final File location = folder.newFile("nofolder");
+		final List<Exception> exceptions = new ArrayList<Exception>();
+		final ClassFileDumper dumper = new ClassFileDumper(location.toString(),
+				new ExceptionCollector(exceptions), executor);
+		shutdownExecutor();
+
+		dumper.dump("Main", contents);
+
+		assertEquals(1, exceptions.size());
+		assertEquals(FileNotFoundException.class, exceptions.get(0).getClass());
+	}
+
+	@Test
+	public void testDumpWithSharedBackgroundThread() throws Exception {
+		final File location = new File(folder.getRoot(), "classes");
+		final ExceptionRecorder recorder = new ExceptionRecorder();
+		final ClassFileDumper dumper = new ClassFileDumper(location.toString(),
+				recorder);
+		dumper.dump("Main", contents);
+
+		final File file = new File(location, "Main.aff06045a340cd62.class");
+		final long timeout = System.currentTimeMillis() + 10000;
+		while (file.length() < contents.length
+				&& System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertContents(location, "Main.aff06045a340cd62.class");
+		recorder.assertNoException();
+	}
+
+	private void shutdownExecutor() throws InterruptedException {
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	private static class ExceptionCollector implements IExceptionLogger {
+
+		private final List<Exception> exceptions;
+
+		ExceptionCollector(final List<Exception> exceptions) {
+			this.exceptions = exceptions;
+		}
+
+		public void logExeption(final Exception ex) {
+			synchronized (exceptions) {
+				exceptions.add(ex);
+			}
+		}
+	}
+
 	private void assertContents(File location, String filename)
 			throws IOException {
 		InputStream in = new FileInputStream(new File(location, filename));
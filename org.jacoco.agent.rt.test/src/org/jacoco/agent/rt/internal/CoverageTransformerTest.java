@@ -13,6 +13,7 @@ package org.jacoco.agent.rt.internal;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -26,6 +27,7 @@ import java.security.ProtectionDomain;
 import java.security.cert.Certificate;
 
 import org.jacoco.core.JaCoCo;
+import org.jacoco.core.instr.InstrumentationCost;
 import org.jacoco.core.runtime.AbstractRuntime;
 import org.jacoco.core.runtime.AgentOptions;
 import org.junit.After;
@@ -221,6 +223,54 @@ public class CoverageTransformerTest {
 		recorder.clear();
 	}
 
+	@Test
+	public void testTransformUpdatesMetrics() throws Exception {
+		InstrumentationMetrics metrics = new InstrumentationMetrics();
+		CoverageTransformer t = new CoverageTransformer(runtime, options,
+				recorder, metrics);
+		final Class<?> target = JaCoCo.class;
+
+		assertNotNull(t.transform(classLoader,
+				target.getName().replace('.', '/'), null, protectionDomain,
+				getClassData(target)));
+		assertNull(t.transform(classLoader, "org.jacoco.Sample", null, null,
+				new byte[0]));
+		try {
+			t.transform(classLoader, "org.jacoco.Sample", null,
+					protectionDomain, null);
+			fail("IllegalClassFormatException expected.");
+		} catch (IllegalClassFormatException e) {
+			recorder.clear();
+		}
+
+		assertEquals(3, metrics.getTransformCount());
+		assertEquals(1, metrics.getClassesInstrumented());
+		assertEquals(1, metrics.getInstrumentationFailures());
+		assertTrue(metrics.getTransformTime() >= metrics
+				.getInstrumentationTime());
+	}
+
+	@Test
+	public void testTransformRecordsProfile() throws Exception {
+		options.setProfileSize(10);
+		InstrumentationProfiler profiler = new InstrumentationProfiler(
+				options);
+		CoverageTransformer t = new CoverageTransformer(runtime, options,
+				recorder, new InstrumentationMetrics(), profiler);
+		final Class<?> target = JaCoCo.class;
+		final byte[] original = getClassData(target);
+
+		final byte[] instrumented = t.transform(classLoader,
+				target.getName().replace('.', '/'), null, protectionDomain,
+				original);
+
+		assertEquals(1, profiler.getRecords().size());
+		final InstrumentationCost cost = profiler.getRecords().get(0);
+		assertEquals("org/jacoco/core/JaCoCo", cost.getClassName());
+		assertEquals(original.length, cost.getOriginalSize());
+		assertEquals(instrumented.length, cost.getInstrumentedSize());
+	}
+
 	@Test
 	public void testRedefinedClass() throws Exception {
 		CoverageTransformer t = createTransformer();
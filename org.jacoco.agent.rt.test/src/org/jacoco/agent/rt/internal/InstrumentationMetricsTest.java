@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link InstrumentationMetrics} and {@link MeteredRuntimeData}.
+ */
+public class InstrumentationMetricsTest {
+
+	private InstrumentationMetrics metrics;
+
+	private MeteredRuntimeData data;
+
+	@Before
+	public void setup() {
+		metrics = new InstrumentationMetrics();
+		data = new MeteredRuntimeData(metrics);
+	}
+
+	@Test
+	public void should_count_transformations() {
+		metrics.transformed(3000000);
+		metrics.transformed(2000000);
+		metrics.instrumented(4000000);
+		metrics.instrumentationFailed(1000000);
+
+		assertEquals(2, metrics.getTransformCount());
+		assertEquals(5, metrics.getTransformTime());
+		assertEquals(1, metrics.getClassesInstrumented());
+		assertEquals(1, metrics.getInstrumentationFailures());
+		assertEquals(5, metrics.getInstrumentationTime());
+	}
+
+	@Test
+	public void should_count_class_registration_once() {
+		data.getProbes(1, "Foo", 5);
+		data.getProbes(1, "Foo", 5);
+		data.getExecutionData(Long.valueOf(2), "Bar", 3);
+		data.getProbes(new Object[] { Long.valueOf(2), "Bar",
+				Integer.valueOf(3) });
+		data.reset();
+		data.getProbes(1, "Foo", 5);
+
+		assertEquals(2, metrics.getClassesRegistered());
+		assertEquals(8, metrics.getProbesRegistered());
+	}
+
+	@Test
+	public void should_not_report_hits_before_first_sample() {
+		assertEquals(-1, metrics.getClassesHit());
+		assertEquals(-1, metrics.getProbesHit());
+		assertEquals(-1.0, metrics.getProbeHitRatio(), 0.0);
+		assertEquals(0, metrics.getLastSampleTime());
+	}
+
+	@Test
+	public void sample_should_count_hit_probes() {
+		data.getProbes(1, "Foo", 4)[0] = true;
+		data.getProbes(1, "Foo", 4)[3] = true;
+		data.getProbes(2, "Bar", 4);
+
+		metrics.sample(data);
+
+		assertEquals(1, metrics.getClassesHit());
+		assertEquals(2, metrics.getProbesHit());
+		assertEquals(0.25, metrics.getProbeHitRatio(), 0.0);
+		assertTrue(metrics.getLastSampleTime() > 0);
+	}
+
+	@Test
+	public void sample_should_not_reset_probes() {
+		final boolean[] probes = data.getProbes(1, "Foo", 1);
+		probes[0] = true;
+
+		metrics.sample(data);
+
+		assertTrue(probes[0]);
+	}
+
+	@Test
+	public void writeText_should_write_counters() throws IOException {
+		metrics.instrumented(0);
+		data.getProbes(1, "Foo", 7);
+
+		final StringWriter out = new StringWriter();
+		metrics.writeText(out);
+
+		final String text = out.toString();
+		assertTrue(text, text.contains("jacoco_classes_instrumented 1\n"));
+		assertTrue(text, text.contains("jacoco_probes_registered 7\n"));
+		assertFalse(text, text.contains("jacoco_probes_hit"));
+	}
+
+	@Test
+	public void writeText_should_write_sample() throws IOException {
+		data.getProbes(1, "Foo", 2)[1] = true;
+		metrics.sample(data);
+
+		final StringWriter out = new StringWriter();
+		metrics.writeText(out);
+
+		final String text = out.toString();
+		assertTrue(text, text.contains("jacoco_probes_hit 1\n"));
+		assertTrue(text, text.contains("jacoco_probe_hit_ratio 0.5\n"));
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.jacoco.core.instr.InstrumentationCost;
+import org.jacoco.core.runtime.AgentOptions;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link InstrumentationProfiler}.
+ */
+public class InstrumentationProfilerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private AgentOptions options;
+
+	@Before
+	public void setup() {
+		options = new AgentOptions();
+		options.setDestfile(
+				new File(folder.getRoot(), "jacoco.exec").getAbsolutePath());
+		options.setProfileSize(3);
+	}
+
+	@Test
+	public void getRecords_should_return_records_in_order() {
+		final InstrumentationProfiler profiler = new InstrumentationProfiler(
+				options);
+		profiler.classInstrumented(cost("A"));
+		profiler.classInstrumented(cost("B"));
+
+		final List<InstrumentationCost> records = profiler.getRecords();
+		assertEquals(2, records.size());
+		assertEquals("A", records.get(0).getClassName());
+		assertEquals("B", records.get(1).getClassName());
+		assertEquals(2, profiler.getRecordCount());
+	}
+
+	@Test
+	public void getRecords_should_only_keep_most_recent_records() {
+		final InstrumentationProfiler profiler = new InstrumentationProfiler(
+				options);
+		for (final String name : new String[] { "A", "B", "C", "D", "E" }) {
+			profiler.classInstrumented(cost(name));
+		}
+
+		final List<InstrumentationCost> records = profiler.getRecords();
+		assertEquals(3, records.size());
+		assertEquals("C", records.get(0).getClassName());
+		assertEquals("D", records.get(1).getClassName());
+		assertEquals("E", records.get(2).getClassName());
+		assertEquals(5, profiler.getRecordCount());
+	}
+
+	@Test
+	public void writeCsv_should_write_header_and_records() throws IOException {
+		final InstrumentationProfiler profiler = new InstrumentationProfiler(
+				options);
+		profiler.classInstrumented(new InstrumentationCost("org/Foo", 0x1234,
+				100, 150, 7, 1, 2, 3, 4));
+		profiler.classInstrumented(cost("a,\"b\""));
+
+		final StringWriter out = new StringWriter();
+		profiler.writeCsv(out);
+
+		final String[] lines = out.toString().split("\n");
+		assertEquals(3, lines.length);
+		assertEquals(
+				"CLASS,CLASS_ID,ORIGINAL_SIZE,INSTRUMENTED_SIZE,PROBES,TOTAL_NANOS,CLASS_ID_NANOS,STRATEGY_NANOS,PROBES_NANOS,WRITE_NANOS",
+				lines[0]);
+		assertEquals("org/Foo,0000000000001234,100,150,7,10,1,2,3,4",
+				lines[1]);
+		assertTrue(lines[2], lines[2].startsWith("\"a,\"\"b\"\"\","));
+	}
+
+	@Test
+	public void writeFile_should_write_next_to_destfile() throws IOException {
+		final InstrumentationProfiler profiler = new InstrumentationProfiler(
+				options);
+		profiler.classInstrumented(cost("A"));
+
+		profiler.writeFile();
+
+		final File file = new File(folder.getRoot(), "jacoco-profile.csv");
+		assertEquals(file, profiler.getFile());
+		final BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		assertTrue(reader.readLine().startsWith("CLASS,"));
+		assertTrue(reader.readLine().startsWith("A,"));
+		reader.close();
+	}
+
+	private static InstrumentationCost cost(final String name) {
+		return new InstrumentationCost(name, 0, 10, 20, 1, 0, 0, 0, 0);
+	}
+
+}
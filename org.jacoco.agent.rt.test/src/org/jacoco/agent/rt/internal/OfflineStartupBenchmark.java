@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Startup benchmark for the offline runtimes: measures the time of the first
+ * probe array request, which includes the initialization of the runtime, for
+ * {@link Offline} and {@link StaticOffline}. Every run loads the runtime
+ * classes in a new class loader, so the static initializers are executed
+ * again. This is not a unit test, run it with the test class path:
+ * 
+ * <pre>
+ * java org.jacoco.agent.rt.internal.OfflineStartupBenchmark [runs]
+ * </pre>
+ */
+public class OfflineStartupBenchmark {
+
+	private static final int DEFAULT_RUNS = 50;
+
+	public static void main(final String[] args) throws Exception {
+		final int runs = args.length == 0 ? DEFAULT_RUNS
+				: Integer.parseInt(args[0]);
+		// The agent must not write files or open ports:
+		System.setProperty("jacoco-agent.output", "none");
+		System.setProperty("jacoco-agent.dumponexit", "false");
+		// Warm up the JIT for the class loading code:
+		measure(Offline.class, 5);
+		measure(StaticOffline.class, 5);
+		print("Offline", measure(Offline.class, runs));
+		print("StaticOffline", measure(StaticOffline.class, runs));
+	}
+
+	private static long[] measure(final Class<?> runtime, final int runs)
+			throws Exception {
+		final long[] times = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			final ClassLoader loader = new RuntimeClassLoader();
+			final Class<?> c = Class.forName(runtime.getName(), false, loader);
+			final Method getProbes = c.getMethod("getProbes", Long.TYPE,
+					String.class, Integer.TYPE);
+			final long start = System.nanoTime();
+			getProbes.invoke(null, Long.valueOf(i), "Target", Integer.valueOf(10));
+			times[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(times);
+		return times;
+	}
+
+	private static void print(final String name, final long[] times) {
+		System.out.printf("%-15s min %8.3f ms   median %8.3f ms%n", name,
+				Double.valueOf(times[0] / 1e6),
+				Double.valueOf(times[times.length / 2] / 1e6));
+	}
+
+	/**
+	 * Loads all JaCoCo classes itself, other classes are delegated to the
+	 * parent.
+	 */
+	private static class RuntimeClassLoader extends ClassLoader {
+
+		RuntimeClassLoader() {
+			super(OfflineStartupBenchmark.class.getClassLoader());
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(final String name,
+				final boolean resolve) throws ClassNotFoundException {
+			if (!name.startsWith("org.jacoco.")) {
+				return super.loadClass(name, resolve);
+			}
+			Class<?> c = findLoadedClass(name);
+			if (c == null) {
+				final byte[] bytes;
+				try {
+					bytes = read(name.replace('.', '/') + ".class");
+				} catch (final IOException e) {
+					throw new ClassNotFoundException(name, e);
+				}
+				c = defineClass(name, bytes, 0, bytes.length);
+			}
+			if (resolve) {
+				resolveClass(c);
+			}
+			return c;
+		}
+
+		private byte[] read(final String resource) throws IOException {
+			final InputStream in = getParent().getResourceAsStream(resource);
+			if (in == null) {
+				throw new IOException("Resource not found: " + resource);
+			}
+			try {
+				final ByteArrayOutputStream out = new ByteArrayOutputStream();
+				final byte[] buffer = new byte[1024];
+				int len;
+				while ((len = in.read(buffer)) != -1) {
+					out.write(buffer, 0, len);
+				}
+				return out.toByteArray();
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jacoco.agent.rt.RT;
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link StaticOffline}.
+ */
+public class StaticOfflineTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutionDataStore store;
+
+	private SessionInfoStore sessions;
+
+	@Before
+	public void setup() {
+		StaticOffline.getAgent().reset();
+		StaticOffline.getAgent().setSessionId("static");
+		store = new ExecutionDataStore();
+		sessions = new SessionInfoStore();
+	}
+
+	@After
+	public void teardown() {
+		System.clearProperty("jacoco-agent.destfile");
+	}
+
+	@Test
+	public void getProbes_should_return_same_array_for_same_class() {
+		final boolean[] probes = StaticOffline.getProbes(0x42, "Foo", 3);
+
+		assertEquals(3, probes.length);
+		assertSame(probes, StaticOffline.getProbes(0x42, "Foo", 3));
+	}
+
+	@Test
+	public void getAgent_should_be_returned_by_RT() {
+		assertSame(StaticOffline.getAgent(), RT.getStaticAgent());
+		assertEquals(JaCoCo.VERSION, RT.getStaticAgent().getVersion());
+		assertEquals("static", RT.getStaticAgent().getSessionId());
+	}
+
+	@Test
+	public void getExecutionData_should_contain_hit_probes() throws Exception {
+		StaticOffline.getProbes(0x43, "Bar", 2)[1] = true;
+
+		read(new ByteArrayInputStream(
+				StaticOffline.getAgent().getExecutionData(false)));
+
+		assertEquals("Bar", store.get(0x43).getName());
+		assertTrue(store.get(0x43).getProbes()[1]);
+		assertEquals("static", sessions.getInfos().get(0).getId());
+	}
+
+	@Test
+	public void getExecutionData_should_reset_probes() throws Exception {
+		final boolean[] probes = StaticOffline.getProbes(0x44, "Baz", 1);
+		probes[0] = true;
+
+		StaticOffline.getAgent().getExecutionData(true);
+
+		assertFalse(probes[0]);
+	}
+
+	@Test
+	public void dump_should_write_to_destfile() throws Exception {
+		final File destfile = new File(folder.getRoot(), "static.exec");
+		System.setProperty("jacoco-agent.destfile", destfile.getAbsolutePath());
+		StaticOffline.getProbes(0x45, "Dump", 1)[0] = true;
+
+		StaticOffline.getAgent().dump(true);
+
+		final InputStream in = new FileInputStream(destfile);
+		try {
+			read(in);
+		} finally {
+			in.close();
+		}
+		assertTrue(store.get(0x45).getProbes()[0]);
+		assertFalse(StaticOffline.getProbes(0x45, "Dump", 1)[0]);
+		assertNull(store.get(0x44));
+	}
+
+	private void read(final InputStream in) throws IOException {
+		final ExecutionDataReader reader = new ExecutionDataReader(in);
+		reader.setExecutionDataVisitor(store);
+		reader.setSessionInfoVisitor(sessions);
+		reader.read();
+	}
+
+}
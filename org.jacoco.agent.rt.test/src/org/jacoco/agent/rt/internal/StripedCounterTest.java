@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StripedCounter}.
+ */
+public class StripedCounterTest {
+
+	@Test
+	public void sum_should_be_zero_initially() {
+		assertEquals(0, new StripedCounter().sum());
+	}
+
+	@Test
+	public void sum_should_return_all_added_values() {
+		final StripedCounter counter = new StripedCounter(3);
+		counter.add(5);
+		counter.increment();
+		counter.add(-2);
+
+		assertEquals(4, counter.sum());
+	}
+
+	@Test
+	public void sum_should_include_updates_of_all_threads() throws Exception {
+		final StripedCounter counter = new StripedCounter(4);
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int t = 0; t < 8; t++) {
+			futures.add(executor.submit(new Callable<Void>() {
+				public Void call() {
+					for (int i = 0; i < 10000; i++) {
+						counter.increment();
+					}
+					return null;
+				}
+			}));
+		}
+		for (final Future<Void> f : futures) {
+			f.get();
+		}
+		executor.shutdown();
+
+		assertEquals(80000, counter.sum());
+	}
+
+}
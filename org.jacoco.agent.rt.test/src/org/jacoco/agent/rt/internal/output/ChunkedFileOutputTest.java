@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jacoco.core.data.ChunkedExecutionDataWriter;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ChunkedFileOutput}.
+ */
+public class ChunkedFileOutputTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File destFile;
+
+	private AgentOptions options;
+
+	private RuntimeData data;
+
+	private ChunkedFileOutput output;
+
+	private List<ExecutionData> written;
+
+	@Before
+	public void setup() {
+		destFile = new File(folder.getRoot(), "sub/jacoco.exec");
+		options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		data = new RuntimeData();
+		data.setSessionId("session");
+		output = new ChunkedFileOutput();
+		written = new ArrayList<ExecutionData>();
+	}
+
+	@Test
+	public void startup_should_create_empty_file() throws Exception {
+		output.startup(options, data);
+
+		assertTrue(destFile.exists());
+		assertEquals(0, destFile.length());
+	}
+
+	@Test(expected = IOException.class)
+	public void startup_should_fail_for_invalid_file() throws Exception {
+		options.setDestfile(folder.newFolder("folder").getAbsolutePath());
+
+		output.startup(options, data);
+	}
+
+	@Test
+	public void writeExecutionData_should_append_only_dirty_classes()
+			throws Exception {
+		output.startup(options, data);
+		final boolean[] foo = data.getExecutionData(Long.valueOf(1), "Foo", 2)
+				.getProbes();
+		final boolean[] bar = data.getExecutionData(Long.valueOf(2), "Bar", 1)
+				.getProbes();
+		foo[0] = true;
+		bar[0] = true;
+		output.writeExecutionData(false);
+
+		foo[1] = true;
+		output.writeExecutionData(false);
+
+		output.writeExecutionData(false);
+		output.shutdown();
+
+		final SessionInfoStore sessions = read();
+		assertEquals(3, sessions.getInfos().size());
+		assertEquals(3, written.size());
+		assertEquals("Foo", written.get(0).getName());
+		assertEquals("Bar", written.get(1).getName());
+		assertEquals("Foo", written.get(2).getName());
+		assertEquals("[true, true]",
+				Arrays.toString(written.get(2).getProbes()));
+	}
+
+	@Test
+	public void writeExecutionData_should_write_classes_again_after_reset()
+			throws Exception {
+		output.startup(options, data);
+		final boolean[] foo = data.getExecutionData(Long.valueOf(1), "Foo", 1)
+				.getProbes();
+		foo[0] = true;
+		output.writeExecutionData(true);
+		output.writeExecutionData(true);
+		foo[0] = true;
+		output.writeExecutionData(true);
+
+		read();
+		assertEquals(1, written.size());
+	}
+
+	@Test
+	public void startup_should_truncate_file_without_append()
+			throws Exception {
+		writeChunk();
+		options.setAppend(false);
+
+		output.startup(options, data);
+
+		assertEquals(0, destFile.length());
+	}
+
+	@Test
+	public void startup_should_remove_truncated_chunk() throws Exception {
+		writeChunk();
+		final long intact = destFile.length();
+		final RandomAccessFile file = new RandomAccessFile(destFile, "rw");
+		file.seek(intact);
+		file.write(new byte[] { ChunkedExecutionDataWriter.BLOCK_CHUNK, 0, 0,
+				1 });
+		file.close();
+
+		output.startup(options, data);
+		assertEquals(intact, destFile.length());
+
+		data.getExecutionData(Long.valueOf(2), "Bar", 1).getProbes()[0] = true;
+		output.writeExecutionData(false);
+
+		read();
+		assertEquals(2, written.size());
+	}
+
+	private void writeChunk() throws IOException {
+		destFile.getParentFile().mkdirs();
+		final OutputStream out = new FileOutputStream(destFile);
+		final ChunkedExecutionDataWriter writer = new ChunkedExecutionDataWriter(
+				out);
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+		writer.flush();
+		out.close();
+	}
+
+	private SessionInfoStore read() throws IOException {
+		final SessionInfoStore sessions = new SessionInfoStore();
+		final InputStream in = new FileInputStream(destFile);
+		try {
+			final ExecutionDataReader reader = new ExecutionDataReader(in);
+			reader.setSessionInfoVisitor(sessions);
+			reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData data) {
+					written.add(data);
+				}
+			});
+			reader.read();
+			assertEquals(0, reader.getSkippedChunkCount());
+		} finally {
+			in.close();
+		}
+		return sessions;
+	}
+
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.MappedExecutionDataReader;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MappedFileOutput}.
+ */
+public class MappedFileOutputTest implements IExceptionLogger {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File regionFile;
+
+	private RuntimeData data;
+
+	private MappedFileOutput output;
+
+	private ExecutionDataStore store;
+
+	private SessionInfoStore sessions;
+
+	private Exception loggedException;
+
+	@Before
+	public void setup() throws Exception {
+		regionFile = new File(folder.getRoot(), "sub/jacoco.mmap");
+		final AgentOptions options = new AgentOptions();
+		options.setDestfile(regionFile.getAbsolutePath());
+		data = new RuntimeData();
+		data.setSessionId("session");
+		data.getProbes(0x12345678L, "Foo", 3)[1] = true;
+		output = new MappedFileOutput(this);
+		output.startup(options, data);
+	}
+
+	@After
+	public void teardown() throws Exception {
+		output.shutdown();
+		assertNull(loggedException);
+	}
+
+	@Test
+	public void startup_should_publish_probes() throws Exception {
+		read();
+
+		assertEquals("session", sessions.getInfos().get(0).getId());
+		assertTrue(store.get(0x12345678L).getProbes()[1]);
+	}
+
+	@Test
+	public void writeExecutionData_should_update_region() throws Exception {
+		data.getProbes(0x12345678L, "Foo", 3)[2] = true;
+		data.getProbes(0x42L, "Bar", 1)[0] = true;
+
+		output.writeExecutionData(false);
+
+		read();
+		assertTrue(store.get(0x12345678L).getProbes()[2]);
+		assertTrue(store.get(0x42L).getProbes()[0]);
+	}
+
+	@Test
+	public void writeExecutionData_should_reset_probes() throws Exception {
+		output.writeExecutionData(true);
+
+		assertFalse(data.getProbes(0x12345678L, "Foo", 3)[1]);
+		read();
+		assertTrue(store.get(0x12345678L).getProbes()[1]);
+
+		output.writeExecutionData(false);
+
+		read();
+		assertNull(store.get(0x12345678L));
+	}
+
+	@Test
+	public void region_should_be_updated_periodically() throws Exception {
+		data.getProbes(0x42L, "Bar", 1)[0] = true;
+
+		final long timeout = System.currentTimeMillis()
+				+ 10 * MappedFileOutput.UPDATE_INTERVAL;
+		do {
+			Thread.sleep(50);
+			read();
+		} while (store.get(0x42L) == null
+				&& System.currentTimeMillis() < timeout);
+		assertTrue(store.get(0x42L).getProbes()[0]);
+	}
+
+	private void read() throws IOException {
+		store = new ExecutionDataStore();
+		sessions = new SessionInfoStore();
+		final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+				regionFile);
+		reader.setSessionInfoVisitor(sessions);
+		reader.setExecutionDataVisitor(store);
+		reader.read();
+	}
+
+	public void logExeption(final Exception ex) {
+		loggedException = ex;
+	}
+
+}
@@ -81,14 +81,16 @@ public class MockSocketConnection {
 							if (closed) {
 								throw new SocketException("socket closed");
 							}
-							if (other.closed) {
-								return -1;
-							}
 							final Byte b = buffer.poll();
 							buffer.notifyAll();
 							if (b != null) {
 								return 0xff & b.intValue();
 							}
+							// Like real sockets pending data is delivered
+							// before the end of the stream:
+							if (other.closed) {
+								return -1;
+							}
 							buffer.wait();
 						}
 					} catch (InterruptedException e) {
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link PeriodicDumper}.
+ */
+public class PeriodicDumperTest implements IExceptionLogger {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private AgentOptions options;
+
+	private RuntimeData data;
+
+	private volatile Exception loggedException;
+
+	@Before
+	public void setup() {
+		options = new AgentOptions();
+		options.setDestfile(
+				new File(folder.getRoot(), "jacoco.exec").getAbsolutePath());
+		data = new RuntimeData();
+		data.setSessionId("session");
+		data.getProbes(0x12345678L, "Foo", 3)[1] = true;
+	}
+
+	@Test
+	public void dump_should_write_dump_file() throws Exception {
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+
+		File file = dumper.dump(0);
+
+		assertEquals(new File(folder.getRoot(), "jacoco-dump.exec"), file);
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(file);
+		assertEquals("session",
+				loader.getSessionInfoStore().getInfos().get(0).getId());
+		assertTrue(loader.getExecutionDataStore().get(0x12345678L)
+				.getProbes()[1]);
+		assertEquals(Arrays.asList("jacoco-dump.exec"),
+				Arrays.asList(folder.getRoot().list()));
+	}
+
+	@Test
+	public void dump_should_not_reset_probes() throws Exception {
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+
+		dumper.dump(0);
+
+		assertTrue(data.getProbes(0x12345678L, "Foo", 3)[1]);
+	}
+
+	@Test
+	public void dump_should_replace_previous_dump() throws Exception {
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+		dumper.dump(0);
+		data.getProbes(0x12345678L, "Foo", 3)[2] = true;
+
+		File file = dumper.dump(0);
+
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(file);
+		assertEquals(1, loader.getSessionInfoStore().getInfos().size());
+		assertTrue(loader.getExecutionDataStore().get(0x12345678L)
+				.getProbes()[2]);
+	}
+
+	@Test
+	public void dump_should_append_suffix_when_destfile_has_no_extension()
+			throws Exception {
+		options.setDestfile(
+				new File(folder.getRoot(), "coverage").getAbsolutePath());
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+
+		File file = dumper.dump(0);
+
+		assertEquals(new File(folder.getRoot(), "coverage-dump"), file);
+	}
+
+	@Test
+	public void dump_should_rotate_files_when_retention_is_set()
+			throws Exception {
+		options.setDumpRetention(2);
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+
+		File file1 = dumper.dump(1000);
+		File file2 = dumper.dump(2000);
+		File file3 = dumper.dump(3000);
+
+		assertFalse(file1.exists());
+		assertTrue(file2.exists());
+		assertTrue(file3.exists());
+		assertTrue(file3.getName().matches("jacoco-dump-\\d{17}\\.exec"));
+	}
+
+	@Test
+	public void dump_should_keep_unrelated_files_when_retention_is_set()
+			throws Exception {
+		options.setDumpRetention(1);
+		File other = folder.newFile("jacoco-dump-other.exec");
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+
+		dumper.dump(1000);
+		dumper.dump(2000);
+
+		assertTrue(other.exists());
+		assertEquals(2, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void startup_should_dump_periodically() throws Exception {
+		options.setDumpInterval(1);
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+		File file = new File(folder.getRoot(), "jacoco-dump.exec");
+
+		dumper.startup();
+		for (int i = 0; i < 100 && !file.exists(); i++) {
+			Thread.sleep(50);
+		}
+		dumper.shutdown();
+
+		assertTrue(file.exists());
+		assertNull(loggedException);
+	}
+
+	@Test
+	public void startup_should_pass_periodic_dumps_to_output()
+			throws Exception {
+		options.setDumpInterval(1);
+		final List<Boolean> resets = Collections
+				.synchronizedList(new ArrayList<Boolean>());
+		IAgentOutput output = new IAgentOutput() {
+			public void startup(AgentOptions options, RuntimeData data) {
+			}
+
+			public void writeExecutionData(boolean reset) {
+				resets.add(Boolean.valueOf(reset));
+			}
+
+			public void shutdown() {
+			}
+		};
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this,
+				output);
+
+		dumper.startup();
+		for (int i = 0; i < 100 && resets.isEmpty(); i++) {
+			Thread.sleep(50);
+		}
+		dumper.shutdown();
+
+		assertEquals(Boolean.FALSE, resets.get(0));
+		assertEquals(0, folder.getRoot().list().length);
+		assertNull(loggedException);
+	}
+
+	@Test
+	public void shutdown_should_stop_periodic_dumps() throws Exception {
+		options.setDumpInterval(1);
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+
+		dumper.startup();
+		dumper.shutdown();
+		Thread.sleep(1500);
+
+		assertEquals(0, folder.getRoot().list().length);
+		assertNull(loggedException);
+	}
+
+	@Test
+	public void dump_should_log_exception() throws Exception {
+		options.setDumpInterval(1);
+		File blocker = folder.newFolder("jacoco-dump.exec");
+		new File(blocker, "child").createNewFile();
+		PeriodicDumper dumper = new PeriodicDumper(options, data, this);
+
+		dumper.startup();
+		for (int i = 0; i < 100 && loggedException == null; i++) {
+			Thread.sleep(50);
+		}
+		dumper.shutdown();
+
+		assertNotNull(loggedException);
+	}
+
+	// === IExceptionLogger ===
+
+	public void logExeption(final Exception ex) {
+		loggedException = ex;
+	}
+
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.LinkedList;
+
+import org.jacoco.agent.rt.internal.ExceptionRecorder;
+import org.jacoco.agent.rt.internal.output.MockSocketConnection.MockSocket;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RemoteControlReader;
+import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TcpCollectorOutput}.
+ */
+public class TcpCollectorOutputTest {
+
+	private ExceptionRecorder logger;
+
+	private RuntimeData data;
+
+	/** Sockets to return for connection attempts, null means failure. */
+	private LinkedList<MockSocket> sockets;
+
+	private IAgentOutput controller;
+
+	private int attempts;
+
+	@Before
+	public void setup() throws Exception {
+		logger = new ExceptionRecorder();
+		data = new RuntimeData();
+		data.setSessionId("stubid");
+		sockets = new LinkedList<MockSocket>();
+		controller = new TcpCollectorOutput(logger, 10, 40, 1000) {
+			@Override
+			protected Socket createSocket(AgentOptions options)
+					throws IOException {
+				synchronized (sockets) {
+					attempts++;
+					final MockSocket socket = sockets.poll();
+					if (socket == null) {
+						throw new ConnectException("Connection refused");
+					}
+					return socket;
+				}
+			}
+		};
+	}
+
+	@After
+	public void teardown() throws Exception {
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void startup_should_not_fail_when_collector_is_unavailable()
+			throws Exception {
+		controller.startup(new AgentOptions(), data);
+
+		waitForAttempts(3);
+	}
+
+	@Test
+	public void writeExecutionData_should_deliver_when_collector_becomes_available()
+			throws Exception {
+		controller.startup(new AgentOptions(), data);
+		data.getProbes(0x12345678L, "Foo", 4)[0] = true;
+		controller.writeExecutionData(false);
+		waitForAttempts(2);
+
+		final RemoteControlReader remote = connect();
+
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		final SessionInfoStore infoStore = new SessionInfoStore();
+		read(remote, execStore, infoStore);
+		assertEquals("Foo", execStore.get(0x12345678L).getName());
+		assertEquals("stubid", infoStore.getInfos().get(0).getId());
+	}
+
+	@Test
+	public void writeExecutionData_should_send_pending_dumps_as_single_batch()
+			throws Exception {
+		data.setSessionId("stubid");
+		controller.startup(new AgentOptions(), data);
+		data.getProbes(0x12345678L, "Foo", 4)[0] = true;
+		controller.writeExecutionData(true);
+		data.getProbes(0x12345678L, "Foo", 4)[1] = true;
+		controller.writeExecutionData(true);
+
+		final RemoteControlReader remote = connect();
+
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		final SessionInfoStore infoStore = new SessionInfoStore();
+		read(remote, execStore, infoStore);
+		final boolean[] probes = execStore.get(0x12345678L).getProbes();
+		assertTrue(probes[0]);
+		assertTrue(probes[1]);
+		assertEquals(2, infoStore.getInfos().size());
+	}
+
+	@Test
+	public void writeExecutionData_should_merge_dumps_when_queue_is_full()
+			throws Exception {
+		controller.startup(new AgentOptions(), data);
+		final int count = TcpCollectorOutput.QUEUE_CAPACITY + 5;
+		for (int i = 0; i < count; i++) {
+			data.getProbes(0x12345678L, "Foo", count)[i] = true;
+			controller.writeExecutionData(true);
+		}
+
+		final RemoteControlReader remote = connect();
+
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		final SessionInfoStore infoStore = new SessionInfoStore();
+		read(remote, execStore, infoStore);
+		final boolean[] probes = execStore.get(0x12345678L).getProbes();
+		for (int i = 0; i < count; i++) {
+			assertTrue(probes[i]);
+		}
+		assertEquals(count, infoStore.getInfos().size());
+	}
+
+	@Test
+	public void should_reconnect_when_connection_is_lost() throws Exception {
+		controller.startup(new AgentOptions(), data);
+		final MockSocketConnection first = new MockSocketConnection();
+		synchronized (sockets) {
+			sockets.add(first.getSocketA());
+		}
+		waitForAttempts(1);
+		first.getSocketB().close();
+		waitForAttempts(2);
+
+		final RemoteControlReader remote = connect();
+		data.getProbes(0x12345678L, "Foo", 4)[0] = true;
+		controller.writeExecutionData(false);
+
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		read(remote, execStore, new SessionInfoStore());
+		assertEquals("Foo", execStore.get(0x12345678L).getName());
+	}
+
+	@Test
+	public void should_answer_remote_dump_commands() throws Exception {
+		controller.startup(new AgentOptions(), data);
+		data.getProbes(0x12345678L, "Foo", 4)[0] = true;
+		final MockSocketConnection con = new MockSocketConnection();
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				con.getSocketB().getOutputStream());
+		final RemoteControlReader remote = new RemoteControlReader(
+				con.getSocketB().getInputStream());
+		synchronized (sockets) {
+			sockets.add(con.getSocketA());
+		}
+
+		remoteWriter.visitDumpCommand(true, false);
+
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		read(remote, execStore, new SessionInfoStore());
+		assertEquals("Foo", execStore.get(0x12345678L).getName());
+	}
+
+	@Test
+	public void shutdown_should_close_connection() throws Exception {
+		controller.startup(new AgentOptions(), data);
+		final RemoteControlReader remote = connect();
+		waitForConnection();
+
+		controller.shutdown();
+
+		assertFalse(remote.read());
+	}
+
+	@Test
+	public void shutdown_should_return_when_collector_is_unavailable()
+			throws Exception {
+		controller.startup(new AgentOptions(), data);
+		data.getProbes(0x12345678L, "Foo", 4)[0] = true;
+		controller.writeExecutionData(false);
+
+		final long start = System.currentTimeMillis();
+		controller.shutdown();
+
+		assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+
+	private RemoteControlReader connect() throws Exception {
+		final MockSocketConnection con = new MockSocketConnection();
+		final RemoteControlReader reader = new RemoteControlReader(
+				con.getSocketB().getInputStream());
+		synchronized (sockets) {
+			sockets.add(con.getSocketA());
+		}
+		return reader;
+	}
+
+	private void read(final RemoteControlReader reader,
+			final ExecutionDataStore execStore,
+			final SessionInfoStore infoStore) throws IOException {
+		reader.setExecutionDataVisitor(execStore);
+		reader.setSessionInfoVisitor(infoStore);
+		assertTrue(reader.read());
+	}
+
+	private void waitForConnection() throws Exception {
+		for (int i = 0; i < 200; i++) {
+			synchronized (sockets) {
+				if (sockets.isEmpty()) {
+					return;
+				}
+			}
+			Thread.sleep(10);
+		}
+		synchronized (sockets) {
+			assertTrue("not connected", sockets.isEmpty());
+		}
+	}
+
+	private void waitForAttempts(final int count) throws Exception {
+		for (int i = 0; i < 200; i++) {
+			synchronized (sockets) {
+				if (attempts >= count) {
+					return;
+				}
+			}
+			Thread.sleep(10);
+		}
+		synchronized (sockets) {
+			assertTrue("attempts: " + attempts, attempts >= count);
+		}
+	}
+
+}
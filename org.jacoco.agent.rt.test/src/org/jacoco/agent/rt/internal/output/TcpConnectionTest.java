@@ -16,11 +16,13 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
+import org.jacoco.agent.rt.internal.InstrumentationMetrics;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.data.SessionInfo;
@@ -128,6 +130,57 @@ public class TcpConnectionTest extends ExecutorTestBase {
 		f.get();
 	}
 
+	@Test
+	public void testMetricsTextRequest() throws Exception {
+		final InstrumentationMetrics metrics = new InstrumentationMetrics();
+		final OutputStream remoteOut = mockConnection.getSocketB()
+				.getOutputStream();
+		remoteOut.write("metrics\n".getBytes("UTF-8"));
+
+		final TcpConnection con = new TcpConnection(mockConnection.getSocketA(),
+				data, metrics);
+		con.init();
+		con.run();
+
+		final InputStream remoteIn = mockConnection.getSocketB()
+				.getInputStream();
+		final StringBuilder response = new StringBuilder();
+		int b;
+		while ((b = remoteIn.read()) != -1) {
+			response.append((char) b);
+		}
+		assertTrue(response.toString(),
+				response.toString().contains("jacoco_classes_instrumented 0\n"));
+		assertTrue(mockConnection.getSocketA().isClosed());
+	}
+
+	@Test
+	public void testMetricsBinaryRequest() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0] = true;
+		data.setSessionId("stubid");
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				mockConnection.getSocketB().getOutputStream());
+
+		final TcpConnection con = new TcpConnection(mockConnection.getSocketA(),
+				data, new InstrumentationMetrics());
+		con.init();
+
+		final Future<Void> f = executor.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				con.run();
+				return null;
+			}
+		});
+		assertBlocks(f);
+
+		remoteWriter.visitDumpCommand(true, false);
+		readAndAssertData();
+
+		con.close();
+		f.get();
+	}
+
 	@Test
 	public void testRemoteDump() throws Exception {
 		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
@@ -12,6 +12,7 @@
 package org.jacoco.agent.rt;
 
 import org.jacoco.agent.rt.internal.Agent;
+import org.jacoco.agent.rt.internal.StaticOffline;
 
 /**
  * Entry point to access the JaCoCo agent runtime.
@@ -32,4 +33,15 @@ public final class RT {
 		return Agent.getInstance();
 	}
 
+	/**
+	 * Returns the runtime of classes which have been instrumented offline for
+	 * the static runtime. The execution data of these classes is only
+	 * available through this instance, it is never dumped automatically.
+	 * 
+	 * @return static runtime instance
+	 */
+	public static IAgent getStaticAgent() {
+		return StaticOffline.getAgent();
+	}
+
 }
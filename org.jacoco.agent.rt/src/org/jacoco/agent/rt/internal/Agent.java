@@ -17,10 +17,14 @@ import java.net.InetAddress;
 import java.util.concurrent.Callable;
 
 import org.jacoco.agent.rt.IAgent;
+import org.jacoco.agent.rt.internal.output.ChunkedFileOutput;
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MappedFileOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
+import org.jacoco.agent.rt.internal.output.PeriodicDumper;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
+import org.jacoco.agent.rt.internal.output.TcpCollectorOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
 import org.jacoco.core.JaCoCo;
 import org.jacoco.core.data.ExecutionDataWriter;
@@ -34,7 +38,7 @@ import org.jacoco.core.runtime.RuntimeData;
  */
 public class Agent implements IAgent {
 
-	private static Agent singleton;
+	private static volatile Agent singleton;
 
 	/**
 	 * Returns a global instance which is already started. If the method is
@@ -44,7 +48,15 @@ public class Agent implements IAgent {
 	 *            options to configure the instance
 	 * @return global instance
 	 */
-	public static synchronized Agent getInstance(final AgentOptions options) {
+	public static Agent getInstance(final AgentOptions options) {
+		final Agent instance = singleton;
+		if (instance != null) {
+			return instance;
+		}
+		return createInstance(options);
+	}
+
+	private static synchronized Agent createInstance(final AgentOptions options) {
 		if (singleton == null) {
 			final Agent agent = new Agent(options, IExceptionLogger.SYSTEM_ERR);
 			agent.startup();
@@ -67,21 +79,30 @@ public class Agent implements IAgent {
 	 * @throws IllegalStateException
 	 *             if no Agent has been started yet
 	 */
-	public static synchronized Agent getInstance() throws IllegalStateException {
-		if (singleton == null) {
+	public static Agent getInstance() throws IllegalStateException {
+		final Agent instance = singleton;
+		if (instance == null) {
 			throw new IllegalStateException("JaCoCo agent not started.");
 		}
-		return singleton;
+		return instance;
 	}
 
 	private final AgentOptions options;
 
 	private final IExceptionLogger logger;
 
+	private final InstrumentationMetrics metrics;
+
+	private final InstrumentationProfiler profiler;
+
 	private final RuntimeData data;
 
 	private IAgentOutput output;
 
+	private PeriodicDumper periodicDumper;
+
+	private MetricsSampler metricsSampler;
+
 	private Callable<Void> jmxRegistration;
 
 	/**
@@ -95,7 +116,10 @@ public class Agent implements IAgent {
 	Agent(final AgentOptions options, final IExceptionLogger logger) {
 		this.options = options;
 		this.logger = logger;
-		this.data = new RuntimeData();
+		this.metrics = new InstrumentationMetrics();
+		this.profiler = options.getProfileSize() > 0 ? new InstrumentationProfiler(
+				options) : null;
+		this.data = new MeteredRuntimeData(metrics);
 	}
 
 	/**
@@ -107,6 +131,24 @@ public class Agent implements IAgent {
 		return data;
 	}
 
+	/**
+	 * Returns the instrumentation metrics maintained by this agent
+	 * 
+	 * @return metrics for this agent instance
+	 */
+	public InstrumentationMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns the instrumentation profiler of this agent
+	 * 
+	 * @return profiler or <code>null</code> if profiling is disabled
+	 */
+	public InstrumentationProfiler getProfiler() {
+		return profiler;
+	}
+
 	/**
 	 * Initializes this agent.
 	 * 
@@ -120,8 +162,20 @@ public class Agent implements IAgent {
 			data.setSessionId(sessionId);
 			output = createAgentOutput();
 			output.startup(options, data);
+			if (options.getDumpInterval() > 0) {
+				// Chunked files persist periodic dumps incrementally:
+				periodicDumper = new PeriodicDumper(options, data, logger,
+						options.getOutput() == OutputMode.chunkedfile ? output
+								: null);
+				periodicDumper.startup();
+			}
+			if (options.getMetricsInterval() > 0) {
+				metricsSampler = new MetricsSampler(options, metrics, data,
+						logger);
+				metricsSampler.startup();
+			}
 			if (options.getJmx()) {
-				jmxRegistration = new JmxRegistration(this);
+				jmxRegistration = new JmxRegistration(this, metrics);
 			}
 		} catch (final Exception e) {
 			logger.logExeption(e);
@@ -133,10 +187,19 @@ public class Agent implements IAgent {
 	 */
 	public void shutdown() {
 		try {
+			if (periodicDumper != null) {
+				periodicDumper.shutdown();
+			}
+			if (metricsSampler != null) {
+				metricsSampler.shutdown();
+			}
 			if (options.getDumpOnExit()) {
 				output.writeExecutionData(false);
 			}
 			output.shutdown();
+			if (profiler != null) {
+				profiler.writeFile();
+			}
 			if (jmxRegistration != null) {
 				jmxRegistration.call();
 			}
@@ -156,9 +219,15 @@ public class Agent implements IAgent {
 		case file:
 			return new FileOutput();
 		case tcpserver:
-			return new TcpServerOutput(logger);
+			return new TcpServerOutput(logger, metrics);
 		case tcpclient:
 			return new TcpClientOutput(logger);
+		case tcpcollector:
+			return new TcpCollectorOutput(logger);
+		case mmap:
+			return new MappedFileOutput(logger);
+		case chunkedfile:
+			return new ChunkedFileOutput();
 		case none:
 			return new NoneOutput();
 		default:
@@ -210,6 +279,9 @@ public class Agent implements IAgent {
 
 	public void dump(final boolean reset) throws IOException {
 		output.writeExecutionData(reset);
+		if (profiler != null) {
+			profiler.writeFile();
+		}
 	}
 
 }
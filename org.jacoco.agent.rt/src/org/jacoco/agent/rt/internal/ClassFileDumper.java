@@ -15,61 +15,172 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.jacoco.core.internal.data.CRC64;
 
 /**
- * Internal dumper for class files.
+ * Internal dumper for class files. If a logger is given, files are written by
+ * a background thread so class loading threads are not blocked by file system
+ * operations. All dumpers share one background thread, which writes the
+ * pending files before the VM terminates. Classes dumped after that point are
+ * written synchronously.
  */
 class ClassFileDumper {
 
+	private static final long SHUTDOWN_TIMEOUT = 10000;
+
 	private final File location;
 
+	private final IExceptionLogger logger;
+
+	private final Executor executor;
+
 	/**
-	 * Create a new dumper for the given location.
+	 * Create a new dumper for the given location which writes files
+	 * synchronously.
 	 * 
 	 * @param location
 	 *            relative path to dump directory. <code>null</code> if no dumps
 	 *            should be written
 	 */
 	ClassFileDumper(final String location) {
+		this(location, null);
+	}
+
+	/**
+	 * Create a new dumper for the given location.
+	 * 
+	 * @param location
+	 *            relative path to dump directory. <code>null</code> if no dumps
+	 *            should be written
+	 * @param logger
+	 *            logger for exceptions while writing files or
+	 *            <code>null</code> to write files synchronously
+	 */
+	ClassFileDumper(final String location, final IExceptionLogger logger) {
+		this(location, logger, location == null || logger == null ? null
+				: BackgroundWriter.EXECUTOR);
+	}
+
+	/**
+	 * Create a new dumper for the given location which writes files with the
+	 * given executor.
+	 * 
+	 * @param location
+	 *            relative path to dump directory. <code>null</code> if no dumps
+	 *            should be written
+	 * @param logger
+	 *            logger for exceptions while writing files
+	 * @param executor
+	 *            executor for writing files or <code>null</code> to write
+	 *            files synchronously
+	 */
+	ClassFileDumper(final String location, final IExceptionLogger logger,
+			final Executor executor) {
+		this.logger = logger;
 		if (location == null) {
 			this.location = null;
 		} else {
 			this.location = new File(location);
 		}
+		this.executor = executor;
 	}
 
 	/**
 	 * Dumps the given binary content under the given name if a non-
-	 * <code>null</code> location has been specified.
+	 * <code>null</code> location has been specified. In background mode the
+	 * content is copied and the file is written later, exceptions are only
+	 * logged then.
 	 * 
 	 * @param name
 	 *            qualified class name in VM notation
 	 * @param contents
 	 *            binary contents
 	 * @throws IOException
-	 *             in case of problems while dumping the file
+	 *             in case of problems while dumping the file synchronously
 	 */
 	void dump(final String name, final byte[] contents) throws IOException {
-		if (location != null) {
-			final File outputdir;
-			final String localname;
-			final int pkgpos = name.lastIndexOf('/');
-			if (pkgpos != -1) {
-				outputdir = new File(location, name.substring(0, pkgpos));
-				localname = name.substring(pkgpos + 1);
-			} else {
-				outputdir = location;
-				localname = name;
+		if (location == null) {
+			return;
+		}
+		if (executor == null) {
+			write(name, contents);
+			return;
+		}
+		final byte[] copy = contents.clone();
+		final Runnable task = new Runnable() {
+			public void run() {
+				try {
+					write(name, copy);
+				} catch (final IOException e) {
+					logger.logExeption(e);
+				}
 			}
-			outputdir.mkdirs();
-			final Long id = Long.valueOf(CRC64.classId(contents));
-			final File file = new File(outputdir, String.format(
-					"%s.%016x.class", localname, id));
-			final OutputStream out = new FileOutputStream(file);
-			out.write(contents);
-			out.close();
+		};
+		try {
+			executor.execute(task);
+		} catch (final RejectedExecutionException e) {
+			// The background thread has been stopped at VM shutdown:
+			task.run();
+		}
+	}
+
+	private void write(final String name, final byte[] contents)
+			throws IOException {
+		final File outputdir;
+		final String localname;
+		final int pkgpos = name.lastIndexOf('/');
+		if (pkgpos != -1) {
+			outputdir = new File(location, name.substring(0, pkgpos));
+			localname = name.substring(pkgpos + 1);
+		} else {
+			outputdir = location;
+			localname = name;
+		}
+		outputdir.mkdirs();
+		final Long id = Long.valueOf(CRC64.classId(contents));
+		final File file = new File(outputdir, String.format("%s.%016x.class",
+				localname, id));
+		final OutputStream out = new FileOutputStream(file);
+		out.write(contents);
+		out.close();
+	}
+
+	/**
+	 * Single background thread for all dumpers, created when the first
+	 * dumper writes in background.
+	 */
+	private static class BackgroundWriter {
+
+		static final ExecutorService EXECUTOR = Executors
+				.newSingleThreadExecutor(new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r);
+						thread.setName(ClassFileDumper.class.getName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		static {
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					EXECUTOR.shutdown();
+					try {
+						EXECUTOR.awaitTermination(SHUTDOWN_TIMEOUT,
+								TimeUnit.MILLISECONDS);
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
 		}
 	}
 
@@ -23,6 +23,10 @@ import org.jacoco.core.runtime.WildcardMatcher;
 
 /**
  * Class file transformer to instrument classes for code coverage analysis.
+ * Instances are called concurrently by parallel capable class loaders: the
+ * transformation only reads immutable configuration, the shared
+ * {@link Instrumenter} creates all ASM objects per class, metrics are updated
+ * with striped counters and class files are dumped by a background thread.
  */
 public class CoverageTransformer implements ClassFileTransformer {
 
@@ -49,6 +53,8 @@ public class CoverageTransformer implements ClassFileTransformer {
 
 	private final boolean inclNoLocationClasses;
 
+	private final InstrumentationMetrics metrics;
+
 	/**
 	 * New transformer with the given delegates.
 	 * 
@@ -61,13 +67,60 @@ public class CoverageTransformer implements ClassFileTransformer {
 	 */
 	public CoverageTransformer(final IRuntime runtime,
 			final AgentOptions options, final IExceptionLogger logger) {
+		this(runtime, options, logger, new InstrumentationMetrics());
+	}
+
+	/**
+	 * New transformer with the given delegates which reports to the given
+	 * metrics.
+	 * 
+	 * @param runtime
+	 *            coverage runtime
+	 * @param options
+	 *            configuration options for the generator
+	 * @param logger
+	 *            logger for exceptions during instrumentation
+	 * @param metrics
+	 *            metrics to update for every transformation
+	 */
+	public CoverageTransformer(final IRuntime runtime,
+			final AgentOptions options, final IExceptionLogger logger,
+			final InstrumentationMetrics metrics) {
+		this(runtime, options, logger, metrics, null);
+	}
+
+	/**
+	 * New transformer with the given delegates which reports to the given
+	 * metrics and profiler.
+	 * 
+	 * @param runtime
+	 *            coverage runtime
+	 * @param options
+	 *            configuration options for the generator
+	 * @param logger
+	 *            logger for exceptions during instrumentation
+	 * @param metrics
+	 *            metrics to update for every transformation
+	 * @param profiler
+	 *            profiler to record the cost of every instrumented class or
+	 *            <code>null</code>
+	 */
+	public CoverageTransformer(final IRuntime runtime,
+			final AgentOptions options, final IExceptionLogger logger,
+			final InstrumentationMetrics metrics,
+			final InstrumentationProfiler profiler) {
+		this.metrics = metrics;
 		this.instrumenter = new Instrumenter(runtime);
+		this.instrumenter
+				.setConditionalProbes(options.getConditionalProbes());
+		this.instrumenter.setInstrumentationListener(profiler);
 		this.logger = logger;
 		// Class names will be reported in VM notation:
 		includes = new WildcardMatcher(toVMName(options.getIncludes()));
 		excludes = new WildcardMatcher(toVMName(options.getExcludes()));
 		exclClassloader = new WildcardMatcher(options.getExclClassloader());
-		classFileDumper = new ClassFileDumper(options.getClassDumpDir());
+		classFileDumper = new ClassFileDumper(options.getClassDumpDir(),
+				logger);
 		inclBootstrapClasses = options.getInclBootstrapClasses();
 		inclNoLocationClasses = options.getInclNoLocationClasses();
 	}
@@ -76,6 +129,20 @@ public class CoverageTransformer implements ClassFileTransformer {
 			final Class<?> classBeingRedefined,
 			final ProtectionDomain protectionDomain,
 			final byte[] classfileBuffer) throws IllegalClassFormatException {
+		final long start = System.nanoTime();
+		try {
+			return transformClass(loader, classname, classBeingRedefined,
+					protectionDomain, classfileBuffer);
+		} finally {
+			metrics.transformed(System.nanoTime() - start);
+		}
+	}
+
+	private byte[] transformClass(final ClassLoader loader,
+			final String classname,
+			final Class<?> classBeingRedefined,
+			final ProtectionDomain protectionDomain,
+			final byte[] classfileBuffer) throws IllegalClassFormatException {
 
 		// We do not support class retransformation:
 		if (classBeingRedefined != null) {
@@ -86,10 +153,16 @@ public class CoverageTransformer implements ClassFileTransformer {
 			return null;
 		}
 
+		final long instrumentationStart = System.nanoTime();
 		try {
 			classFileDumper.dump(classname, classfileBuffer);
-			return instrumenter.instrument(classfileBuffer, classname);
+			final byte[] instrumented = instrumenter.instrument(
+					classfileBuffer, classname);
+			metrics.instrumented(System.nanoTime() - instrumentationStart);
+			return instrumented;
 		} catch (final Exception ex) {
+			metrics.instrumentationFailed(System.nanoTime()
+					- instrumentationStart);
 			final IllegalClassFormatException wrapper = new IllegalClassFormatException(
 					ex.getMessage());
 			wrapper.initCause(ex);
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+/**
+ * MBean interface for the instrumentation metrics of the agent. All values are
+ * maintained incrementally or by the background sampler, reading them never
+ * inspects the probe arrays.
+ */
+public interface IInstrumentationMetrics {
+
+	/**
+	 * Returns the number of calls of the class file transformer.
+	 * 
+	 * @return number of transformer calls
+	 */
+	long getTransformCount();
+
+	/**
+	 * Returns the total time spent in the class file transformer, including
+	 * filtering and instrumentation.
+	 * 
+	 * @return time in milliseconds
+	 */
+	long getTransformTime();
+
+	/**
+	 * Returns the number of successfully instrumented classes.
+	 * 
+	 * @return number of instrumented classes
+	 */
+	long getClassesInstrumented();
+
+	/**
+	 * Returns the number of classes which could not be instrumented.
+	 * 
+	 * @return number of failures
+	 */
+	long getInstrumentationFailures();
+
+	/**
+	 * Returns the total time spent for instrumenting classes.
+	 * 
+	 * @return time in milliseconds
+	 */
+	long getInstrumentationTime();
+
+	/**
+	 * Returns the number of classes which have registered their probe arrays
+	 * with the runtime, i.e. which have been initialized.
+	 * 
+	 * @return number of registered classes
+	 */
+	long getClassesRegistered();
+
+	/**
+	 * Returns the total number of probes of all registered classes.
+	 * 
+	 * @return number of registered probes
+	 */
+	long getProbesRegistered();
+
+	/**
+	 * Returns the number of classes with at least one executed probe as of the
+	 * last sample.
+	 * 
+	 * @return number of classes or <code>-1</code> if no sample has been taken
+	 */
+	long getClassesHit();
+
+	/**
+	 * Returns the number of executed probes as of the last sample.
+	 * 
+	 * @return number of probes or <code>-1</code> if no sample has been taken
+	 */
+	long getProbesHit();
+
+	/**
+	 * Returns the ratio of executed probes to all registered probes as of the
+	 * last sample.
+	 * 
+	 * @return ratio between 0.0 and 1.0 or <code>-1.0</code> if no sample
+	 *         has been taken
+	 */
+	double getProbeHitRatio();
+
+	/**
+	 * Returns the time when the last sample has been taken.
+	 * 
+	 * @return time stamp in milliseconds or <code>0</code> if no sample has
+	 *         been taken
+	 */
+	long getLastSampleTime();
+
+}
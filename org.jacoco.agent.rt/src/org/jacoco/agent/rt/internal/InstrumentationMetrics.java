@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Instrumentation metrics of the agent. Counters are updated incrementally by
+ * the {@link CoverageTransformer} and by {@link MeteredRuntimeData} when
+ * classes register their probe arrays. Hit counts require to walk all probe
+ * arrays and are therefore only updated by {@link #sample(RuntimeData)},
+ * typically called by the {@link MetricsSampler}. All methods are thread
+ * safe.
+ */
+public class InstrumentationMetrics implements IInstrumentationMetrics {
+
+	private final StripedCounter transformCount = new StripedCounter();
+
+	private final StripedCounter transformNanos = new StripedCounter();
+
+	private final StripedCounter classesInstrumented = new StripedCounter();
+
+	private final StripedCounter instrumentationFailures = new StripedCounter();
+
+	private final StripedCounter instrumentationNanos = new StripedCounter();
+
+	private final StripedCounter classesRegistered = new StripedCounter();
+
+	private final StripedCounter probesRegistered = new StripedCounter();
+
+	private volatile Sample sample;
+
+	/**
+	 * Records a call of the class file transformer.
+	 * 
+	 * @param nanos
+	 *            time spent in the transformer in nanoseconds
+	 */
+	void transformed(final long nanos) {
+		transformCount.increment();
+		transformNanos.add(nanos);
+	}
+
+	/**
+	 * Records a successfully instrumented class.
+	 * 
+	 * @param nanos
+	 *            time spent for instrumentation in nanoseconds
+	 */
+	void instrumented(final long nanos) {
+		classesInstrumented.increment();
+		instrumentationNanos.add(nanos);
+	}
+
+	/**
+	 * Records a class which could not be instrumented.
+	 * 
+	 * @param nanos
+	 *            time spent for the failed instrumentation in nanoseconds
+	 */
+	void instrumentationFailed(final long nanos) {
+		instrumentationFailures.increment();
+		instrumentationNanos.add(nanos);
+	}
+
+	/**
+	 * Records a class which has registered its probe array with the runtime.
+	 * 
+	 * @param probeCount
+	 *            number of probes of the class
+	 */
+	void registered(final int probeCount) {
+		classesRegistered.increment();
+		probesRegistered.add(probeCount);
+	}
+
+	/**
+	 * Walks all probe arrays of the given runtime data and updates the hit
+	 * counts. The runtime data is locked while the probes are counted.
+	 * 
+	 * @param data
+	 *            runtime data to sample
+	 */
+	public void sample(final RuntimeData data) {
+		final Sample s = new Sample();
+		data.collect(s, s, false);
+		sample = s;
+	}
+
+	/**
+	 * Writes all metrics in a plain text format with one
+	 * <code>name value</code> pair per line.
+	 * 
+	 * @param out
+	 *            writer to write the metrics to
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeText(final Writer out) throws IOException {
+		write(out, "jacoco_transform_count", getTransformCount());
+		write(out, "jacoco_transform_time_ms", getTransformTime());
+		write(out, "jacoco_classes_instrumented", getClassesInstrumented());
+		write(out, "jacoco_instrumentation_failures",
+				getInstrumentationFailures());
+		write(out, "jacoco_instrumentation_time_ms",
+				getInstrumentationTime());
+		write(out, "jacoco_classes_registered", getClassesRegistered());
+		write(out, "jacoco_probes_registered", getProbesRegistered());
+		final Sample s = sample;
+		if (s != null) {
+			write(out, "jacoco_classes_hit", s.classesHit);
+			write(out, "jacoco_probes_hit", s.probesHit);
+			out.write("jacoco_probe_hit_ratio " + s.getRatio() + "\n");
+			write(out, "jacoco_last_sample_time", s.time);
+		}
+		out.flush();
+	}
+
+	private static void write(final Writer out, final String name,
+			final long value) throws IOException {
+		out.write(name + " " + value + "\n");
+	}
+
+	// === IInstrumentationMetrics ===
+
+	public long getTransformCount() {
+		return transformCount.sum();
+	}
+
+	public long getTransformTime() {
+		return TimeUnit.NANOSECONDS.toMillis(transformNanos.sum());
+	}
+
+	public long getClassesInstrumented() {
+		return classesInstrumented.sum();
+	}
+
+	public long getInstrumentationFailures() {
+		return instrumentationFailures.sum();
+	}
+
+	public long getInstrumentationTime() {
+		return TimeUnit.NANOSECONDS.toMillis(instrumentationNanos.sum());
+	}
+
+	public long getClassesRegistered() {
+		return classesRegistered.sum();
+	}
+
+	public long getProbesRegistered() {
+		return probesRegistered.sum();
+	}
+
+	public long getClassesHit() {
+		final Sample s = sample;
+		return s == null ? -1 : s.classesHit;
+	}
+
+	public long getProbesHit() {
+		final Sample s = sample;
+		return s == null ? -1 : s.probesHit;
+	}
+
+	public double getProbeHitRatio() {
+		final Sample s = sample;
+		return s == null ? -1.0 : s.getRatio();
+	}
+
+	public long getLastSampleTime() {
+		final Sample s = sample;
+		return s == null ? 0 : s.time;
+	}
+
+	/**
+	 * Hit counts of a single walk over all probe arrays.
+	 */
+	private static class Sample implements ISessionInfoVisitor,
+			IExecutionDataVisitor {
+
+		long time;
+
+		long classesHit;
+
+		long probesHit;
+
+		long probes;
+
+		public void visitSessionInfo(final SessionInfo info) {
+			time = info.getDumpTimeStamp();
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			final boolean[] p = data.getProbes();
+			int hits = 0;
+			for (final boolean hit : p) {
+				if (hit) {
+					hits++;
+				}
+			}
+			if (hits > 0) {
+				classesHit++;
+			}
+			probesHit += hits;
+			probes += p.length;
+		}
+
+		double getRatio() {
+			return probes == 0 ? 0.0 : (double) probesHit / probes;
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jacoco.core.instr.IInstrumentationListener;
+import org.jacoco.core.instr.InstrumentationCost;
+import org.jacoco.core.runtime.AgentOptions;
+
+/**
+ * Records the instrumentation cost of the most recently instrumented classes
+ * in a ring buffer. Recording is lock-free: every class claims the next slot
+ * with an atomic increment and older records are overwritten. This component
+ * uses the following agent options:
+ * <ul>
+ * <li>destfile</li>
+ * <li>profilesize</li>
+ * </ul>
+ * 
+ * The records are written as CSV to a file next to <code>destfile</code> with
+ * the suffix <code>-profile.csv</code>, e.g. <code>jacoco-profile.csv</code>.
+ */
+public class InstrumentationProfiler implements IInstrumentationListener {
+
+	private static final String PROFILE_SUFFIX = "-profile.csv";
+
+	private static final String HEADER = "CLASS,CLASS_ID,ORIGINAL_SIZE,INSTRUMENTED_SIZE,PROBES,TOTAL_NANOS,CLASS_ID_NANOS,STRATEGY_NANOS,PROBES_NANOS,WRITE_NANOS";
+
+	private final AtomicReferenceArray<InstrumentationCost> buffer;
+
+	private final AtomicLong next;
+
+	private final File file;
+
+	/**
+	 * Creates a new profiler as configured by the given options.
+	 * 
+	 * @param options
+	 *            agent options
+	 */
+	public InstrumentationProfiler(final AgentOptions options) {
+		this.buffer = new AtomicReferenceArray<InstrumentationCost>(
+				options.getProfileSize());
+		this.next = new AtomicLong();
+		final File destFile = new File(options.getDestfile())
+				.getAbsoluteFile();
+		final String name = destFile.getName();
+		final int dot = name.lastIndexOf('.');
+		final String baseName = dot > 0 ? name.substring(0, dot) : name;
+		this.file = new File(destFile.getParentFile(),
+				baseName + PROFILE_SUFFIX);
+	}
+
+	public void classInstrumented(final InstrumentationCost cost) {
+		final long slot = next.getAndIncrement();
+		buffer.set((int) (slot % buffer.length()), cost);
+	}
+
+	/**
+	 * Returns the number of classes which have been recorded so far, including
+	 * records which have already been overwritten.
+	 * 
+	 * @return number of recorded classes
+	 */
+	public long getRecordCount() {
+		return next.get();
+	}
+
+	/**
+	 * Returns the records currently contained in the ring buffer, oldest
+	 * first. Records added concurrently may or may not be included.
+	 * 
+	 * @return current records
+	 */
+	public List<InstrumentationCost> getRecords() {
+		final long end = next.get();
+		final long start = Math.max(0, end - buffer.length());
+		final List<InstrumentationCost> records = new ArrayList<InstrumentationCost>(
+				(int) (end - start));
+		for (long i = start; i < end; i++) {
+			final InstrumentationCost cost = buffer
+					.get((int) (i % buffer.length()));
+			// Slot might be claimed but not written yet:
+			if (cost != null) {
+				records.add(cost);
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Returns the file the profile is written to.
+	 * 
+	 * @return profile file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Writes the current records to the profile file. An existing file is
+	 * overwritten.
+	 * 
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public void writeFile() throws IOException {
+		final File folder = file.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final Writer out = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), "UTF-8"));
+		try {
+			writeCsv(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the current records in CSV format with a header line.
+	 * 
+	 * @param out
+	 *            writer to write the records to
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeCsv(final Writer out) throws IOException {
+		out.write(HEADER);
+		out.write('\n');
+		for (final InstrumentationCost cost : getRecords()) {
+			out.write(quote(cost.getClassName()));
+			out.write(String.format(",%016x,%s,%s,%s,%s,%s,%s,%s,%s\n",
+					Long.valueOf(cost.getClassId()),
+					Integer.valueOf(cost.getOriginalSize()),
+					Integer.valueOf(cost.getInstrumentedSize()),
+					Integer.valueOf(cost.getProbeCount()),
+					Long.valueOf(cost.getTotalNanos()),
+					Long.valueOf(cost.getClassIdNanos()),
+					Long.valueOf(cost.getStrategyNanos()),
+					Long.valueOf(cost.getProbesNanos()),
+					Long.valueOf(cost.getWriteNanos())));
+		}
+		out.flush();
+	}
+
+	private static String quote(final String value) {
+		if (value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+}
@@ -28,20 +28,28 @@ class JmxRegistration implements Callable<Void> {
 
 	private static final String JMX_NAME = "org.jacoco:type=Runtime";
 
+	private static final String METRICS_JMX_NAME = "org.jacoco:type=Metrics";
+
 	private final MBeanServer server;
 	private final ObjectName name;
+	private final ObjectName metricsName;
 
-	JmxRegistration(final IAgent agent) throws Exception {
+	JmxRegistration(final IAgent agent, final IInstrumentationMetrics metrics)
+			throws Exception {
 		server = ManagementFactory.getPlatformMBeanServer();
 		name = new ObjectName(JMX_NAME);
+		metricsName = new ObjectName(METRICS_JMX_NAME);
 		server.registerMBean(new StandardMBean(agent, IAgent.class), name);
+		server.registerMBean(new StandardMBean(metrics,
+				IInstrumentationMetrics.class), metricsName);
 	}
 
 	/**
-	 * De-register the agent again.
+	 * De-register the agent and its metrics again.
 	 */
 	public Void call() throws Exception {
 		server.unregisterMBean(name);
+		server.unregisterMBean(metricsName);
 		return null;
 	}
 
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Runtime data which reports every class registering its probe array for the
+ * first time to the {@link InstrumentationMetrics}. This only adds a lookup
+ * when a class is initialized, probe execution is not affected.
+ */
+class MeteredRuntimeData extends RuntimeData {
+
+	private final InstrumentationMetrics metrics;
+
+	/**
+	 * Creates a new runtime which reports to the given metrics.
+	 * 
+	 * @param metrics
+	 *            metrics to update
+	 */
+	MeteredRuntimeData(final InstrumentationMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public ExecutionData getExecutionData(final Long id, final String name,
+			final int probecount) {
+		synchronized (store) {
+			register(id.longValue(), probecount);
+			return super.getExecutionData(id, name, probecount);
+		}
+	}
+
+	@Override
+	public boolean[] getProbes(final long classid, final String name,
+			final int probecount) {
+		synchronized (store) {
+			register(classid, probecount);
+			return super.getProbes(classid, name, probecount);
+		}
+	}
+
+	private void register(final long id, final int probecount) {
+		if (store.get(id) == null) {
+			metrics.registered(probecount);
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Periodically updates the hit counts of the {@link InstrumentationMetrics} in
+ * a background thread. This component uses the following agent options:
+ * <ul>
+ * <li>metricsinterval</li>
+ * </ul>
+ */
+class MetricsSampler {
+
+	private static final long SHUTDOWN_TIMEOUT = 10000;
+
+	private final InstrumentationMetrics metrics;
+
+	private final RuntimeData data;
+
+	private final IExceptionLogger logger;
+
+	private final long interval;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Creates a new sampler for the given runtime data.
+	 * 
+	 * @param options
+	 *            agent options
+	 * @param metrics
+	 *            metrics to update
+	 * @param data
+	 *            runtime data to sample
+	 * @param logger
+	 *            logger for exceptions during sampling
+	 */
+	MetricsSampler(final AgentOptions options,
+			final InstrumentationMetrics metrics, final RuntimeData data,
+			final IExceptionLogger logger) {
+		this.metrics = metrics;
+		this.data = data;
+		this.logger = logger;
+		this.interval = TimeUnit.SECONDS.toMillis(options.getMetricsInterval());
+	}
+
+	/**
+	 * Starts the background thread which takes the samples.
+	 */
+	void startup() {
+		executor = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r);
+						thread.setName(MetricsSampler.class.getName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					metrics.sample(data);
+				} catch (final RuntimeException e) {
+					logger.logExeption(e);
+				}
+			}
+		}, 0, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops sampling.
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the current sample
+	 */
+	void shutdown() throws InterruptedException {
+		executor.shutdownNow();
+		executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+}
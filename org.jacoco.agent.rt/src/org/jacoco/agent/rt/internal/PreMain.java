@@ -59,7 +59,8 @@ public final class PreMain {
 
         runtime.startup(agent.getData());
 
-        inst.addTransformer(new CoverageTransformer(runtime, agentOptions, IExceptionLogger.SYSTEM_ERR));
+        inst.addTransformer(new CoverageTransformer(runtime, agentOptions, IExceptionLogger.SYSTEM_ERR,
+                agent.getMetrics(), agent.getProfiler()));
     }
 
     private static IRuntime createRuntime(final Instrumentation inst)
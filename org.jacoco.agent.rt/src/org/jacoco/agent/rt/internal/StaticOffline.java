@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.jacoco.agent.rt.IAgent;
+import org.jacoco.agent.rt.internal.output.FileOutput;
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * The API for classes instrumented in "offline" mode for the static runtime.
+ * Unlike {@link Offline} no agent is started when the first probe array is
+ * requested: the probes are kept in a plain {@link RuntimeData} instance and
+ * neither configuration, threads nor shutdown hooks are involved. Therefore
+ * instrumented classes can be initialized at build time of ahead-of-time
+ * compiled or class data sharing images and the probe arrays become part of
+ * the image.
+ * <p>
+ * Execution data has to be retrieved explicitly through the {@link IAgent}
+ * interface returned by {@link #getAgent()}, there is no dump on exit.
+ * </p>
+ */
+public final class StaticOffline implements IAgent {
+
+	private static final RuntimeData DATA = new RuntimeData();
+
+	private static final StaticOffline INSTANCE = new StaticOffline();
+
+	private static final String CONFIG_RESOURCE = "/jacoco-agent.properties";
+
+	private StaticOffline() {
+		// single instance
+	}
+
+	/**
+	 * API for offline instrumented classes.
+	 * 
+	 * @param classid
+	 *            class identifier
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @return probe array instance for this class
+	 */
+	public static boolean[] getProbes(final long classid,
+			final String classname, final int probecount) {
+		return DATA.getProbes(classid, classname, probecount);
+	}
+
+	/**
+	 * Returns the agent interface to access the execution data of the static
+	 * runtime.
+	 * 
+	 * @return agent instance
+	 */
+	public static IAgent getAgent() {
+		return INSTANCE;
+	}
+
+	// === IAgent Implementation ===
+
+	public String getVersion() {
+		return JaCoCo.VERSION;
+	}
+
+	public String getSessionId() {
+		return DATA.getSessionId();
+	}
+
+	public void setSessionId(final String id) {
+		DATA.setSessionId(id);
+	}
+
+	public void reset() {
+		DATA.reset();
+	}
+
+	public byte[] getExecutionData(final boolean reset) {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try {
+			final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
+			DATA.collect(writer, writer, reset);
+		} catch (final IOException e) {
+			// Must not happen with ByteArrayOutputStream
+			throw new AssertionError(e);
+		}
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Writes the execution data to the file given by the
+	 * <code>destfile</code> and <code>append</code> options. The options are
+	 * read from <code>jacoco-agent.properties</code> and system properties on
+	 * every call, other output modes are not supported.
+	 */
+	public void dump(final boolean reset) throws IOException {
+		final Properties config = ConfigLoader.load(CONFIG_RESOURCE,
+				System.getProperties());
+		final FileOutput output = new FileOutput();
+		output.startup(new AgentOptions(config), DATA);
+		output.writeExecutionData(reset);
+		output.shutdown();
+	}
+
+}
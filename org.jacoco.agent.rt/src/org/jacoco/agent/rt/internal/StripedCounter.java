@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter which is updated concurrently by many threads but read rarely. Every
+ * thread adds to one of several cells, so concurrent updates do not contend on
+ * the same memory location. Reading sums up all cells.
+ */
+class StripedCounter {
+
+	/** Number of longs between two cells to place them on own cache lines. */
+	private static final int PADDING = 8;
+
+	private final AtomicLongArray cells;
+
+	private final int mask;
+
+	/**
+	 * Creates a counter with a number of cells suitable for the available
+	 * processors.
+	 */
+	StripedCounter() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a counter for the given number of concurrently updating threads.
+	 * 
+	 * @param concurrency
+	 *            expected number of concurrently updating threads
+	 */
+	StripedCounter(final int concurrency) {
+		int stripes = 1;
+		while (stripes < concurrency) {
+			stripes <<= 1;
+		}
+		this.mask = stripes - 1;
+		this.cells = new AtomicLongArray(stripes * PADDING);
+	}
+
+	/**
+	 * Adds the given value.
+	 * 
+	 * @param delta
+	 *            value to add
+	 */
+	void add(final long delta) {
+		final int stripe = (int) Thread.currentThread().getId() & mask;
+		cells.getAndAdd(stripe * PADDING, delta);
+	}
+
+	/**
+	 * Increments the counter by one.
+	 */
+	void increment() {
+		add(1);
+	}
+
+	/**
+	 * Returns the sum of all values added so far. Updates which happen
+	 * concurrently may or may not be included.
+	 * 
+	 * @return current sum
+	 */
+	long sum() {
+		long sum = 0;
+		for (int i = 0; i < cells.length(); i += PADDING) {
+			sum += cells.get(i);
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.data.ChunkedExecutionDataWriter;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Local only agent output which appends every dump as a checksummed chunk to
+ * the file system, see {@link ChunkedExecutionDataWriter}. Only classes with
+ * probes which have not been written before are included in a dump, so
+ * periodic dumps of a long run do not rewrite the complete data. If the file
+ * ends with a chunk cut off by a killed process, it is truncated to the last
+ * intact chunk at startup. With a <code>dumpinterval</code> the periodic dumps
+ * are appended to the same file. This controller uses the following agent
+ * options:
+ * <ul>
+ * <li>destfile</li>
+ * <li>append</li>
+ * <li>dumpinterval</li>
+ * </ul>
+ */
+public class ChunkedFileOutput implements IAgentOutput {
+
+	private final Map<Long, boolean[]> written = new HashMap<Long, boolean[]>();
+
+	private RuntimeData data;
+
+	private File destFile;
+
+	public final void startup(final AgentOptions options, final RuntimeData data)
+			throws IOException {
+		this.data = data;
+		this.destFile = new File(options.getDestfile()).getAbsoluteFile();
+		final File folder = destFile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final RandomAccessFile file = openFile();
+		try {
+			final FileChannel channel = file.getChannel();
+			if (options.getAppend()) {
+				channel.truncate(ChunkedExecutionDataWriter.getIntactLength(
+						Channels.newInputStream(channel), channel.size()));
+			} else {
+				channel.truncate(0);
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	public synchronized void writeExecutionData(final boolean reset)
+			throws IOException {
+		// Copy the probes first to not block the application during file IO:
+		final ExecutionDataSnapshot snapshot = ExecutionDataSnapshot.take(data,
+				reset);
+		final Dump dump = new Dump();
+		snapshot.accept(dump, dump);
+		final RandomAccessFile file = openFile();
+		try {
+			final FileChannel channel = file.getChannel();
+			final boolean header = channel.size() == 0;
+			channel.position(channel.size());
+			final ChunkedExecutionDataWriter writer = new ChunkedExecutionDataWriter(
+					new BufferedOutputStream(Channels.newOutputStream(channel)),
+					header);
+			dump.accept(writer);
+			writer.flush();
+		} finally {
+			file.close();
+		}
+		dump.commit();
+	}
+
+	public void shutdown() throws IOException {
+		// Nothing to do
+	}
+
+	private RandomAccessFile openFile() throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(destFile, "rw");
+		// Avoid concurrent writes from different agents running in parallel:
+		file.getChannel().lock();
+		return file;
+	}
+
+	/**
+	 * Selects the classes of a snapshot with probes not written before.
+	 */
+	private class Dump implements ISessionInfoVisitor, IExecutionDataVisitor {
+
+		private final List<SessionInfo> sessionInfos = new ArrayList<SessionInfo>();
+
+		private final List<ExecutionData> dirty = new ArrayList<ExecutionData>();
+
+		public void visitSessionInfo(final SessionInfo info) {
+			sessionInfos.add(info);
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			final boolean[] probes = data.getProbes();
+			final boolean[] known = written.get(Long.valueOf(data.getId()));
+			if (known == null || known.length != probes.length) {
+				dirty.add(data);
+				return;
+			}
+			for (int i = 0; i < probes.length; i++) {
+				if (probes[i] && !known[i]) {
+					dirty.add(data);
+					return;
+				}
+			}
+		}
+
+		void accept(final ChunkedExecutionDataWriter writer) {
+			for (final SessionInfo info : sessionInfos) {
+				writer.visitSessionInfo(info);
+			}
+			for (final ExecutionData data : dirty) {
+				writer.visitClassExecution(data);
+			}
+		}
+
+		/**
+		 * Remembers the written probes after the chunk has been written
+		 * successfully.
+		 */
+		void commit() {
+			for (final ExecutionData data : dirty) {
+				final Long id = Long.valueOf(data.getId());
+				final boolean[] probes = data.getProbes();
+				final boolean[] known = written.get(id);
+				if (known == null || known.length != probes.length) {
+					written.put(id, probes.clone());
+				} else {
+					for (int i = 0; i < probes.length; i++) {
+						known[i] |= probes[i];
+					}
+				}
+			}
+		}
+	}
+
+}
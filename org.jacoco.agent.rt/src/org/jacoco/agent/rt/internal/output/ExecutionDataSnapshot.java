@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * In-memory copy of the execution data of a {@link RuntimeData} instance. The
+ * lock of the runtime data is only held while the probe arrays are copied, the
+ * snapshot can then be serialized without blocking the application.
+ */
+final class ExecutionDataSnapshot
+		implements ISessionInfoVisitor, IExecutionDataVisitor {
+
+	private final List<SessionInfo> sessionInfos = new ArrayList<SessionInfo>();
+
+	private final ExecutionDataStore executionData = new ExecutionDataStore();
+
+	private ExecutionDataSnapshot() {
+	}
+
+	/**
+	 * Creates a snapshot of the current execution data.
+	 * 
+	 * @param data
+	 *            runtime data to copy
+	 * @param reset
+	 *            if <code>true</code> the runtime data is cleared afterwards
+	 * @return new snapshot
+	 */
+	static ExecutionDataSnapshot take(final RuntimeData data,
+			final boolean reset) {
+		final ExecutionDataSnapshot snapshot = new ExecutionDataSnapshot();
+		data.collect(snapshot, snapshot, reset);
+		return snapshot;
+	}
+
+	/**
+	 * Adds the content of the given snapshot to this snapshot. Probes of the
+	 * same class are merged, session infos are kept.
+	 * 
+	 * @param other
+	 *            snapshot to add, must not be used afterwards
+	 */
+	void merge(final ExecutionDataSnapshot other) {
+		sessionInfos.addAll(other.sessionInfos);
+		other.executionData.accept(executionData);
+	}
+
+	/**
+	 * Writes the snapshot in exec file format to the given stream.
+	 * 
+	 * @param output
+	 *            stream to write to
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	void writeTo(final OutputStream output) throws IOException {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(output);
+		accept(writer, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Emits the content of this snapshot to the given visitors.
+	 * 
+	 * @param sessionInfoVisitor
+	 *            visitor for session infos
+	 * @param executionDataVisitor
+	 *            visitor for execution data
+	 */
+	void accept(final ISessionInfoVisitor sessionInfoVisitor,
+			final IExecutionDataVisitor executionDataVisitor) {
+		for (final SessionInfo info : sessionInfos) {
+			sessionInfoVisitor.visitSessionInfo(info);
+		}
+		executionData.accept(executionDataVisitor);
+	}
+
+	public void visitSessionInfo(final SessionInfo info) {
+		sessionInfos.add(info);
+	}
+
+	public void visitClassExecution(final ExecutionData data) {
+		// Probe arrays are still modified by the application or reset
+		// afterwards, therefore they need to be copied:
+		if (data.hasHits()) {
+			executionData.put(new ExecutionData(data.getId(), data.getName(),
+					data.getProbes().clone()));
+		}
+	}
+
+}
@@ -16,7 +16,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
-import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
 
@@ -50,10 +49,12 @@ public class FileOutput implements IAgentOutput {
 	}
 
 	public void writeExecutionData(final boolean reset) throws IOException {
+		// Copy the probes first to not block the application during file IO:
+		final ExecutionDataSnapshot snapshot = ExecutionDataSnapshot.take(data,
+				reset);
 		final OutputStream output = openFile();
 		try {
-			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
-			data.collect(writer, writer, reset);
+			snapshot.writeTo(output);
 		} finally {
 			output.close();
 		}
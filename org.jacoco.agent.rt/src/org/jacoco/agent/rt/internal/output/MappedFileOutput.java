@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.data.MappedExecutionDataWriter;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Output which publishes the probes in a memory mapped file. The region is
+ * updated in place in a fixed interval and on every dump, processes on the same
+ * host can read it at any time without interrupting the application.
+ */
+public class MappedFileOutput implements IAgentOutput {
+
+	/** Interval in milliseconds in which the region is updated. */
+	static final long UPDATE_INTERVAL = 1000;
+
+	private static final int INITIAL_SIZE = 1024 * 1024;
+
+	private static final long SHUTDOWN_TIMEOUT = 10000;
+
+	private final IExceptionLogger logger;
+
+	private RuntimeData data;
+
+	private MappedExecutionDataWriter writer;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * New output which will log errors to the given logger.
+	 *
+	 * @param logger
+	 *            logger for exceptions during periodic updates
+	 */
+	public MappedFileOutput(final IExceptionLogger logger) {
+		this.logger = logger;
+	}
+
+	public final void startup(final AgentOptions options, final RuntimeData data)
+			throws IOException {
+		this.data = data;
+		final File regionFile = new File(options.getDestfile())
+				.getAbsoluteFile();
+		final File folder = regionFile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		writer = new MappedExecutionDataWriter(regionFile, INITIAL_SIZE);
+		update(false);
+		executor = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r);
+						thread.setName(MappedFileOutput.class.getName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					update(false);
+				} catch (final RuntimeException e) {
+					logger.logExeption(e);
+				}
+			}
+		}, UPDATE_INTERVAL, UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	public void writeExecutionData(final boolean reset) {
+		update(reset);
+	}
+
+	public void shutdown() throws Exception {
+		executor.shutdownNow();
+		executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+		synchronized (this) {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Copies the current probes into the region. This happens while holding
+	 * the {@link RuntimeData} lock, but only involves memory writes.
+	 */
+	synchronized void update(final boolean reset) {
+		writer.beginUpdate();
+		try {
+			data.collect(writer, writer, reset);
+		} finally {
+			writer.endUpdate();
+		}
+	}
+
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Periodically dumps the current execution data to the file system,
+ * independently of the configured output. This allows to recover coverage
+ * data of processes which are killed without running shutdown hooks. This
+ * component uses the following agent options:
+ * <ul>
+ * <li>destfile</li>
+ * <li>dumpinterval</li>
+ * <li>dumpjitter</li>
+ * <li>dumpretention</li>
+ * </ul>
+ * <p>
+ * Dumps are written to a file next to <code>destfile</code> with the suffix
+ * <code>-dump</code> added to its base name, e.g. <code>jacoco-dump.exec</code>.
+ * If a retention is configured every dump gets its own file with a time stamp
+ * in its name, e.g. <code>jacoco-dump-20190123120000000.exec</code>. Files are
+ * first written completely to a temporary file which is then renamed, so
+ * readers never see partially written dumps.
+ * </p>
+ * <p>
+ * Alternatively the dumps can be passed to an agent output which persists
+ * incremental data itself, like {@link ChunkedFileOutput}. In this case no
+ * separate dump files are written.
+ * </p>
+ */
+public class PeriodicDumper {
+
+	private static final String DUMP_SUFFIX = "-dump";
+
+	private static final String TIMESTAMP_PATTERN = "yyyyMMddHHmmssSSS";
+
+	private static final long SHUTDOWN_TIMEOUT = 10000;
+
+	private final IExceptionLogger logger;
+
+	private final RuntimeData data;
+
+	private final IAgentOutput output;
+
+	private final File folder;
+
+	private final String baseName;
+
+	private final String extension;
+
+	private final long interval;
+
+	private final long jitter;
+
+	private final int retention;
+
+	private final Random random;
+
+	private final SimpleDateFormat timestampFormat;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Creates a new dumper for the given runtime data.
+	 * 
+	 * @param options
+	 *            agent options
+	 * @param data
+	 *            runtime data to dump
+	 * @param logger
+	 *            logger for exceptions during dumps
+	 */
+	public PeriodicDumper(final AgentOptions options, final RuntimeData data,
+			final IExceptionLogger logger) {
+		this(options, data, logger, null);
+	}
+
+	/**
+	 * Creates a new dumper which passes every dump to the given output.
+	 * 
+	 * @param options
+	 *            agent options
+	 * @param data
+	 *            runtime data to dump
+	 * @param logger
+	 *            logger for exceptions during dumps
+	 * @param output
+	 *            output to write the dumps to or <code>null</code> to write
+	 *            separate dump files
+	 */
+	public PeriodicDumper(final AgentOptions options, final RuntimeData data,
+			final IExceptionLogger logger, final IAgentOutput output) {
+		this.logger = logger;
+		this.data = data;
+		this.output = output;
+		final File destFile = new File(options.getDestfile())
+				.getAbsoluteFile();
+		this.folder = destFile.getParentFile();
+		final String name = destFile.getName();
+		final int dot = name.lastIndexOf('.');
+		if (dot > 0) {
+			this.baseName = name.substring(0, dot) + DUMP_SUFFIX;
+			this.extension = name.substring(dot);
+		} else {
+			this.baseName = name + DUMP_SUFFIX;
+			this.extension = "";
+		}
+		this.interval = TimeUnit.SECONDS.toMillis(options.getDumpInterval());
+		this.jitter = TimeUnit.SECONDS.toMillis(options.getDumpJitter());
+		this.retention = options.getDumpRetention();
+		this.random = new Random();
+		this.timestampFormat = new SimpleDateFormat(TIMESTAMP_PATTERN);
+	}
+
+	/**
+	 * Starts the background thread which performs the periodic dumps.
+	 */
+	public void startup() {
+		folder.mkdirs();
+		executor = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r);
+						thread.setName(PeriodicDumper.class.getName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		scheduleNext();
+	}
+
+	/**
+	 * Stops periodic dumps. A dump which is currently written is completed.
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the current dump
+	 */
+	public void shutdown() throws InterruptedException {
+		executor.shutdownNow();
+		executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+	private void scheduleNext() {
+		long delay = interval;
+		if (jitter > 0) {
+			delay += (long) (random.nextDouble() * jitter);
+		}
+		try {
+			executor.schedule(new Runnable() {
+				public void run() {
+					try {
+						if (output == null) {
+							dump(System.currentTimeMillis());
+						} else {
+							output.writeExecutionData(false);
+						}
+					} catch (final IOException e) {
+						logger.logExeption(e);
+					}
+					scheduleNext();
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (final RejectedExecutionException e) {
+			// already shut down
+		}
+	}
+
+	/**
+	 * Writes the current execution data to the dump file.
+	 * 
+	 * @param timestamp
+	 *            time stamp used for the file name if a retention is
+	 *            configured
+	 * @return file which has been written
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	File dump(final long timestamp) throws IOException {
+		final ExecutionDataSnapshot snapshot = ExecutionDataSnapshot.take(data,
+				false);
+		final File target;
+		if (retention > 0) {
+			target = new File(folder, baseName + "-"
+					+ timestampFormat.format(new Date(timestamp)) + extension);
+		} else {
+			target = new File(folder, baseName + extension);
+		}
+		final File temp = new File(folder, target.getName() + ".tmp");
+		try {
+			final FileOutputStream file = new FileOutputStream(temp);
+			try {
+				final BufferedOutputStream output = new BufferedOutputStream(
+						file);
+				snapshot.writeTo(output);
+				output.flush();
+				// Make sure the content is on disk before the file is visible:
+				file.getFD().sync();
+			} finally {
+				file.close();
+			}
+			rename(temp, target);
+		} catch (final IOException e) {
+			temp.delete();
+			throw e;
+		}
+		if (retention > 0) {
+			deleteExpiredDumps();
+		}
+		return target;
+	}
+
+	private static void rename(final File source, final File target)
+			throws IOException {
+		if (source.renameTo(target)) {
+			return;
+		}
+		// Some platforms do not allow to rename to existing files:
+		target.delete();
+		if (!source.renameTo(target)) {
+			throw new IOException(
+					"Unable to rename " + source + " to " + target);
+		}
+	}
+
+	private void deleteExpiredDumps() {
+		final String[] names = folder.list();
+		if (names == null) {
+			return;
+		}
+		final List<String> dumps = new ArrayList<String>();
+		for (final String name : names) {
+			if (isTimestampedDump(name)) {
+				dumps.add(name);
+			}
+		}
+		// Time stamps have a fixed length, so names sort chronologically:
+		Collections.sort(dumps);
+		for (int i = 0; i < dumps.size() - retention; i++) {
+			new File(folder, dumps.get(i)).delete();
+		}
+	}
+
+	private boolean isTimestampedDump(final String name) {
+		final String prefix = baseName + "-";
+		if (!name.startsWith(prefix) || !name.endsWith(extension)) {
+			return false;
+		}
+		final String timestamp = name.substring(prefix.length(),
+				name.length() - extension.length());
+		if (timestamp.length() != TIMESTAMP_PATTERN.length()) {
+			return false;
+		}
+		for (int i = 0; i < timestamp.length(); i++) {
+			if (!Character.isDigit(timestamp.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.LinkedList;
+import java.util.Random;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Output that delivers execution data to a central collector listening on a
+ * TCP port. In contrast to {@link TcpClientOutput} the connection is
+ * established in the background and re-established with exponential backoff
+ * whenever it is lost, so the collector does not need to be available when the
+ * application starts. Dumps are copied into a bounded queue and sent in batches
+ * as soon as a connection is available. If the queue is full new dumps are
+ * merged into the last queued one, so memory usage stays bounded without
+ * losing coverage information. This controller uses the following agent
+ * options:
+ * <ul>
+ * <li>address</li>
+ * <li>port</li>
+ * </ul>
+ */
+public class TcpCollectorOutput implements IAgentOutput {
+
+	/**
+	 * Maximum number of dumps waiting to be sent.
+	 */
+	static final int QUEUE_CAPACITY = 16;
+
+	private static final long INITIAL_RECONNECT_DELAY = 1000;
+
+	private static final long MAX_RECONNECT_DELAY = 60000;
+
+	private static final long SHUTDOWN_TIMEOUT = 5000;
+
+	private static final int CONNECT_TIMEOUT = 5000;
+
+	private final IExceptionLogger logger;
+
+	private final long initialReconnectDelay;
+
+	private final long maxReconnectDelay;
+
+	private final long shutdownTimeout;
+
+	private final Random random = new Random();
+
+	/** Pending dumps, also used as the lock for the fields below. */
+	private final LinkedList<ExecutionDataSnapshot> queue = new LinkedList<ExecutionDataSnapshot>();
+
+	private boolean sending;
+
+	private boolean shutdown;
+
+	private TcpConnection connection;
+
+	private AgentOptions options;
+
+	private RuntimeData data;
+
+	private Thread worker;
+
+	/**
+	 * New controller instance.
+	 * 
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 */
+	public TcpCollectorOutput(final IExceptionLogger logger) {
+		this(logger, INITIAL_RECONNECT_DELAY, MAX_RECONNECT_DELAY,
+				SHUTDOWN_TIMEOUT);
+	}
+
+	/**
+	 * New controller instance with custom timing.
+	 * 
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 * @param initialReconnectDelay
+	 *            delay in milliseconds before the first reconnect attempt
+	 * @param maxReconnectDelay
+	 *            upper bound in milliseconds for the reconnect delay
+	 * @param shutdownTimeout
+	 *            time in milliseconds to wait for pending dumps on shutdown
+	 */
+	TcpCollectorOutput(final IExceptionLogger logger,
+			final long initialReconnectDelay, final long maxReconnectDelay,
+			final long shutdownTimeout) {
+		this.logger = logger;
+		this.initialReconnectDelay = initialReconnectDelay;
+		this.maxReconnectDelay = maxReconnectDelay;
+		this.shutdownTimeout = shutdownTimeout;
+	}
+
+	public void startup(final AgentOptions options, final RuntimeData data) {
+		this.options = options;
+		this.data = data;
+		worker = new Thread(new Runnable() {
+			public void run() {
+				deliver();
+			}
+		});
+		worker.setName(getClass().getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	public void shutdown() throws Exception {
+		final TcpConnection con;
+		synchronized (queue) {
+			// Give pending dumps a chance to be delivered:
+			final long deadline = System.currentTimeMillis() + shutdownTimeout;
+			long remaining = shutdownTimeout;
+			while ((sending || !queue.isEmpty()) && remaining > 0) {
+				queue.wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+			shutdown = true;
+			con = connection;
+			queue.notifyAll();
+		}
+		if (con != null) {
+			con.close();
+		}
+		worker.join(shutdownTimeout);
+	}
+
+	public void writeExecutionData(final boolean reset) {
+		final ExecutionDataSnapshot snapshot = ExecutionDataSnapshot.take(data,
+				reset);
+		synchronized (queue) {
+			if (queue.size() < QUEUE_CAPACITY) {
+				queue.addLast(snapshot);
+			} else {
+				queue.getLast().merge(snapshot);
+			}
+			queue.notifyAll();
+		}
+	}
+
+	/**
+	 * Open a socket based on the given configuration.
+	 * 
+	 * @param options
+	 *            address and port configuration
+	 * @return opened socket
+	 * @throws IOException
+	 */
+	protected Socket createSocket(final AgentOptions options)
+			throws IOException {
+		final String address = options.getAddress();
+		final InetSocketAddress endpoint = address == null
+				? new InetSocketAddress(InetAddress.getByName(null),
+						options.getPort())
+				: new InetSocketAddress(address, options.getPort());
+		final Socket socket = new Socket();
+		socket.connect(endpoint, CONNECT_TIMEOUT);
+		return socket;
+	}
+
+	private void deliver() {
+		long delay = initialReconnectDelay;
+		while (!isShutdown()) {
+			TcpConnection con = null;
+			try {
+				con = new TcpConnection(createSocket(options), data);
+				con.init();
+				if (serve(con)) {
+					delay = initialReconnectDelay;
+				}
+			} catch (final IOException e) {
+				// Connection problems are expected while the collector is not
+				// available, only report failures of established connections:
+				if (con != null && !isShutdown()) {
+					logger.logExeption(e);
+				}
+			} finally {
+				if (con != null) {
+					closeQuietly(con);
+				}
+			}
+			// Randomize the delay to avoid connection storms when many agents
+			// wait for the same collector:
+			sleep(delay / 2 + (long) (random.nextDouble() * delay / 2));
+			delay = Math.min(delay * 2, maxReconnectDelay);
+		}
+	}
+
+	/**
+	 * Sends batches over the given connection until it is closed.
+	 * 
+	 * @return <code>true</code> if at least one batch has been delivered
+	 */
+	private boolean serve(final TcpConnection con) throws IOException {
+		synchronized (queue) {
+			if (shutdown) {
+				return false;
+			}
+			connection = con;
+		}
+		final Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					con.run();
+				} catch (final IOException e) {
+					if (!isShutdown()) {
+						logger.logExeption(e);
+					}
+				} finally {
+					synchronized (queue) {
+						queue.notifyAll();
+					}
+				}
+			}
+		});
+		reader.setName(getClass().getName());
+		reader.setDaemon(true);
+		reader.start();
+		boolean delivered = false;
+		try {
+			ExecutionDataSnapshot batch;
+			while ((batch = nextBatch(con)) != null) {
+				try {
+					con.writeSnapshot(batch);
+					delivered = true;
+				} catch (final IOException e) {
+					requeue(batch);
+					throw e;
+				} finally {
+					synchronized (queue) {
+						sending = false;
+						queue.notifyAll();
+					}
+				}
+			}
+		} finally {
+			synchronized (queue) {
+				connection = null;
+			}
+		}
+		return delivered;
+	}
+
+	/**
+	 * Waits for pending dumps and merges all of them into a single batch.
+	 * 
+	 * @return batch to send or <code>null</code> if the connection has been
+	 *         closed or the output is shut down
+	 */
+	private ExecutionDataSnapshot nextBatch(final TcpConnection con) {
+		synchronized (queue) {
+			while (queue.isEmpty() && !shutdown && !con.isClosed()) {
+				waitForQueue(0);
+			}
+			if (queue.isEmpty() || con.isClosed()) {
+				return null;
+			}
+			final ExecutionDataSnapshot batch = queue.removeFirst();
+			while (!queue.isEmpty()) {
+				batch.merge(queue.removeFirst());
+			}
+			sending = true;
+			return batch;
+		}
+	}
+
+	private void requeue(final ExecutionDataSnapshot batch) {
+		synchronized (queue) {
+			if (queue.isEmpty()) {
+				queue.addFirst(batch);
+			} else {
+				batch.merge(queue.removeFirst());
+				queue.addFirst(batch);
+			}
+		}
+	}
+
+	private void sleep(final long millis) {
+		synchronized (queue) {
+			final long deadline = System.currentTimeMillis() + millis;
+			long remaining = millis;
+			while (!shutdown && remaining > 0) {
+				waitForQueue(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+		}
+	}
+
+	private void waitForQueue(final long millis) {
+		try {
+			queue.wait(millis);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			shutdown = true;
+		}
+	}
+
+	private boolean isShutdown() {
+		synchronized (queue) {
+			return shutdown;
+		}
+	}
+
+	private static void closeQuietly(final TcpConnection con) {
+		try {
+			con.close();
+		} catch (final IOException e) {
+			// ignore
+		}
+	}
+
+}
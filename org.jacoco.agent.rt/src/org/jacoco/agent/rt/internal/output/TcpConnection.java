@@ -12,21 +12,33 @@
 package org.jacoco.agent.rt.internal.output;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PushbackInputStream;
 import java.net.Socket;
 import java.net.SocketException;
 
+import org.jacoco.agent.rt.internal.InstrumentationMetrics;
+import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.IRemoteCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 import org.jacoco.core.runtime.RuntimeData;
 
 /**
- * Handler for a single socket based remote connection.
+ * Handler for a single socket based remote connection. If metrics are given,
+ * a connection which starts with a line of text instead of the binary header
+ * receives the metrics in plain text and is closed afterwards.
  */
 class TcpConnection implements IRemoteCommandVisitor {
 
+	/** Maximum length of a plain text request which is consumed. */
+	private static final int MAX_TEXT_REQUEST = 1024;
+
 	private final RuntimeData data;
 
+	private final InstrumentationMetrics metrics;
+
 	private final Socket socket;
 
 	private RemoteControlWriter writer;
@@ -36,18 +48,50 @@ class TcpConnection implements IRemoteCommandVisitor {
 	private boolean initialized;
 
 	public TcpConnection(final Socket socket, final RuntimeData data) {
+		this(socket, data, null);
+	}
+
+	public TcpConnection(final Socket socket, final RuntimeData data,
+			final InstrumentationMetrics metrics) {
 		this.socket = socket;
 		this.data = data;
+		this.metrics = metrics;
 		this.initialized = false;
 	}
 
 	public void init() throws IOException {
+		InputStream in = socket.getInputStream();
+		if (metrics != null) {
+			final PushbackInputStream pushback = new PushbackInputStream(in);
+			final int first = pushback.read();
+			if (first != -1 && first != ExecutionDataWriter.BLOCK_HEADER) {
+				writeMetrics(pushback);
+				return;
+			}
+			if (first != -1) {
+				pushback.unread(first);
+			}
+			in = pushback;
+		}
 		this.writer = new RemoteControlWriter(socket.getOutputStream());
-		this.reader = new RemoteControlReader(socket.getInputStream());
+		this.reader = new RemoteControlReader(in);
 		this.reader.setRemoteCommandVisitor(this);
 		this.initialized = true;
 	}
 
+	private void writeMetrics(final InputStream in) throws IOException {
+		// Consume the request line, the first byte has already been read:
+		for (int i = 1; i < MAX_TEXT_REQUEST; i++) {
+			final int b = in.read();
+			if (b == -1 || b == '\n') {
+				break;
+			}
+		}
+		metrics.writeText(new OutputStreamWriter(socket.getOutputStream(),
+				"UTF-8"));
+		close();
+	}
+
 	/**
 	 * Processes all requests for this session until the socket is closed.
 	 * 
@@ -55,6 +99,9 @@ class TcpConnection implements IRemoteCommandVisitor {
 	 *             in case of problems whith the connection
 	 */
 	public void run() throws IOException {
+		if (!initialized) {
+			return;
+		}
 		try {
 			while (reader.read()) {
 			}
@@ -83,6 +130,31 @@ class TcpConnection implements IRemoteCommandVisitor {
 		}
 	}
 
+	/**
+	 * Sends the given snapshot followed by a confirmation to the remote end.
+	 * 
+	 * @param snapshot
+	 *            execution data to send
+	 * @throws IOException
+	 *             in case of problems whith the connection
+	 */
+	void writeSnapshot(final ExecutionDataSnapshot snapshot)
+			throws IOException {
+		synchronized (writer) {
+			snapshot.accept(writer, writer);
+			writer.sendCmdOk();
+		}
+	}
+
+	/**
+	 * Checks whether the underlying socket has been closed.
+	 * 
+	 * @return <code>true</code> if the socket is closed
+	 */
+	boolean isClosed() {
+		return socket.isClosed();
+	}
+
 	/**
 	 * Closes the underlying socket if not closed yet.
 	 * 
@@ -98,14 +170,17 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	public void visitDumpCommand(final boolean dump, final boolean reset)
 			throws IOException {
-		if (dump) {
-			data.collect(writer, writer, reset);
-		} else {
-			if (reset) {
-				data.reset();
+		// Remote commands and local dumps use different threads:
+		synchronized (writer) {
+			if (dump) {
+				data.collect(writer, writer, reset);
+			} else {
+				if (reset) {
+					data.reset();
+				}
 			}
+			writer.sendCmdOk();
 		}
-		writer.sendCmdOk();
 	}
 
 }
@@ -17,6 +17,7 @@ import java.net.ServerSocket;
 import java.net.UnknownHostException;
 
 import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.agent.rt.internal.InstrumentationMetrics;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
 
@@ -27,6 +28,10 @@ import org.jacoco.core.runtime.RuntimeData;
  * <li>address</li>
  * <li>port</li>
  * </ul>
+ * 
+ * If metrics are given, clients which send a line of text (e.g.
+ * <code>metrics</code>) instead of the binary protocol receive the agent
+ * metrics in plain text.
  */
 public class TcpServerOutput implements IAgentOutput {
 
@@ -34,6 +39,8 @@ public class TcpServerOutput implements IAgentOutput {
 
 	private final IExceptionLogger logger;
 
+	private final InstrumentationMetrics metrics;
+
 	private ServerSocket serverSocket;
 
 	private Thread worker;
@@ -45,7 +52,22 @@ public class TcpServerOutput implements IAgentOutput {
 	 *            logger to use in case of exceptions is spawned threads
 	 */
 	public TcpServerOutput(final IExceptionLogger logger) {
+		this(logger, null);
+	}
+
+	/**
+	 * New controller instance which also serves the given metrics.
+	 * 
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 * @param metrics
+	 *            metrics to serve to plain text requests or
+	 *            <code>null</code>
+	 */
+	public TcpServerOutput(final IExceptionLogger logger,
+			final InstrumentationMetrics metrics) {
 		this.logger = logger;
+		this.metrics = metrics;
 	}
 
 	public void startup(final AgentOptions options, final RuntimeData data)
@@ -57,7 +79,7 @@ public class TcpServerOutput implements IAgentOutput {
 					try {
 						synchronized (serverSocket) {
 							connection = new TcpConnection(
-									serverSocket.accept(), data);
+									serverSocket.accept(), data, metrics);
 						}
 						connection.init();
 						connection.run();
@@ -210,6 +210,71 @@ public class AbstractCoverageTask extends Task {
 		agentOptions.setJmx(jmx);
 	}
 
+	/**
+	 * Sets whether probes should only be written if they are not set yet.
+	 * 
+	 * @param conditionalProbes
+	 *            <code>true</code> if conditional probes should be enabled
+	 */
+	public void setConditionalprobes(final boolean conditionalProbes) {
+		agentOptions.setConditionalProbes(conditionalProbes);
+	}
+
+	/**
+	 * Sets the interval in seconds for periodic dumps.
+	 * 
+	 * @param interval
+	 *            interval in seconds or <code>0</code> to disable periodic
+	 *            dumps
+	 */
+	public void setDumpinterval(final int interval) {
+		agentOptions.setDumpInterval(interval);
+	}
+
+	/**
+	 * Sets the maximum random delay in seconds added to each periodic dump
+	 * interval.
+	 * 
+	 * @param jitter
+	 *            maximum delay in seconds
+	 */
+	public void setDumpjitter(final int jitter) {
+		agentOptions.setDumpJitter(jitter);
+	}
+
+	/**
+	 * Sets the number of periodic dump files which are retained.
+	 * 
+	 * @param retention
+	 *            number of files or <code>0</code> to write every periodic
+	 *            dump to the same file
+	 */
+	public void setDumpretention(final int retention) {
+		agentOptions.setDumpRetention(retention);
+	}
+
+	/**
+	 * Sets the interval in seconds in which executed probes are counted for
+	 * the instrumentation metrics.
+	 * 
+	 * @param interval
+	 *            interval in seconds or <code>0</code> to disable sampling
+	 */
+	public void setMetricsinterval(final int interval) {
+		agentOptions.setMetricsInterval(interval);
+	}
+
+	/**
+	 * Sets the number of most recently instrumented classes for which the
+	 * instrumentation cost is recorded.
+	 * 
+	 * @param size
+	 *            number of classes or <code>0</code> to disable recording
+	 */
+	public void setProfilesize(final int size) {
+		agentOptions.setProfileSize(size);
+	}
+
 	/**
 	 * Creates JVM argument to launch with the specified JaCoCo agent jar and
 	 * the current options
@@ -221,7 +286,9 @@ public class AbstractCoverageTask extends Task {
 	}
 
 	private AgentOptions prepareAgentOptions() {
-		if (OutputMode.file.equals(agentOptions.getOutput())) {
+		final OutputMode output = agentOptions.getOutput();
+		if (OutputMode.file.equals(output)
+				|| OutputMode.chunkedfile.equals(output)) {
 			agentOptions.setDestfile(destfile.getAbsolutePath());
 		}
 		return agentOptions;
@@ -39,6 +39,8 @@ public class InstrumentTask extends Task {
 
 	private boolean removesignatures = true;
 
+	private boolean staticruntime = false;
+
 	/**
 	 * Sets the location of the instrumented classes.
 	 * 
@@ -59,6 +61,17 @@ public class InstrumentTask extends Task {
 		this.removesignatures = removesignatures;
 	}
 
+	/**
+	 * Sets whether the instrumented classes should use the static runtime,
+	 * which does not start the agent.
+	 * 
+	 * @param staticruntime
+	 *            <code>true</code> if the static runtime should be used
+	 */
+	public void setStaticruntime(final boolean staticruntime) {
+		this.staticruntime = staticruntime;
+	}
+
 	/**
 	 * This task accepts any number of class file resources.
 	 * 
@@ -77,7 +90,7 @@ public class InstrumentTask extends Task {
 		}
 		int total = 0;
 		final Instrumenter instrumenter = new Instrumenter(
-				new OfflineInstrumentationAccessGenerator());
+				new OfflineInstrumentationAccessGenerator(staticruntime));
 		instrumenter.setRemoveSignatures(removesignatures);
 		final Iterator<?> resourceIterator = files.iterator();
 		while (resourceIterator.hasNext()) {
@@ -505,6 +505,21 @@ public class ReportTask extends Task {
 
 	private void loadExecutionData() {
 		final ExecFileLoader loader = new ExecFileLoader();
+		final List<File> files = getExecutionDataFiles();
+		if (files != null) {
+			for (final File file : files) {
+				log(format("Loading execution data file %s", file));
+			}
+			try {
+				loader.load(files, Runtime.getRuntime().availableProcessors());
+			} catch (final IOException e) {
+				throw new BuildException("Unable to read execution data files",
+						e, getLocation());
+			}
+			sessionInfoStore = loader.getSessionInfoStore();
+			executionDataStore = loader.getExecutionDataStore();
+			return;
+		}
 		for (final Iterator<?> i = executiondataElement.iterator(); i.hasNext();) {
 			final Resource resource = (Resource) i.next();
 			log(format("Loading execution data file %s", resource));
@@ -524,6 +539,23 @@ public class ReportTask extends Task {
 		executionDataStore = loader.getExecutionDataStore();
 	}
 
+	/**
+	 * @return the execution data files or <code>null</code> if not all
+	 *         resources are existing files, they are loaded one by one then
+	 */
+	private List<File> getExecutionDataFiles() {
+		final List<File> files = new ArrayList<File>();
+		for (final Iterator<?> i = executiondataElement.iterator(); i.hasNext();) {
+			final Object resource = i.next();
+			if (!(resource instanceof FileResource)
+					|| !((FileResource) resource).isExists()) {
+				return null;
+			}
+			files.add(((FileResource) resource).getFile());
+		}
+		return files;
+	}
+
 	private IReportVisitor createVisitor() throws IOException {
 		final List<IReportVisitor> visitors = new ArrayList<IReportVisitor>();
 		for (final FormatterElement f : formatters) {
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link Collect}.
+ */
+public class CollectTest extends CommandTestBase {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private volatile Exception exception;
+
+	@Test
+	public void should_print_usage_when_no_argument_is_given()
+			throws Exception {
+		execute("collect");
+		assertFailure();
+		assertContains("\"--destfile\"", err);
+		assertContains("java -jar jacococli.jar collect [--address <address>]",
+				err);
+	}
+
+	@Test
+	public void should_merge_execution_data_from_multiple_agents()
+			throws Exception {
+		final File execfile = new File(tmp.getRoot(), "jacoco.exec");
+		final int port = unusedPort();
+		final Thread collector = startCollector(execfile, port);
+
+		sendExecutionData(port, "agent1", 0);
+		sendExecutionData(port, "agent2", 1);
+		collector.join();
+
+		assertNull(exception);
+		assertOk();
+		assertNoOutput(err);
+		assertContains("[INFO] Collecting execution data on port " + port,
+				out);
+		assertContains("[INFO] Writing execution data of 2 sessions to "
+				+ execfile.getAbsolutePath(), out);
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(execfile);
+		assertEquals(2, loader.getSessionInfoStore().getInfos().size());
+		final boolean[] probes = loader.getExecutionDataStore()
+				.get(0x12345678L).getProbes();
+		assertTrue(probes[0]);
+		assertTrue(probes[1]);
+		assertTrue(!new File(execfile.getAbsolutePath() + ".tmp").exists());
+	}
+
+	@Test
+	public void should_collapse_sessions_of_same_agent() throws Exception {
+		final File execfile = new File(tmp.getRoot(), "jacoco.exec");
+		final int port = unusedPort();
+		final Thread collector = startCollector(execfile, port);
+
+		sendExecutionData(port, "agent1", 0);
+		sendExecutionData(port, "agent1", 1);
+		collector.join();
+
+		assertNull(exception);
+		assertOk();
+		assertContains("[INFO] Writing execution data of 1 sessions to "
+				+ execfile.getAbsolutePath(), out);
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(execfile);
+		assertEquals(1, loader.getSessionInfoStore().getInfos().size());
+		assertEquals(3, loader.getSessionInfoStore().getInfos().get(0)
+				.getDumpTimeStamp());
+	}
+
+	@Test
+	public void should_reject_dump_with_incompatible_execution_data()
+			throws Exception {
+		final File execfile = new File(tmp.getRoot(), "jacoco.exec");
+		final int port = unusedPort();
+		final Thread collector = startCollector(execfile, port);
+
+		// Both dumps on one connection to ensure the order:
+		final Socket socket = connect(port);
+		final RemoteControlWriter writer = new RemoteControlWriter(
+				socket.getOutputStream());
+		writer.visitSessionInfo(new SessionInfo("agent1", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(0x12345678L, "Foo", new boolean[] { true,
+						false }));
+		writer.sendCmdOk();
+		writer.visitSessionInfo(new SessionInfo("agent2", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(0x11111111L, "Bar", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(0x12345678L, "Other", new boolean[] { false,
+						true }));
+		writer.sendCmdOk();
+		socket.close();
+		collector.join();
+
+		assertNull(exception);
+		assertOk();
+		assertContains("[WARN] ", err);
+		assertContains(
+				"Different class names Foo and Other for id 0000000012345678.",
+				err);
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(execfile);
+		assertEquals(1, loader.getSessionInfoStore().getInfos().size());
+		assertNull(loader.getExecutionDataStore().get(0x11111111L));
+		assertTrue(loader.getExecutionDataStore().get(0x12345678L)
+				.getProbes()[0]);
+	}
+
+	private Thread startCollector(final File execfile, final int port) {
+		final Thread collector = new Thread() {
+			@Override
+			public void run() {
+				try {
+					execute("collect", "--destfile", execfile.getAbsolutePath(),
+							"--address", "localhost", "--port",
+							String.valueOf(port), "--interval", "1",
+							"--duration", "2");
+				} catch (Exception e) {
+					exception = e;
+				}
+			}
+		};
+		collector.start();
+		return collector;
+	}
+
+	private void sendExecutionData(final int port, final String sessionId,
+			final int probe) throws Exception {
+		final Socket socket = connect(port);
+		final RemoteControlWriter writer = new RemoteControlWriter(
+				socket.getOutputStream());
+		writer.visitSessionInfo(new SessionInfo(sessionId, 1, probe + 2));
+		final boolean[] probes = new boolean[2];
+		probes[probe] = true;
+		writer.visitClassExecution(
+				new ExecutionData(0x12345678L, "Foo", probes));
+		writer.sendCmdOk();
+		socket.close();
+	}
+
+	private Socket connect(final int port) throws Exception {
+		for (int i = 0; i < 100; i++) {
+			try {
+				return new Socket(InetAddress.getByName(null), port);
+			} catch (ConnectException e) {
+				Thread.sleep(10);
+			}
+		}
+		throw new ConnectException("Collector not started");
+	}
+
+	private int unusedPort() throws IOException {
+		final ServerSocket serverSocket = new ServerSocket(0, 0,
+				InetAddress.getByName(null));
+		final int port = serverSocket.getLocalPort();
+		serverSocket.close();
+		return port;
+	}
+
+}
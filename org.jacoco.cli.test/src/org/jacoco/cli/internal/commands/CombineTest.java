@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link Combine}.
+ */
+public class CombineTest extends CommandTestBase {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void should_print_usage_when_no_options_are_given()
+			throws Exception {
+		execute("combine");
+
+		assertFailure();
+		assertContains("\"--destfile\"", err);
+		assertContains("java -jar jacococli.jar combine [<execfiles> ...]",
+				err);
+	}
+
+	@Test
+	public void should_subtract_subsequent_exec_files() throws Exception {
+		File a = createExecFile("a", true, true, true);
+		File b = createExecFile("b", true, false, false);
+		File c = createExecFile("c", false, true, false);
+		File dest = new File(tmp.getRoot(), "combined.exec");
+
+		execute("combine", "--operation", "DIFFERENCE", "--destfile",
+				dest.getAbsolutePath(), a.getAbsolutePath(),
+				b.getAbsolutePath(), c.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Writing execution data to "
+				+ dest.getAbsolutePath(), out);
+		ExecutionDataStore store = loadExecFile(dest);
+		assertTrue(Arrays.equals(new boolean[] { false, false, true },
+				store.get(1).getProbes()));
+	}
+
+	@Test
+	public void should_intersect_exec_files() throws Exception {
+		File a = createExecFile("a", true, true, false);
+		File b = createExecFile("b", false, true, true);
+		File dest = new File(tmp.getRoot(), "combined.exec");
+
+		execute("combine", "--operation", "INTERSECTION", "--destfile",
+				dest.getAbsolutePath(), a.getAbsolutePath(),
+				b.getAbsolutePath());
+
+		assertOk();
+		ExecutionDataStore store = loadExecFile(dest);
+		assertTrue(Arrays.equals(new boolean[] { false, true, false },
+				store.get(1).getProbes()));
+		assertEquals(1, store.getContents().size());
+	}
+
+	private File createExecFile(String name, boolean... probes)
+			throws IOException {
+		File file = new File(tmp.getRoot(), name + ".exec");
+		final FileOutputStream execout = new FileOutputStream(file);
+		ExecutionDataWriter writer = new ExecutionDataWriter(execout);
+		writer.visitClassExecution(new ExecutionData(1, "Foo", probes));
+		execout.close();
+		return file;
+	}
+
+	private ExecutionDataStore loadExecFile(File file) throws IOException {
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(file);
+		return loader.getExecutionDataStore();
+	}
+
+}
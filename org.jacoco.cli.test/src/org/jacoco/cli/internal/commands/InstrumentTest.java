@@ -12,6 +12,7 @@
 package org.jacoco.cli.internal.commands;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -26,6 +27,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.JaCoCo;
 import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.junit.Rule;
@@ -34,6 +36,7 @@ import org.junit.rules.TemporaryFolder;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
 
 /**
  * Unit tests for {@link Instrument}.
@@ -63,7 +66,7 @@ public class InstrumentTest extends CommandTestBase {
 				getClassPath());
 
 		assertOk();
-		assertContains("[INFO] 14 classes instrumented to "
+		assertContains("[INFO] 22 classes instrumented to "
 				+ destdir.getAbsolutePath(), out);
 
 		// non class-file resources are copied:
@@ -92,6 +95,24 @@ public class InstrumentTest extends CommandTestBase {
 		assertInstrumented(new File(destdir, "InstrumentTest.class"));
 	}
 
+	@Test
+	public void should_use_static_runtime_when_requested() throws Exception {
+		File destdir = tmp.getRoot();
+
+		File src = new File(getClassPath(),
+				"org/jacoco/cli/internal/commands/InstrumentTest.class");
+
+		execute("instrument", "--staticruntime", "--dest",
+				destdir.getAbsolutePath(), src.getAbsolutePath());
+
+		assertOk();
+		final Set<String> runtimes = getRuntimeClasses(
+				new File(destdir, "InstrumentTest.class"));
+		assertEquals(1, runtimes.size());
+		assertEquals(JaCoCo.RUNTIMEPACKAGE.replace('.', '/') + "/StaticOffline",
+				runtimes.iterator().next());
+	}
+
 	@Test
 	public void should_not_instrument_anything_when_no_source_is_given()
 			throws Exception {
@@ -150,4 +171,28 @@ public class InstrumentTest extends CommandTestBase {
 		assertTrue(fields.contains("$jacocoData"));
 	}
 
+	private Set<String> getRuntimeClasses(File classfile) throws IOException {
+		InputStream in = new FileInputStream(classfile);
+		final ClassReader reader = InstrSupport
+				.classReaderFor(InputStreams.readFully(in));
+		in.close();
+		final Set<String> owners = new HashSet<String>();
+		reader.accept(new ClassVisitor(InstrSupport.ASM_API_VERSION) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name,
+					String desc, String signature, String[] exceptions) {
+				return new MethodVisitor(InstrSupport.ASM_API_VERSION) {
+					@Override
+					public void visitMethodInsn(int opcode, String owner,
+							String name, String desc, boolean itf) {
+						if ("getProbes".equals(name)) {
+							owners.add(owner);
+						}
+					}
+				};
+			}
+		}, 0);
+		return owners;
+	}
+
 }
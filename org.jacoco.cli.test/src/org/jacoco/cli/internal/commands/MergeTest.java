@@ -12,18 +12,26 @@
 package org.jacoco.cli.internal.commands;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.jacoco.cli.internal.CommandTestBase;
 import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.junit.Rule;
 import org.junit.Test;
@@ -74,6 +82,67 @@ public class MergeTest extends CommandTestBase {
 		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), names);
 	}
 
+	@Test
+	public void should_merge_exec_files_with_threads() throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File c = createExecFile("c");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--threads", "2", "--destfile",
+				dest.getAbsolutePath(), a.getAbsolutePath(),
+				b.getAbsolutePath(), c.getAbsolutePath());
+
+		assertOk();
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), names);
+	}
+
+	@Test
+	public void should_merge_exec_files_as_history() throws Exception {
+		File a = createDumpFile("a", 1000, true, false);
+		File b = createDumpFile("b", 2000, true, true);
+		File dest = new File(tmp.getRoot(), "history.exec");
+
+		execute("merge", "--history", "--destfile", dest.getAbsolutePath(),
+				a.getAbsolutePath(), b.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Writing execution data history to "
+				+ dest.getAbsolutePath(), out);
+		final List<boolean[]> probes = new ArrayList<boolean[]>();
+		final List<String> sessions = new ArrayList<String>();
+		final FileInputStream in = new FileInputStream(dest);
+		final ExecutionDataReader reader = new ExecutionDataReader(in);
+		reader.setSessionInfoVisitor(new ISessionInfoVisitor() {
+			public void visitSessionInfo(SessionInfo info) {
+				sessions.add(info.getId());
+			}
+		});
+		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+			public void visitClassExecution(ExecutionData data) {
+				probes.add(data.getProbes());
+			}
+		});
+		reader.read();
+		in.close();
+		assertEquals(Arrays.asList("a", "b"), sessions);
+		assertEquals(2, probes.size());
+		assertTrue(Arrays.equals(new boolean[] { true, false }, probes.get(0)));
+		assertTrue(Arrays.equals(new boolean[] { false, true }, probes.get(1)));
+	}
+
+	private File createDumpFile(String session, long time, boolean... probes)
+			throws IOException {
+		File file = new File(tmp.getRoot(), session + ".exec");
+		final FileOutputStream execout = new FileOutputStream(file);
+		ExecutionDataWriter writer = new ExecutionDataWriter(execout);
+		writer.visitSessionInfo(new SessionInfo(session, 0, time));
+		writer.visitClassExecution(new ExecutionData(1, "Foo", probes));
+		execout.close();
+		return file;
+	}
+
 	private File createExecFile(String name) throws IOException {
 		File file = new File(tmp.getRoot(), name + ".exec");
 		final FileOutputStream execout = new FileOutputStream(file);
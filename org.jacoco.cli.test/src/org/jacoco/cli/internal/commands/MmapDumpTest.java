@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.MappedExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MmapDump}.
+ */
+public class MmapDumpTest extends CommandTestBase {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void should_print_usage_when_no_arguments_are_given()
+			throws Exception {
+		execute("mmapdump");
+
+		assertFailure();
+		assertContains("\"--destfile\"", err);
+		assertContains("java -jar jacococli.jar mmapdump <regionfile>", err);
+	}
+
+	@Test
+	public void should_write_exec_file() throws Exception {
+		final File region = new File(tmp.getRoot(), "jacoco.mmap");
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				region, 1024);
+		writer.beginUpdate();
+		writer.visitSessionInfo(new SessionInfo("session", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(0x1234, "Foo", new boolean[] { true }));
+		writer.endUpdate();
+		final File dest = new File(tmp.getRoot(), "jacoco.exec");
+
+		execute("mmapdump", region.getAbsolutePath(), "--destfile",
+				dest.getAbsolutePath());
+		writer.close();
+
+		assertOk();
+		assertContains("[INFO] Reading coverage region "
+				+ region.getAbsolutePath(), out);
+		assertContains("[INFO] Writing execution data to "
+				+ dest.getAbsolutePath(), out);
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(dest);
+		assertEquals("session",
+				loader.getSessionInfoStore().getInfos().get(0).getId());
+		assertTrue(loader.getExecutionDataStore().get(0x1234).getProbes()[0]);
+	}
+
+}
@@ -14,11 +14,20 @@ package org.jacoco.cli.internal.commands;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Scanner;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.jacoco.cli.internal.CommandTestBase;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -56,7 +65,109 @@ public class ReportTest extends CommandTestBase {
 		execute("report", "--classfiles", getClassPath());
 
 		assertOk();
-		assertContains("[INFO] Analyzing 14 classes.", out);
+		assertContains("[INFO] Analyzing 22 classes.", out);
+	}
+
+	@Test
+	public void should_only_report_changed_lines_when_diff_is_provided()
+			throws Exception {
+		File diff = writeDiff("src/main/java/");
+
+		execute("report", "--classfiles", getClassPath(), "--diff",
+				diff.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Loading diff " + diff.getAbsolutePath(), out);
+		assertContains("[INFO] Analyzing 1 classes.", out);
+	}
+
+	@Test
+	public void should_use_diff_source_roots_when_provided()
+			throws Exception {
+		File diff = writeDiff("org.jacoco.cli/src/");
+
+		execute("report", "--classfiles", getClassPath(), "--diff",
+				diff.getAbsolutePath(), "--diffsourceroot", "other/src",
+				"--diffsourceroot", "org.jacoco.cli/src");
+
+		assertOk();
+		assertContains("[INFO] Analyzing 1 classes.", out);
+		assertContainsNot("[WARN] The diff does not match", out);
+	}
+
+	@Test
+	public void should_print_warning_when_diff_matches_no_source_file()
+			throws Exception {
+		File diff = writeDiff("org.jacoco.cli/src/");
+
+		execute("report", "--classfiles", getClassPath(), "--diff",
+				diff.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Analyzing 0 classes.", out);
+		assertContains(
+				"[WARN] The diff does not match any source file of the analyzed classes, check --diffsourceroot.",
+				out);
+	}
+
+	private File writeDiff(final String sourceRoot) throws IOException {
+		final String path = sourceRoot
+				+ "org/jacoco/cli/internal/commands/ReportTest.java";
+		File diff = new File(tmp.getRoot(), "changes.diff");
+		final Writer writer = new OutputStreamWriter(
+				new FileOutputStream(diff), "UTF-8");
+		writer.write("diff --git a/" + path + " b/" + path + "\n");
+		writer.write("--- a/" + path + "\n");
+		writer.write("+++ b/" + path + "\n");
+		// mark the whole file as new
+		writer.write("@@ -0,0 +1,1000 @@\n");
+		for (int i = 0; i < 1000; i++) {
+			writer.write("+\n");
+		}
+		writer.close();
+		return diff;
+	}
+
+	@Test
+	public void should_only_analyze_included_classes_of_directories()
+			throws Exception {
+		execute("report", "--classfiles", getClassPath(), "--includes",
+				"*.ReportTest:*.DumpTest");
+
+		assertOk();
+		assertContains("[INFO] Analyzing 2 classes.", out);
+	}
+
+	@Test
+	public void should_only_analyze_included_classes_of_jar_files()
+			throws Exception {
+		File jar = new File(tmp.getRoot(), "classes.jar");
+		final ZipOutputStream zip = new ZipOutputStream(
+				new FileOutputStream(jar));
+		addClass(zip, "org/jacoco/cli/internal/commands/ReportTest.class");
+		addClass(zip, "org/jacoco/cli/internal/commands/DumpTest.class");
+		addClass(zip, "org/jacoco/cli/internal/commands/DumpTest$1.class");
+		zip.close();
+
+		execute("report", "--classfiles", jar.getAbsolutePath(), "--excludes",
+				"*.DumpTest*", "--threads", "2");
+
+		assertOk();
+		assertContains("[INFO] Analyzing 1 classes.", out);
+	}
+
+	private void addClass(ZipOutputStream zip, String name)
+			throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		final InputStream in = new FileInputStream(
+				new File(getClassPath(), name));
+		final byte[] buffer = new byte[1024];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			zip.write(buffer, 0, len);
+		}
+		in.close();
+		zip.closeEntry();
 	}
 
 	@Test
@@ -126,6 +237,34 @@ public class ReportTest extends CommandTestBase {
 						.isFile());
 	}
 
+	@Test
+	public void should_show_history_in_html_report_when_history_option_is_provided()
+			throws Exception {
+		File exec = new File(tmp.getRoot(), "history.exec");
+		final FileOutputStream execout = new FileOutputStream(exec);
+		ExecutionDataWriter writer = new ExecutionDataWriter(execout);
+		writer.visitSessionInfo(new SessionInfo("session-1", 0, 1000));
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { true, false }));
+		writer.visitSessionInfo(new SessionInfo("session-2", 0, 2000));
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { true, true }));
+		execout.close();
+		File html = new File(tmp.getRoot(), "coverage");
+
+		execute("report", exec.getAbsolutePath(), "--classfiles",
+				getClassPath(), "--history", "--html", html.getAbsolutePath());
+
+		assertOk();
+		final Scanner scanner = new Scanner(
+				new File(html, "jacoco-sessions.html"), "UTF-8");
+		final String sessions = scanner.useDelimiter("\\A").next();
+		scanner.close();
+		assertTrue(sessions.contains(
+				"Probes executed for the first time in each session:"));
+		assertTrue(sessions.contains("session-2"));
+	}
+
 	@Test
 	public void should_use_all_values_when_multiple_classfiles_options_are_provided()
 			throws Exception {
@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RemoteControlReader;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>collect</code> command.
+ */
+public class Collect extends Command {
+
+	@Option(name = "--address", usage = "host name or ip address to listen on (default all interfaces)", metaVar = "<address>")
+	String address;
+
+	@Option(name = "--port", usage = "the port to listen on (default 6300)", metaVar = "<port>")
+	int port = AgentOptions.DEFAULT_PORT;
+
+	@Option(name = "--destfile", usage = "file to write merged execution data to", metaVar = "<path>", required = true)
+	File destfile;
+
+	@Option(name = "--interval", usage = "seconds between updates of the destination file (default 10)", metaVar = "<seconds>")
+	int interval = 10;
+
+	@Option(name = "--duration", usage = "seconds after which the collector terminates (default run until terminated)", metaVar = "<seconds>")
+	int duration = 0;
+
+	private static final long SHUTDOWN_TIMEOUT = 10;
+
+	private final Object lock = new Object();
+
+	private final ExecutionDataStore executionData = new ExecutionDataStore();
+
+	/** One merged session per agent, keyed by session id */
+	private final Map<String, SessionInfo> sessionInfos = new LinkedHashMap<String, SessionInfo>();
+
+	private final Set<Socket> connections = new HashSet<Socket>();
+
+	private boolean modified;
+
+	private volatile boolean terminated;
+
+	@Override
+	public String description() {
+		return "Collects execution data from JaCoCo agents running in 'tcpclient' or 'tcpcollector' output mode and merges it into a single file.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws Exception {
+		final InetAddress bindAddress = address == null ? null
+				: InetAddress.getByName(address);
+		final ServerSocket server = new ServerSocket(port, 0, bindAddress);
+		out.printf("[INFO] Collecting execution data on port %s.%n",
+				Integer.valueOf(server.getLocalPort()));
+		out.flush();
+
+		final ExecutorService handlers = Executors
+				.newCachedThreadPool(new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		final Thread writer = startWriter(server, out, err);
+		final CountDownLatch finished = new CountDownLatch(1);
+		if (duration == 0) {
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					terminate(server, writer);
+					try {
+						// Wait for the final update of the destination file:
+						finished.await(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+					} catch (final InterruptedException e) {
+						// exit anyway
+					}
+				}
+			});
+		}
+		try {
+			while (true) {
+				final Socket socket = server.accept();
+				handlers.execute(new Runnable() {
+					public void run() {
+						handle(socket, err);
+					}
+				});
+			}
+		} catch (final SocketException e) {
+			if (!terminated) {
+				throw e;
+			}
+		} finally {
+			handlers.shutdown();
+			closeConnections();
+			writer.join();
+		}
+		try {
+			write(out);
+		} finally {
+			finished.countDown();
+		}
+		return 0;
+	}
+
+	private Thread startWriter(final ServerSocket server,
+			final PrintWriter out, final PrintWriter err) {
+		final Thread writer = new Thread() {
+			@Override
+			public void run() {
+				final long start = System.currentTimeMillis();
+				final long end = duration > 0 ? start + 1000L * duration
+						: Long.MAX_VALUE;
+				long next = start + 1000L * interval;
+				while (!terminated) {
+					final long wait = Math.min(next, end)
+							- System.currentTimeMillis();
+					if (wait > 0) {
+						try {
+							Thread.sleep(wait);
+						} catch (final InterruptedException e) {
+							break;
+						}
+					}
+					final long now = System.currentTimeMillis();
+					if (now >= next) {
+						try {
+							write(out);
+						} catch (final IOException e) {
+							err.printf("[WARN] %s.%n", e.getMessage());
+							err.flush();
+						}
+						next = now + 1000L * interval;
+					}
+					if (now >= end) {
+						terminate(server, null);
+					}
+				}
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		return writer;
+	}
+
+	private void terminate(final ServerSocket server, final Thread writer) {
+		terminated = true;
+		if (writer != null) {
+			writer.interrupt();
+		}
+		try {
+			server.close();
+		} catch (final IOException e) {
+			// ignore
+		}
+	}
+
+	private void handle(final Socket socket, final PrintWriter err) {
+		synchronized (lock) {
+			if (terminated) {
+				close(socket);
+				return;
+			}
+			connections.add(socket);
+		}
+		try {
+			// Nothing is sent to the agents as they may close the connection
+			// right after their last dump, unread data would then reset it.
+			final RemoteControlReader reader = new RemoteControlReader(
+					socket.getInputStream());
+			final Merger merger = new Merger();
+			reader.setSessionInfoVisitor(merger);
+			reader.setExecutionDataVisitor(merger);
+			while (reader.read()) {
+				merger.commit();
+			}
+			merger.commit();
+		} catch (final IOException e) {
+			if (!terminated) {
+				warn(socket, e.getMessage() + ".", err);
+			}
+		} catch (final RuntimeException e) {
+			// e.g. incompatible execution data, the dump is not merged
+			warn(socket, e.getMessage(), err);
+		} finally {
+			synchronized (lock) {
+				connections.remove(socket);
+			}
+			close(socket);
+		}
+	}
+
+	private static void warn(final Socket socket, final String message,
+			final PrintWriter err) {
+		err.printf("[WARN] %s: %s%n", socket.getRemoteSocketAddress(),
+				message);
+		err.flush();
+	}
+
+	private void closeConnections() {
+		synchronized (lock) {
+			for (final Socket socket : connections) {
+				close(socket);
+			}
+			connections.clear();
+		}
+	}
+
+	private static void close(final Socket socket) {
+		try {
+			socket.close();
+		} catch (final IOException e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * Writes the merged execution data to the destination file if it has
+	 * changed. The data is serialized to memory first so agents are not
+	 * blocked during file IO. The content is written to a temporary file which
+	 * is then renamed, so readers never see a partially written file. On
+	 * platforms which can't rename to an existing file the old file is deleted
+	 * first, readers may then briefly find no file at all.
+	 */
+	private void write(final PrintWriter out) throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final int sessionCount;
+		synchronized (lock) {
+			if (!modified) {
+				return;
+			}
+			final ExecutionDataWriter dataWriter = new ExecutionDataWriter(
+					buffer);
+			for (final SessionInfo info : sessionInfos.values()) {
+				dataWriter.visitSessionInfo(info);
+			}
+			executionData.accept(dataWriter);
+			sessionCount = sessionInfos.size();
+			modified = false;
+		}
+		out.printf("[INFO] Writing execution data of %s sessions to %s.%n",
+				Integer.valueOf(sessionCount), destfile.getAbsolutePath());
+		out.flush();
+		final File folder = destfile.getAbsoluteFile().getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final File temp = new File(destfile.getAbsolutePath() + ".tmp");
+		final OutputStream output = new BufferedOutputStream(
+				new FileOutputStream(temp));
+		try {
+			buffer.writeTo(output);
+		} finally {
+			output.close();
+		}
+		if (!temp.renameTo(destfile)) {
+			destfile.delete();
+			if (!temp.renameTo(destfile)) {
+				throw new IOException("Unable to write " + destfile);
+			}
+		}
+	}
+
+	/**
+	 * Collects a single dump of an agent. The dump is only merged when it has
+	 * been received completely and all of its classes are compatible with the
+	 * execution data collected so far, so a rejected dump leaves no partial
+	 * data behind. Dumps with the same session id are collapsed into a single
+	 * session, so the number of sessions does not grow with every dump.
+	 */
+	private class Merger implements ISessionInfoVisitor, IExecutionDataVisitor {
+
+		private final List<SessionInfo> dumpSessions = new ArrayList<SessionInfo>();
+
+		private ExecutionDataStore dumpData = new ExecutionDataStore();
+
+		public void visitSessionInfo(final SessionInfo info) {
+			dumpSessions.add(info);
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			dumpData.put(data);
+		}
+
+		void commit() {
+			final List<SessionInfo> sessions = new ArrayList<SessionInfo>(
+					dumpSessions);
+			final ExecutionDataStore data = dumpData;
+			dumpSessions.clear();
+			dumpData = new ExecutionDataStore();
+			if (sessions.isEmpty() && data.getContents().isEmpty()) {
+				return;
+			}
+			synchronized (lock) {
+				for (final ExecutionData d : data.getContents()) {
+					final ExecutionData existing = executionData.get(d.getId());
+					if (existing != null) {
+						existing.assertCompatibility(d.getId(), d.getName(),
+								d.getProbes().length);
+					}
+				}
+				for (final SessionInfo info : sessions) {
+					addSession(info);
+				}
+				data.accept(executionData);
+				modified = true;
+			}
+		}
+
+		private void addSession(final SessionInfo info) {
+			final SessionInfo previous = sessionInfos.get(info.getId());
+			if (previous == null) {
+				sessionInfos.put(info.getId(), info);
+			} else {
+				sessionInfos.put(info.getId(),
+						new SessionInfo(info.getId(),
+								Math.min(previous.getStartTimeStamp(),
+										info.getStartTimeStamp()),
+								Math.max(previous.getDumpTimeStamp(),
+										info.getDumpTimeStamp())));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.tools.ExecFileCombiner;
+import org.jacoco.core.tools.ExecFileCombiner.Operation;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>combine</code> command.
+ */
+public class Combine extends Command {
+
+	@Argument(usage = "list of JaCoCo *.exec files to read, the first file is the initial result", metaVar = "<execfiles>")
+	List<File> execfiles = new ArrayList<File>();
+
+	@Option(name = "--operation", usage = "set operation applied to the probes of the current result and each subsequent exec file: UNION, INTERSECTION, DIFFERENCE or SYMMETRIC_DIFFERENCE", metaVar = "<op>", required = true)
+	Operation operation;
+
+	@Option(name = "--destfile", usage = "file to write the resulting execution data to", metaVar = "<path>", required = true)
+	File destfile;
+
+	@Override
+	public String description() {
+		return "Combines the probes of multiple exec files with a set operation, e.g. the coverage of one exec file minus the coverage of others.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws IOException {
+		final ExecFileCombiner combiner = new ExecFileCombiner();
+		if (execfiles.isEmpty()) {
+			out.println("[WARN] No execution data files provided.");
+		}
+		boolean first = true;
+		for (final File file : execfiles) {
+			out.printf("[INFO] Loading execution data file %s.%n",
+					file.getAbsolutePath());
+			combiner.apply(first ? Operation.UNION : operation, file);
+			first = false;
+		}
+		out.printf("[INFO] Writing execution data to %s.%n",
+				destfile.getAbsolutePath());
+		combiner.save(destfile);
+		return 0;
+	}
+
+}
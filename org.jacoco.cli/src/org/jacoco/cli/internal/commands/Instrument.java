@@ -39,6 +39,9 @@ public class Instrument extends Command {
 	@Argument(usage = "list of folder or files to instrument recusively", metaVar = "<sourcefiles>")
 	List<File> source = new ArrayList<File>();
 
+	@Option(name = "--staticruntime", usage = "use the static runtime which does not start the agent, execution data has to be dumped explicitly")
+	boolean staticruntime;
+
 	private Instrumenter instrumenter;
 
 	@Override
@@ -51,7 +54,7 @@ public class Instrument extends Command {
 			throws IOException {
 		final File absoluteDest = dest.getAbsoluteFile();
 		instrumenter = new Instrumenter(
-				new OfflineInstrumentationAccessGenerator());
+				new OfflineInstrumentationAccessGenerator(staticruntime));
 		int total = 0;
 		for (final File s : source) {
 			if (s.isFile()) {
@@ -11,13 +11,22 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.jacoco.cli.internal.Command;
+import org.jacoco.core.data.ExecutionDataHistory;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
@@ -33,6 +42,12 @@ public class Merge extends Command {
 	@Option(name = "--destfile", usage = "file to write merged execution data to", metaVar = "<path>", required = true)
 	File destfile;
 
+	@Option(name = "--threads", usage = "maximum number of threads to load the exec files (default is the number of processors)", metaVar = "<n>")
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	@Option(name = "--history", usage = "keep the sessions of the chronologically ordered exec files and only store probes executed for the first time in each session")
+	boolean history;
+
 	@Override
 	public String description() {
 		return "Merges multiple exec files into a new one.";
@@ -41,6 +56,17 @@ public class Merge extends Command {
 	@Override
 	public int execute(final PrintWriter out, final PrintWriter err)
 			throws IOException {
+		if (history) {
+			if (execfiles.isEmpty()) {
+				out.println("[WARN] No execution data files provided.");
+			}
+			for (final File file : execfiles) {
+				out.printf("[INFO] Loading execution data file %s.%n",
+						file.getAbsolutePath());
+			}
+			writeHistory(loadHistory(execfiles), out);
+			return 0;
+		}
 		final ExecFileLoader loader = loadExecutionData(out);
 		out.printf("[INFO] Writing execution data to %s.%n",
 				destfile.getAbsolutePath());
@@ -57,10 +83,49 @@ public class Merge extends Command {
 			for (final File file : execfiles) {
 				out.printf("[INFO] Loading execution data file %s.%n",
 						file.getAbsolutePath());
-				loader.load(file);
 			}
+			loader.load(execfiles, threads);
 		}
 		return loader;
 	}
 
+	/**
+	 * Reads the given exec files in the given order into a history.
+	 */
+	static ExecutionDataHistory loadHistory(final List<File> files)
+			throws IOException {
+		final ExecutionDataHistory history = new ExecutionDataHistory();
+		for (final File file : files) {
+			final InputStream in = new BufferedInputStream(
+					new FileInputStream(file));
+			try {
+				final ExecutionDataReader reader = new ExecutionDataReader(in);
+				reader.setSessionInfoVisitor(history);
+				reader.setExecutionDataVisitor(history);
+				reader.read();
+			} finally {
+				in.close();
+			}
+		}
+		return history;
+	}
+
+	private void writeHistory(final ExecutionDataHistory history,
+			final PrintWriter out) throws IOException {
+		out.printf("[INFO] Writing execution data history to %s.%n",
+				destfile.getAbsolutePath());
+		final File folder = destfile.getAbsoluteFile().getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final OutputStream output = new BufferedOutputStream(
+				new FileOutputStream(destfile));
+		try {
+			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
+			history.accept(writer, writer);
+		} finally {
+			output.close();
+		}
+	}
+
 }
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.data.MappedExecutionDataReader;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>mmapdump</code> command.
+ */
+public class MmapDump extends Command {
+
+	@Argument(usage = "coverage region file of an agent in 'mmap' output mode", metaVar = "<regionfile>", required = true)
+	File regionfile;
+
+	@Option(name = "--destfile", usage = "file to write execution data to", metaVar = "<path>", required = true)
+	File destfile;
+
+	@Override
+	public String description() {
+		return "Reads the current coverage from the memory mapped file of an agent running in 'mmap' output mode and writes it to an exec file.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws IOException {
+		out.printf("[INFO] Reading coverage region %s.%n",
+				regionfile.getAbsolutePath());
+		final ExecFileLoader loader = new ExecFileLoader();
+		final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+				regionfile);
+		reader.setSessionInfoVisitor(loader.getSessionInfoStore());
+		reader.setExecutionDataVisitor(loader.getExecutionDataStore());
+		reader.read();
+		out.printf("[INFO] Writing execution data to %s.%n",
+				destfile.getAbsolutePath());
+		loader.save(destfile, false);
+		return 0;
+	}
+
+}
@@ -13,8 +13,10 @@
 package org.jacoco.cli.internal.commands;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -22,11 +24,15 @@ import java.util.List;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.ChangeSet;
+import org.jacoco.core.analysis.ChangedLinesCoverageVisitor;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ZipEntryFilter;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.UnifiedDiffParser;
 import org.jacoco.report.DirectorySourceFileLocator;
 import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.IReportVisitor;
@@ -50,9 +56,21 @@ public class Report extends Command {
 	@Option(name = "--classfiles", usage = "location of Java class files", metaVar = "<path>", required = true)
 	List<File> classfiles = new ArrayList<File>();
 
+	@Option(name = "--includes", usage = "class names to analyze in directories and JAR files, ':' separated list with wildcards * and ? (default *)", metaVar = "<pattern>")
+	String includes = "*";
+
+	@Option(name = "--excludes", usage = "class names to skip in directories and JAR files, ':' separated list with wildcards * and ?", metaVar = "<pattern>")
+	String excludes = "";
+
 	@Option(name = "--sourcefiles", usage = "location of the source files", metaVar = "<path>")
 	List<File> sourcefiles = new ArrayList<File>();
 
+	@Option(name = "--diff", usage = "unified diff, only changed lines are reported", metaVar = "<file>")
+	File diff;
+
+	@Option(name = "--diffsourceroot", usage = "source root of the paths in the diff, can be specified multiple times (default src/main/java, src/main/kotlin and src/main/groovy)", metaVar = "<path>")
+	List<String> diffsourceroots = new ArrayList<String>();
+
 	@Option(name = "--tabwith", usage = "tab stop width for the source pages (default 4)", metaVar = "<n>")
 	int tabwidth = 4;
 
@@ -71,6 +89,12 @@ public class Report extends Command {
 	@Option(name = "--html", usage = "output directory for the HTML report", metaVar = "<dir>")
 	File html;
 
+	@Option(name = "--threads", usage = "maximum number of threads to load the exec files and to analyze JAR files (default is the number of processors)", metaVar = "<n>")
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	@Option(name = "--history", usage = "show probes executed for the first time per session of the chronologically ordered exec files in the HTML report")
+	boolean history;
+
 	@Override
 	public String description() {
 		return "Generate reports in different formats by reading exec and Java class files.";
@@ -95,23 +119,82 @@ public class Report extends Command {
 			for (final File file : execfiles) {
 				out.printf("[INFO] Loading execution data file %s.%n",
 						file.getAbsolutePath());
-				loader.load(file);
 			}
+			loader.load(execfiles, threads);
 		}
 		return loader;
 	}
 
 	private IBundleCoverage analyze(final ExecutionDataStore data,
 			final PrintWriter out) throws IOException {
-		final CoverageBuilder builder = new CoverageBuilder();
-		final Analyzer analyzer = new Analyzer(data, builder);
+		// Only the XML and HTML reports contain line data of source files
+		final CoverageBuilder builder = new CoverageBuilder(
+				xml == null && html == null);
+		final Analyzer analyzer;
+		if (diff == null) {
+			analyzer = new Analyzer(data, builder);
+		} else {
+			final ChangeSet changeSet = loadChangeSet(out);
+			analyzer = new Analyzer(data,
+					new ChangedLinesCoverageVisitor(changeSet, builder),
+					changeSet);
+		}
+		final ZipEntryFilter filter = new ZipEntryFilter();
+		filter.setIncludes(includes);
+		filter.setExcludes(excludes);
 		for (final File f : classfiles) {
-			analyzer.analyzeAll(f);
+			analyze(analyzer, filter, f, null);
+		}
+		if (diff != null && builder.getClasses().isEmpty()) {
+			out.println(
+					"[WARN] The diff does not match any source file of the analyzed classes, check --diffsourceroot.");
 		}
 		printNoMatchWarning(builder.getNoMatchClasses(), out);
 		return builder.getBundle(name);
 	}
 
+	/**
+	 * Analyzes the given file or directory. Class files within directories are
+	 * selected by their path relative to the given class files location, class
+	 * files given directly are always analyzed.
+	 */
+	private void analyze(final Analyzer analyzer, final ZipEntryFilter filter,
+			final File file, final String path) throws IOException {
+		if (file.isDirectory()) {
+			final String prefix = path == null ? "" : path + "/";
+			for (final File child : file.listFiles()) {
+				analyze(analyzer, filter, child, prefix + child.getName());
+			}
+		} else if (isZipFile(file)) {
+			analyzer.analyzeZipFile(file, filter, threads);
+		} else if (path == null || !path.endsWith(".class")
+				|| filter.accept(path)) {
+			analyzer.analyzeAll(file);
+		}
+	}
+
+	private static boolean isZipFile(final File file) {
+		final String name = file.getName();
+		return name.endsWith(".jar") || name.endsWith(".war")
+				|| name.endsWith(".ear") || name.endsWith(".zip");
+	}
+
+	private ChangeSet loadChangeSet(final PrintWriter out) throws IOException {
+		out.printf("[INFO] Loading diff %s.%n", diff.getAbsolutePath());
+		final InputStreamReader reader = encoding == null
+				? new InputStreamReader(new FileInputStream(diff))
+				: new InputStreamReader(new FileInputStream(diff), encoding);
+		try {
+			final UnifiedDiffParser parser = new UnifiedDiffParser();
+			if (!diffsourceroots.isEmpty()) {
+				parser.setSourceRoots(diffsourceroots);
+			}
+			return parser.parse(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
 	private void printNoMatchWarning(final Collection<IClassCoverage> nomatch,
 			final PrintWriter out) {
 		if (!nomatch.isEmpty()) {
@@ -155,6 +238,10 @@ public class Report extends Command {
 
 		if (html != null) {
 			final HTMLFormatter formatter = new HTMLFormatter();
+			if (history) {
+				formatter.setExecutionDataHistory(
+						Merge.loadHistory(execfiles));
+			}
 			visitors.add(
 					formatter.createVisitor(new FileMultiReportOutput(html)));
 		}
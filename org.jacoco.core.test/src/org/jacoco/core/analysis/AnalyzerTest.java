@@ -30,13 +30,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarInputStream;
 import java.util.jar.Pack200;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.analysis.CounterImpl;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
@@ -44,6 +47,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -110,6 +115,76 @@ public class AnalyzerTest {
 		return cw.toByteArray();
 	}
 
+	@Test
+	public void should_skip_classes_without_changes() throws Exception {
+		final ChangeSet changeSet = new ChangeSet();
+		changeSet.addMethod("org/other/Bar", "a", null);
+		analyzer = new Analyzer(executionData, new EmptyStructureVisitor(),
+				changeSet);
+
+		analyzer.analyzeClass(createClassWithTwoMethods(), "");
+
+		assertTrue(classes.isEmpty());
+	}
+
+	@Test
+	public void should_only_analyze_changed_methods_with_stable_probe_ids()
+			throws Exception {
+		final byte[] bytes = createClassWithTwoMethods();
+		executionData.put(new ExecutionData(CRC64.classId(bytes),
+				"org/example/Foo", new boolean[] { false, true }));
+		final ChangeSet changeSet = new ChangeSet();
+		changeSet.addMethod("org/example/Foo", "b", "()V");
+		analyzer = new Analyzer(executionData, new EmptyStructureVisitor(),
+				changeSet);
+
+		analyzer.analyzeClass(bytes, "");
+
+		final IClassCoverage c = classes.get("org/example/Foo");
+		assertEquals(1, c.getMethods().size());
+		final IMethodCoverage m = c.getMethods().iterator().next();
+		assertEquals("b", m.getName());
+		// probe 1 belongs to b() although a() has not been analyzed
+		assertEquals(CounterImpl.COUNTER_0_1, m.getInstructionCounter());
+	}
+
+	@Test
+	public void should_analyze_methods_with_changed_lines() throws Exception {
+		final ChangeSet changeSet = new ChangeSet();
+		changeSet.addLines("org/example/Foo.java", 2, 2);
+		analyzer = new Analyzer(executionData, new EmptyStructureVisitor(),
+				changeSet);
+
+		analyzer.analyzeClass(createClassWithTwoMethods(), "");
+
+		final IClassCoverage c = classes.get("org/example/Foo");
+		assertEquals(1, c.getMethods().size());
+		assertEquals("b", c.getMethods().iterator().next().getName());
+	}
+
+	private static byte[] createClassWithTwoMethods() {
+		final ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_5, 0, "org/example/Foo", null,
+				"java/lang/Object", null);
+		cw.visitSource("Foo.java", null);
+		createMethod(cw, "a", 1);
+		createMethod(cw, "b", 2);
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void createMethod(final ClassWriter cw, final String name,
+			final int line) {
+		final MethodVisitor mv = cw.visitMethod(0, name, "()V", null, null);
+		mv.visitCode();
+		final Label label = new Label();
+		mv.visitLabel(label);
+		mv.visitLineNumber(line, label);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 1);
+		mv.visitEnd();
+	}
+
 	@Test
 	public void testAnalyzeClassFromStream() throws IOException {
 		analyzer.analyzeClass(TargetLoader.getClassData(AnalyzerTest.class),
@@ -131,7 +206,7 @@ public class AnalyzerTest {
 		final byte[] bytes = TargetLoader
 				.getClassDataAsBytes(AnalyzerTest.class);
 		executionData.get(Long.valueOf(CRC64.classId(bytes)),
-				"org/jacoco/core/analysis/AnalyzerTest", 200);
+				"org/jacoco/core/analysis/AnalyzerTest", 400);
 		analyzer.analyzeClass(bytes, "Test");
 		assertFalse(classes.get("org/jacoco/core/analysis/AnalyzerTest")
 				.isNoMatch());
@@ -140,7 +215,7 @@ public class AnalyzerTest {
 	@Test
 	public void testAnalyzeClassNoIdMatch() throws IOException {
 		executionData.get(Long.valueOf(0),
-				"org/jacoco/core/analysis/AnalyzerTest", 200);
+				"org/jacoco/core/analysis/AnalyzerTest", 400);
 		analyzer.analyzeClass(
 				TargetLoader.getClassDataAsBytes(AnalyzerTest.class), "Test");
 		assertTrue(classes.get("org/jacoco/core/analysis/AnalyzerTest")
@@ -382,6 +457,157 @@ public class AnalyzerTest {
 		}
 	}
 
+	@Test
+	public void testAnalyzeZipFile() throws IOException {
+		final File file = createZipFile();
+		final int count = analyzer.analyzeZipFile(file, null, 1);
+		assertEquals(3, count);
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest",
+				"org/jacoco/core/analysis/CoverageBuilderTest",
+				"org/jacoco/core/analysis/ZipEntryFilterTest");
+	}
+
+	@Test
+	public void testAnalyzeZipFile_Parallel() throws IOException {
+		final File file = createZipFile();
+		final int count = analyzer.analyzeZipFile(file, null, 4);
+		assertEquals(3, count);
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest",
+				"org/jacoco/core/analysis/CoverageBuilderTest",
+				"org/jacoco/core/analysis/ZipEntryFilterTest");
+	}
+
+	@Test
+	public void testAnalyzeZipFile_Filter() throws IOException {
+		final File file = createZipFile();
+		final ZipEntryFilter filter = new ZipEntryFilter();
+		filter.setExcludes("*.CoverageBuilderTest:*.ZipEntryFilterTest");
+		final int count = analyzer.analyzeZipFile(file, filter, 4);
+		assertEquals(1, count);
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest");
+	}
+
+	@Test
+	public void testAnalyzeZipFile_ExecutionDataFilter() throws IOException {
+		final File file = createZipFile();
+		executionData.put(new ExecutionData(0,
+				"org/jacoco/core/analysis/CoverageBuilderTest", new boolean[0]));
+		final ZipEntryFilter filter = new ZipEntryFilter();
+		filter.setExecutionData(executionData);
+		final int count = analyzer.analyzeZipFile(file, filter, 1);
+		assertEquals(1, count);
+		assertClasses("org/jacoco/core/analysis/CoverageBuilderTest");
+	}
+
+	@Test
+	public void testAnalyzeZipFile_Broken() throws IOException {
+		final File file = folder.newFile("broken.jar");
+		final ZipOutputStream zip = new ZipOutputStream(
+				new FileOutputStream(file));
+		zip.putNextEntry(
+				new ZipEntry("org/jacoco/core/analysis/AnalyzerTest.class"));
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		zip.write(brokenclass);
+		zip.putNextEntry(new ZipEntry(
+				"org/jacoco/core/analysis/CoverageBuilderTest.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(CoverageBuilderTest.class));
+		zip.close();
+
+		try {
+			analyzer.analyzeZipFile(file, null, 2);
+			fail("expected exception");
+		} catch (IOException e) {
+			assertEquals("Error while analyzing " + file.getPath()
+					+ "@org/jacoco/core/analysis/AnalyzerTest.class.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAnalyzeZipFile_BrokenWaitsForWorkers() throws Exception {
+		final File file = folder.newFile("broken.jar");
+		final ZipOutputStream zip = new ZipOutputStream(
+				new FileOutputStream(file));
+		zip.putNextEntry(
+				new ZipEntry("org/jacoco/core/analysis/AnalyzerTest.class"));
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		zip.write(brokenclass);
+		for (int i = 0; i < 200; i++) {
+			final ClassWriter cw = new ClassWriter(0);
+			cw.visit(Opcodes.V1_5, 0, "Foo" + i, null, "java/lang/Object",
+					null);
+			cw.visitEnd();
+			zip.putNextEntry(new ZipEntry("Foo" + i + ".class"));
+			zip.write(cw.toByteArray());
+		}
+		zip.close();
+		final AtomicInteger visits = new AtomicInteger();
+		analyzer = new Analyzer(executionData, new ICoverageVisitor() {
+			public void visitCoverage(IClassCoverage coverage) {
+				visits.incrementAndGet();
+			}
+		});
+
+		try {
+			analyzer.analyzeZipFile(file, null, 4);
+			fail("expected exception");
+		} catch (IOException e) {
+			// expected
+		}
+		final int count = visits.get();
+		Thread.sleep(100);
+
+		// no worker is still running after the method has returned
+		assertEquals(count, visits.get());
+	}
+
+	@Test
+	public void testAnalyzeZipFile_NoZip() throws IOException {
+		final File file = folder.newFile("nozip.jar");
+		try {
+			analyzer.analyzeZipFile(file, null, 1);
+			fail("expected exception");
+		} catch (IOException e) {
+			assertEquals("Error while analyzing " + file.getPath() + ".",
+					e.getMessage());
+		}
+	}
+
+	/**
+	 * Creates a JAR file with two classes, a resource and a nested JAR with
+	 * one class.
+	 */
+	private File createZipFile() throws IOException {
+		final ByteArrayOutputStream nested = new ByteArrayOutputStream();
+		final ZipOutputStream nestedZip = new ZipOutputStream(nested);
+		nestedZip.putNextEntry(new ZipEntry(
+				"org/jacoco/core/analysis/ZipEntryFilterTest.class"));
+		nestedZip.write(
+				TargetLoader.getClassDataAsBytes(ZipEntryFilterTest.class));
+		nestedZip.finish();
+
+		final File file = folder.newFile("test.jar");
+		final ZipOutputStream zip = new ZipOutputStream(
+				new FileOutputStream(file));
+		zip.putNextEntry(new ZipEntry("org/jacoco/core/analysis/"));
+		zip.putNextEntry(
+				new ZipEntry("org/jacoco/core/analysis/AnalyzerTest.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(AnalyzerTest.class));
+		zip.putNextEntry(new ZipEntry(
+				"org/jacoco/core/analysis/CoverageBuilderTest.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(CoverageBuilderTest.class));
+		zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+		zip.write("Manifest-Version: 1.0\n".getBytes());
+		zip.putNextEntry(new ZipEntry("lib/nested.jar"));
+		zip.write(nested.toByteArray());
+		zip.close();
+		return file;
+	}
+
 	private void createClassfile(final String dir, final Class<?> source)
 			throws IOException {
 		File file = new File(folder.getRoot(), dir);
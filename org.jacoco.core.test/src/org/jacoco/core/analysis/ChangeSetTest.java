@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ChangeSet}.
+ */
+public class ChangeSetTest {
+
+	private ChangeSet changeSet;
+
+	@Before
+	public void setup() {
+		changeSet = new ChangeSet();
+	}
+
+	@Test
+	public void should_be_empty_initially() {
+		assertTrue(changeSet.isEmpty());
+		assertFalse(changeSet.containsClass("org/example/Foo"));
+	}
+
+	@Test
+	public void should_match_method_names_in_all_classes() {
+		changeSet.addMethodName("run");
+
+		assertFalse(changeSet.isEmpty());
+		assertTrue(changeSet.containsClass("org/example/Foo"));
+		assertTrue(changeSet.containsMethod("org/example/Foo", null, "run",
+				"()V", -1, -1));
+		assertFalse(changeSet.containsMethod("org/example/Foo", null, "stop",
+				"()V", -1, -1));
+	}
+
+	@Test
+	public void should_match_methods_by_class_name_and_descriptor() {
+		changeSet.addMethod("org/example/Foo", "run", "(I)V");
+
+		assertTrue(changeSet.containsClass("org/example/Foo"));
+		assertFalse(changeSet.containsClass("org/example/Bar"));
+		assertTrue(changeSet.containsMethod("org/example/Foo", null, "run",
+				"(I)V", -1, -1));
+		assertFalse(changeSet.containsMethod("org/example/Foo", null, "run",
+				"()V", -1, -1));
+		assertFalse(changeSet.containsMethod("org/example/Bar", null, "run",
+				"(I)V", -1, -1));
+	}
+
+	@Test
+	public void should_match_all_overloads_without_descriptor() {
+		changeSet.addMethod("org/example/Foo", "run", null);
+
+		assertTrue(changeSet.containsMethod("org/example/Foo", null, "run",
+				"()V", -1, -1));
+		assertTrue(changeSet.containsMethod("org/example/Foo", null, "run",
+				"(I)V", -1, -1));
+	}
+
+	@Test
+	public void should_match_line_ranges() {
+		changeSet.addLines("org/example/Foo.java", 10, 12);
+
+		assertTrue(changeSet.containsClass("org/example/Foo$Inner"));
+		assertFalse(changeSet.containsClass("org/other/Foo"));
+		assertTrue(changeSet.containsMethod("org/example/Foo", "Foo.java",
+				"run", "()V", 5, 10));
+		assertTrue(changeSet.containsMethod("org/example/Foo", "Foo.java",
+				"run", "()V", 12, 20));
+		assertFalse(changeSet.containsMethod("org/example/Foo", "Foo.java",
+				"run", "()V", 13, 20));
+		assertFalse(changeSet.containsMethod("org/example/Foo", "Bar.java",
+				"run", "()V", 10, 12));
+		assertFalse(changeSet.containsMethod("org/example/Foo", null, "run",
+				"()V", 10, 12));
+		assertFalse(changeSet.containsMethod("org/example/Foo", "Foo.java",
+				"run", "()V", -1, -1));
+	}
+
+	@Test
+	public void should_merge_overlapping_and_adjacent_line_ranges() {
+		changeSet.addLines("Foo.java", 20, 22);
+		changeSet.addLines("Foo.java", 1, 2);
+		changeSet.addLines("Foo.java", 10, 10);
+		changeSet.addLines("Foo.java", 3, 5);
+		changeSet.addLines("Foo.java", 8, 21);
+
+		assertTrue(changeSet.containsLines("Foo.java", 1, 1));
+		assertTrue(changeSet.containsLines("Foo.java", 5, 5));
+		assertFalse(changeSet.containsLines("Foo.java", 6, 7));
+		assertTrue(changeSet.containsLines("Foo.java", 7, 8));
+		assertTrue(changeSet.containsLines("Foo.java", 15, 15));
+		assertTrue(changeSet.containsLines("Foo.java", 22, 30));
+		assertFalse(changeSet.containsLines("Foo.java", 23, 30));
+		assertFalse(changeSet.containsLines("Bar.java", 1, 30));
+	}
+
+	@Test
+	public void addAll_should_add_all_changes() {
+		final ChangeSet other = new ChangeSet();
+		other.addMethodName("run");
+		other.addMethod("org/example/Foo", "stop", "()V");
+		other.addLines("org/example/Bar.java", 3, 4);
+
+		changeSet.addAll(other);
+
+		assertTrue(changeSet.containsMethod("org/other/Baz", null, "run",
+				"()V", -1, -1));
+		assertTrue(changeSet.containsMethod("org/example/Foo", null, "stop",
+				"()V", -1, -1));
+		assertFalse(changeSet.containsMethod("org/example/Foo", null, "stop",
+				"(I)V", -1, -1));
+		assertTrue(changeSet.containsSourceFile("org/example/Bar.java"));
+		assertTrue(changeSet.containsLines("org/example/Bar.java", 4, 4));
+	}
+
+	@Test
+	public void should_match_line_ranges_in_default_package() {
+		changeSet.addLines("Foo.java", 1, 1);
+
+		assertTrue(changeSet.containsClass("Foo"));
+		assertTrue(changeSet.containsMethod("Foo", "Foo.java", "run", "()V",
+				1, 1));
+	}
+
+	@Test
+	public void getSourcePath_should_combine_package_and_file_name() {
+		assertEquals("org/example/Foo.java",
+				ChangeSet.getSourcePath("org/example/Foo$1", "Foo.java"));
+		assertEquals("Foo.java", ChangeSet.getSourcePath("Foo", "Foo.java"));
+	}
+
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ChangedLinesCoverageVisitor}.
+ */
+public class ChangedLinesCoverageVisitorTest {
+
+	private ChangeSet changeSet;
+
+	private List<IClassCoverage> classes;
+
+	private ChangedLinesCoverageVisitor visitor;
+
+	@Before
+	public void setup() {
+		changeSet = new ChangeSet();
+		classes = new ArrayList<IClassCoverage>();
+		visitor = new ChangedLinesCoverageVisitor(changeSet,
+				new ICoverageVisitor() {
+					public void visitCoverage(IClassCoverage coverage) {
+						classes.add(coverage);
+					}
+				});
+	}
+
+	@Test
+	public void should_pass_classes_without_line_changes_unmodified() {
+		changeSet.addLines("org/example/Other.java", 1, 100);
+		final ClassCoverageImpl c = createClass();
+
+		visitor.visitCoverage(c);
+
+		assertEquals(1, classes.size());
+		assertSame(c, classes.get(0));
+	}
+
+	@Test
+	public void should_restrict_coverage_to_changed_lines() {
+		changeSet.addLines("org/example/Foo.java", 2, 3);
+
+		visitor.visitCoverage(createClass());
+
+		assertEquals(1, classes.size());
+		final IClassCoverage c = classes.get(0);
+		assertEquals("org/example/Foo", c.getName());
+		assertEquals("Foo.java", c.getSourceFileName());
+		assertEquals(1, c.getMethods().size());
+		final IMethodCoverage m = c.getMethods().iterator().next();
+		assertEquals("a", m.getName());
+		assertEquals(CounterImpl.getInstance(1, 2),
+				m.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(0, 2), m.getLineCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, m.getMethodCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, c.getClassCounter());
+	}
+
+	@Test
+	public void should_drop_classes_without_changed_lines() {
+		changeSet.addLines("org/example/Foo.java", 100, 200);
+
+		visitor.visitCoverage(createClass());
+
+		assertEquals(0, classes.size());
+	}
+
+	private static ClassCoverageImpl createClass() {
+		final ClassCoverageImpl c = new ClassCoverageImpl("org/example/Foo",
+				1, false);
+		c.setSourceFileName("Foo.java");
+		final MethodCoverageImpl a = new MethodCoverageImpl("a", "()V", null);
+		a.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 1);
+		a.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 2);
+		a.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		a.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 3);
+		a.incrementMethodCounter();
+		c.addMethod(a);
+		final MethodCoverageImpl b = new MethodCoverageImpl("b", "()V", null);
+		b.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 10);
+		b.incrementMethodCounter();
+		c.addMethod(b);
+		return c;
+	}
+
+}
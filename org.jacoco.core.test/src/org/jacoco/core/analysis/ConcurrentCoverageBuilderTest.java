@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ConcurrentCoverageBuilder}.
+ */
+public class ConcurrentCoverageBuilderTest {
+
+	private ConcurrentCoverageBuilder builder;
+
+	@Before
+	public void setup() {
+		builder = new ConcurrentCoverageBuilder();
+	}
+
+	@Test
+	public void testGetBundle() {
+		addClass(1, "org/jacoco/Sample", "Sample.java", 3, true);
+		addClass(2, "org/jacoco/Sample$1", "Sample.java", 3, false);
+		addClass(3, "org/other/Other", null, 5, false);
+
+		final IBundleCoverage bundle = builder.getBundle("bundle");
+		assertEquals("bundle", bundle.getName());
+		assertEquals(2, bundle.getPackages().size());
+		assertEquals(CounterImpl.getInstance(2, 1),
+				bundle.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(1, 1), bundle.getLineCounter());
+		assertEquals(CounterImpl.getInstance(2, 1), bundle.getClassCounter());
+		assertEquals(3, builder.getClasses().size());
+		assertEquals(1, builder.getSourceFiles().size());
+	}
+
+	@Test
+	public void testGetBundleCached() {
+		addClass(1, "org/jacoco/Sample", "Sample.java", 3, true);
+		final IBundleCoverage bundle1 = builder.getBundle("bundle");
+		assertSame(bundle1, builder.getBundle("bundle"));
+		assertNotSame(bundle1, builder.getBundle("other"));
+	}
+
+	@Test
+	public void testGetBundleIncremental() {
+		addClass(1, "org/jacoco/Sample", "Sample.java", 3, true);
+		addClass(2, "org/other/Other", "Other.java", 3, true);
+		final IBundleCoverage bundle1 = builder.getBundle("bundle");
+
+		addClass(3, "org/jacoco/Sample$1", "Sample.java", 4, false);
+		final IBundleCoverage bundle2 = builder.getBundle("bundle");
+
+		assertNotSame(bundle1, bundle2);
+		assertSame(getPackage(bundle1, "org/other"),
+				getPackage(bundle2, "org/other"));
+		assertNotSame(getPackage(bundle1, "org/jacoco"),
+				getPackage(bundle2, "org/jacoco"));
+	}
+
+	@Test
+	public void testSnapshotNotModified() {
+		addClass(1, "org/jacoco/Sample", "Sample.java", 3, true);
+		final IBundleCoverage bundle1 = builder.getBundle("bundle");
+		final ISourceFileCoverage source1 = getPackage(bundle1, "org/jacoco")
+				.getSourceFiles().iterator().next();
+
+		addClass(2, "org/jacoco/Sample$1", "Sample.java", 3, false);
+
+		assertEquals(CounterImpl.getInstance(0, 1),
+				bundle1.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(0, 1),
+				source1.getLine(3).getInstructionCounter());
+		final IBundleCoverage bundle2 = builder.getBundle("bundle");
+		final ISourceFileCoverage source2 = getPackage(bundle2, "org/jacoco")
+				.getSourceFiles().iterator().next();
+		assertEquals(CounterImpl.getInstance(1, 1),
+				source2.getLine(3).getInstructionCounter());
+	}
+
+	@Test
+	public void testDuplicateClassNameIdentical() {
+		addClass(1, "org/jacoco/Sample", "Sample.java", 3, true);
+		addClass(1, "org/jacoco/Sample", "Sample.java", 3, true);
+		assertEquals(1, builder.getClasses().size());
+		assertEquals(CounterImpl.getInstance(0, 1),
+				builder.getBundle("bundle").getInstructionCounter());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDuplicateClassNameDifferent() {
+		addClass(1, "org/jacoco/Sample", "Sample.java", 3, true);
+		addClass(2, "org/jacoco/Sample", "Sample.java", 3, true);
+	}
+
+	@Test
+	public void testGetNoMatchClasses() {
+		final ClassCoverageImpl c = new ClassCoverageImpl("Sample", 1, true);
+		builder.visitCoverage(c);
+		addClass(2, "Other", null, 1, false);
+		final Collection<IClassCoverage> nomatch = builder
+				.getNoMatchClasses();
+		assertEquals(1, nomatch.size());
+		assertSame(c, nomatch.iterator().next());
+	}
+
+	@Test
+	public void testConcurrentVisits() throws Exception {
+		final int threads = 4;
+		final int classes = 500;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int t = 0; t < threads; t++) {
+				final int thread = t;
+				futures.add(executor.submit(new Callable<Void>() {
+					public Void call() {
+						for (int i = 0; i < classes; i++) {
+							final int id = thread * classes + i;
+							addClass(id, "pkg" + (i % 10) + "/Class" + id,
+									"Source" + (id % 20) + ".java", i % 50,
+									i % 2 == 0);
+							if (i % 100 == 0) {
+								builder.getBundle("bundle");
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			for (final Future<Void> f : futures) {
+				f.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		final IBundleCoverage bundle = builder.getBundle("bundle");
+		assertEquals(threads * classes,
+				bundle.getClassCounter().getTotalCount());
+		assertEquals(threads * classes / 2,
+				bundle.getInstructionCounter().getCoveredCount());
+		assertEquals(10, bundle.getPackages().size());
+	}
+
+	private IPackageCoverage getPackage(final IBundleCoverage bundle,
+			final String name) {
+		for (final IPackageCoverage p : bundle.getPackages()) {
+			if (p.getName().equals(name)) {
+				return p;
+			}
+		}
+		throw new AssertionError(name);
+	}
+
+	private void addClass(final long id, final String name,
+			final String source, final int line, final boolean covered) {
+		final MethodCoverageImpl m = new MethodCoverageImpl("doit", "()V",
+				null);
+		m.increment(covered ? CounterImpl.COUNTER_0_1
+				: CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, line);
+		m.incrementMethodCounter();
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				false);
+		coverage.setSourceFileName(source);
+		coverage.addMethod(m);
+		builder.visitCoverage(coverage);
+	}
+
+}
@@ -160,6 +160,28 @@ public class CoverageBuilderTest {
 		assertEquals(0, s.getClassCounter().getCoveredCount());
 	}
 
+	@Test
+	public void testCreateSourceFileLazyLines() {
+		coverageBuilder = new CoverageBuilder(true);
+		final MethodCoverageImpl method1 = new MethodCoverageImpl("doit",
+				"()V", null);
+		method1.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		addClass(123L, false, "Sample", "Sample.java", method1);
+
+		final MethodCoverageImpl method2 = new MethodCoverageImpl("doit",
+				"()V", null);
+		method2.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 3);
+		addClass(234L, false, "Second", "Sample.java", method2);
+
+		final ISourceFileCoverage s = coverageBuilder.getSourceFiles()
+				.iterator().next();
+		assertEquals(CounterImpl.COUNTER_0_1, s.getLineCounter());
+		assertEquals(CounterImpl.COUNTER_0_1,
+				coverageBuilder.getBundle("b").getLineCounter());
+		assertEquals(CounterImpl.getInstance(1, 1), s.getLine(3)
+				.getInstructionCounter());
+	}
+
 	@Test
 	public void testCreateSourceFileDuplicateClassNameIdentical() {
 		final MethodCoverageImpl method1 = new MethodCoverageImpl("doit",
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ZipEntryFilter}.
+ */
+public class ZipEntryFilterTest {
+
+	private ZipEntryFilter filter;
+
+	@Before
+	public void setup() {
+		filter = new ZipEntryFilter();
+	}
+
+	@Test
+	public void testDefaults() {
+		assertTrue(filter.accept("org/example/Foo.class"));
+		assertTrue(filter.accept("Foo.class"));
+		assertFalse(filter.accept("org/example/foo.properties"));
+		assertFalse(filter.accept("META-INF/MANIFEST.MF"));
+	}
+
+	@Test
+	public void testIncludesExcludes() {
+		filter.setIncludes("org.example.*");
+		filter.setExcludes("*Test:org.example.internal.*");
+		assertTrue(filter.accept("org/example/Foo.class"));
+		assertTrue(filter.accept("org/example/Foo$Inner.class"));
+		assertFalse(filter.accept("org/example/FooTest.class"));
+		assertFalse(filter.accept("org/example/internal/Bar.class"));
+		assertFalse(filter.accept("com/example/Foo.class"));
+	}
+
+	@Test
+	public void testMultiReleaseEntry() {
+		filter.setIncludes("org.example.*");
+		assertTrue(filter.accept("META-INF/versions/11/org/example/Foo.class"));
+		assertFalse(filter.accept("META-INF/versions/11/com/example/Foo.class"));
+	}
+
+	@Test
+	public void testExecutionData() {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		store.put(new ExecutionData(1, "org/example/Foo", new boolean[0]));
+		filter.setExecutionData(store);
+		assertTrue(filter.accept("org/example/Foo.class"));
+		assertFalse(filter.accept("org/example/Bar.class"));
+
+		filter.setExecutionData(null);
+		assertTrue(filter.accept("org/example/Bar.class"));
+	}
+
+	@Test
+	public void testIsArchive() {
+		assertTrue(filter.isArchive("lib/a.jar"));
+		assertTrue(filter.isArchive("a.war"));
+		assertTrue(filter.isArchive("a.ear"));
+		assertTrue(filter.isArchive("a.zip"));
+		assertTrue(filter.isArchive("a.gz"));
+		assertTrue(filter.isArchive("a.pack"));
+		assertFalse(filter.isArchive("a.class"));
+		assertFalse(filter.isArchive("a.txt"));
+	}
+
+	@Test
+	public void testGetClassName() {
+		assertEquals("org/example/Foo",
+				ZipEntryFilter.getClassName("org/example/Foo.class"));
+		assertEquals("org/example/Foo", ZipEntryFilter
+				.getClassName("META-INF/versions/9/org/example/Foo.class"));
+		assertNull(ZipEntryFilter.getClassName("org/example/Foo.txt"));
+	}
+
+}
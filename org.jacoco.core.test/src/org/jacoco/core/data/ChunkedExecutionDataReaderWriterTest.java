@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ChunkedExecutionDataWriter} and the chunk support of
+ * {@link ExecutionDataReader}.
+ */
+public class ChunkedExecutionDataReaderWriterTest {
+
+	private ByteArrayOutputStream buffer;
+
+	private ChunkedExecutionDataWriter writer;
+
+	private ExecutionDataStore store;
+
+	private SessionInfoStore sessions;
+
+	private ExecutionDataReader reader;
+
+	@Before
+	public void setup() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		writer = new ChunkedExecutionDataWriter(buffer);
+		store = new ExecutionDataStore();
+		sessions = new SessionInfoStore();
+	}
+
+	@Test
+	public void testHeaderOnly() throws IOException {
+		writer.flush();
+		assertEquals(Arrays.toString(ExecutionDataWriter.getFileHeader()),
+				Arrays.toString(buffer.toByteArray()));
+		read(buffer.toByteArray());
+		assertTrue(store.getContents().isEmpty());
+	}
+
+	@Test
+	public void testWithoutHeader() throws IOException {
+		buffer.reset();
+		writer = new ChunkedExecutionDataWriter(buffer, false);
+		writer.flush();
+		assertEquals(0, buffer.size());
+	}
+
+	@Test
+	public void testChunks() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("s1", 1, 2));
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { true, false }));
+		writer.flush();
+		writer.visitSessionInfo(new SessionInfo("s2", 3, 4));
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { false, true }));
+		writer.visitClassExecution(
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		writer.flush();
+
+		read(buffer.toByteArray());
+
+		assertEquals(2, sessions.getInfos().size());
+		assertEquals("[true, true]",
+				Arrays.toString(store.get(1).getProbes()));
+		assertEquals("[true]", Arrays.toString(store.get(2).getProbes()));
+		assertEquals(0, reader.getSkippedChunkCount());
+	}
+
+	@Test
+	public void testTruncatedChunk() throws IOException {
+		writeTwoChunks();
+		final byte[] bytes = buffer.toByteArray();
+
+		read(Arrays.copyOf(bytes, bytes.length - 3));
+
+		assertEquals(1, sessions.getInfos().size());
+		assertEquals("[true]", Arrays.toString(store.get(1).getProbes()));
+		assertNull(store.get(2));
+		assertEquals(1, reader.getSkippedChunkCount());
+	}
+
+	@Test
+	public void testTruncatedChunkHeader() throws IOException {
+		final int length = writeTwoChunks();
+
+		read(Arrays.copyOf(buffer.toByteArray(), length + 3));
+
+		assertEquals(1, sessions.getInfos().size());
+		assertEquals(1, reader.getSkippedChunkCount());
+	}
+
+	@Test
+	public void testCorruptChunk() throws IOException {
+		final int length = writeTwoChunks();
+		final byte[] bytes = buffer.toByteArray();
+		bytes[length - 1] ^= 0x01;
+
+		read(bytes);
+
+		assertNull(store.get(1));
+		assertEquals("[true]", Arrays.toString(store.get(2).getProbes()));
+		assertEquals(1, reader.getSkippedChunkCount());
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidChunkLength() throws IOException {
+		final byte[] header = ExecutionDataWriter.getFileHeader();
+		final byte[] bytes = Arrays.copyOf(header, header.length + 9);
+		bytes[header.length] = ChunkedExecutionDataWriter.BLOCK_CHUNK;
+		bytes[header.length + 1] = (byte) 0x80;
+
+		read(bytes);
+	}
+
+	@Test
+	public void testCorruptChunkLength() throws IOException {
+		final int length = writeTwoChunks();
+		final byte[] bytes = buffer.toByteArray();
+		bytes[length + 1] = (byte) 0x7F;
+		bytes[length + 2] = (byte) 0xFF;
+		bytes[length + 3] = (byte) 0xFF;
+		bytes[length + 4] = (byte) 0xFF;
+
+		read(bytes);
+
+		assertEquals("[true]", Arrays.toString(store.get(1).getProbes()));
+		assertNull(store.get(2));
+		assertEquals(1, reader.getSkippedChunkCount());
+	}
+
+	@Test
+	public void testGetIntactLength() throws IOException {
+		final int length = writeTwoChunks();
+		final byte[] bytes = buffer.toByteArray();
+
+		assertEquals(bytes.length, getIntactLength(bytes));
+		assertEquals(length,
+				getIntactLength(Arrays.copyOf(bytes, bytes.length - 1)));
+		assertEquals(length, getIntactLength(Arrays.copyOf(bytes, length + 5)));
+		assertEquals(0, getIntactLength(Arrays.copyOf(bytes, 2)));
+		assertEquals(0, getIntactLength(new byte[0]));
+	}
+
+	@Test
+	public void testGetIntactLengthOfCorruptChunk() throws IOException {
+		writeTwoChunks();
+		final byte[] bytes = buffer.toByteArray();
+		bytes[bytes.length - 1] ^= 0x01;
+
+		assertEquals(bytes.length, getIntactLength(bytes));
+	}
+
+	@Test
+	public void testGetIntactLengthOfUnchunkedFile() throws IOException {
+		final ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		final ExecutionDataWriter plainWriter = new ExecutionDataWriter(plain);
+		plainWriter.visitSessionInfo(new SessionInfo("s", 1, 2));
+		final byte[] bytes = Arrays.copyOf(plain.toByteArray(), plain.size() - 1);
+
+		assertEquals(bytes.length, getIntactLength(bytes));
+	}
+
+	/**
+	 * @return length of the file after the first chunk
+	 */
+	private int writeTwoChunks() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("s1", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+		writer.flush();
+		final int length = buffer.size();
+		writer.visitSessionInfo(new SessionInfo("s2", 3, 4));
+		writer.visitClassExecution(
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		writer.flush();
+		return length;
+	}
+
+	private long getIntactLength(final byte[] bytes) throws IOException {
+		return ChunkedExecutionDataWriter.getIntactLength(
+				new ByteArrayInputStream(bytes), bytes.length);
+	}
+
+	private void read(final byte[] bytes) throws IOException {
+		reader = new ExecutionDataReader(new ByteArrayInputStream(bytes));
+		reader.setSessionInfoVisitor(sessions);
+		reader.setExecutionDataVisitor(store);
+		reader.read();
+	}
+
+}
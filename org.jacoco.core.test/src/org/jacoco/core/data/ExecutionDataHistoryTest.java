@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ExecutionDataHistory}.
+ */
+public class ExecutionDataHistoryTest {
+
+	private ExecutionDataHistory history;
+
+	@Before
+	public void setup() {
+		history = new ExecutionDataHistory();
+		// Three cumulative dumps of the same JVM:
+		dump("s1", 1000, new boolean[] { true, false, false },
+				new boolean[] { false, false });
+		dump("s1", 2000, new boolean[] { true, true, false },
+				new boolean[] { false, false });
+		dump("s1", 3000, new boolean[] { true, true, false },
+				new boolean[] { false, true });
+	}
+
+	@Test
+	public void testGetSessionInfos() {
+		final List<SessionInfo> infos = history.getSessionInfos();
+		assertEquals(3, infos.size());
+		assertEquals(1000, infos.get(0).getDumpTimeStamp());
+		assertEquals(3000, infos.get(2).getDumpTimeStamp());
+	}
+
+	@Test
+	public void testGetNewHitCount() {
+		assertEquals(1, history.getNewHitCount(0));
+		assertEquals(1, history.getNewHitCount(1));
+		assertEquals(1, history.getNewHitCount(2));
+	}
+
+	@Test
+	public void testGetExecutionData() {
+		final ExecutionDataStore asOf1 = history.getExecutionData(1);
+		assertArrayEquals(new boolean[] { true, true, false },
+				asOf1.get(1).getProbes());
+		assertNull(asOf1.get(2));
+
+		final ExecutionDataStore asOf2 = history.getExecutionData(2);
+		assertArrayEquals(new boolean[] { false, true },
+				asOf2.get(2).getProbes());
+	}
+
+	@Test
+	public void testGetFirstHitsBySession() {
+		final ExecutionDataStore hits = history.getFirstHits(1, 3);
+		assertArrayEquals(new boolean[] { false, true, false },
+				hits.get(1).getProbes());
+		assertArrayEquals(new boolean[] { false, true },
+				hits.get(2).getProbes());
+	}
+
+	@Test
+	public void testGetFirstHitsByTime() {
+		final ExecutionDataStore hits = history.getFirstHits(1500L, 2500L);
+		assertArrayEquals(new boolean[] { false, true, false },
+				hits.get(1).getProbes());
+		assertNull(hits.get(2));
+	}
+
+	@Test
+	public void testIndependentSessions() {
+		// A dump after a reset only contains the new hits:
+		dump("s2", 4000, new boolean[] { false, false, true },
+				new boolean[] { true, false });
+		assertEquals(2, history.getNewHitCount(3));
+		assertArrayEquals(new boolean[] { true, true, true },
+				history.getExecutionData(3).get(1).getProbes());
+	}
+
+	@Test
+	public void testProbesAreCopied() {
+		final boolean[] probes = new boolean[] { false, false, true };
+		history.visitSessionInfo(new SessionInfo("s2", 0, 4000));
+		history.visitClassExecution(new ExecutionData(1, "Foo", probes));
+		probes[0] = true;
+		assertArrayEquals(new boolean[] { true, true, true },
+				history.getExecutionData(3).get(1).getProbes());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoSession() {
+		new ExecutionDataHistory().visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIncompatibleData() {
+		history.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
+		history.accept(writer, writer);
+
+		final ExecutionDataHistory read = new ExecutionDataHistory();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(buffer.toByteArray()));
+		reader.setSessionInfoVisitor(read);
+		reader.setExecutionDataVisitor(read);
+		reader.read();
+
+		assertEquals(3, read.getSessionInfos().size());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(history.getNewHitCount(i), read.getNewHitCount(i));
+		}
+
+		// The history file is a regular exec file with the merged probes:
+		final ExecutionDataStore merged = new ExecutionDataStore();
+		final List<SessionInfo> sessions = new ArrayList<SessionInfo>();
+		final ExecutionDataReader mergeReader = new ExecutionDataReader(
+				new ByteArrayInputStream(buffer.toByteArray()));
+		mergeReader.setSessionInfoVisitor(new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+				sessions.add(info);
+			}
+		});
+		mergeReader.setExecutionDataVisitor(merged);
+		mergeReader.read();
+		assertEquals(3, sessions.size());
+		assertArrayEquals(new boolean[] { true, true, false },
+				merged.get(1).getProbes());
+		assertArrayEquals(new boolean[] { false, true },
+				merged.get(2).getProbes());
+	}
+
+	private void dump(final String id, final long time, final boolean[] foo,
+			final boolean[] bar) {
+		history.visitSessionInfo(new SessionInfo(id, 0, time));
+		history.visitClassExecution(new ExecutionData(1, "Foo", foo));
+		history.visitClassExecution(new ExecutionData(2, "Bar", bar));
+	}
+
+}
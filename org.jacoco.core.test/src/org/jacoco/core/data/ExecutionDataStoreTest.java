@@ -115,6 +115,23 @@ public class ExecutionDataStoreTest implements IExecutionDataVisitor {
 		assertTrue(store.contains("Sample"));
 	}
 
+	@Test
+	public void testGetWithCreatePrimitive() {
+		final ExecutionData data = store.get(1000L, "Sample", 3);
+		assertEquals(1000, data.getId());
+		assertEquals("Sample", data.getName());
+		assertEquals(3, data.getProbes().length);
+		assertSame(data, store.get(1000L, "Sample", 3));
+		assertSame(data, store.get(Long.valueOf(1000), "Sample", 3));
+		assertTrue(store.contains("Sample"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetPrimitiveNegative() {
+		store.put(new ExecutionData(1000, "Sample", new boolean[3]));
+		store.get(1000L, "Other", 3);
+	}
+
 	@Test(expected = IllegalStateException.class)
 	public void testGetNegative1() {
 		final boolean[] data = new boolean[] { false, false, true };
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MappedExecutionDataWriter} and
+ * {@link MappedExecutionDataReader}.
+ */
+public class MappedExecutionDataReaderWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private MappedExecutionDataWriter writer;
+
+	private ExecutionDataStore store;
+
+	private SessionInfoStore sessions;
+
+	@Before
+	public void setup() throws IOException {
+		file = new File(folder.getRoot(), "jacoco.mmap");
+		writer = new MappedExecutionDataWriter(file, 1024);
+		store = new ExecutionDataStore();
+		sessions = new SessionInfoStore();
+	}
+
+	@After
+	public void teardown() throws IOException {
+		writer.close();
+	}
+
+	@Test
+	public void testEmptyRegion() throws IOException {
+		read();
+		assertTrue(store.getContents().isEmpty());
+		assertTrue(sessions.getInfos().isEmpty());
+	}
+
+	@Test
+	public void testSessionInfo() throws IOException {
+		writer.beginUpdate();
+		writer.visitSessionInfo(new SessionInfo("session", 123, 456));
+		writer.endUpdate();
+		read();
+		assertEquals(1, sessions.getInfos().size());
+		final SessionInfo info = sessions.getInfos().get(0);
+		assertEquals("session", info.getId());
+		assertEquals(123, info.getStartTimeStamp());
+		assertEquals(456, info.getDumpTimeStamp());
+	}
+
+	@Test
+	public void testSessionInfoTruncated() throws IOException {
+		final StringBuilder id = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			id.append('x');
+		}
+		writer.beginUpdate();
+		writer.visitSessionInfo(new SessionInfo(id.toString(), 1, 2));
+		writer.endUpdate();
+		read();
+		assertEquals(MappedExecutionDataWriter.MAX_SESSION_ID_LENGTH,
+				sessions.getInfos().get(0).getId().length());
+	}
+
+	@Test
+	public void testExecutionData() throws IOException {
+		writer.beginUpdate();
+		writer.visitClassExecution(new ExecutionData(0x12345678L, "Foo",
+				new boolean[] { true, false, true }));
+		writer.visitClassExecution(
+				new ExecutionData(0x42L, "Barä", new boolean[] { true }));
+		writer.endUpdate();
+		read();
+		assertArrayEquals(new boolean[] { true, false, true },
+				store.get(0x12345678L).getProbes());
+		assertEquals("Foo", store.get(0x12345678L).getName());
+		assertEquals("Barä", store.get(0x42L).getName());
+	}
+
+	@Test
+	public void testExecutionDataWithoutHitsIsSkipped() throws IOException {
+		writer.beginUpdate();
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { false, false }));
+		writer.endUpdate();
+		read();
+		assertNull(store.get(1));
+	}
+
+	@Test
+	public void testUpdateInPlace() throws IOException {
+		final boolean[] probes = new boolean[] { false, false };
+		final ExecutionData data = new ExecutionData(1, "Foo", probes);
+		writer.beginUpdate();
+		writer.visitClassExecution(data);
+		writer.endUpdate();
+		final long length = file.length();
+
+		probes[1] = true;
+		writer.beginUpdate();
+		writer.visitClassExecution(data);
+		writer.endUpdate();
+		read();
+		assertArrayEquals(new boolean[] { false, true },
+				store.get(1).getProbes());
+		assertEquals(length, file.length());
+	}
+
+	@Test
+	public void testGrow() throws IOException {
+		writer.beginUpdate();
+		for (int i = 0; i < 100; i++) {
+			writer.visitClassExecution(new ExecutionData(i, "Class" + i,
+					new boolean[] { true, false, true, false }));
+		}
+		writer.endUpdate();
+		assertTrue(writer.getSize() > 1024);
+		read();
+		assertEquals(100, store.getContents().size());
+	}
+
+	@Test
+	public void testUpdateInProgress() throws IOException {
+		writer.beginUpdate();
+		try {
+			read();
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith(
+					"Coverage region is corrupt or modified concurrently: "));
+		}
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		final boolean[] probes = new boolean[100];
+		final ExecutionData data = new ExecutionData(1, "Foo", probes);
+		final Thread updater = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 20000; i++) {
+					// All probes always have the same value:
+					Arrays.fill(probes, i % 2 == 0);
+					writer.beginUpdate();
+					writer.visitClassExecution(data);
+					writer.endUpdate();
+				}
+			}
+		};
+		updater.start();
+		while (updater.isAlive()) {
+			store = new ExecutionDataStore();
+			try {
+				read();
+			} catch (IOException e) {
+				// retries exceeded, try again
+				continue;
+			}
+			final ExecutionData read = store.get(1);
+			if (read != null) {
+				for (final boolean p : read.getProbes()) {
+					assertTrue(p);
+				}
+			}
+		}
+		updater.join();
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws IOException {
+		final File other = folder.newFile("other.mmap");
+		final FileOutputStream out = new FileOutputStream(other);
+		out.write(new byte[1000]);
+		out.close();
+		new MappedExecutionDataReader(other).read();
+	}
+
+	@Test(expected = IncompatibleExecDataVersionException.class)
+	public void testIncompatibleVersion() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(MappedExecutionDataWriter.VERSION_OFFSET);
+		raf.writeInt(0x7777);
+		raf.close();
+		read();
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoExecutionDataVisitor() throws IOException {
+		writer.beginUpdate();
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+		writer.endUpdate();
+		new MappedExecutionDataReader(file).read();
+	}
+
+	private void read() throws IOException {
+		final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+				file);
+		reader.setSessionInfoVisitor(sessions);
+		reader.setExecutionDataVisitor(store);
+		reader.read();
+	}
+
+}
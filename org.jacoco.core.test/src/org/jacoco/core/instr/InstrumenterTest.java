@@ -14,6 +14,7 @@ package org.jacoco.core.instr;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
@@ -24,7 +25,9 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
@@ -75,10 +78,13 @@ public class InstrumenterTest {
 
 		long classId;
 
+		int probeCount;
+
 		public int generateDataAccessor(final long classId,
 				final String classname, final int probeCount,
 				final MethodVisitor mv) {
 			this.classId = classId;
+			this.probeCount = probeCount;
 			InstrSupport.push(mv, probeCount);
 			mv.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_BOOLEAN);
 			return 1;
@@ -126,9 +132,76 @@ public class InstrumenterTest {
 		assertEquals("org.jacoco.core.instr.InstrumenterTest", clazz.getName());
 	}
 
+	@Test
+	public void testInstrumentClassWithConditionalProbes() throws Exception {
+		instrumenter.setConditionalProbes(true);
+		byte[] bytes = instrumenter.instrument(
+				TargetLoader.getClassDataAsBytes(SerializationTarget.class),
+				"Test");
+		TargetLoader loader = new TargetLoader();
+		Class<?> clazz = loader.add(SerializationTarget.class, bytes);
+		clazz.getDeclaredMethod("$jacocoProbe", boolean[].class, int.class);
+		Object obj = clazz.getConstructor(String.class, Integer.TYPE)
+				.newInstance("Hello", Integer.valueOf(42));
+		assertEquals("Hello42", obj.toString());
+	}
+
 	/**
 	 * Triggers exception in {@link Instrumenter#instrument(byte[], String)}.
 	 */
+	@Test
+	public void testInstrumentClassWithListener() throws Exception {
+		final List<InstrumentationCost> costs = new ArrayList<InstrumentationCost>();
+		instrumenter.setInstrumentationListener(new IInstrumentationListener() {
+			public void classInstrumented(final InstrumentationCost cost) {
+				costs.add(cost);
+			}
+		});
+		final byte[] original = TargetLoader
+				.getClassDataAsBytes(SerializationTarget.class);
+
+		byte[] bytes = instrumenter.instrument(original, "Test");
+
+		TargetLoader loader = new TargetLoader();
+		Class<?> clazz = loader.add(SerializationTarget.class, bytes);
+		Object obj = clazz.getConstructor(String.class, Integer.TYPE)
+				.newInstance("Hello", Integer.valueOf(42));
+		assertEquals("Hello42", obj.toString());
+		assertEquals(1, costs.size());
+		final InstrumentationCost cost = costs.get(0);
+		assertEquals(
+				"org/jacoco/core/instr/InstrumenterTest$SerializationTarget",
+				cost.getClassName());
+		assertEquals(CRC64.classId(original), cost.getClassId());
+		assertEquals(original.length, cost.getOriginalSize());
+		assertEquals(bytes.length, cost.getInstrumentedSize());
+		assertEquals(accessorGenerator.probeCount, cost.getProbeCount());
+		assertTrue(cost.getProbeCount() > 0);
+		assertEquals(cost.getClassIdNanos() + cost.getStrategyNanos()
+				+ cost.getProbesNanos() + cost.getWriteNanos(),
+				cost.getTotalNanos());
+	}
+
+	@Test
+	public void testInstrumentBrokenClassWithListener() throws IOException {
+		final List<InstrumentationCost> costs = new ArrayList<InstrumentationCost>();
+		instrumenter.setInstrumentationListener(new IInstrumentationListener() {
+			public void classInstrumented(final InstrumentationCost cost) {
+				costs.add(cost);
+			}
+		});
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		try {
+			instrumenter.instrument(brokenclass, "Broken.class");
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(0, costs.size());
+	}
+
 	@Test
 	public void testInstrumentBrokenClass1() throws IOException {
 		final byte[] brokenclass = TargetLoader
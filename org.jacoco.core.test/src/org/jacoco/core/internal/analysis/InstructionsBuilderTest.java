@@ -13,15 +13,13 @@ package org.jacoco.core.internal.analysis;
 
 import static org.junit.Assert.assertEquals;
 
-import java.util.Map;
-
 import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.jacoco.core.internal.flow.LabelInfo;
 import org.junit.Before;
 import org.junit.Test;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
 
 /**
@@ -31,159 +29,188 @@ public class InstructionsBuilderTest {
 
 	private InstructionsBuilder builder;
 
+	private InsnList list;
+
 	@Before
 	public void setup() {
 		builder = new InstructionsBuilder(new boolean[] { false, true });
+		list = new InsnList();
 	}
 
 	@Test
 	public void current_line_number_should_be_applied_to_instructions() {
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 
 		builder.setCurrentLine(10);
-		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
-		InsnNode i3 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i3);
+		InsnNode i2 = addInsn();
+		InsnNode i3 = addInsn();
 
 		builder.setCurrentLine(20);
-		InsnNode i4 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i4);
-
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
-		assertEquals(ISourceFileCoverage.UNKNOWN_LINE, map.get(i1).getLine());
-		assertEquals(10, map.get(i2).getLine());
-		assertEquals(10, map.get(i3).getLine());
-		assertEquals(20, map.get(i4).getLine());
+		InsnNode i4 = addInsn();
+
+		Instruction[] insns = builder.getInstructions(list);
+		assertEquals(ISourceFileCoverage.UNKNOWN_LINE, insns[list.indexOf(i1)].getLine());
+		assertEquals(10, insns[list.indexOf(i2)].getLine());
+		assertEquals(10, insns[list.indexOf(i3)].getLine());
+		assertEquals(20, insns[list.indexOf(i4)].getLine());
 	}
 
 	@Test
 	public void null_probearray_should_not_mark_instruction_as_covered() {
 		builder = new InstructionsBuilder(null);
 
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 		builder.addProbe(5, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] insns = builder.getInstructions(list);
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				insns[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void unexecuted_probe_should_not_mark_instruction_as_covered() {
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 		builder.addProbe(0, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] insns = builder.getInstructions(list);
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				insns[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void executed_probe_should_mark_instruction_as_covered() {
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 		builder.addProbe(1, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] insns = builder.getInstructions(list);
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				insns[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void subsequent_instructions_should_be_linked_by_default() {
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 
-		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		InsnNode i2 = addInsn();
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] insns = builder.getInstructions(list);
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				insns[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void subsequent_instructions_should_not_be_linked_when_noSuccessor_was_called() {
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 		builder.noSuccessor();
 
-		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		InsnNode i2 = addInsn();
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should not be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] insns = builder.getInstructions(list);
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				insns[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void subsequent_instructions_should_be_linked_after_label_marked_as_successor() {
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 
 		Label l = new Label();
 		LabelInfo.setSuccessor(l);
 		builder.addLabel(l);
-		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		InsnNode i2 = addInsn();
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] insns = builder.getInstructions(list);
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				insns[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void subsequent_instructions_should_not_be_linked_after_label_not_marked_as_successor() {
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 
 		builder.addLabel(new Label());
-		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		InsnNode i2 = addInsn();
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should not be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] insns = builder.getInstructions(list);
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				insns[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void jumps_should_propagate_coverage_status() {
-		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		InsnNode i1 = addInsn();
 		Label l2 = new Label();
 		builder.addJump(l2, 0);
 
 		builder.addLabel(l2);
-		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		InsnNode i2 = addInsn();
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] insns = builder.getInstructions(list);
+		assertEquals(CounterImpl.COUNTER_0_1,
+				insns[list.indexOf(i1)].getInstructionCounter());
+	}
+
+	@Test
+	public void reset_should_allow_reuse_for_next_method() {
+		addInsn();
+		builder.addProbe(1, 0);
+		builder.getInstructions(list);
+
+		builder.reset();
+		list = new InsnList();
+		InsnNode i1 = addInsn();
+		builder.addProbe(0, 0);
+
+		Instruction[] insns = builder.getInstructions(list);
+		assertEquals(CounterImpl.COUNTER_1_0,
+				insns[list.indexOf(i1)].getInstructionCounter());
+		assertEquals(ISourceFileCoverage.UNKNOWN_LINE,
+				insns[list.indexOf(i1)].getLine());
+	}
+
+	@Test
+	public void should_grow_beyond_initial_capacity() {
+		builder.setCurrentLine(1);
+		InsnNode first = addInsn();
+		InsnNode last = null;
+		for (int i = 0; i < 200; i++) {
+			last = addInsn();
+		}
+		builder.addProbe(1, 0);
+
+		// coverage should be propagated through all instructions
+		Instruction[] insns = builder.getInstructions(list);
+		assertEquals(CounterImpl.COUNTER_0_1,
+				insns[list.indexOf(first)].getInstructionCounter());
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				insns[list.indexOf(last)].getInstructionCounter());
+	}
+
+	private InsnNode addInsn() {
+		InsnNode node = new InsnNode(Opcodes.NOP);
+		list.add(node);
+		builder.addInstruction(node);
+		return node;
 	}
 
 }
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.jacoco.core.analysis.ICoverageNode.ElementType.CLASS;
+import static org.jacoco.core.analysis.ICoverageNode.ElementType.SOURCEFILE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jacoco.core.analysis.ISourceNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link LazySourceFileCoverageImpl}.
+ */
+public class LazySourceFileCoverageImplTest {
+
+	private LazySourceFileCoverageImpl lazy;
+
+	private SourceFileCoverageImpl eager;
+
+	@Before
+	public void setup() {
+		lazy = new LazySourceFileCoverageImpl("Sample.java",
+				"org/jacoco/examples");
+		eager = new SourceFileCoverageImpl("Sample.java",
+				"org/jacoco/examples");
+	}
+
+	@Test
+	public void testProperties() {
+		assertEquals(SOURCEFILE, lazy.getElementType());
+		assertEquals("org/jacoco/examples", lazy.getPackageName());
+		assertEquals(CounterImpl.COUNTER_0_0, lazy.getLineCounter());
+		assertEquals(ISourceNode.UNKNOWN_LINE, lazy.getFirstLine());
+	}
+
+	@Test
+	public void testSingleChild() {
+		add(node(CounterImpl.COUNTER_1_0, 3), node(CounterImpl.COUNTER_0_1, 5));
+
+		assertEquals(CounterImpl.getInstance(1, 1), lazy.getLineCounter());
+		assertEquals(CounterImpl.getInstance(1, 1),
+				lazy.getInstructionCounter());
+		assertFalse(lazy.isMaterialized());
+		assertLines();
+	}
+
+	@Test
+	public void testOverlappingChildren() {
+		add(node(CounterImpl.COUNTER_1_0, 3), node(CounterImpl.COUNTER_1_0, 5));
+		add(node(CounterImpl.COUNTER_0_1, 5), node(CounterImpl.COUNTER_1_0, 8));
+		add(node(CounterImpl.COUNTER_0_0, 20));
+
+		assertEquals(CounterImpl.getInstance(2, 1), lazy.getLineCounter());
+		assertFalse(lazy.isMaterialized());
+		assertLines();
+	}
+
+	@Test
+	public void testChildrenWithoutLines() {
+		add(new SourceNodeImpl(CLASS, "A"));
+		add(new SourceNodeImpl(CLASS, "B"));
+
+		assertEquals(CounterImpl.COUNTER_0_0, lazy.getLineCounter());
+		assertLines();
+	}
+
+	@Test
+	public void testIncrementAfterMaterialized() {
+		add(node(CounterImpl.COUNTER_1_0, 3));
+		assertEquals(3, lazy.getLastLine());
+		assertTrue(lazy.isMaterialized());
+
+		add(node(CounterImpl.COUNTER_0_1, 3));
+		assertEquals(CounterImpl.getInstance(0, 1), lazy.getLineCounter());
+		assertLines();
+	}
+
+	private SourceNodeImpl node(final CounterImpl instructions,
+			final int line) {
+		final SourceNodeImpl node = new SourceNodeImpl(CLASS, "Sample");
+		node.increment(instructions, CounterImpl.COUNTER_0_0, line);
+		return node;
+	}
+
+	private void add(final SourceNodeImpl... lines) {
+		final SourceNodeImpl child = new SourceNodeImpl(CLASS, "Sample");
+		for (final SourceNodeImpl l : lines) {
+			child.increment(l);
+		}
+		lazy.increment(child);
+		eager.increment(child);
+	}
+
+	private void assertLines() {
+		assertEquals(eager.getLineCounter(), lazy.getLineCounter());
+		assertEquals(eager.getFirstLine(), lazy.getFirstLine());
+		assertEquals(eager.getLastLine(), lazy.getLastLine());
+		for (int i = eager.getFirstLine(); i <= eager.getLastLine(); i++) {
+			assertEquals(eager.getLine(i), lazy.getLine(i));
+		}
+		assertTrue(lazy.isMaterialized());
+		assertEquals(eager.getLineCounter(), lazy.getLineCounter());
+	}
+
+}
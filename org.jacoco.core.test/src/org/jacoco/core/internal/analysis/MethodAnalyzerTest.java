@@ -899,7 +899,7 @@ public class MethodAnalyzerTest implements IProbeIdGenerator {
 
 		MethodCoverageImpl mc = new MethodCoverageImpl("doit", "V()", null);
 		MethodCoverageCalculator mcc = new MethodCoverageCalculator(
-				builder.getInstructions());
+				method.instructions, builder.getInstructions(method.instructions));
 		filter.filter(method, new FilterContextMock(), mcc);
 		mcc.calculate(mc);
 		result = mc;
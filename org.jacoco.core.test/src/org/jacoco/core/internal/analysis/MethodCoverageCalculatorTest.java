@@ -14,9 +14,9 @@ package org.jacoco.core.internal.analysis;
 import static org.junit.Assert.assertEquals;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 
 import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.junit.Before;
@@ -31,7 +31,7 @@ import org.objectweb.asm.tree.InsnNode;
  */
 public class MethodCoverageCalculatorTest {
 
-	private Map<AbstractInsnNode, Instruction> instructions;
+	private List<Instruction> instructions;
 
 	// The purpose of this list is to link instruction nodes
 	private InsnList list;
@@ -40,7 +40,7 @@ public class MethodCoverageCalculatorTest {
 
 	@Before
 	public void setup() {
-		instructions = new HashMap<AbstractInsnNode, Instruction>();
+		instructions = new ArrayList<Instruction>();
 		coverage = new MethodCoverageImpl("run", "()V", null);
 		list = new InsnList();
 	}
@@ -52,7 +52,8 @@ public class MethodCoverageCalculatorTest {
 		addInsn(2, false);
 		addInsn(3, false);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.calculate(coverage);
 
 		assertLine(1, 0, 1, 0, 0);
@@ -66,7 +67,8 @@ public class MethodCoverageCalculatorTest {
 		addInsn(2, false, false, true);
 		addInsn(3, false, true, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.calculate(coverage);
 
 		assertLine(1, 1, 0, 2, 0);
@@ -80,7 +82,8 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i1 = addInsn(1, false);
 		addInsn(2, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.ignore(i1, i1);
 		c.calculate(coverage);
 
@@ -98,7 +101,8 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i2 = addInsn(2, false);
 		addInsn(3, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.ignore(i1, i2);
 		c.calculate(coverage);
 
@@ -113,7 +117,8 @@ public class MethodCoverageCalculatorTest {
 		addInsn(2, false);
 		InsnNode i3 = addInsn(3, false);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.ignore(i1, i1);
 		c.ignore(i3, i3);
 		c.calculate(coverage);
@@ -129,7 +134,8 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i2 = addInsn(2, true, false);
 		addInsn(3, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.merge(i1, i2);
 		c.calculate(coverage);
 
@@ -144,7 +150,8 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i2 = addInsn(1, false, true, false);
 		InsnNode i3 = addInsn(1, false, false, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.merge(i1, i2);
 		c.merge(i2, i3);
 		c.calculate(coverage);
@@ -159,7 +166,8 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i2 = addInsn(2, true, false);
 		addInsn(3, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.merge(i1, i2);
 		c.merge(i2, i1);
 		c.calculate(coverage);
@@ -176,7 +184,8 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i3 = addInsn(2, true);
 		InsnNode i4 = addInsn(2, false);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.replaceBranches(i1,
 				new HashSet<AbstractInsnNode>(Arrays.asList(i2, i3, i4)));
 		c.calculate(coverage);
@@ -192,7 +201,8 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i3 = addInsn(2, false);
 		InsnNode i4 = addInsn(2, false);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.merge(i4, i3);
 		c.merge(i3, i2);
 		c.replaceBranches(i1,
@@ -208,7 +218,8 @@ public class MethodCoverageCalculatorTest {
 		addInsn(ISourceFileCoverage.UNKNOWN_LINE, false);
 		addInsn(ISourceFileCoverage.UNKNOWN_LINE, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[0]));
 		c.calculate(coverage);
 
 		assertEquals(ISourceFileCoverage.UNKNOWN_LINE, coverage.getFirstLine());
@@ -232,7 +243,7 @@ public class MethodCoverageCalculatorTest {
 		}
 		InsnNode node = new InsnNode(Opcodes.NOP);
 		list.add(node);
-		instructions.put(node, i);
+		instructions.add(i);
 		return node;
 	}
 
@@ -12,6 +12,7 @@
 package org.jacoco.core.internal.analysis;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.jacoco.core.analysis.ICoverageNode.ElementType;
 import org.jacoco.core.analysis.ISourceNode;
@@ -213,4 +214,65 @@ public class SourceNodeImplTest {
 		assertEquals(CounterImpl.getInstance(0, 1), node.getLineCounter());
 	}
 
+	@Test
+	public void testIncrementChildSharesLines() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS, "Foo");
+		final SourceNodeImpl child = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		child.increment(CounterImpl.getInstance(40, 0),
+				CounterImpl.getInstance(3, 33), 5);
+		child.increment(CounterImpl.getInstance(0, 2),
+				CounterImpl.COUNTER_0_0, 7);
+
+		node.increment(child);
+
+		assertSame(child.getLine(5), node.getLine(5));
+		assertEquals(5, node.getFirstLine());
+		assertEquals(7, node.getLastLine());
+		assertEquals(CounterImpl.getInstance(1, 1), node.getLineCounter());
+	}
+
+	@Test
+	public void testIncrementSharedLinesCopyOnWrite() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS, "Foo");
+		final SourceNodeImpl child = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		child.increment(CounterImpl.getInstance(40, 0),
+				CounterImpl.getInstance(3, 33), 5);
+		node.increment(child);
+
+		node.increment(CounterImpl.getInstance(0, 40),
+				CounterImpl.COUNTER_0_0, 5);
+		child.increment(CounterImpl.getInstance(1, 0),
+				CounterImpl.COUNTER_0_0, 5);
+
+		assertEquals(CounterImpl.getInstance(40, 40), node.getLine(5)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(0, 1), node.getLineCounter());
+		assertEquals(CounterImpl.getInstance(41, 0), child.getLine(5)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(1, 0), child.getLineCounter());
+	}
+
+	@Test
+	public void testIncrementSharedLinesGrow() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS, "Foo");
+		final SourceNodeImpl child = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		child.increment(CounterImpl.getInstance(40, 0),
+				CounterImpl.COUNTER_0_0, 5);
+		node.increment(child);
+
+		node.increment(CounterImpl.getInstance(0, 40),
+				CounterImpl.COUNTER_0_0, 5);
+		node.increment(CounterImpl.getInstance(0, 1),
+				CounterImpl.COUNTER_0_0, 10);
+
+		assertEquals(5, child.getLastLine());
+		assertEquals(CounterImpl.getInstance(40, 0), child.getLine(5)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(40, 40), node.getLine(5)
+				.getInstructionCounter());
+	}
+
 }
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link FilterFeatures}.
+ */
+public class FilterFeaturesTest {
+
+	private final FilterContextMock context = new FilterContextMock();
+
+	@Test
+	public void should_report_no_features_for_plain_method() {
+		final MethodNode m = createMethod(0);
+		m.visitInsn(Opcodes.RETURN);
+
+		assertEquals(FilterFeatures.NONE, FilterFeatures.of(m, context));
+	}
+
+	@Test
+	public void should_report_method_features() {
+		final MethodNode m = createMethod(
+				Opcodes.ACC_SYNTHETIC | Opcodes.ACC_PRIVATE);
+		final Label start = new Label();
+		final Label end = new Label();
+		final Label handler = new Label();
+		m.visitTryCatchBlock(start, end, handler, null);
+		m.visitLabel(start);
+		m.visitInsn(Opcodes.NOP);
+		m.visitLabel(end);
+		m.visitLabel(handler);
+		m.visitInsn(Opcodes.ATHROW);
+
+		assertEquals(
+				FilterFeatures.TRY_CATCH | FilterFeatures.ATHROW
+						| FilterFeatures.SYNTHETIC | FilterFeatures.PRIVATE,
+				FilterFeatures.of(m, context));
+	}
+
+	@Test
+	public void should_report_instruction_features() {
+		final MethodNode m = createMethod(0);
+		final Label l = new Label();
+		m.visitVarInsn(Opcodes.ALOAD, 0);
+		m.visitJumpInsn(Opcodes.IFNONNULL, l);
+		m.visitVarInsn(Opcodes.ALOAD, 0);
+		m.visitInsn(Opcodes.MONITOREXIT);
+		m.visitVarInsn(Opcodes.ILOAD, 1);
+		m.visitLookupSwitchInsn(l, new int[0], new Label[0]);
+		m.visitLabel(l);
+		m.visitInsn(Opcodes.RETURN);
+
+		assertEquals(
+				FilterFeatures.IFNONNULL | FilterFeatures.MONITOREXIT
+						| FilterFeatures.SWITCH,
+				FilterFeatures.of(m, context));
+	}
+
+	@Test
+	public void should_report_class_features() {
+		final MethodNode m = createMethod(0);
+		m.visitInsn(Opcodes.RETURN);
+		context.superClassName = "java/lang/Enum";
+		context.classAnnotations
+				.add(KotlinGeneratedFilter.KOTLIN_METADATA_DESC);
+		context.sourceDebugExtension = "SMAP";
+
+		assertEquals(
+				FilterFeatures.ENUM | FilterFeatures.KOTLIN
+						| FilterFeatures.SOURCE_DEBUG_EXTENSION,
+				FilterFeatures.of(m, context));
+	}
+
+	private static MethodNode createMethod(final int access) {
+		return new MethodNode(InstrSupport.ASM_API_VERSION, access, "name",
+				"()V", null, null);
+	}
+
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link Filters}.
+ */
+public class FiltersTest extends FilterTestBase {
+
+	private final FilterTimings timings = new FilterTimings();
+
+	@Test
+	public void none_should_not_filter_anything() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION,
+				Opcodes.ACC_SYNTHETIC, "name", "()V", null, null);
+		m.visitInsn(Opcodes.RETURN);
+
+		Filters.NONE.filter(m, context, output);
+
+		assertIgnored();
+	}
+
+	@Test
+	public void all_should_only_invoke_filters_with_matching_preconditions() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION,
+				Opcodes.ACC_SYNTHETIC, "name", "()V", null, null);
+		m.visitInsn(Opcodes.RETURN);
+
+		Filters.all(timings).filter(m, context, output);
+
+		assertMethodIgnored(m);
+		assertEquals(1, timings.getInvocations("SyntheticFilter"));
+		assertEquals(1, timings.getInvocations("AnnotationGeneratedFilter"));
+		assertEquals(0, timings.getInvocations("FinallyFilter"));
+		assertEquals(1, timings.getSkipped("FinallyFilter"));
+		assertEquals(1, timings.getSkipped("KotlinInlineFilter"));
+		assertEquals(21, timings.getFilterNames().size());
+	}
+
+	@Test
+	public void all_should_invoke_filters_when_features_present() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+				"name", "()V", null, null);
+		final Label start = new Label();
+		final Label end = new Label();
+		final Label handler = new Label();
+		m.visitTryCatchBlock(start, end, handler, null);
+		m.visitLabel(start);
+		m.visitInsn(Opcodes.NOP);
+		m.visitLabel(end);
+		m.visitInsn(Opcodes.RETURN);
+		m.visitLabel(handler);
+		m.visitInsn(Opcodes.ATHROW);
+
+		Filters.all(timings).filter(m, context, output);
+
+		assertEquals(1, timings.getInvocations("FinallyFilter"));
+		assertEquals(1, timings.getInvocations("TryWithResourcesEcjFilter"));
+		assertEquals(1, timings.getInvocations("KotlinWhenFilter"));
+		assertEquals(1, timings.getSkipped("SynchronizedFilter"));
+		assertTrue(timings.getNanos("FinallyFilter") >= 0);
+	}
+
+	@Test
+	public void timings_should_be_reset() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+				"name", "()V", null, null);
+		m.visitInsn(Opcodes.RETURN);
+		Filters.all(timings).filter(m, context, output);
+
+		timings.reset();
+
+		assertEquals(0, timings.getFilterNames().size());
+		assertEquals(0, timings.getInvocations("AnnotationGeneratedFilter"));
+	}
+
+}
@@ -14,6 +14,7 @@ package org.jacoco.core.internal.data;
 import static org.junit.Assert.assertEquals;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Random;
 
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.junit.Test;
@@ -94,4 +95,62 @@ public class CRC64Test {
 		assertEquals(0xD8016B38AAD48308L, sum);
 	}
 
+	@Test
+	public void should_match_reference_for_all_inputs_up_to_two_bytes() {
+		for (int i = 0; i < 0x100; i++) {
+			assertClassId(new byte[] { (byte) i });
+			for (int j = 0; j < 0x100; j++) {
+				assertClassId(new byte[] { (byte) i, (byte) j });
+			}
+		}
+	}
+
+	@Test
+	public void should_match_reference_for_every_length_and_byte_value() {
+		final Random random = new Random(42);
+		for (int length = 0; length <= 1024; length++) {
+			final byte[] bytes = new byte[length];
+			random.nextBytes(bytes);
+			assertClassId(bytes);
+			// Every byte value at every position of an eight byte block:
+			if (length >= 16 && length <= 24) {
+				for (int pos = 0; pos < length; pos++) {
+					final byte original = bytes[pos];
+					for (int b = 0; b < 0x100; b++) {
+						bytes[pos] = (byte) b;
+						assertClassId(bytes);
+					}
+					bytes[pos] = original;
+				}
+			}
+		}
+	}
+
+	@Test
+	public void should_match_reference_for_java_9_version_byte() {
+		final Random random = new Random(42);
+		for (int length = 8; length <= 64; length++) {
+			final byte[] bytes = new byte[length];
+			random.nextBytes(bytes);
+			bytes[6] = 0x00;
+			bytes[7] = (byte) Opcodes.V9;
+			assertClassId(bytes);
+			final byte[] java8 = bytes.clone();
+			java8[7] = (byte) Opcodes.V1_8;
+			assertEquals(CRC64.classId(java8), CRC64.classId(bytes));
+		}
+	}
+
+	@Test
+	public void should_match_reference_for_real_class_files() {
+		for (final int version : new int[] { Opcodes.V1_5, Opcodes.V1_8,
+				Opcodes.V9, Opcodes.V10, Opcodes.V11 }) {
+			assertClassId(createClass(version));
+		}
+	}
+
+	private static void assertClassId(final byte[] bytes) {
+		assertEquals(ReferenceCRC64.classId(bytes), CRC64.classId(bytes));
+	}
+
 }
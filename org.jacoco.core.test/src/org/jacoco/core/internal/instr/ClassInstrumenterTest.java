@@ -11,12 +11,17 @@
  *******************************************************************************/
 package org.jacoco.core.internal.instr;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 
 /**
  * Unit tests for {@link ClassInstrumenter}.
@@ -59,6 +64,69 @@ public class ClassInstrumenterTest implements IProbeArrayStrategy {
 		assertNull(instrumenter.visitMethod(0, "foo", "()V", null, null));
 	}
 
+	@Test
+	public void testConditionalProbesClass() {
+		final List<String> methods = new ArrayList<String>();
+		instrumenter = createConditional(methods);
+		instrumenter.visit(Opcodes.V1_7, 0, "Foo", null, "java/lang/Object",
+				null);
+		instrumenter.visitTotalProbeCount(3);
+		assertEquals("[$jacocoProbe([ZI)V]", methods.toString());
+	}
+
+	@Test
+	public void testConditionalProbesNoProbes() {
+		final List<String> methods = new ArrayList<String>();
+		instrumenter = createConditional(methods);
+		instrumenter.visit(Opcodes.V1_7, 0, "Foo", null, "java/lang/Object",
+				null);
+		instrumenter.visitTotalProbeCount(0);
+		assertEquals("[]", methods.toString());
+	}
+
+	@Test
+	public void testConditionalProbesInterface7() {
+		final List<String> methods = new ArrayList<String>();
+		instrumenter = createConditional(methods);
+		instrumenter.visit(Opcodes.V1_7, Opcodes.ACC_INTERFACE, "Foo", null,
+				"java/lang/Object", null);
+		instrumenter.visitTotalProbeCount(3);
+		assertEquals("[]", methods.toString());
+	}
+
+	@Test
+	public void testConditionalProbesInterface8() {
+		final List<String> methods = new ArrayList<String>();
+		instrumenter = createConditional(methods);
+		instrumenter.visit(Opcodes.V1_8, Opcodes.ACC_INTERFACE, "Foo", null,
+				"java/lang/Object", null);
+		instrumenter.visitTotalProbeCount(3);
+		assertEquals("[$jacocoProbe([ZI)V]", methods.toString());
+	}
+
+	@Test
+	public void testConditionalProbesInterfaceMajorVersion256() {
+		final List<String> methods = new ArrayList<String>();
+		instrumenter = createConditional(methods);
+		instrumenter.visit(0x100, Opcodes.ACC_INTERFACE, "Foo", null,
+				"java/lang/Object", null);
+		instrumenter.visitTotalProbeCount(3);
+		assertEquals("[$jacocoProbe([ZI)V]", methods.toString());
+	}
+
+	private ClassInstrumenter createConditional(final List<String> methods) {
+		return new ClassInstrumenter(this, true, new ClassVisitor(
+				InstrSupport.ASM_API_VERSION) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name,
+					String desc, String signature, String[] exceptions) {
+				methods.add(name + desc);
+				return new MethodVisitor(InstrSupport.ASM_API_VERSION) {
+				};
+			}
+		});
+	}
+
 	// === IProbeArrayStrategy ===
 
 	public int storeInstance(MethodVisitor mv, boolean clinit, int variable) {
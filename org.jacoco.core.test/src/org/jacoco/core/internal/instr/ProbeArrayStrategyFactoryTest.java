@@ -26,7 +26,9 @@ import org.junit.Test;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
@@ -121,6 +123,18 @@ public class ProbeArrayStrategyFactoryTest {
 				0);
 	}
 
+	@Test
+	public void testClass11() {
+		final IProbeArrayStrategy strategy = test(Opcodes.V11, 0, false, true,
+				true);
+		assertEquals(CondyProbeArrayStrategy.class, strategy.getClass());
+		assertNoDataField();
+		assertCondyBootstrapMethod();
+
+		strategy.storeInstance(cv.visitMethod(0, null, null, null, null), false,
+				0);
+	}
+
 	@Test
 	public void testInterface7() {
 		final IProbeArrayStrategy strategy = test(Opcodes.V1_7,
@@ -211,6 +225,37 @@ public class ProbeArrayStrategyFactoryTest {
 				true, 0);
 	}
 
+	@Test
+	public void testInterface11() {
+		cv.isInterface = true;
+		final IProbeArrayStrategy strategy = test(Opcodes.V11,
+				Opcodes.ACC_INTERFACE, false, true, true);
+		assertEquals(CondyProbeArrayStrategy.class, strategy.getClass());
+		assertNoDataField();
+		assertCondyBootstrapMethod();
+
+		strategy.storeInstance(cv.visitMethod(0, null, null, null, null), false,
+				0);
+	}
+
+	@Test
+	public void testEmptyInterface11() {
+		final IProbeArrayStrategy strategy = test(Opcodes.V11,
+				Opcodes.ACC_INTERFACE, false, false, false);
+		assertEquals(NoneProbeArrayStrategy.class, strategy.getClass());
+		assertNoDataField();
+		assertNoInitMethod();
+	}
+
+	@Test
+	public void testClinitInterface11() {
+		final IProbeArrayStrategy strategy = test(Opcodes.V11,
+				Opcodes.ACC_INTERFACE, true, false, false);
+		assertEquals(LocalProbeArrayStrategy.class, strategy.getClass());
+		assertNoDataField();
+		assertNoInitMethod();
+	}
+
 	@Test
 	public void testModule() {
 		final ClassWriter writer = new ClassWriter(0);
@@ -279,6 +324,13 @@ public class ProbeArrayStrategyFactoryTest {
 			assertEquals(Boolean.valueOf(frames), Boolean.valueOf(frames));
 		}
 
+		void assertCondyBootstrapMethod() {
+			assertEquals(InstrSupport.INITMETHOD_NAME, name);
+			assertEquals(CondyProbeArrayStrategy.B_DESC, desc);
+			assertEquals(InstrSupport.INITMETHOD_ACC, access);
+			assertFalse(frames);
+		}
+
 		void assertClinit() {
 			assertEquals(InstrSupport.CLINIT_NAME, name);
 			assertEquals(InstrSupport.CLINIT_DESC, desc);
@@ -342,6 +394,28 @@ public class ProbeArrayStrategyFactoryTest {
 					}
 				}
 
+				@Override
+				public void visitLdcInsn(Object value) {
+					if (value instanceof ConstantDynamic) {
+						final ConstantDynamic constant = (ConstantDynamic) value;
+						assertEquals(InstrSupport.DATAFIELD_NAME,
+								constant.getName());
+						assertEquals("Ljava/lang/Object;",
+								constant.getDescriptor());
+						final Handle bootstrap = constant
+								.getBootstrapMethod();
+						assertEquals(Opcodes.H_INVOKESTATIC,
+								bootstrap.getTag());
+						assertEquals("Foo", bootstrap.getOwner());
+						assertEquals(InstrSupport.INITMETHOD_NAME,
+								bootstrap.getName());
+						assertEquals(CondyProbeArrayStrategy.B_DESC,
+								bootstrap.getDesc());
+						assertEquals(Boolean.valueOf(isInterface),
+								Boolean.valueOf(bootstrap.isInterface()));
+					}
+				}
+
 				@Override
 				public void visitMethodInsn(int opcode, String owner,
 						String name, String desc, boolean itf) {
@@ -376,6 +450,11 @@ public class ProbeArrayStrategyFactoryTest {
 		cv.methods.get(0).assertInitMethod(frames);
 	}
 
+	void assertCondyBootstrapMethod() {
+		assertEquals(1, cv.methods.size());
+		cv.methods.get(0).assertCondyBootstrapMethod();
+	}
+
 	void assertInitAndClinitMethods() {
 		assertEquals(2, cv.methods.size());
 		cv.methods.get(0).assertInitMethod(true);
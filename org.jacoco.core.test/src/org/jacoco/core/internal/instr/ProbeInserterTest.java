@@ -102,6 +102,18 @@ public class ProbeInserterTest {
 		expectedVisitor.visitInsn(Opcodes.BASTORE);
 	}
 
+	@Test
+	public void testVariableStaticConditional() {
+		ProbeInserter pi = new ProbeInserter(Opcodes.ACC_STATIC, "m", "()V",
+				actualVisitor, arrayStrategy, "Foo", false);
+		pi.insertProbe(3);
+
+		expectedVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+		expectedVisitor.visitInsn(Opcodes.ICONST_3);
+		expectedVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, "Foo",
+				"$jacocoProbe", "([ZI)V", false);
+	}
+
 	@Test
 	public void testVisitCode() {
 		ProbeInserter pi = new ProbeInserter(0, "m", "()V", actualVisitor,
@@ -52,6 +52,12 @@ public class AgentOptionsTest {
 		assertEquals(AgentOptions.DEFAULT_PORT, options.getPort());
 		assertNull(options.getClassDumpDir());
 		assertFalse(options.getJmx());
+		assertFalse(options.getConditionalProbes());
+		assertEquals(0, options.getDumpInterval());
+		assertEquals(0, options.getDumpJitter());
+		assertEquals(0, options.getDumpRetention());
+		assertEquals(0, options.getMetricsInterval());
+		assertEquals(0, options.getProfileSize());
 
 		assertEquals("", options.toString());
 	}
@@ -397,6 +403,110 @@ public class AgentOptionsTest {
 		assertTrue(options.getJmx());
 	}
 
+	@Test
+	public void testGetConditionalProbes() {
+		AgentOptions options = new AgentOptions("conditionalprobes=true");
+		assertTrue(options.getConditionalProbes());
+	}
+
+	@Test
+	public void testSetConditionalProbes() {
+		AgentOptions options = new AgentOptions();
+		options.setConditionalProbes(true);
+		assertTrue(options.getConditionalProbes());
+		assertEquals("conditionalprobes=true", options.toString());
+	}
+
+	@Test
+	public void testGetDumpInterval() {
+		AgentOptions options = new AgentOptions("dumpinterval=60");
+		assertEquals(60, options.getDumpInterval());
+	}
+
+	@Test
+	public void testSetDumpInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpInterval(60);
+		assertEquals(60, options.getDumpInterval());
+		assertEquals("dumpinterval=60", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseDumpIntervalNegative() {
+		new AgentOptions("dumpinterval=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetDumpIntervalNegative() {
+		new AgentOptions().setDumpInterval(-1);
+	}
+
+	@Test
+	public void testGetDumpJitter() {
+		AgentOptions options = new AgentOptions("dumpjitter=10");
+		assertEquals(10, options.getDumpJitter());
+	}
+
+	@Test
+	public void testSetDumpJitter() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpJitter(10);
+		assertEquals(10, options.getDumpJitter());
+		assertEquals("dumpjitter=10", options.toString());
+	}
+
+	@Test
+	public void testGetDumpRetention() {
+		AgentOptions options = new AgentOptions("dumpretention=5");
+		assertEquals(5, options.getDumpRetention());
+	}
+
+	@Test
+	public void testSetDumpRetention() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpRetention(5);
+		assertEquals(5, options.getDumpRetention());
+		assertEquals("dumpretention=5", options.toString());
+	}
+
+	@Test
+	public void testGetMetricsInterval() {
+		AgentOptions options = new AgentOptions("metricsinterval=30");
+		assertEquals(30, options.getMetricsInterval());
+	}
+
+	@Test
+	public void testSetMetricsInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setMetricsInterval(30);
+		assertEquals(30, options.getMetricsInterval());
+		assertEquals("metricsinterval=30", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetMetricsIntervalNegative() {
+		new AgentOptions().setMetricsInterval(-1);
+	}
+
+	@Test
+	public void testGetProfileSize() {
+		AgentOptions options = new AgentOptions("profilesize=1000");
+		assertEquals(1000, options.getProfileSize());
+	}
+
+	@Test
+	public void testSetProfileSize() {
+		AgentOptions options = new AgentOptions();
+		options.setProfileSize(1000);
+		assertEquals(1000, options.getProfileSize());
+		assertEquals("profilesize=1000", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseProfileSizeNegative() {
+		new AgentOptions("profilesize=-1");
+	}
+
 	@Test
 	public void testGetVMArgumentWithNoOptions() {
 		AgentOptions options = new AgentOptions();
@@ -77,6 +77,25 @@ public class OfflineInstrumentationAccessGeneratorTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testStaticRuntimeClassName() throws Exception {
+		generator = new OfflineInstrumentationAccessGenerator(true);
+		MethodRecorder actual = new MethodRecorder();
+		generator.generateDataAccessor(987654321, "foo/Bar", 17,
+				actual.getVisitor());
+
+		MethodRecorder expected = new MethodRecorder();
+		expected.getVisitor().visitLdcInsn(Long.valueOf(987654321));
+		expected.getVisitor().visitLdcInsn("foo/Bar");
+		expected.getVisitor().visitIntInsn(Opcodes.BIPUSH, 17);
+		String rtname = JaCoCo.RUNTIMEPACKAGE.replace('.', '/')
+				+ "/StaticOffline";
+		expected.getVisitor().visitMethodInsn(Opcodes.INVOKESTATIC, rtname,
+				"getProbes", "(JLjava/lang/String;I)[Z", false);
+
+		assertEquals(expected, actual);
+	}
+
 	/**
 	 * Creates a new class with the given id, loads this class and instantiates
 	 * it. The constructor of the generated class will request the probe array
@@ -67,6 +67,17 @@ public class RuntimeDataTest {
 		assertEquals("Foo", storage.getData(123).getName());
 	}
 
+	@Test
+	public void testGetProbesPrimitive() {
+		final boolean[] probes = data.getProbes(123, "Foo", 3);
+		assertEquals(3, probes.length);
+		assertSame(probes, data.getProbes(123, "Foo", 3));
+
+		data.collect(storage, storage, false);
+		assertSame(storage.getData(123).getProbes(), probes);
+		assertEquals("Foo", storage.getData(123).getName());
+	}
+
 	@Test
 	public void testCollectEmpty() {
 		data.collect(storage, storage, false);
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.data.ReferenceCRC64;
+import org.jacoco.core.test.TargetLoader;
+
+/**
+ * Scenario to measure the time taken to calculate class identifiers compared
+ * to the byte-at-a-time implementation.
+ */
+public class ClassIdTimeScenario extends TimedScenario {
+
+	private final Class<?> target;
+
+	private final int count;
+
+	private long sink;
+
+	protected ClassIdTimeScenario(Class<?> target, int count) {
+		super(String.format("class ids of %s classes", Integer.valueOf(count)));
+		this.target = target;
+		this.count = count;
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (int i = 0; i < count; i++) {
+					sink += CRC64.classId(bytes);
+				}
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (int i = 0; i < count; i++) {
+					sink += ReferenceCRC64.classId(bytes);
+				}
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.test.TargetLoader;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * This scenario executes a given target concurrently from several threads and
+ * reports the execution time: Once on its original version, once in a
+ * instrumented version. All threads share the same probe array which allows
+ * to measure the effect of conditional probes on contended probe writes. The
+ * threads are started before the measurement so that thread creation is not
+ * part of the reported time.
+ */
+public class ConcurrentExecuteInstrumentedCodeScenario extends TimedScenario {
+
+	private final Class<? extends Callable<Void>> target;
+
+	private final int threads;
+
+	private final boolean conditionalProbes;
+
+	private ThreadPoolExecutor executor;
+
+	protected ConcurrentExecuteInstrumentedCodeScenario(String description,
+			Class<? extends Callable<Void>> target, int threads,
+			boolean conditionalProbes) {
+		super(description);
+		this.target = target;
+		this.threads = threads;
+		this.conditionalProbes = conditionalProbes;
+	}
+
+	@Override
+	public void run(final IPerfOutput output) throws Exception {
+		executor = new ThreadPoolExecutor(threads, threads, 0,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+		executor.prestartAllCoreThreads();
+		try {
+			super.run(output);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		ClassReader reader = new ClassReader(TargetLoader.getClassData(target));
+		IRuntime runtime = new LoggerRuntime();
+		runtime.startup(new RuntimeData());
+		final Instrumenter instr = new Instrumenter(runtime);
+		instr.setConditionalProbes(conditionalProbes);
+		final byte[] instrumentedBuffer = instr.instrument(reader);
+		final TargetLoader loader = new TargetLoader();
+
+		return concurrent((Callable<Void>) loader.add(target,
+				instrumentedBuffer).newInstance());
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return concurrent(target.newInstance());
+	}
+
+	private Callable<Void> concurrent(final Callable<Void> subject) {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+				for (int i = 0; i < threads; i++) {
+					futures.add(executor.submit(subject));
+				}
+				for (final Future<Void> f : futures) {
+					f.get();
+				}
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.test.TargetLoader;
+
+/**
+ * Scenario to measure how instrumentation scales when many class loading
+ * threads use the same {@link Instrumenter} concurrently, like the agent with
+ * parallel capable class loaders. The same number of classes is instrumented
+ * by the given number of threads, the reference is a single thread. The worker
+ * threads are started before the measurement so that only the instrumentation
+ * itself is timed.
+ */
+public class ConcurrentInstrumentationScenario extends TimedScenario {
+
+	private final Class<?> target;
+
+	private final int count;
+
+	private final int threads;
+
+	private ThreadPoolExecutor executor;
+
+	protected ConcurrentInstrumentationScenario(Class<?> target, int count,
+			int threads) {
+		super(String.format("instrumenting %s classes, %s threads",
+				Integer.valueOf(count), Integer.valueOf(threads)));
+		this.target = target;
+		this.count = count;
+		this.threads = threads;
+	}
+
+	@Override
+	public void run(final IPerfOutput output) throws Exception {
+		executor = new ThreadPoolExecutor(threads, threads, 0,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+		executor.prestartAllCoreThreads();
+		try {
+			super.run(output);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return concurrent(threads);
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return concurrent(1);
+	}
+
+	private Callable<Void> concurrent(final int threadCount) throws Exception {
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		final Instrumenter instr = new Instrumenter(new LoggerRuntime());
+		final Callable<Void> worker = new Callable<Void>() {
+			public Void call() throws Exception {
+				for (int i = 0; i < count / threadCount; i++) {
+					instr.instrument(bytes, "TestTarget");
+				}
+				return null;
+			}
+		};
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+				for (int i = 0; i < threadCount; i++) {
+					futures.add(executor.submit(worker));
+				}
+				for (final Future<Void> f : futures) {
+					f.get();
+				}
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.test.TargetLoader;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * Scenario to measure the heap retained by the coverage model of a bundle. The
+ * target class is analyzed under different names, each one in its own package
+ * and source file.
+ */
+public class CoverageModelHeapScenario implements IPerfScenario {
+
+	private final Class<?> target;
+
+	private final int count;
+
+	public CoverageModelHeapScenario(Class<?> target, int count) {
+		this.target = target;
+		this.count = count;
+	}
+
+	public void run(IPerfOutput output) throws Exception {
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		final byte[][] classes = new byte[count][];
+		for (int i = 0; i < count; i++) {
+			classes[i] = rename(bytes, "pkg" + i + "/Target");
+		}
+
+		final long before = usedHeap();
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(new ExecutionDataStore(),
+				builder);
+		for (int i = 0; i < count; i++) {
+			analyzer.analyzeClass(classes[i], "Target" + i);
+		}
+		final IBundleCoverage bundle = builder.getBundle("bundle");
+		final long after = usedHeap();
+
+		output.writeByteResult(
+				String.format("model of %s classes", Integer.valueOf(count)),
+				after - before, IPerfOutput.NO_REFERENCE);
+		if (bundle.getClassCounter().getTotalCount() != count) {
+			throw new AssertionError();
+		}
+	}
+
+	private static byte[] rename(final byte[] bytes, final String name) {
+		final ClassReader reader = InstrSupport.classReaderFor(bytes);
+		final ClassWriter writer = new ClassWriter(0);
+		reader.accept(new ClassVisitor(InstrSupport.ASM_API_VERSION, writer) {
+			@Override
+			public void visit(int version, int access, String n,
+					String signature, String superName, String[] interfaces) {
+				super.visit(version, access, name, signature, superName,
+						interfaces);
+			}
+		}, 0);
+		return writer.toByteArray();
+	}
+
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
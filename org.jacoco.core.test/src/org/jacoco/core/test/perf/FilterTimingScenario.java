@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.jacoco.core.internal.analysis.filter.FilterTimings;
+import org.jacoco.core.internal.analysis.filter.Filters;
+import org.jacoco.core.internal.analysis.filter.IFilter;
+import org.jacoco.core.internal.analysis.filter.IFilterContext;
+import org.jacoco.core.internal.analysis.filter.IFilterOutput;
+import org.jacoco.core.test.TargetLoader;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Scenario to report the time spent in each filter when filtering all methods
+ * of a class.
+ */
+public class FilterTimingScenario implements IPerfScenario {
+
+	private final Class<?> target;
+
+	private final int count;
+
+	protected FilterTimingScenario(Class<?> target, int count) {
+		this.target = target;
+		this.count = count;
+	}
+
+	public void run(IPerfOutput output) throws Exception {
+		final ClassNode classNode = new ClassNode();
+		new ClassReader(TargetLoader.getClassDataAsBytes(target))
+				.accept(classNode, 0);
+		final IFilterContext context = new IFilterContext() {
+			public String getClassName() {
+				return classNode.name;
+			}
+
+			public String getSuperClassName() {
+				return classNode.superName;
+			}
+
+			public Set<String> getClassAnnotations() {
+				return Collections.emptySet();
+			}
+
+			public String getSourceFileName() {
+				return classNode.sourceFile;
+			}
+
+			public String getSourceDebugExtension() {
+				return classNode.sourceDebug;
+			}
+		};
+		final IFilterOutput filterOutput = new IFilterOutput() {
+			public void ignore(AbstractInsnNode fromInclusive,
+					AbstractInsnNode toInclusive) {
+			}
+
+			public void merge(AbstractInsnNode i1, AbstractInsnNode i2) {
+			}
+
+			public void replaceBranches(AbstractInsnNode source,
+					Set<AbstractInsnNode> newTargets) {
+			}
+		};
+
+		final FilterTimings timings = new FilterTimings();
+		for (int i = 0; i < count; i++) {
+			final IFilter filter = Filters.all(timings);
+			for (final MethodNode m : classNode.methods) {
+				filter.filter(m, context, filterOutput);
+			}
+		}
+		for (final String name : timings.getFilterNames()) {
+			output.writeTimeResult(String.format("filtering %s classes, %s",
+					Integer.valueOf(count), name), timings.getNanos(name),
+					IPerfOutput.NO_REFERENCE);
+		}
+	}
+
+}
@@ -29,9 +29,21 @@ public class PerformanceSuite implements IPerfScenario {
 				.run(output);
 		new ExecuteInstrumentedCodeScenario("game of life", Target03.class)
 				.run(output);
+		new ConcurrentExecuteInstrumentedCodeScenario("loop only, 4 threads",
+				Target02.class, 4, false).run(output);
+		new ConcurrentExecuteInstrumentedCodeScenario(
+				"loop only, 4 threads, conditional probes", Target02.class, 4,
+				true).run(output);
 		new InstrumentationSizeSzenario(Target03.class).run(output);
 		new InstrumentationTimeScenario(Target03.class, 1000).run(output);
+		for (int threads = 1; threads <= 64; threads *= 2) {
+			new ConcurrentInstrumentationScenario(Target03.class, 3200,
+					threads).run(output);
+		}
 		new AnalysisTimeScenario(Target03.class, 1000).run(output);
+		new ClassIdTimeScenario(Target03.class, 100000).run(output);
+		new FilterTimingScenario(Target03.class, 1000).run(output);
+		new CoverageModelHeapScenario(Target03.class, 10000).run(output);
 	}
 
 	public static void main(String[] args) throws Exception {
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.tools.ExecFileCombiner.Operation;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecFileCombiner}.
+ */
+public class ExecFileCombinerTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecFileCombiner combiner;
+
+	private ExecutionDataStore store;
+
+	private SessionInfoStore sessions;
+
+	@Before
+	public void setup() {
+		combiner = new ExecFileCombiner();
+		store = new ExecutionDataStore();
+		sessions = new SessionInfoStore();
+	}
+
+	@Test
+	public void union_should_combine_probes_of_all_operands()
+			throws IOException {
+		combiner.apply(Operation.UNION, exec(data(1, "A", "1100")));
+		combiner.apply(Operation.UNION,
+				exec(data(1, "A", "0110"), data(2, "B", "01")));
+		accept();
+
+		assertProbes("1110", 1);
+		assertProbes("01", 2);
+	}
+
+	@Test
+	public void intersection_should_keep_probes_hit_in_both_operands()
+			throws IOException {
+		combiner.apply(Operation.UNION,
+				exec(data(1, "A", "1100"), data(2, "B", "11")));
+		combiner.apply(Operation.INTERSECTION,
+				exec(data(1, "A", "0110"), data(3, "C", "1")));
+		accept();
+
+		assertProbes("0100", 1);
+		assertNull(store.get(2));
+		assertNull(store.get(3));
+	}
+
+	@Test
+	public void difference_should_remove_probes_hit_in_operand()
+			throws IOException {
+		combiner.apply(Operation.UNION,
+				exec(data(1, "A", "1100"), data(2, "B", "11")));
+		combiner.apply(Operation.DIFFERENCE,
+				exec(data(1, "A", "0110"), data(2, "B", "11"),
+						data(3, "C", "1")));
+		accept();
+
+		assertProbes("1000", 1);
+		assertNull(store.get(2));
+		assertNull(store.get(3));
+	}
+
+	@Test
+	public void symmetric_difference_should_keep_probes_hit_in_one_operand()
+			throws IOException {
+		combiner.apply(Operation.UNION,
+				exec(data(1, "A", "1100"), data(2, "B", "11")));
+		combiner.apply(Operation.SYMMETRIC_DIFFERENCE,
+				exec(data(1, "A", "0110"), data(2, "B", "11"),
+						data(3, "C", "1")));
+		accept();
+
+		assertProbes("1010", 1);
+		assertNull(store.get(2));
+		assertProbes("1", 3);
+	}
+
+	@Test
+	public void should_merge_repeated_class_within_operand_first()
+			throws IOException {
+		combiner.apply(Operation.UNION, exec(data(1, "A", "1111")));
+		combiner.apply(Operation.SYMMETRIC_DIFFERENCE,
+				exec(data(1, "A", "1000"), data(1, "A", "0100")));
+		combiner.apply(Operation.INTERSECTION,
+				exec(data(1, "A", "0010"), data(1, "A", "0001")));
+		accept();
+
+		assertProbes("0011", 1);
+	}
+
+	@Test
+	public void should_handle_more_than_64_probes() throws IOException {
+		final boolean[] a = new boolean[130];
+		final boolean[] b = new boolean[130];
+		a[0] = a[63] = a[64] = a[129] = true;
+		b[63] = b[128] = b[129] = true;
+		combiner.apply(Operation.UNION, exec(new ExecutionData(1, "A", a)));
+		combiner.apply(Operation.SYMMETRIC_DIFFERENCE,
+				exec(new ExecutionData(1, "A", b)));
+		accept();
+
+		final boolean[] expected = new boolean[130];
+		expected[0] = expected[64] = expected[128] = true;
+		assertEquals(Arrays.toString(expected),
+				Arrays.toString(store.get(1).getProbes()));
+	}
+
+	@Test
+	public void should_keep_all_session_infos() throws IOException {
+		combiner.apply(Operation.UNION, exec(new SessionInfo("s1", 1, 2),
+				data(1, "A", "1")));
+		combiner.apply(Operation.DIFFERENCE, exec(new SessionInfo("s2", 3, 4),
+				data(1, "A", "1")));
+		accept();
+
+		assertEquals(2, sessions.getInfos().size());
+		assertEquals("s1", sessions.getInfos().get(0).getId());
+		assertEquals("s2", sessions.getInfos().get(1).getId());
+		assertNull(store.get(1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void should_fail_for_different_probe_count() throws IOException {
+		combiner.apply(Operation.UNION, exec(data(1, "A", "11")));
+		combiner.apply(Operation.INTERSECTION, exec(data(1, "A", "111")));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void should_fail_for_different_class_name() throws IOException {
+		combiner.apply(Operation.UNION, exec(data(1, "A", "11")));
+		combiner.apply(Operation.DIFFERENCE, exec(data(1, "B", "11")));
+	}
+
+	@Test
+	public void should_save_result_to_file() throws IOException {
+		final File file = new File(folder.getRoot(), "sub/result.exec");
+		combiner.apply(Operation.UNION,
+				exec(new SessionInfo("s", 1, 2), data(1, "A", "101")));
+		combiner.save(file);
+
+		final InputStream in = new FileInputStream(file);
+		try {
+			final ExecutionDataReader reader = new ExecutionDataReader(in);
+			reader.setSessionInfoVisitor(sessions);
+			reader.setExecutionDataVisitor(store);
+			reader.read();
+		} finally {
+			in.close();
+		}
+		assertEquals("s", sessions.getInfos().get(0).getId());
+		assertProbes("101", 1);
+	}
+
+	private void accept() {
+		combiner.accept(sessions, store);
+	}
+
+	private void assertProbes(final String expected, final long id) {
+		assertEquals(Arrays.toString(probes(expected)),
+				Arrays.toString(store.get(id).getProbes()));
+	}
+
+	private static ExecutionData data(final long id, final String name,
+			final String probes) {
+		return new ExecutionData(id, name, probes(probes));
+	}
+
+	private static boolean[] probes(final String probes) {
+		final boolean[] result = new boolean[probes.length()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = probes.charAt(i) == '1';
+		}
+		return result;
+	}
+
+	private static InputStream exec(final Object... content)
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
+		for (final Object c : content) {
+			if (c instanceof SessionInfo) {
+				writer.visitSessionInfo((SessionInfo) c);
+			} else {
+				writer.visitClassExecution((ExecutionData) c);
+			}
+		}
+		return new ByteArrayInputStream(buffer.toByteArray());
+	}
+
+}
@@ -20,6 +20,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.jacoco.core.data.ExecutionData;
@@ -78,6 +80,72 @@ public class ExecFileLoaderTest {
 		loader.load(file);
 	}
 
+	@Test
+	public void testLoadFilesSequential() throws IOException {
+		loader.load(Arrays.asList(createFile("a"), createFile("bb")), 1);
+
+		assertLoaderContents("a", "bb");
+	}
+
+	@Test
+	public void testLoadFilesParallel() throws IOException {
+		final List<File> files = new ArrayList<File>();
+		final List<String> ids = new ArrayList<String>();
+		String id = "";
+		for (int i = 0; i < 50; i++) {
+			id += "x";
+			files.add(createFile(id));
+			ids.add(id);
+		}
+		loader.load(createFile(id + "y"));
+
+		loader.load(files, 3);
+
+		ids.add(id + "y");
+		assertLoaderContents(ids.toArray(new String[0]));
+	}
+
+	@Test
+	public void testLoadFilesParallelKeepsSessionOrder() throws IOException {
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 20; i++) {
+			files.add(createFile("f" + i, 1, "C", new boolean[] { i == 7,
+					i == 13 }));
+		}
+
+		loader.load(files, 4);
+
+		final List<SessionInfo> infos = loader.getSessionInfoStore()
+				.getInfos();
+		assertEquals(20, infos.size());
+		for (int i = 0; i < 20; i++) {
+			assertEquals("f" + i, infos.get(i).getId());
+		}
+		assertEquals("[true, true]", Arrays.toString(
+				loader.getExecutionDataStore().get(1).getProbes()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testLoadFilesParallelIncompatible() throws IOException {
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 10; i++) {
+			files.add(createFile("f" + i, 1, i == 9 ? "Other" : "C",
+					new boolean[] { true }));
+		}
+
+		loader.load(files, 4);
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadFilesParallelBrokenContent() throws IOException {
+		final File file = new File(sourceFolder.getRoot(), "broken.exec");
+		final FileWriter writer = new FileWriter(file);
+		writer.write("Invalid Content");
+		writer.close();
+
+		loader.load(Arrays.asList(createFile("a"), file, createFile("bb")), 2);
+	}
+
 	@Test
 	public void testSaveFile() throws IOException {
 		final File file = new File(sourceFolder.getRoot(), "target.exec");
@@ -125,6 +193,17 @@ public class ExecFileLoaderTest {
 		return file;
 	}
 
+	private File createFile(String sessionId, long classId, String name,
+			boolean[] probes) throws IOException {
+		final File file = new File(sourceFolder.getRoot(), sessionId + ".exec");
+		final FileOutputStream out = new FileOutputStream(file);
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitSessionInfo(new SessionInfo(sessionId, 1, 2));
+		writer.visitClassExecution(new ExecutionData(classId, name, probes));
+		out.close();
+		return file;
+	}
+
 	private void assertLoaderContents(String... expected) {
 		assertContents(loader.getExecutionDataStore(),
 				loader.getSessionInfoStore(), expected);
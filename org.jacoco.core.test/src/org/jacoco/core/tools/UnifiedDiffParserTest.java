@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.jacoco.core.analysis.ChangeSet;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link UnifiedDiffParser}.
+ */
+public class UnifiedDiffParserTest {
+
+	private UnifiedDiffParser parser;
+
+	@Before
+	public void setup() {
+		parser = new UnifiedDiffParser();
+	}
+
+	@Test
+	public void should_record_added_lines_of_new_file() throws IOException {
+		final ChangeSet changes = parse(
+				"diff --git a/src/main/java/org/example/Foo.java b/src/main/java/org/example/Foo.java",
+				"index 1234567..89abcde 100644",
+				"--- a/src/main/java/org/example/Foo.java",
+				"+++ b/src/main/java/org/example/Foo.java",
+				"@@ -10,4 +10,4 @@ public class Foo {", " context",
+				"-removed", "+added1", "+added2", " context", "@@ -30 +31 @@",
+				"-old", "+new");
+
+		assertEquals(Collections.singleton("org/example/Foo.java"),
+				changes.getSourceFiles());
+		assertFalse(changes.containsLines("org/example/Foo.java", 10, 10));
+		assertTrue(changes.containsLines("org/example/Foo.java", 11, 11));
+		assertTrue(changes.containsLines("org/example/Foo.java", 12, 12));
+		assertFalse(changes.containsLines("org/example/Foo.java", 13, 30));
+		assertTrue(changes.containsLines("org/example/Foo.java", 31, 31));
+		assertFalse(changes.containsLines("org/example/Foo.java", 32, 40));
+	}
+
+	@Test
+	public void should_record_line_of_pure_deletion() throws IOException {
+		final ChangeSet changes = parse("--- a/Foo.java", "+++ b/Foo.java",
+				"@@ -5,2 +4,0 @@", "-a", "-b");
+
+		assertTrue(changes.containsLines("Foo.java", 4, 4));
+		assertFalse(changes.containsLines("Foo.java", 5, 5));
+	}
+
+	@Test
+	public void should_ignore_deleted_and_non_source_files()
+			throws IOException {
+		final ChangeSet changes = parse("diff --git a/Foo.java b/Foo.java",
+				"--- a/Foo.java", "+++ /dev/null", "@@ -1 +0,0 @@", "-a",
+				"diff --git a/README.md b/README.md", "--- a/README.md",
+				"+++ b/README.md", "@@ -1 +1 @@", "-a", "+b");
+
+		assertTrue(changes.isEmpty());
+	}
+
+	@Test
+	public void should_not_treat_content_as_headers() throws IOException {
+		final ChangeSet changes = parse("--- a/Foo.java", "+++ b/Foo.java",
+				"@@ -1,2 +1,2 @@", "--- a/Bar.java", "++++ b/Bar.java",
+				"-x", " y");
+
+		assertEquals(Collections.singleton("Foo.java"),
+				changes.getSourceFiles());
+		assertTrue(changes.containsLines("Foo.java", 1, 1));
+		assertFalse(changes.containsLines("Foo.java", 2, 2));
+	}
+
+	@Test
+	public void should_parse_large_diffs_in_parallel() throws IOException {
+		parser.setThreads(4);
+		final StringBuilder diff = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			final String path = "m/src/main/java/p" + i + "/Foo.java";
+			diff.append("diff --git a/").append(path).append(" b/")
+					.append(path).append('\n');
+			diff.append("--- a/").append(path).append('\n');
+			diff.append("+++ b/").append(path).append('\n');
+			diff.append("@@ -").append(i + 1).append(" +").append(i + 1)
+					.append(" @@\n-a\n+b\n");
+		}
+
+		final ChangeSet changes = parser
+				.parse(new StringReader(diff.toString()));
+
+		assertEquals(500, changes.getSourceFiles().size());
+		for (int i = 0; i < 500; i++) {
+			assertTrue(changes.containsLines("p" + i + "/Foo.java", i + 1,
+					i + 1));
+			assertFalse(changes.containsLines("p" + i + "/Foo.java", i + 2,
+					i + 2));
+		}
+	}
+
+	@Test
+	public void getSourcePath_should_strip_source_roots() {
+		assertEquals("org/example/Foo.java", parser.getSourcePath(
+				"b/module/src/main/java/org/example/Foo.java\t2019-01-01"));
+		assertEquals("org/example/Foo.kt",
+				parser.getSourcePath("src/main/kotlin/org/example/Foo.kt"));
+		assertEquals("other/Foo.java", parser.getSourcePath("other/Foo.java"));
+		assertEquals("other/xsrc/main/java/Foo.java",
+				parser.getSourcePath("other/xsrc/main/java/Foo.java"));
+		assertNull(parser.getSourcePath("/dev/null"));
+		assertNull(parser.getSourcePath("b/pom.xml"));
+	}
+
+	@Test
+	public void getSourcePath_should_use_configured_source_roots() {
+		parser.setSourceRoots(Arrays.asList("src", "test/"));
+
+		assertEquals("org/Foo.java", parser.getSourcePath("a/src/org/Foo.java"));
+		assertEquals("org/Foo.java", parser.getSourcePath("test/org/Foo.java"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setThreads_should_reject_non_positive_values() {
+		parser.setThreads(0);
+	}
+
+	@Test
+	public void parseHunkHeader_should_default_count_to_one() {
+		assertArrayEquals(new int[] { 7, 1 },
+				UnifiedDiffParser.parseHunkHeader("@@ -3 +7 @@"));
+		assertArrayEquals(new int[] { 7, 0 },
+				UnifiedDiffParser.parseHunkHeader("@@ -3,2 +7,0 @@ foo()"));
+	}
+
+	private ChangeSet parse(final String... lines) throws IOException {
+		final StringBuilder diff = new StringBuilder();
+		for (final String line : lines) {
+			diff.append(line).append('\n');
+		}
+		return parser.parse(new StringReader(diff.toString()));
+	}
+
+}
@@ -30,10 +30,20 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -50,7 +60,7 @@ public class Analyzer {
 
     private final StringPool stringPool;
 
-    private final Map<String, String> diffMethod;
+    private final ChangeSet changeSet;
 
 
     /**
@@ -64,7 +74,7 @@ public class Analyzer {
         this.executionData = executionData;
         this.coverageVisitor = coverageVisitor;
         this.stringPool = new StringPool();
-        this.diffMethod = null;
+        this.changeSet = null;
     }
 
     /**
@@ -72,15 +82,40 @@ public class Analyzer {
      *
      * @param executionData 执行数据
      * @param coverageVisitor   将覆盖每个分析类的数据的输出实例
-     * @param diffMethod        code diff 得到的差异方法
+     * @param diffMethod        code diff 得到的差异方法名, 在所有类中都视为已变更
      */
     public Analyzer(final ExecutionDataStore executionData,
                     final ICoverageVisitor coverageVisitor,
                     final Map<String, String> diffMethod) {
+        this(executionData, coverageVisitor, toChangeSet(diffMethod));
+    }
+
+    /**
+     * 创建只分析给定变更的新分析器。
+     * 没有变更的类会在解析之前被跳过, 未变更的方法只计算探针, 因此探针 id 与完整分析一致。
+     *
+     * @param executionData 执行数据
+     * @param coverageVisitor   将覆盖每个分析类的数据的输出实例
+     * @param changeSet         变更集合, 为 <code>null</code> 时分析所有方法
+     */
+    public Analyzer(final ExecutionDataStore executionData,
+                    final ICoverageVisitor coverageVisitor,
+                    final ChangeSet changeSet) {
         this.executionData = executionData;
         this.coverageVisitor = coverageVisitor;
         this.stringPool = new StringPool();
-        this.diffMethod = diffMethod;
+        this.changeSet = changeSet;
+    }
+
+    private static ChangeSet toChangeSet(final Map<String, String> diffMethod) {
+        if (diffMethod == null || diffMethod.isEmpty()) {
+            return null;
+        }
+        final ChangeSet changeSet = new ChangeSet();
+        for (final String name : diffMethod.keySet()) {
+            changeSet.addMethodName(name);
+        }
+        return changeSet;
     }
 
     /**
@@ -88,10 +123,13 @@ public class Analyzer {
      *
      * @param classid 使用{@link CRC64}计算的类id
      * @param className 类的虚拟机名称
+     * @param pool 当前线程使用的字符串池
+     * @param visitor 接收覆盖数据的访问者
      *
      * @return 返回ASM访问者以写入类定义
      */
-    private ClassVisitor createAnalyzingVisitor(final long classid, final String className) {
+    private ClassVisitor createAnalyzingVisitor(final long classid, final String className,
+                                                final StringPool pool, final ICoverageVisitor visitor) {
         final ExecutionData data = executionData.get(classid);
         final boolean[] probes;
         final boolean noMatch;
@@ -114,17 +152,22 @@ public class Analyzer {
 
         final ClassCoverageImpl coverage = new ClassCoverageImpl(className, classid, noMatch);
 
-        final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes, stringPool) {
+        final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes, pool) {
             @Override
             public void visitEnd() {
                 super.visitEnd();
-                coverageVisitor.visitCoverage(coverage);
+                visitor.visitCoverage(coverage);
             }
         };
-        return new ClassProbesAdapter(analyzer, false, diffMethod);
+        return new ClassProbesAdapter(analyzer, false, changeSet);
     }
 
     private void analyzeClass(final byte[] source) {
+        analyzeClass(source, stringPool, coverageVisitor);
+    }
+
+    private void analyzeClass(final byte[] source, final StringPool pool,
+                              final ICoverageVisitor visitor) {
         final long classId = CRC64.classId(source);
 
         // 为给定字节的类创建{@link ClassReader}实例，即使其版本不受ASM支持。
@@ -136,14 +179,19 @@ public class Analyzer {
         if ((reader.getAccess() & Opcodes.ACC_SYNTHETIC) != 0) {
             return;
         }
-        final ClassVisitor visitor = createAnalyzingVisitor(classId, reader.getClassName());
+        // 没有变更的类无需解析
+        if (changeSet != null && !changeSet.containsClass(reader.getClassName())) {
+            return;
+        }
+        final ClassVisitor classVisitor = createAnalyzingVisitor(classId,
+                reader.getClassName(), pool, visitor);
 
         // System.out.println(visitor);
         /*
          * visitor必须是此类的访问者。
          * parsingOptions用于分析此类的选项
          */
-        reader.accept(visitor, 0);
+        reader.accept(classVisitor, 0);
 
         // ClassProbesAdapter adapter = (ClassProbesAdapter)visitor;
         //
@@ -303,6 +351,185 @@ public class Analyzer {
         return count;
     }
 
+    /**
+     * 通过中央目录随机访问分析 ZIP 文件中的类。
+     * 条目只根据名称用给定过滤器预先筛选, 被排除的类和资源文件不会被解压。
+     * 筛选后的类文件由给定数量的线程并行分析,
+     * 对覆盖访问者的调用是同步的, 但顺序不确定。
+     * 嵌套的归档文件按顺序递归分析, 其中的类使用同一个过滤器。
+     *
+     * @param file      ZIP 文件
+     * @param filter    条目过滤器, 为 <code>null</code> 时分析所有类文件
+     * @param threads   最大线程数
+     * @return number of class files found
+     * @throws IOException
+     *             if the file can't be read or a class can't be analyzed
+     */
+    public int analyzeZipFile(final File file, final ZipEntryFilter filter,
+                              final int threads) throws IOException {
+        final ZipEntryFilter entryFilter = filter == null ? new ZipEntryFilter() : filter;
+        final String location = file.getPath();
+        final ZipFile zip;
+        try {
+            zip = new ZipFile(file);
+        } catch (final IOException e) {
+            throw analyzerError(location, e);
+        }
+        try {
+            final List<ZipEntry> classes = new ArrayList<ZipEntry>();
+            final List<ZipEntry> archives = new ArrayList<ZipEntry>();
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (entryFilter.accept(entry.getName())) {
+                    classes.add(entry);
+                } else if (entryFilter.isArchive(entry.getName())) {
+                    archives.add(entry);
+                }
+            }
+            int count = analyzeZipEntries(zip, classes, location, threads);
+            for (final ZipEntry entry : archives) {
+                final InputStream in = zip.getInputStream(entry);
+                try {
+                    count += analyzeArchive(in, location + "@" + entry.getName(),
+                            entryFilter);
+                } finally {
+                    in.close();
+                }
+            }
+            return count;
+        } finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * 嵌套的 ZIP 文件只能顺序读取, 被排除的条目虽然会被解压, 但不会被解析。
+     * 其他格式由 {@link #analyzeAll(InputStream, String)} 处理。
+     */
+    private int analyzeArchive(final InputStream input, final String location,
+                               final ZipEntryFilter filter) throws IOException {
+        final ContentTypeDetector detector;
+        try {
+            detector = new ContentTypeDetector(input);
+        } catch (final IOException e) {
+            throw analyzerError(location, e);
+        }
+        if (detector.getType() != ContentTypeDetector.ZIPFILE) {
+            return analyzeAll(detector.getInputStream(), location);
+        }
+        final ZipInputStream zip = new ZipInputStream(detector.getInputStream());
+        ZipEntry entry;
+        int count = 0;
+        while ((entry = nextEntry(zip, location)) != null) {
+            final String entryLocation = location + "@" + entry.getName();
+            if (filter.accept(entry.getName())) {
+                analyzeClass(zip, entryLocation);
+                count++;
+            } else if (filter.isArchive(entry.getName())) {
+                count += analyzeArchive(zip, entryLocation, filter);
+            }
+        }
+        return count;
+    }
+
+    private int analyzeZipEntries(final ZipFile zip,
+                                  final List<ZipEntry> entries, final String location,
+                                  final int threads) throws IOException {
+        if (threads <= 1 || entries.size() <= 1) {
+            for (final ZipEntry entry : entries) {
+                analyzeClass(readEntry(zip, entry, location),
+                        location + "@" + entry.getName());
+            }
+            return entries.size();
+        }
+        final ICoverageVisitor synchronizedVisitor = new ICoverageVisitor() {
+            public void visitCoverage(final IClassCoverage coverage) {
+                synchronized (this) {
+                    coverageVisitor.visitCoverage(coverage);
+                }
+            }
+        };
+        // StringPool 不是线程安全的, 每个线程使用自己的字符串池
+        final ThreadLocal<StringPool> pools = new ThreadLocal<StringPool>() {
+            @Override
+            protected StringPool initialValue() {
+                return new StringPool();
+            }
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(threads, entries.size()));
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (final ZipEntry entry : entries) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        final String entryLocation = location + "@" + entry.getName();
+                        final byte[] buffer = readEntry(zip, entry, entryLocation);
+                        try {
+                            analyzeClass(buffer, pools.get(), synchronizedVisitor);
+                        } catch (final RuntimeException cause) {
+                            throw analyzerError(entryLocation, cause);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw analyzerError(location, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw analyzerError(location, e);
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+        return entries.size();
+    }
+
+    /**
+     * 等待所有工作线程结束, 这样在方法返回 (以及 ZIP 文件被关闭) 之后,
+     * 不会再有线程读取 ZIP 文件或调用覆盖访问者。
+     */
+    private static void awaitTermination(final ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] readEntry(final ZipFile zip, final ZipEntry entry,
+                             final String location) throws IOException {
+        try {
+            final InputStream in = zip.getInputStream(entry);
+            try {
+                return InputStreams.readFully(in);
+            } finally {
+                in.close();
+            }
+        } catch (final IOException e) {
+            throw analyzerError(location, e);
+        }
+    }
+
     private int analyzeZip(final InputStream input, final String location)
             throws IOException {
         final ZipInputStream zip = new ZipInputStream(input);
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set of changed code used to restrict analysis to the changes of e.g. a pull
+ * request. Changes can be given as methods (class, name and optional
+ * descriptor) or as line ranges of source files. The {@link Analyzer} skips
+ * classes without changes entirely and only counts probes of unchanged methods,
+ * so probe ids stay the same as for a full analysis.
+ * 
+ * Source files are identified by their path relative to the source root, e.g.
+ * <code>org/example/Foo.java</code>, which corresponds to the package of a
+ * class and its <code>SourceFile</code> attribute. An instance must not be
+ * modified while an analysis is in progress.
+ */
+public final class ChangeSet {
+
+	private final Set<String> methodNames = new HashSet<String>();
+
+	private final Map<String, Set<String>> methods = new HashMap<String, Set<String>>();
+
+	private final Map<String, LineRanges> lines = new HashMap<String, LineRanges>();
+
+	private final Set<String> packages = new HashSet<String>();
+
+	/**
+	 * Adds a method which is considered changed in every class. This is only
+	 * useful where the class is not known.
+	 * 
+	 * @param name
+	 *            name of the method
+	 */
+	public void addMethodName(final String name) {
+		methodNames.add(name);
+	}
+
+	/**
+	 * Adds a changed method.
+	 * 
+	 * @param className
+	 *            VM name of the class, e.g. <code>org/example/Foo</code>
+	 * @param name
+	 *            name of the method
+	 * @param desc
+	 *            descriptor of the method or <code>null</code> to consider
+	 *            all overloads changed
+	 */
+	public void addMethod(final String className, final String name,
+			final String desc) {
+		Set<String> set = methods.get(className);
+		if (set == null) {
+			set = new HashSet<String>();
+			methods.put(className, set);
+		}
+		set.add(desc == null ? name : name + desc);
+	}
+
+	/**
+	 * Adds a range of changed lines.
+	 * 
+	 * @param sourcePath
+	 *            path of the source file relative to the source root
+	 * @param firstLine
+	 *            first changed line (inclusive)
+	 * @param lastLine
+	 *            last changed line (inclusive)
+	 */
+	public void addLines(final String sourcePath, final int firstLine,
+			final int lastLine) {
+		LineRanges ranges = lines.get(sourcePath);
+		if (ranges == null) {
+			ranges = new LineRanges();
+			lines.put(sourcePath, ranges);
+			packages.add(packageOf(sourcePath));
+		}
+		ranges.add(firstLine, lastLine);
+	}
+
+	/**
+	 * Adds all changes of the given change set to this one.
+	 * 
+	 * @param other
+	 *            change set to add
+	 */
+	public void addAll(final ChangeSet other) {
+		methodNames.addAll(other.methodNames);
+		for (final Map.Entry<String, Set<String>> e : other.methods
+				.entrySet()) {
+			for (final String m : e.getValue()) {
+				addMethod(e.getKey(), m, null);
+			}
+		}
+		for (final Map.Entry<String, LineRanges> e : other.lines.entrySet()) {
+			final LineRanges r = e.getValue();
+			for (int i = 0; i < r.size; i++) {
+				addLines(e.getKey(), r.starts[i], r.ends[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if no changes have been added
+	 */
+	public boolean isEmpty() {
+		return methodNames.isEmpty() && methods.isEmpty() && lines.isEmpty();
+	}
+
+	/**
+	 * Checks whether the given class may contain changes. This check is done
+	 * before the class is parsed, therefore line based changes are matched on
+	 * package level.
+	 * 
+	 * @param className
+	 *            VM name of the class
+	 * @return <code>false</code> if the class certainly has no changes
+	 */
+	public boolean containsClass(final String className) {
+		return !methodNames.isEmpty() || methods.containsKey(className)
+				|| packages.contains(packageOf(className));
+	}
+
+	/**
+	 * Checks whether the given method has been changed.
+	 * 
+	 * @param className
+	 *            VM name of the class
+	 * @param sourceFileName
+	 *            name of the source file of the class or <code>null</code>
+	 * @param name
+	 *            name of the method
+	 * @param desc
+	 *            descriptor of the method
+	 * @param firstLine
+	 *            first line of the method or {@link ISourceNode#UNKNOWN_LINE}
+	 * @param lastLine
+	 *            last line of the method or {@link ISourceNode#UNKNOWN_LINE}
+	 * @return <code>true</code> if the method has been changed
+	 */
+	public boolean containsMethod(final String className,
+			final String sourceFileName, final String name, final String desc,
+			final int firstLine, final int lastLine) {
+		if (methodNames.contains(name)) {
+			return true;
+		}
+		final Set<String> set = methods.get(className);
+		if (set != null && (set.contains(name) || set.contains(name + desc))) {
+			return true;
+		}
+		if (sourceFileName == null || firstLine == ISourceNode.UNKNOWN_LINE) {
+			return false;
+		}
+		return containsLines(getSourcePath(className, sourceFileName),
+				firstLine, lastLine);
+	}
+
+	/**
+	 * Checks whether any line of the given range has been changed.
+	 * 
+	 * @param sourcePath
+	 *            path of the source file relative to the source root
+	 * @param firstLine
+	 *            first line (inclusive)
+	 * @param lastLine
+	 *            last line (inclusive)
+	 * @return <code>true</code> if at least one line has been changed
+	 */
+	public boolean containsLines(final String sourcePath, final int firstLine,
+			final int lastLine) {
+		final LineRanges ranges = lines.get(sourcePath);
+		return ranges != null && ranges.intersects(firstLine, lastLine);
+	}
+
+	/**
+	 * Checks whether line based changes have been added for the given source
+	 * file.
+	 * 
+	 * @param sourcePath
+	 *            path of the source file relative to the source root
+	 * @return <code>true</code> if lines of this file have been changed
+	 */
+	public boolean containsSourceFile(final String sourcePath) {
+		return lines.containsKey(sourcePath);
+	}
+
+	/**
+	 * @return paths of all source files with line based changes
+	 */
+	public Set<String> getSourceFiles() {
+		return lines.keySet();
+	}
+
+	/**
+	 * Returns the source path of a class as used by this change set.
+	 * 
+	 * @param className
+	 *            VM name of the class
+	 * @param sourceFileName
+	 *            name of the source file of the class
+	 * @return path of the source file relative to the source root
+	 */
+	public static String getSourcePath(final String className,
+			final String sourceFileName) {
+		final String packageName = packageOf(className);
+		return packageName.length() == 0 ? sourceFileName
+				: packageName + '/' + sourceFileName;
+	}
+
+	private static String packageOf(final String path) {
+		final int pos = path.lastIndexOf('/');
+		return pos == -1 ? "" : path.substring(0, pos);
+	}
+
+	/**
+	 * Sorted, non-overlapping line ranges of a single source file.
+	 */
+	private static class LineRanges {
+
+		private int[] starts = new int[4];
+
+		private int[] ends = new int[4];
+
+		private int size;
+
+		void add(int first, int last) {
+			// index of the first range which ends at or after first - 1
+			int from = search(first - 1);
+			// merge all ranges which touch the new one
+			int to = from;
+			while (to < size && starts[to] <= last + 1) {
+				first = Math.min(first, starts[to]);
+				last = Math.max(last, ends[to]);
+				to++;
+			}
+			final int removed = to - from;
+			if (removed == 0) {
+				if (size == starts.length) {
+					starts = Arrays.copyOf(starts, size * 2);
+					ends = Arrays.copyOf(ends, size * 2);
+				}
+				System.arraycopy(starts, from, starts, from + 1, size - from);
+				System.arraycopy(ends, from, ends, from + 1, size - from);
+				size++;
+			} else if (removed > 1) {
+				System.arraycopy(starts, to, starts, from + 1, size - to);
+				System.arraycopy(ends, to, ends, from + 1, size - to);
+				size -= removed - 1;
+			}
+			starts[from] = first;
+			ends[from] = last;
+		}
+
+		boolean intersects(final int first, final int last) {
+			final int i = search(first);
+			return i < size && starts[i] <= last;
+		}
+
+		/**
+		 * @return index of the first range which ends at or after the given
+		 *         line
+		 */
+		private int search(final int line) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				final int mid = (low + high) >>> 1;
+				if (ends[mid] < line) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+	}
+
+}
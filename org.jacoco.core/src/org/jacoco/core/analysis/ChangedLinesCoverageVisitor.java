@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+
+/**
+ * Coverage visitor which restricts the coverage of every class to the lines
+ * contained in a {@link ChangeSet} before passing it on to another visitor.
+ * Methods without changed lines are dropped, classes without changed methods
+ * are not passed on at all. Classes of source files without line based changes
+ * are passed on unmodified, as their methods have already been selected by the
+ * {@link Analyzer}.
+ */
+public class ChangedLinesCoverageVisitor implements ICoverageVisitor {
+
+	private final ChangeSet changeSet;
+
+	private final ICoverageVisitor delegate;
+
+	/**
+	 * Creates a new visitor.
+	 * 
+	 * @param changeSet
+	 *            changes to restrict coverage to
+	 * @param delegate
+	 *            visitor to pass the restricted coverage to
+	 */
+	public ChangedLinesCoverageVisitor(final ChangeSet changeSet,
+			final ICoverageVisitor delegate) {
+		this.changeSet = changeSet;
+		this.delegate = delegate;
+	}
+
+	public void visitCoverage(final IClassCoverage coverage) {
+		final String sourceFileName = coverage.getSourceFileName();
+		if (sourceFileName == null) {
+			delegate.visitCoverage(coverage);
+			return;
+		}
+		final String path = ChangeSet.getSourcePath(coverage.getName(),
+				sourceFileName);
+		if (!changeSet.containsSourceFile(path)) {
+			delegate.visitCoverage(coverage);
+			return;
+		}
+
+		final ClassCoverageImpl result = new ClassCoverageImpl(
+				coverage.getName(), coverage.getId(), coverage.isNoMatch());
+		result.setSignature(coverage.getSignature());
+		result.setSuperName(coverage.getSuperName());
+		result.setInterfaces(coverage.getInterfaceNames());
+		result.setSourceFileName(sourceFileName);
+		for (final IMethodCoverage m : coverage.getMethods()) {
+			final MethodCoverageImpl method = restrict(m, path);
+			if (method != null) {
+				result.addMethod(method);
+			}
+		}
+		if (!result.getMethods().isEmpty()) {
+			delegate.visitCoverage(result);
+		}
+	}
+
+	private MethodCoverageImpl restrict(final IMethodCoverage method,
+			final String path) {
+		final int first = method.getFirstLine();
+		final int last = method.getLastLine();
+		if (first == ISourceNode.UNKNOWN_LINE
+				|| !changeSet.containsLines(path, first, last)) {
+			return null;
+		}
+		final MethodCoverageImpl result = new MethodCoverageImpl(
+				method.getName(), method.getDesc(), method.getSignature());
+		result.ensureCapacity(first, last);
+		for (int nr = first; nr <= last; nr++) {
+			if (changeSet.containsLines(path, nr, nr)) {
+				final ILine line = method.getLine(nr);
+				result.increment(line.getInstructionCounter(),
+						line.getBranchCounter(), nr);
+			}
+		}
+		if (!result.containsCode()) {
+			return null;
+		}
+		result.incrementMethodCounter();
+		return result;
+	}
+
+}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+
+/**
+ * 线程安全的 {@link CoverageBuilder}。
+ * 多个线程 (例如每个线程一个 {@link Analyzer}) 可以同时向同一个实例发送类。
+ * 类按包分片保存在 {@link ConcurrentHashMap} 中, 只有同一个包的类互相加锁。
+ *
+ * <p>
+ * {@link #getBundle(String)} 可以在分析期间反复调用, 例如用于实时显示:
+ * 每个包的快照会被缓存, 只有新增了类的包才会重新创建;
+ * 没有新类时返回上一次的结果。返回的节点是快照, 之后添加的类不会改变它们。
+ * </p>
+ */
+public class ConcurrentCoverageBuilder implements ICoverageVisitor {
+
+    private final ConcurrentMap<String, PackageShard> packages;
+
+    /** 每添加一个新类递增, 用于判断缓存的 bundle 是否仍然有效 */
+    private final AtomicLong modifications;
+
+    private volatile CachedBundle cachedBundle;
+
+    /**
+     * 创建新的生成器。
+     */
+    public ConcurrentCoverageBuilder() {
+        this.packages = new ConcurrentHashMap<String, PackageShard>();
+        this.modifications = new AtomicLong();
+    }
+
+    /**
+     * 返回当前包含在此生成器中的所有类节点。
+     *
+     * @return all class nodes
+     */
+    public Collection<IClassCoverage> getClasses() {
+        final Collection<IClassCoverage> result = new ArrayList<IClassCoverage>();
+        for (final PackageShard shard : packages.values()) {
+            result.addAll(shard.getSnapshot().getClasses());
+        }
+        return result;
+    }
+
+    /**
+     * 返回当前包含在此生成器中的所有源文件节点的快照。
+     *
+     * @return all source file nodes
+     */
+    public Collection<ISourceFileCoverage> getSourceFiles() {
+        final Collection<ISourceFileCoverage> result = new ArrayList<ISourceFileCoverage>();
+        for (final PackageShard shard : packages.values()) {
+            result.addAll(shard.getSnapshot().getSourceFiles());
+        }
+        return result;
+    }
+
+    /**
+     * 从当前包含的所有节点创建包。
+     * 自上次调用以来没有添加新类时, 返回同名的缓存实例。
+     *
+     * @param name 捆绑包的名称
+     *
+     * @return bundle containing all classes and source files
+     */
+    public IBundleCoverage getBundle(final String name) {
+        final long version = modifications.get();
+        final CachedBundle cached = cachedBundle;
+        if (cached != null && cached.version == version
+                && cached.bundle.getName().equals(name)) {
+            return cached.bundle;
+        }
+        final Collection<IPackageCoverage> snapshots = new ArrayList<IPackageCoverage>();
+        for (final PackageShard shard : packages.values()) {
+            snapshots.add(shard.getSnapshot());
+        }
+        final IBundleCoverage bundle = new BundleCoverageImpl(name, snapshots);
+        cachedBundle = new CachedBundle(version, bundle);
+        return bundle;
+    }
+
+    /**
+     * 返回执行数据不匹配的所有类。
+     *
+     * @see IClassCoverage#isNoMatch()
+     * @return collection of classes with non-matching execution data
+     */
+    public Collection<IClassCoverage> getNoMatchClasses() {
+        final Collection<IClassCoverage> result = new ArrayList<IClassCoverage>();
+        for (final IClassCoverage c : getClasses()) {
+            if (c.isNoMatch()) {
+                result.add(c);
+            }
+        }
+        return result;
+    }
+
+    // === ICoverageVisitor ===
+
+    public void visitCoverage(final IClassCoverage coverage) {
+        final String packageName = coverage.getPackageName();
+        PackageShard shard = packages.get(packageName);
+        if (shard == null) {
+            final PackageShard newShard = new PackageShard(packageName);
+            shard = packages.putIfAbsent(packageName, newShard);
+            if (shard == null) {
+                shard = newShard;
+            }
+        }
+        if (shard.add(coverage)) {
+            modifications.incrementAndGet();
+        }
+    }
+
+    /**
+     * 一个包的类和源文件, 所有访问都在该实例上同步。
+     */
+    private static class PackageShard {
+
+        private final String name;
+
+        private final Map<String, IClassCoverage> classes;
+
+        private final Map<String, SourceFileCoverageImpl> sourcefiles;
+
+        /** 当前内容的快照, 添加新类后为 null */
+        private IPackageCoverage snapshot;
+
+        PackageShard(final String name) {
+            this.name = name;
+            this.classes = new HashMap<String, IClassCoverage>();
+            this.sourcefiles = new HashMap<String, SourceFileCoverageImpl>();
+        }
+
+        /**
+         * @return 如果添加了新类则为 true, 重复的类返回 false
+         */
+        synchronized boolean add(final IClassCoverage coverage) {
+            final String className = coverage.getName();
+            final IClassCoverage dup = classes.get(className);
+            if (dup != null) {
+                if (dup.getId() != coverage.getId()) {
+                    throw new IllegalStateException(
+                            "Can't add different class with same name: " + className);
+                }
+                return false;
+            }
+            classes.put(className, coverage);
+            final String source = coverage.getSourceFileName();
+            if (source != null) {
+                SourceFileCoverageImpl sourcefile = sourcefiles.get(source);
+                if (sourcefile == null) {
+                    sourcefile = new SourceFileCoverageImpl(source, name);
+                    sourcefiles.put(source, sourcefile);
+                }
+                sourcefile.increment(coverage);
+            }
+            snapshot = null;
+            return true;
+        }
+
+        /**
+         * 源文件的快照通过递增新节点创建, 行数据与当前源文件共享,
+         * 当前源文件之后的写入会先复制行数据。
+         */
+        synchronized IPackageCoverage getSnapshot() {
+            if (snapshot == null) {
+                final Collection<ISourceFileCoverage> sourcefileCopies = new ArrayList<ISourceFileCoverage>(
+                        sourcefiles.size());
+                for (final SourceFileCoverageImpl s : sourcefiles.values()) {
+                    final SourceFileCoverageImpl copy = new SourceFileCoverageImpl(
+                            s.getName(), name);
+                    copy.increment(s);
+                    sourcefileCopies.add(copy);
+                }
+                snapshot = new PackageCoverageImpl(name,
+                        new ArrayList<IClassCoverage>(classes.values()),
+                        sourcefileCopies);
+            }
+            return snapshot;
+        }
+    }
+
+    private static class CachedBundle {
+
+        final long version;
+
+        final IBundleCoverage bundle;
+
+        CachedBundle(final long version, final IBundleCoverage bundle) {
+            this.version = version;
+            this.bundle = bundle;
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.LazySourceFileCoverageImpl;
 import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
 
 /**
@@ -40,9 +41,28 @@ public class CoverageBuilder implements ICoverageVisitor {
     private final Map<String, ISourceFileCoverage> sourcefiles;
 
 
+    private final boolean lazyLines;
+
+    /**
+     * 创建新的生成器, 源文件的行数据在添加类时立即合并。
+     */
     public CoverageBuilder() {
+        this(false);
+    }
+
+    /**
+     * 创建新的生成器。
+     * 在延迟模式下源文件只引用其中的类, 行计数器不创建行数据即可计算,
+     * 行数据在第一次调用 {@link ISourceNode#getLine(int)},
+     * {@link ISourceNode#getFirstLine()} 或 {@link ISourceNode#getLastLine()} 时才合并。
+     * 只需要计数器的报告 (例如 CSV 或覆盖率检查) 因此不会创建源文件的行数据。
+     *
+     * @param lazyLines 是否延迟合并源文件的行数据
+     */
+    public CoverageBuilder(final boolean lazyLines) {
         this.classes = new HashMap<String, IClassCoverage>();
         this.sourcefiles = new HashMap<String, ISourceFileCoverage>();
+        this.lazyLines = lazyLines;
     }
 
     /**
@@ -115,7 +135,9 @@ public class CoverageBuilder implements ICoverageVisitor {
         SourceFileCoverageImpl sourcefile = (SourceFileCoverageImpl) sourcefiles
                 .get(key);
         if (sourcefile == null) {
-            sourcefile = new SourceFileCoverageImpl(filename, packagename);
+            sourcefile = lazyLines
+                    ? new LazySourceFileCoverageImpl(filename, packagename)
+                    : new SourceFileCoverageImpl(filename, packagename);
             sourcefiles.put(key, sourcefile);
         }
         return sourcefile;
@@ -146,12 +146,12 @@ public class CoverageNodeImpl implements ICoverageNode {
      */
     public ICoverageNode getPlainCopy() {
         final CoverageNodeImpl copy = new CoverageNodeImpl(elementType, name);
-        copy.instructionCounter = CounterImpl.getInstance(instructionCounter);
-        copy.branchCounter = CounterImpl.getInstance(branchCounter);
-        copy.lineCounter = CounterImpl.getInstance(lineCounter);
-        copy.complexityCounter = CounterImpl.getInstance(complexityCounter);
-        copy.methodCounter = CounterImpl.getInstance(methodCounter);
-        copy.classCounter = CounterImpl.getInstance(classCounter);
+        copy.instructionCounter = CounterImpl.getInstance(getInstructionCounter());
+        copy.branchCounter = CounterImpl.getInstance(getBranchCounter());
+        copy.lineCounter = CounterImpl.getInstance(getLineCounter());
+        copy.complexityCounter = CounterImpl.getInstance(getComplexityCounter());
+        copy.methodCounter = CounterImpl.getInstance(getMethodCounter());
+        copy.classCounter = CounterImpl.getInstance(getClassCounter());
         return copy;
     }
 
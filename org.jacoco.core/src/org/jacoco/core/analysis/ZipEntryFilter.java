@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.runtime.WildcardMatcher;
+
+/**
+ * 按名称选择 ZIP 文件条目, 用于 {@link Analyzer#analyzeZipFile(java.io.File, ZipEntryFilter, int)}。
+ * 只根据中央目录中的条目名称判断, 因此被排除的条目不会被解压。
+ *
+ * <ul>
+ * <li>以 <code>.class</code> 结尾的条目是类文件, 其 Java 类名必须匹配包含模式且不匹配排除模式,
+ * 设置了执行数据时还必须包含该类的执行数据。</li>
+ * <li>嵌套的归档文件 ({@link #isArchive(String)}) 会像 {@link Analyzer#analyzeAll(java.io.InputStream, String)} 一样递归分析。</li>
+ * <li>其他条目 (资源文件等) 被忽略。</li>
+ * </ul>
+ */
+public class ZipEntryFilter {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+    private static final String[] ARCHIVE_SUFFIXES = { ".jar", ".war", ".ear",
+            ".zip", ".gz", ".pack" };
+
+    private WildcardMatcher includes;
+
+    private WildcardMatcher excludes;
+
+    private ExecutionDataStore executionData;
+
+    /**
+     * 创建接受所有类文件的过滤器。
+     */
+    public ZipEntryFilter() {
+        setIncludes("*");
+        setExcludes("");
+    }
+
+    /**
+     * 设置类的包含模式, 以 Java 类名表示 (例如 <code>com.example.*</code>),
+     * 多个模式用 <code>:</code> 分隔, 可以使用通配符 <code>*</code> 和 <code>?</code>。
+     *
+     * @param includes 包含模式
+     */
+    public void setIncludes(final String includes) {
+        this.includes = new WildcardMatcher(includes);
+    }
+
+    /**
+     * 设置类的排除模式, 格式与 {@link #setIncludes(String)} 相同。
+     *
+     * @param excludes 排除模式
+     */
+    public void setExcludes(final String excludes) {
+        this.excludes = new WildcardMatcher(excludes);
+    }
+
+    /**
+     * 只接受在给定存储中有执行数据的类。
+     *
+     * @param executionData 执行数据, 为 <code>null</code> 时不检查
+     */
+    public void setExecutionData(final ExecutionDataStore executionData) {
+        this.executionData = executionData;
+    }
+
+    /**
+     * 判断给定条目是否是需要分析的类文件。
+     *
+     * @param entryName ZIP 条目的名称
+     * @return 需要分析时为 true
+     */
+    public boolean accept(final String entryName) {
+        final String name = getClassName(entryName);
+        if (name == null) {
+            return false;
+        }
+        final String javaName = name.replace('/', '.');
+        if (!includes.matches(javaName) || excludes.matches(javaName)) {
+            return false;
+        }
+        return executionData == null || executionData.contains(name);
+    }
+
+    /**
+     * 判断给定条目是否是需要递归分析的嵌套归档文件。
+     *
+     * @param entryName ZIP 条目的名称
+     * @return 是 JAR, ZIP, gzip 或 Pack200 文件时为 true
+     */
+    public boolean isArchive(final String entryName) {
+        for (final String suffix : ARCHIVE_SUFFIXES) {
+            if (entryName.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 返回类文件条目对应的虚拟机类名, 多版本 JAR 的版本前缀会被去掉。
+     *
+     * @param entryName ZIP 条目的名称
+     * @return 虚拟机类名, 不是类文件时为 <code>null</code>
+     */
+    static String getClassName(final String entryName) {
+        if (!entryName.endsWith(CLASS_SUFFIX)) {
+            return null;
+        }
+        int start = 0;
+        if (entryName.startsWith(VERSIONS_PREFIX)) {
+            start = entryName.indexOf('/', VERSIONS_PREFIX.length()) + 1;
+        }
+        return entryName.substring(start,
+                entryName.length() - CLASS_SUFFIX.length());
+    }
+
+}
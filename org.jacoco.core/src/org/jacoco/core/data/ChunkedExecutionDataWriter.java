@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Serialization of execution data into checksummed chunks, so that an exec
+ * file which is appended over a long run stays readable if the writing process
+ * is killed in the middle of a write.
+ * <p>
+ * The session infos and execution data visited between two calls of
+ * {@link #flush()} are written as a single chunk block which carries the
+ * length and the CRC-32 checksum of its content:
+ * </p>
+ *
+ * <pre>
+ * byte   {@link #BLOCK_CHUNK}
+ * int    length of the content
+ * int    CRC-32 of the content
+ * byte[] content, regular session info and execution data blocks
+ * </pre>
+ *
+ * {@link ExecutionDataReader} verifies every chunk before its content is
+ * reported. Chunks with a wrong checksum and a truncated last chunk are
+ * skipped. Older JaCoCo versions can not read chunked files.
+ */
+public class ChunkedExecutionDataWriter implements ISessionInfoVisitor,
+		IExecutionDataVisitor {
+
+	/** Block identifier for a checksummed chunk of blocks. */
+	public static final byte BLOCK_CHUNK = 0x12;
+
+	private static final int CHUNK_HEADER_SIZE = 1 + 4 + 4;
+
+	private final CompactDataOutput out;
+
+	private final ByteArrayOutputStream chunk;
+
+	private final ExecutionDataWriter chunkWriter;
+
+	/**
+	 * Creates a new writer based on the given output stream and writes the
+	 * file header.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public ChunkedExecutionDataWriter(final OutputStream output)
+			throws IOException {
+		this(output, true);
+	}
+
+	/**
+	 * Creates a new writer based on the given output stream. The file header
+	 * can be omitted to append chunks to an existing file.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param header
+	 *            if <code>true</code> the file header is written
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public ChunkedExecutionDataWriter(final OutputStream output,
+			final boolean header) throws IOException {
+		this.out = new CompactDataOutput(output);
+		if (header) {
+			out.write(ExecutionDataWriter.getFileHeader());
+		}
+		this.chunk = new ByteArrayOutputStream();
+		this.chunkWriter = new ExecutionDataWriter(chunk);
+		// The content of a chunk has no file header:
+		chunk.reset();
+	}
+
+	public void visitSessionInfo(final SessionInfo info) {
+		chunkWriter.visitSessionInfo(info);
+	}
+
+	public void visitClassExecution(final ExecutionData data) {
+		chunkWriter.visitClassExecution(data);
+	}
+
+	/**
+	 * Writes all blocks visited since the last call as a new chunk and
+	 * flushes the underlying stream. No chunk is written if nothing has been
+	 * visited.
+	 *
+	 * @throws IOException
+	 *             if the chunk can't be written
+	 */
+	public void flush() throws IOException {
+		if (chunk.size() > 0) {
+			final byte[] content = chunk.toByteArray();
+			chunk.reset();
+			out.writeByte(BLOCK_CHUNK);
+			out.writeInt(content.length);
+			out.writeInt(checksum(content));
+			out.write(content);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Determines the length of the intact part of a chunked exec file. A last
+	 * chunk or header which has been cut off by a killed process is not
+	 * included, so new chunks can be appended after truncating the file to
+	 * this length. Chunks with a wrong checksum are included, as they are
+	 * skipped by the reader anyway. The given stream is not closed.
+	 *
+	 * @param input
+	 *            content of the exec file
+	 * @param length
+	 *            total length of the exec file
+	 * @return length of the intact part, <code>length</code> if the file
+	 *         contains blocks which are not chunked
+	 * @throws IOException
+	 *             if the stream can't be read
+	 */
+	public static long getIntactLength(final InputStream input,
+			final long length) throws IOException {
+		final DataInputStream in = new DataInputStream(
+				new BufferedInputStream(input));
+		final byte[] skipBuffer = new byte[8192];
+		long intact = 0;
+		try {
+			while (true) {
+				final int type = in.read();
+				if (type == -1) {
+					return intact;
+				}
+				switch (type) {
+				case ExecutionDataWriter.BLOCK_HEADER:
+					in.readChar();
+					in.readChar();
+					intact += 1 + 2 + 2;
+					break;
+				case BLOCK_CHUNK:
+					final int size = in.readInt();
+					in.readInt();
+					if (size < 0) {
+						return intact;
+					}
+					for (int skip = size; skip > 0; skip -= skipBuffer.length) {
+						in.readFully(skipBuffer, 0,
+								Math.min(skip, skipBuffer.length));
+					}
+					intact += CHUNK_HEADER_SIZE + size;
+					break;
+				default:
+					return length;
+				}
+			}
+		} catch (final EOFException e) {
+			return intact;
+		}
+	}
+
+	/**
+	 * Calculates the checksum of the content of a chunk.
+	 *
+	 * @param content
+	 *            content of a chunk
+	 * @return CRC-32 checksum
+	 */
+	static int checksum(final byte[] content) {
+		final CRC32 crc = new CRC32();
+		crc.update(content, 0, content.length);
+		return (int) crc.getValue();
+	}
+
+}
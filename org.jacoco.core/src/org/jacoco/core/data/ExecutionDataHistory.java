@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records when probes have been hit for the first time. Sessions have to be
+ * visited in chronological order, e.g. the repeated dumps of an agent. All
+ * execution data is attributed to the last visited session. For every session
+ * only the probes are kept which have not been hit in any previous session.
+ * <p>
+ * The history can be written with {@link #accept(ISessionInfoVisitor, IExecutionDataVisitor)}
+ * to an {@link ExecutionDataWriter}: every session info is followed by the
+ * execution data of the probes first hit in this session. The result is a
+ * regular exec file, which can be read back into a history with
+ * {@link ExecutionDataReader} or merged as usual.
+ * </p>
+ * This class is not thread safe.
+ */
+public class ExecutionDataHistory implements ISessionInfoVisitor,
+		IExecutionDataVisitor {
+
+	private final List<Session> sessions = new ArrayList<Session>();
+
+	private final Map<Long, ExecutionData> cumulative = new HashMap<Long, ExecutionData>();
+
+	private Session current;
+
+	public void visitSessionInfo(final SessionInfo info) {
+		current = new Session(info);
+		sessions.add(current);
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             if no session has been visited before or if the class id
+	 *             is already known with a different name or probe count
+	 */
+	public void visitClassExecution(final ExecutionData data)
+			throws IllegalStateException {
+		if (current == null) {
+			throw new IllegalStateException(
+					"Execution data without session info: " + data.getName());
+		}
+		final Long id = Long.valueOf(data.getId());
+		final boolean[] probes = data.getProbes();
+		final ExecutionData known = cumulative.get(id);
+		final boolean[] knownProbes;
+		if (known == null) {
+			knownProbes = null;
+		} else {
+			known.assertCompatibility(data.getId(), data.getName(),
+					probes.length);
+			knownProbes = known.getProbes();
+		}
+		int count = 0;
+		for (int i = 0; i < probes.length; i++) {
+			if (probes[i] && (knownProbes == null || !knownProbes[i])) {
+				count++;
+			}
+		}
+		if (count == 0) {
+			return;
+		}
+		final int[] newHits = new int[count];
+		count = 0;
+		for (int i = 0; i < probes.length; i++) {
+			if (probes[i] && (knownProbes == null || !knownProbes[i])) {
+				newHits[count++] = i;
+			}
+		}
+		if (known == null) {
+			cumulative.put(id, new ExecutionData(data.getId(), data.getName(),
+					probes.clone()));
+		} else {
+			known.merge(data);
+		}
+		current.add(new Delta(data.getId(), data.getName(), probes.length,
+				newHits));
+	}
+
+	/**
+	 * Returns all sessions in the order they have been visited.
+	 *
+	 * @return unmodifiable list of session infos
+	 */
+	public List<SessionInfo> getSessionInfos() {
+		final List<SessionInfo> infos = new ArrayList<SessionInfo>(
+				sessions.size());
+		for (final Session s : sessions) {
+			infos.add(s.info);
+		}
+		return Collections.unmodifiableList(infos);
+	}
+
+	/**
+	 * Returns the number of probes which have been hit for the first time in
+	 * the given session.
+	 *
+	 * @param session
+	 *            index of the session
+	 * @return number of newly hit probes
+	 */
+	public int getNewHitCount(final int session) {
+		return sessions.get(session).hitCount;
+	}
+
+	/**
+	 * Returns the merged execution data of all sessions up to and including
+	 * the given session.
+	 *
+	 * @param session
+	 *            index of the session
+	 * @return execution data as of the given session
+	 */
+	public ExecutionDataStore getExecutionData(final int session) {
+		return getFirstHits(0, session + 1);
+	}
+
+	/**
+	 * Returns the probes which have been hit for the first time in the given
+	 * range of sessions.
+	 *
+	 * @param fromSession
+	 *            index of the first session, inclusive
+	 * @param toSession
+	 *            index of the last session, exclusive
+	 * @return execution data with only the probes first hit in this range
+	 */
+	public ExecutionDataStore getFirstHits(final int fromSession,
+			final int toSession) {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		for (final Session s : sessions.subList(fromSession, toSession)) {
+			for (final Delta d : s.deltas) {
+				d.addTo(store);
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Returns the probes which have been hit for the first time in sessions
+	 * with a dump time stamp within the given time window.
+	 *
+	 * @param fromTime
+	 *            start of the window in milliseconds, inclusive
+	 * @param toTime
+	 *            end of the window in milliseconds, exclusive
+	 * @return execution data with only the probes first hit in this window
+	 */
+	public ExecutionDataStore getFirstHits(final long fromTime,
+			final long toTime) {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		for (final Session s : sessions) {
+			final long dump = s.info.getDumpTimeStamp();
+			if (dump >= fromTime && dump < toTime) {
+				for (final Delta d : s.deltas) {
+					d.addTo(store);
+				}
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Writes the history: every session info is followed by the execution data
+	 * of the probes first hit in this session.
+	 *
+	 * @param sessionInfoVisitor
+	 *            visitor for session infos
+	 * @param executionDataVisitor
+	 *            visitor for execution data
+	 */
+	public void accept(final ISessionInfoVisitor sessionInfoVisitor,
+			final IExecutionDataVisitor executionDataVisitor) {
+		for (final Session s : sessions) {
+			sessionInfoVisitor.visitSessionInfo(s.info);
+			for (final Delta d : s.deltas) {
+				executionDataVisitor.visitClassExecution(d.toExecutionData());
+			}
+		}
+	}
+
+	private static class Session {
+
+		final SessionInfo info;
+
+		final List<Delta> deltas = new ArrayList<Delta>();
+
+		int hitCount;
+
+		Session(final SessionInfo info) {
+			this.info = info;
+		}
+
+		void add(final Delta delta) {
+			deltas.add(delta);
+			hitCount += delta.newHits.length;
+		}
+	}
+
+	/**
+	 * Probes of a class first hit in a session, stored as sorted indices.
+	 */
+	private static class Delta {
+
+		final long id;
+
+		final String name;
+
+		final int probeCount;
+
+		final int[] newHits;
+
+		Delta(final long id, final String name, final int probeCount,
+				final int[] newHits) {
+			this.id = id;
+			this.name = name;
+			this.probeCount = probeCount;
+			this.newHits = newHits;
+		}
+
+		ExecutionData toExecutionData() {
+			final boolean[] probes = new boolean[probeCount];
+			for (final int i : newHits) {
+				probes[i] = true;
+			}
+			return new ExecutionData(id, name, probes);
+		}
+
+		void addTo(final ExecutionDataStore store) {
+			final boolean[] probes = store.get(id, name, probeCount)
+					.getProbes();
+			for (final int i : newHits) {
+				probes[i] = true;
+			}
+		}
+	}
+
+}
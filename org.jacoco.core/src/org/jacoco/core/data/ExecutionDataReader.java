@@ -13,6 +13,9 @@ package org.jacoco.core.data;
 
 import org.jacoco.core.internal.data.CompactDataInput;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -25,6 +28,8 @@ import static java.lang.String.format;
  */
 public class ExecutionDataReader {
 
+    private static final int CHUNK_BUFFER_SIZE = 8192;
+
     /** 基础数据输入 */
     protected final CompactDataInput in;
 
@@ -34,6 +39,8 @@ public class ExecutionDataReader {
 
     private boolean firstBlock = true;
 
+    private int skippedChunkCount = 0;
+
     /**
      * Creates a new reader based on the given input stream input. Depending on
      * the nature of the underlying stream input should be buffered as most data
@@ -65,6 +72,16 @@ public class ExecutionDataReader {
         this.executionDataVisitor = visitor;
     }
 
+    /**
+     * 返回由于校验和错误或文件被截断而跳过的
+     * {@link ChunkedExecutionDataWriter} 块的数量。
+     *
+     * @return 跳过的块的数量
+     */
+    public int getSkippedChunkCount() {
+        return skippedChunkCount;
+    }
+
     /**
      * Reads all data and reports it to the corresponding visitors. The stream
      * is read until its end or a command confirmation has been sent.
@@ -115,6 +132,9 @@ public class ExecutionDataReader {
             case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
                 readExecutionData();
                 return true;
+            case ChunkedExecutionDataWriter.BLOCK_CHUNK:
+                readChunk();
+                return true;
             default:
                 throw new IOException(format("Unknown block type %x.", Byte.valueOf(blocktype)));
         }
@@ -130,6 +150,50 @@ public class ExecutionDataReader {
         }
     }
 
+    /**
+     * 块的内容只有在校验和正确时才会报告给访问者。
+     * 被截断的最后一个块会被跳过, 之后流已经结束, 因此读取正常结束。
+     * 内容按固定大小分段读取, 因此损坏的长度字段不会导致巨大的内存分配。
+     */
+    private void readChunk() throws IOException {
+        final byte[] content;
+        final int checksum;
+        try {
+            final int length = in.readInt();
+            checksum = in.readInt();
+            if (length < 0) {
+                throw new IOException(format("Invalid chunk length %s.", Integer.valueOf(length)));
+            }
+            content = readChunkContent(length);
+        } catch (final EOFException e) {
+            skippedChunkCount++;
+            return;
+        }
+        if (ChunkedExecutionDataWriter.checksum(content) != checksum) {
+            skippedChunkCount++;
+            return;
+        }
+        final ExecutionDataReader chunkReader = new ExecutionDataReader(new ByteArrayInputStream(content));
+        chunkReader.firstBlock = false;
+        chunkReader.setSessionInfoVisitor(sessionInfoVisitor);
+        chunkReader.setExecutionDataVisitor(executionDataVisitor);
+        chunkReader.read();
+        skippedChunkCount += chunkReader.skippedChunkCount;
+    }
+
+    private byte[] readChunkContent(final int length) throws IOException {
+        final byte[] buffer = new byte[Math.min(length, CHUNK_BUFFER_SIZE)];
+        final ByteArrayOutputStream content = new ByteArrayOutputStream(buffer.length);
+        int remaining = length;
+        while (remaining > 0) {
+            final int size = Math.min(remaining, buffer.length);
+            in.readFully(buffer, 0, size);
+            content.write(buffer, 0, size);
+            remaining -= size;
+        }
+        return content.toByteArray();
+    }
+
     private void readSessionInfo() throws IOException {
         if (sessionInfoVisitor == null) {
             throw new IOException("No session info visitor.");
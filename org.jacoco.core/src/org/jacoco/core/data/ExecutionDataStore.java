@@ -126,6 +126,20 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
         return entry;
     }
 
+    /**
+     * 与{@link #get(Long, String, int)}相同，但以基本类型传入类标识符。
+     * 运行时以基本类型调用约定获取探针数组时使用此方法，调用方无需装箱。
+     *
+     * @param id            类标识符
+     * @param name          虚拟机名称
+     * @param probeCount    探针数组长度
+     *
+     * @return execution data
+     */
+    public ExecutionData get(final long id, final String name, final int probeCount) {
+        return get(Long.valueOf(id), name, probeCount);
+    }
+
     /**
      * 重置所有执行数据探测器，即将其标记为未执行。
      * 执行数据对象本身不会被删除。
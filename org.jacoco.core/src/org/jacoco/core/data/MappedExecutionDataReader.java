@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.jacoco.core.data.MappedExecutionDataWriter.COUNT_OFFSET;
+import static org.jacoco.core.data.MappedExecutionDataWriter.DUMP_OFFSET;
+import static org.jacoco.core.data.MappedExecutionDataWriter.ENCODING;
+import static org.jacoco.core.data.MappedExecutionDataWriter.END_OFFSET;
+import static org.jacoco.core.data.MappedExecutionDataWriter.GENERATION_OFFSET;
+import static org.jacoco.core.data.MappedExecutionDataWriter.HEADER_SIZE;
+import static org.jacoco.core.data.MappedExecutionDataWriter.MAGIC_OFFSET;
+import static org.jacoco.core.data.MappedExecutionDataWriter.SESSION_ID_OFFSET;
+import static org.jacoco.core.data.MappedExecutionDataWriter.START_OFFSET;
+import static org.jacoco.core.data.MappedExecutionDataWriter.VERSION_OFFSET;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads execution data from a region written by
+ * {@link MappedExecutionDataWriter}, typically while the writing JVM is still
+ * running. The region is mapped read-only and parsed in place. If the writer
+ * updates the region while it is read, reading is retried, so the visitors
+ * always receive a consistent state of a single update.
+ */
+public class MappedExecutionDataReader {
+
+	private static final int MAX_ATTEMPTS = 100;
+
+	private final File regionFile;
+
+	private ISessionInfoVisitor sessionInfoVisitor = null;
+
+	private IExecutionDataVisitor executionDataVisitor = null;
+
+	/**
+	 * Creates a new reader for the given region file.
+	 *
+	 * @param regionFile
+	 *            file written by {@link MappedExecutionDataWriter}
+	 */
+	public MappedExecutionDataReader(final File regionFile) {
+		this.regionFile = regionFile;
+	}
+
+	/**
+	 * Sets an listener for session information.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve session info events
+	 */
+	public void setSessionInfoVisitor(final ISessionInfoVisitor visitor) {
+		this.sessionInfoVisitor = visitor;
+	}
+
+	/**
+	 * Sets an listener for execution data.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve execution data events
+	 */
+	public void setExecutionDataVisitor(final IExecutionDataVisitor visitor) {
+		this.executionDataVisitor = visitor;
+	}
+
+	/**
+	 * Reads the current content of the region and reports it to the
+	 * corresponding visitors. Only classes with at least one hit probe are
+	 * reported.
+	 *
+	 * @throws IOException
+	 *             if the file is not a valid region or no consistent state
+	 *             could be read
+	 * @throws IncompatibleExecDataVersionException
+	 *             incompatible region format from different JaCoCo release
+	 */
+	public void read() throws IOException,
+			IncompatibleExecDataVersionException {
+		final RandomAccessFile file = new RandomAccessFile(regionFile, "r");
+		try {
+			final FileChannel channel = file.getChannel();
+			for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+				final ByteBuffer buffer = channel.map(
+						FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				final Snapshot snapshot = readSnapshot(buffer);
+				if (snapshot != null) {
+					snapshot.accept();
+					return;
+				}
+				Thread.yield();
+			}
+		} finally {
+			file.close();
+		}
+		throw new IOException(
+				"Coverage region is corrupt or modified concurrently: "
+						+ regionFile);
+	}
+
+	/**
+	 * @return the content or <code>null</code> if an update happened while
+	 *         reading
+	 */
+	private Snapshot readSnapshot(final ByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < HEADER_SIZE
+				|| buffer.getInt(MAGIC_OFFSET) != MappedExecutionDataWriter.MAGIC_NUMBER) {
+			throw new IOException("Invalid coverage region file.");
+		}
+		final int version = buffer.getInt(VERSION_OFFSET);
+		if (version != MappedExecutionDataWriter.FORMAT_VERSION) {
+			throw new IncompatibleExecDataVersionException(version);
+		}
+		final int generation = buffer.getInt(GENERATION_OFFSET);
+		if ((generation & 1) != 0) {
+			return null;
+		}
+		MappedExecutionDataWriter.fence();
+		final Snapshot snapshot = new Snapshot();
+		try {
+			readContent(buffer, snapshot);
+		} catch (final RuntimeException e) {
+			// Torn read, e.g. the region has grown in the meantime
+			return null;
+		}
+		MappedExecutionDataWriter.fence();
+		if (buffer.getInt(GENERATION_OFFSET) != generation) {
+			return null;
+		}
+		return snapshot;
+	}
+
+	private void readContent(final ByteBuffer buffer, final Snapshot snapshot)
+			throws IOException {
+		final int count = buffer.getInt(COUNT_OFFSET);
+		final int end = buffer.getInt(END_OFFSET);
+		if (end > buffer.capacity()) {
+			throw new BufferUnderflowException();
+		}
+		final long start = buffer.getLong(START_OFFSET);
+		final long dump = buffer.getLong(DUMP_OFFSET);
+		final int idLength = buffer.getShort(SESSION_ID_OFFSET) & 0xFFFF;
+		if (idLength > 0) {
+			buffer.position(SESSION_ID_OFFSET + 2);
+			snapshot.session = new SessionInfo(readString(buffer, idLength),
+					start, dump);
+		}
+		buffer.position(HEADER_SIZE);
+		for (int i = 0; i < count; i++) {
+			final long id = buffer.getLong();
+			final int probeCount = buffer.getInt();
+			final int nameLength = buffer.getShort() & 0xFFFF;
+			final String name = readString(buffer, nameLength);
+			final boolean[] probes = new boolean[probeCount];
+			boolean hits = false;
+			for (int p = 0; p < probeCount; p++) {
+				probes[p] = buffer.get() != 0;
+				hits |= probes[p];
+			}
+			if (hits) {
+				snapshot.data.add(new ExecutionData(id, name, probes));
+			}
+		}
+	}
+
+	private static String readString(final ByteBuffer buffer, final int length)
+			throws IOException {
+		final byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, ENCODING);
+	}
+
+	private class Snapshot {
+
+		SessionInfo session;
+
+		final List<ExecutionData> data = new ArrayList<ExecutionData>();
+
+		void accept() throws IOException {
+			if (session != null) {
+				if (sessionInfoVisitor == null) {
+					throw new IOException("No session info visitor.");
+				}
+				sessionInfoVisitor.visitSessionInfo(session);
+			}
+			if (!data.isEmpty() && executionDataVisitor == null) {
+				throw new IOException("No execution data visitor.");
+			}
+			for (final ExecutionData d : data) {
+				executionDataVisitor.visitClassExecution(d);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Publishes execution data in a memory mapped file, so other processes on the
+ * same host can read the current coverage without any interaction with the
+ * writing JVM, see {@link MappedExecutionDataReader}.
+ * <p>
+ * Every class gets a fixed slot in the region when it is visited for the first
+ * time. Subsequent updates only overwrite the probe bytes of the slot in place,
+ * no data is serialized or allocated. An update is enclosed by
+ * {@link #beginUpdate()} and {@link #endUpdate()}, readers use the generation
+ * counter in the header to detect and retry concurrent updates. The accesses to
+ * the generation counter are separated from the content by a memory fence
+ * (see {@link #fence()}), so neither the compiler nor the processor can move
+ * content changes outside of the odd generation. If the region is full it is
+ * remapped with twice the size.
+ * </p>
+ * <p>
+ * Layout of the region (big endian):
+ * </p>
+ *
+ * <pre>
+ * int    magic number {@link #MAGIC_NUMBER}
+ * int    format version {@link #FORMAT_VERSION}
+ * int    generation, odd while an update is in progress
+ * int    number of class slots
+ * int    end offset of the last class slot
+ * long   session start time stamp
+ * long   session dump time stamp
+ * short  length of the session id
+ * byte[] UTF-8 session id, {@link #MAX_SESSION_ID_LENGTH} bytes
+ * slots:
+ *   long   class id
+ *   int    number of probes
+ *   short  length of the class name
+ *   byte[] UTF-8 class name
+ *   byte[] probes, 0 or 1
+ * </pre>
+ *
+ * This class is not thread safe.
+ */
+public class MappedExecutionDataWriter implements ISessionInfoVisitor,
+		IExecutionDataVisitor {
+
+	/** Magic number in the header for region identification. */
+	public static final int MAGIC_NUMBER = 0x4A434D52;
+
+	/** Format version, will be incremented for each incompatible change. */
+	public static final int FORMAT_VERSION = 1;
+
+	/** Maximum number of bytes of the UTF-8 encoded session id. */
+	public static final int MAX_SESSION_ID_LENGTH = 256;
+
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 4;
+	static final int GENERATION_OFFSET = 8;
+	static final int COUNT_OFFSET = 12;
+	static final int END_OFFSET = 16;
+	static final int START_OFFSET = 20;
+	static final int DUMP_OFFSET = 28;
+	static final int SESSION_ID_OFFSET = 36;
+	static final int HEADER_SIZE = SESSION_ID_OFFSET + 2
+			+ MAX_SESSION_ID_LENGTH;
+
+	static final String ENCODING = "UTF-8";
+
+	/** Only used for its memory effects, see {@link #fence()}. */
+	private static volatile int fenceField;
+
+	private final RandomAccessFile file;
+
+	private final Map<Long, Integer> slots;
+
+	private MappedByteBuffer buffer;
+
+	private int generation;
+
+	private int end;
+
+	/**
+	 * Creates a new region in the given file with the given initial size.
+	 * Existing content of the file is discarded.
+	 *
+	 * @param regionFile
+	 *            file to map
+	 * @param initialSize
+	 *            initial size of the region in bytes
+	 * @throws IOException
+	 *             if the file can't be mapped
+	 */
+	public MappedExecutionDataWriter(final File regionFile,
+			final int initialSize) throws IOException {
+		this.file = new RandomAccessFile(regionFile, "rw");
+		this.slots = new HashMap<Long, Integer>();
+		try {
+			file.setLength(0);
+			map(Math.max(initialSize, HEADER_SIZE));
+		} catch (final IOException e) {
+			file.close();
+			throw e;
+		}
+		this.generation = 0;
+		this.end = HEADER_SIZE;
+		buffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+		buffer.putInt(GENERATION_OFFSET, generation);
+		buffer.putInt(COUNT_OFFSET, 0);
+		buffer.putInt(END_OFFSET, end);
+		// The magic number is written last to mark the region as valid:
+		buffer.putInt(MAGIC_OFFSET, MAGIC_NUMBER);
+	}
+
+	private void map(final int size) throws IOException {
+		buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+				size);
+	}
+
+	/**
+	 * Marks the beginning of an update. Readers will not accept the content
+	 * until {@link #endUpdate()} is called.
+	 */
+	public void beginUpdate() {
+		buffer.putInt(GENERATION_OFFSET, ++generation);
+		fence();
+	}
+
+	/**
+	 * Publishes all changes since {@link #beginUpdate()}.
+	 */
+	public void endUpdate() {
+		buffer.putInt(COUNT_OFFSET, slots.size());
+		buffer.putInt(END_OFFSET, end);
+		fence();
+		buffer.putInt(GENERATION_OFFSET, ++generation);
+	}
+
+	/**
+	 * Full memory fence: Memory accesses before the volatile write can't be
+	 * moved after it and memory accesses after the volatile read can't be moved
+	 * before it. The Java memory model does not cover memory mapped files, but
+	 * the fences emitted for volatile accesses order the accesses to the
+	 * mapping like any other memory access.
+	 *
+	 * @return value of the volatile field, not relevant for callers
+	 */
+	static int fence() {
+		fenceField = 0;
+		return fenceField;
+	}
+
+	/**
+	 * Returns the current size of the mapped region.
+	 *
+	 * @return size in bytes
+	 */
+	public int getSize() {
+		return buffer.capacity();
+	}
+
+	/**
+	 * Writes the content of the region to the storage device and closes the
+	 * file. The mapping itself is released by the garbage collector.
+	 *
+	 * @throws IOException
+	 *             if the file can't be closed
+	 */
+	public void close() throws IOException {
+		buffer.force();
+		file.close();
+	}
+
+	public void visitSessionInfo(final SessionInfo info) {
+		buffer.putLong(START_OFFSET, info.getStartTimeStamp());
+		buffer.putLong(DUMP_OFFSET, info.getDumpTimeStamp());
+		byte[] id = encode(info.getId());
+		if (id.length > MAX_SESSION_ID_LENGTH) {
+			final byte[] truncated = new byte[MAX_SESSION_ID_LENGTH];
+			System.arraycopy(id, 0, truncated, 0, MAX_SESSION_ID_LENGTH);
+			id = truncated;
+		}
+		buffer.putShort(SESSION_ID_OFFSET, (short) id.length);
+		buffer.position(SESSION_ID_OFFSET + 2);
+		buffer.put(id);
+	}
+
+	public void visitClassExecution(final ExecutionData data) {
+		final boolean[] probes = data.getProbes();
+		final Integer slot = slots.get(Long.valueOf(data.getId()));
+		final int probesOffset;
+		if (slot == null) {
+			probesOffset = addSlot(data);
+		} else {
+			probesOffset = slot.intValue();
+		}
+		for (int i = 0; i < probes.length; i++) {
+			buffer.put(probesOffset + i, probes[i] ? (byte) 1 : (byte) 0);
+		}
+	}
+
+	private int addSlot(final ExecutionData data) {
+		final byte[] name = encode(data.getName());
+		final int probeCount = data.getProbes().length;
+		final int size = 8 + 4 + 2 + name.length + probeCount;
+		ensureCapacity(end + size);
+		buffer.position(end);
+		buffer.putLong(data.getId());
+		buffer.putInt(probeCount);
+		buffer.putShort((short) name.length);
+		buffer.put(name);
+		final int probesOffset = buffer.position();
+		slots.put(Long.valueOf(data.getId()), Integer.valueOf(probesOffset));
+		end += size;
+		return probesOffset;
+	}
+
+	private void ensureCapacity(final int size) {
+		int capacity = buffer.capacity();
+		if (size <= capacity) {
+			return;
+		}
+		while (capacity < size) {
+			capacity *= 2;
+		}
+		try {
+			map(capacity);
+		} catch (final IOException e) {
+			throw new IllegalStateException(
+					"Can't grow coverage region to " + capacity + " bytes.",
+					e);
+		}
+	}
+
+	private static byte[] encode(final String s) {
+		try {
+			return s.getBytes(ENCODING);
+		} catch (final UnsupportedEncodingException e) {
+			// UTF-8 is supported by every JVM
+			throw new AssertionError(e);
+		}
+	}
+
+}
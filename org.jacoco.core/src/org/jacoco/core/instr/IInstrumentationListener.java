@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.instr;
+
+/**
+ * 接收每个插桩类的开销, 参见
+ * {@link Instrumenter#setInstrumentationListener(IInstrumentationListener)}。
+ * 如果 {@link Instrumenter} 被多个线程使用, 实现必须是线程安全的。
+ */
+public interface IInstrumentationListener {
+
+    /**
+     * 在一个类插桩成功后被调用。
+     *
+     * @param cost  该类插桩的开销
+     */
+    void classInstrumented(InstrumentationCost cost);
+
+}
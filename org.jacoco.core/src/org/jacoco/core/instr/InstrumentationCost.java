@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.instr;
+
+/**
+ * 一个类插桩的开销, 由 {@link Instrumenter} 报告给
+ * {@link IInstrumentationListener}。插桩分为以下几个阶段, 每个阶段的耗时单独记录:
+ *
+ * <ul>
+ * <li>class id: 计算类定义的 CRC64</li>
+ * <li>strategy: 通过 <code>ProbeArrayStrategyFactory</code> 选择探针数组策略</li>
+ * <li>probes: 插入探针, 包括 <code>ClassProbesAdapter</code> 和帧的计算</li>
+ * <li>write: 生成插桩后的类定义</li>
+ * </ul>
+ */
+public class InstrumentationCost {
+
+    private final String className;
+
+    private final long classId;
+
+    private final int originalSize;
+
+    private final int instrumentedSize;
+
+    private final int probeCount;
+
+    private final long classIdNanos;
+
+    private final long strategyNanos;
+
+    private final long probesNanos;
+
+    private final long writeNanos;
+
+    /**
+     * 创建新的实例。
+     *
+     * @param className         类的 VM 名称
+     * @param classId           类的 id
+     * @param originalSize      原始类定义的字节数
+     * @param instrumentedSize  插桩后类定义的字节数
+     * @param probeCount        插入的探针数量
+     * @param classIdNanos      计算类 id 的纳秒数
+     * @param strategyNanos     选择探针数组策略的纳秒数
+     * @param probesNanos       插入探针的纳秒数
+     * @param writeNanos        生成类定义的纳秒数
+     */
+    public InstrumentationCost(final String className, final long classId,
+            final int originalSize, final int instrumentedSize,
+            final int probeCount, final long classIdNanos,
+            final long strategyNanos, final long probesNanos,
+            final long writeNanos) {
+        this.className = className;
+        this.classId = classId;
+        this.originalSize = originalSize;
+        this.instrumentedSize = instrumentedSize;
+        this.probeCount = probeCount;
+        this.classIdNanos = classIdNanos;
+        this.strategyNanos = strategyNanos;
+        this.probesNanos = probesNanos;
+        this.writeNanos = writeNanos;
+    }
+
+    /**
+     * @return 类的 VM 名称
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return 类的 id
+     */
+    public long getClassId() {
+        return classId;
+    }
+
+    /**
+     * @return 原始类定义的字节数
+     */
+    public int getOriginalSize() {
+        return originalSize;
+    }
+
+    /**
+     * @return 插桩后类定义的字节数
+     */
+    public int getInstrumentedSize() {
+        return instrumentedSize;
+    }
+
+    /**
+     * @return 插入的探针数量
+     */
+    public int getProbeCount() {
+        return probeCount;
+    }
+
+    /**
+     * @return 计算类 id 的纳秒数
+     */
+    public long getClassIdNanos() {
+        return classIdNanos;
+    }
+
+    /**
+     * @return 选择探针数组策略的纳秒数
+     */
+    public long getStrategyNanos() {
+        return strategyNanos;
+    }
+
+    /**
+     * @return 插入探针 (包括帧的计算) 的纳秒数
+     */
+    public long getProbesNanos() {
+        return probesNanos;
+    }
+
+    /**
+     * @return 生成插桩后类定义的纳秒数
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * @return 所有阶段的纳秒数之和
+     */
+    public long getTotalNanos() {
+        return classIdNanos + strategyNanos + probesNanos + writeNanos;
+    }
+
+}
@@ -35,9 +35,13 @@ import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
 
 /**
  * 几个应用编程接口来为覆盖跟踪提供Java类定义
+ *
+ * 配置完成后, 多个线程可以并发地调用插桩方法: 每个类都使用自己的 ASM reader 和 writer,
+ * 插桩过程中不修改任何共享状态。
  */
 public class Instrumenter {
 
@@ -45,6 +49,10 @@ public class Instrumenter {
 
     private final SignatureRemover signatureRemover;
 
+    private boolean conditionalProbes;
+
+    private IInstrumentationListener listener;
+
     /**
      * 未被执行
      *
@@ -70,6 +78,28 @@ public class Instrumenter {
         signatureRemover.setActive(flag);
     }
 
+    /**
+     * 设置是否使用条件探针。启用后，探针只在尚未设置时才写入探针数组，已执行过的代码
+     * 不再产生写操作。这可以减少多线程频繁执行同一个类时的缓存行争用，代价是每个探针
+     * 多一次方法调用。默认值为<code>false</code>。
+     *
+     * @param flag <code>true</code> 表示使用条件探针
+     */
+    public void setConditionalProbes(final boolean flag) {
+        this.conditionalProbes = flag;
+    }
+
+    /**
+     * 设置接收每个插桩类开销的监听器, 包括各个阶段的耗时, 类定义大小的变化和探针数量。
+     * 没有监听器时不进行任何计时。
+     *
+     * @param listener 监听器, 或 <code>null</code> 表示不记录开销
+     */
+    public void setInstrumentationListener(
+            final IInstrumentationListener listener) {
+        this.listener = listener;
+    }
+
     /**
      * 如果可能，创建给定类的检测版本
      * ASM 注入class method
@@ -82,8 +112,14 @@ public class Instrumenter {
         return instrument(reader.b);
     }
 
+    /**
+     * 只有设置了监听器时才记录各个阶段的耗时和探针数量, 否则不产生额外开销。
+     */
     private byte[] instrument(final byte[] source) {
+        final IInstrumentationListener listener = this.listener;
+        final long t0 = timestamp(listener);
         final long classId = CRC64.classId(source);
+        final long t1 = timestamp(listener);
         final ClassReader reader = InstrSupport.classReaderFor(source);
         final ClassWriter writer = new ClassWriter(reader, 0) {
             @Override
@@ -92,18 +128,56 @@ public class Instrumenter {
             }
         };
         final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory.createFor(classId, reader, accessorGenerator);
+        final CountingProbeArrayStrategy counter = listener == null ? null : new CountingProbeArrayStrategy(strategy);
+        final long t2 = timestamp(listener);
 
         final int version = InstrSupport.getVersionMajor(source);
 
-        ClassInstrumenter instrumenter = new ClassInstrumenter(strategy, writer);
+        ClassInstrumenter instrumenter = new ClassInstrumenter(counter == null ? strategy : counter, conditionalProbes, writer);
 
         boolean needsFrames = InstrSupport.needsFrames(version);
 
         final ClassVisitor visitor = new ClassProbesAdapter(instrumenter, needsFrames);
 
         reader.accept(visitor, ClassReader.EXPAND_FRAMES);
+        final long t3 = timestamp(listener);
 
-        return writer.toByteArray();
+        final byte[] result = writer.toByteArray();
+        if (listener != null) {
+            final long t4 = System.nanoTime();
+            listener.classInstrumented(new InstrumentationCost(
+                    reader.getClassName(), classId, source.length, result.length,
+                    counter.probeCount, t1 - t0, t2 - t1, t3 - t2, t4 - t3));
+        }
+        return result;
+    }
+
+    private static long timestamp(final IInstrumentationListener listener) {
+        return listener == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * 记录探针数量的策略包装。
+     */
+    private static class CountingProbeArrayStrategy implements IProbeArrayStrategy {
+
+        private final IProbeArrayStrategy delegate;
+
+        int probeCount;
+
+        CountingProbeArrayStrategy(final IProbeArrayStrategy delegate) {
+            this.delegate = delegate;
+        }
+
+        public int storeInstance(final MethodVisitor mv, final boolean clinit,
+                final int variable) {
+            return delegate.storeInstance(mv, clinit, variable);
+        }
+
+        public void addMembers(final ClassVisitor cv, final int probeCount) {
+            this.probeCount = probeCount;
+            delegate.addMembers(cv, probeCount);
+        }
     }
 
     /**
@@ -40,6 +40,9 @@ public class ClassAnalyzer extends ClassProbesVisitor implements IFilterContext
 
     private final IFilter filter;
 
+    /** 按顺序分析各个方法时复用的指令构建器 */
+    private final InstructionsBuilder builder;
+
     /**
      * Creates a new analyzer that builds coverage data for a class.
      *
@@ -53,6 +56,7 @@ public class ClassAnalyzer extends ClassProbesVisitor implements IFilterContext
         this.probes = probes;
         this.stringPool = stringPool;
         this.filter = Filters.all();
+        this.builder = new InstructionsBuilder(probes);
     }
 
     @Override
@@ -143,8 +147,8 @@ public class ClassAnalyzer extends ClassProbesVisitor implements IFilterContext
 
         // 检测判断 方法名, 类名
         InstrSupport.assertNotInstrumented(name, coverage.getName());
-        // 指令工具 probes 探针数组
-        final InstructionsBuilder builder = new InstructionsBuilder(probes);
+        // 指令工具 probes 探针数组, 方法按顺序访问, 因此可以复用
+        builder.reset();
 
         // 匿名内部类 创建MethodAnalyzer的子类, 并重写其方法
         return new MethodAnalyzer(builder) {
@@ -164,17 +168,18 @@ public class ClassAnalyzer extends ClassProbesVisitor implements IFilterContext
 
                 super.accept(methodNode, methodVisitor);
 
-                addMethodCoverage(stringPool.get(name), stringPool.get(desc), stringPool.get(signature), builder, methodNode);
+                addMethodCoverage(stringPool.get(name), stringPool.get(desc), stringPool.get(signature), methodNode);
             }
         };
     }
 
     private void addMethodCoverage(final String name, final String desc,
-                                   final String signature, final InstructionsBuilder builder,
+                                   final String signature,
                                    final MethodNode methodNode) {
 
         // 计算单个方法的过滤覆盖率。
-        final MethodCoverageCalculator mcc = new MethodCoverageCalculator(builder.getInstructions());
+        final MethodCoverageCalculator mcc = new MethodCoverageCalculator(
+                methodNode.instructions, builder.getInstructions(methodNode.instructions));
 
         filter.filter(methodNode, this, mcc);
 
@@ -11,20 +11,28 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.flow.LabelInfo;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 
 /**
  * 方法指令( Instruction )的状态生成器
  * 一个方法的所有指令必须按照它们的原始顺序加上附加信息，如行号。
  * 之后，可以使用getInstructions方法获得说明
+ *
+ * 指令和跳转都保存在按添加顺序索引的数组中，不再使用以 ASM 节点为键的散列表。
+ * 通过 {@link #reset()} 同一个实例可以依次分析同一个类的多个方法，数组在方法之间复用。
  */
 class InstructionsBuilder {
 
+    private static final int INITIAL_CAPACITY = 64;
+
     /** 分析方法所属类别的探针阵列 */
     private final boolean[] probes;
 
@@ -34,14 +42,31 @@ class InstructionsBuilder {
     /** 最后添加的指令 */
     private Instruction currentInsn;
 
-    /** 方法的所有指令从ASM节点映射到相应的指令实例 */
-    private final Map<AbstractInsnNode, Instruction> instructions;
+    /** 方法的所有 ASM 指令节点，按添加顺序排列 */
+    private AbstractInsnNode[] nodes;
+
+    /** 与 {@link #nodes} 同一下标的指令实例 */
+    private Instruction[] instructions;
+
+    /** 已添加的指令数 */
+    private int size;
 
     /** 标记后续说明的标签。 由于ASM问题#315745，每个指令可以有多个标签 */
     private final List<Label> currentLabel;
 
-    /** 控制流中所有跳转的列表。 我们需要暂时存储，因为目标指令可能还不知道 */
-    private final List<Jump> jumps;
+    /**
+     * 控制流中所有跳转的源指令、目标和分支号，三个数组下标相同。
+     * 我们需要暂时存储，因为目标指令可能还不知道
+     */
+    private Instruction[] jumpSources;
+    private Label[] jumpTargets;
+    private int[] jumpBranches;
+
+    /** 已添加的跳转数 */
+    private int jumpCount;
+
+    /** 按 {@link InsnList} 位置索引的结果缓冲区，在方法之间复用 */
+    private Instruction[] byPosition;
 
     /**
      * 创建一个可用于分析单个方法的新构建器实例
@@ -49,14 +74,33 @@ class InstructionsBuilder {
      * @param probes 用于确定每条指令覆盖状态的相应类的探测数组
      */
     InstructionsBuilder(final boolean[] probes) {
-
-        // System.out.println("----------6.5--------" + "InstructionsBuilder # init( probes )");
         this.probes = probes;
         this.currentLine = ISourceNode.UNKNOWN_LINE; // 初始值为 -1
         this.currentInsn = null;
-        this.instructions = new HashMap<AbstractInsnNode, Instruction>();
+        this.nodes = new AbstractInsnNode[INITIAL_CAPACITY];
+        this.instructions = new Instruction[INITIAL_CAPACITY];
+        this.size = 0;
         this.currentLabel = new ArrayList<Label>(2);
-        this.jumps = new ArrayList<Jump>();
+        this.jumpSources = new Instruction[INITIAL_CAPACITY];
+        this.jumpTargets = new Label[INITIAL_CAPACITY];
+        this.jumpBranches = new int[INITIAL_CAPACITY];
+        this.jumpCount = 0;
+        this.byPosition = new Instruction[0];
+    }
+
+    /**
+     * 重置构建器以分析下一个方法。已分配的数组会被保留，只清除对上一个方法的引用。
+     */
+    void reset() {
+        Arrays.fill(nodes, 0, size, null);
+        Arrays.fill(instructions, 0, size, null);
+        Arrays.fill(jumpSources, 0, jumpCount, null);
+        Arrays.fill(jumpTargets, 0, jumpCount, null);
+        size = 0;
+        jumpCount = 0;
+        currentLine = ISourceNode.UNKNOWN_LINE;
+        currentInsn = null;
+        currentLabel.clear();
     }
 
     /**
@@ -96,7 +140,14 @@ class InstructionsBuilder {
             currentInsn.addBranch(insn, 0);
         }
         currentInsn = insn;
-        instructions.put(node, insn);
+        if (size == nodes.length) {
+            final int newLength = size << 1;
+            nodes = Arrays.copyOf(nodes, newLength);
+            instructions = Arrays.copyOf(instructions, newLength);
+        }
+        nodes[size] = node;
+        instructions[size] = insn;
+        size++;
     }
 
     /**
@@ -114,7 +165,16 @@ class InstructionsBuilder {
      * @param branch 唯一的分支号码
      */
     void addJump(final Label target, final int branch) {
-        jumps.add(new Jump(currentInsn, target, branch));
+        if (jumpCount == jumpSources.length) {
+            final int newLength = jumpCount << 1;
+            jumpSources = Arrays.copyOf(jumpSources, newLength);
+            jumpTargets = Arrays.copyOf(jumpTargets, newLength);
+            jumpBranches = Arrays.copyOf(jumpBranches, newLength);
+        }
+        jumpSources[jumpCount] = currentInsn;
+        jumpTargets[jumpCount] = target;
+        jumpBranches[jumpCount] = branch;
+        jumpCount++;
     }
 
     /**
@@ -132,33 +192,28 @@ class InstructionsBuilder {
      * 返回此方法所有指令的状态。
      * 添加指令后，必须准确调用此方法一次。
      *
-     * @return 将ASM指令节点映射到相应的{@link Instruction}实例
+     * @param list 所有已添加节点所属的指令列表
+     * @return 按节点在 <code>list</code> 中的位置（{@link InsnList#indexOf(AbstractInsnNode)}）
+     *         索引的{@link Instruction}实例，非指令节点的位置为 <code>null</code>。
+     *         返回的数组在下一次调用 {@link #reset()} 之后会被复用
      */
-    Map<AbstractInsnNode, Instruction> getInstructions() {
+    Instruction[] getInstructions(final InsnList list) {
         // 跳线:
-        for (final Jump j : jumps) {
-            j.wire();
+        for (int i = 0; i < jumpCount; i++) {
+            jumpSources[i].addBranch(
+                    LabelInfo.getInstruction(jumpTargets[i]), jumpBranches[i]);
         }
 
-        return instructions;
-    }
-
-    private static class Jump {
-
-        private final Instruction source;
-        private final Label target;
-        private final int branch;
-
-        Jump(final Instruction source, final Label target, final int branch) {
-            this.source = source;
-            this.target = target;
-            this.branch = branch;
+        final int length = list.size();
+        if (byPosition.length < length) {
+            byPosition = new Instruction[length];
+        } else {
+            Arrays.fill(byPosition, 0, length, null);
         }
-
-        void wire() {
-            source.addBranch(LabelInfo.getInstruction(target), branch);
+        for (int i = 0; i < size; i++) {
+            byPosition[list.indexOf(nodes[i])] = instructions[i];
         }
-
+        return byPosition;
     }
 
     /**
@@ -172,9 +227,9 @@ class InstructionsBuilder {
                 "probes=" + Arrays.toString(probes) +
                 ", currentLine=" + currentLine +
                 ", currentInsn=" + currentInsn +
-                ", instructions=" + instructions +
+                ", instructions=" + Arrays.toString(Arrays.copyOf(instructions, size)) +
                 ", currentLabel=" + currentLabel +
-                ", jumps=" + jumps +
+                ", jumps=" + jumpCount +
                 '}';
     }
 }
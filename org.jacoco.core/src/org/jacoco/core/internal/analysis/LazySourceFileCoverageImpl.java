@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ISourceNode;
+
+/**
+ * Implementation of {@link org.jacoco.core.analysis.ISourceFileCoverage} which
+ * only references its children until line data is requested. The line counter
+ * is calculated without creating line data. Lines are merged when
+ * {@link #getLine(int)}, {@link #getFirstLine()} or {@link #getLastLine()} is
+ * called for the first time. All children have to be added before.
+ */
+public class LazySourceFileCoverageImpl extends SourceFileCoverageImpl {
+
+	private static final byte CODE = 1;
+
+	private static final byte COVERED = 2;
+
+	private List<ISourceNode> children;
+
+	private ICounter mergedLineCounter;
+
+	/**
+	 * Creates a source file data object with the given parameters.
+	 *
+	 * @param name
+	 *            name of the source file
+	 * @param packagename
+	 *            vm name of the package the source file belongs to
+	 */
+	public LazySourceFileCoverageImpl(final String name,
+			final String packagename) {
+		super(name, packagename);
+		children = new ArrayList<ISourceNode>(1);
+	}
+
+	@Override
+	protected void incrementLines(final ISourceNode child) {
+		if (children == null) {
+			super.incrementLines(child);
+		} else {
+			children.add(child);
+			mergedLineCounter = null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the line data has been merged already
+	 */
+	public boolean isMaterialized() {
+		return children == null;
+	}
+
+	private void materialize() {
+		if (children != null) {
+			final List<ISourceNode> c = children;
+			children = null;
+			for (final ISourceNode child : c) {
+				super.incrementLines(child);
+			}
+		}
+	}
+
+	@Override
+	public ICounter getLineCounter() {
+		if (children == null) {
+			return super.getLineCounter();
+		}
+		if (mergedLineCounter == null) {
+			mergedLineCounter = calculateLineCounter(children);
+		}
+		return mergedLineCounter;
+	}
+
+	@Override
+	public int getFirstLine() {
+		materialize();
+		return super.getFirstLine();
+	}
+
+	@Override
+	public int getLastLine() {
+		materialize();
+		return super.getLastLine();
+	}
+
+	@Override
+	public LineImpl getLine(final int nr) {
+		materialize();
+		return super.getLine(nr);
+	}
+
+	/**
+	 * Calculates the line counter of the merged lines of the given nodes. A
+	 * line counts as covered if one of the nodes covers an instruction on it.
+	 */
+	private static ICounter calculateLineCounter(
+			final List<ISourceNode> nodes) {
+		if (nodes.size() == 1) {
+			return nodes.get(0).getLineCounter();
+		}
+		int first = Integer.MAX_VALUE;
+		int last = UNKNOWN_LINE;
+		for (final ISourceNode node : nodes) {
+			if (node.getFirstLine() != UNKNOWN_LINE) {
+				first = Math.min(first, node.getFirstLine());
+				last = Math.max(last, node.getLastLine());
+			}
+		}
+		if (last == UNKNOWN_LINE) {
+			return CounterImpl.COUNTER_0_0;
+		}
+		final byte[] status = new byte[last - first + 1];
+		for (final ISourceNode node : nodes) {
+			final int nodeFirst = node.getFirstLine();
+			if (nodeFirst == UNKNOWN_LINE) {
+				continue;
+			}
+			for (int i = nodeFirst; i <= node.getLastLine(); i++) {
+				final ICounter instructions = node.getLine(i)
+						.getInstructionCounter();
+				if (instructions.getTotalCount() > 0) {
+					status[i - first] |= CODE;
+				}
+				if (instructions.getCoveredCount() > 0) {
+					status[i - first] |= COVERED;
+				}
+			}
+		}
+		int missed = 0;
+		int covered = 0;
+		for (final byte s : status) {
+			if ((s & COVERED) != 0) {
+				covered++;
+			} else if (s != 0) {
+				missed++;
+			}
+		}
+		return CounterImpl.getInstance(missed, covered);
+	}
+
+}
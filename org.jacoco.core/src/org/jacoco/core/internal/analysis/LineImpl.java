@@ -114,6 +114,24 @@ public abstract class LineImpl implements ILine {
      */
     public abstract LineImpl increment(final ICounter instructions, final ICounter branches);
 
+    /**
+     * 与 {@link #increment(ICounter, ICounter)} 相同, 但从不修改此实例。
+     * 用于可能被多个节点共享的行。
+     *
+     * @param instructions  添加说明
+     * @param branches      要添加的分支
+     * @return instance with new counter values
+     */
+    LineImpl add(final ICounter instructions, final ICounter branches) {
+        return getInstance(
+                CounterImpl.getInstance(
+                        this.instructions.getMissedCount() + instructions.getMissedCount(),
+                        this.instructions.getCoveredCount() + instructions.getCoveredCount()),
+                CounterImpl.getInstance(
+                        this.branches.getMissedCount() + branches.getMissedCount(),
+                        this.branches.getCoveredCount() + branches.getCoveredCount()));
+    }
+
     // === ILine implementation ===
 
     public int getStatus() {
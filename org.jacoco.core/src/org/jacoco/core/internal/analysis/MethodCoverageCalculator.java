@@ -13,7 +13,6 @@ package org.jacoco.core.internal.analysis;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -23,34 +22,51 @@ import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.analysis.filter.IFilterOutput;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 
 /**
  * 计算单个方法的过滤覆盖率。
  * 在计算覆盖率结果之前，此类的实例可以首先用作{@link IFilterOutput}。
+ * 所有状态都按节点在 {@link InsnList} 中的位置保存在数组中。
  */
 class MethodCoverageCalculator implements IFilterOutput {
 
-    // 说明
-    private final Map<AbstractInsnNode, Instruction> instructions;
+    // 方法的指令列表, 用于确定节点的位置
+    private final InsnList list;
+
+    // 说明, 按位置索引, 非指令节点为 null
+    private final Instruction[] instructions;
+
+    // 方法中的节点数
+    private final int length;
+
     // 忽略
-    private final Set<AbstractInsnNode> ignored;
+    private final boolean[] ignored;
 
     /**
      * 应该合并成不相交集合的指令。来自一组指令的覆盖信息将被合并到该组的代表性指令中。
      * 每个这样的集合被表示为一个单独的链表:
      * 除了一个元素之外的每个元素引用同一集合中的另一个元素，
      * 没有引用的元素是这个集合的代表。
-     * 该映射存储集合(键)元素的引用(值)。
+     * 该数组存储集合元素(下标)所引用元素的位置加一, 0 表示没有引用。
      */
-    private final Map<AbstractInsnNode, AbstractInsnNode> merged;
+    private final int[] merged;
+
     // 替换
     private final Map<AbstractInsnNode, Set<AbstractInsnNode>> replacements;
 
-    MethodCoverageCalculator(final Map<AbstractInsnNode, Instruction> instructions) {
+    /**
+     * @param list          方法的指令列表
+     * @param instructions  按节点在 <code>list</code> 中的位置索引的指令,
+     *                      数组长度可以大于列表长度
+     */
+    MethodCoverageCalculator(final InsnList list, final Instruction[] instructions) {
+        this.list = list;
         this.instructions = instructions;
-        this.ignored = new HashSet<>();
-        this.merged = new HashMap<>();
-        this.replacements = new HashMap<>();
+        this.length = list.size();
+        this.ignored = new boolean[length];
+        this.merged = new int[length];
+        this.replacements = new HashMap<AbstractInsnNode, Set<AbstractInsnNode>>();
     }
 
     /**
@@ -59,41 +75,38 @@ class MethodCoverageCalculator implements IFilterOutput {
      * @param coverage      结果被添加到这个覆盖节点
      */
     void calculate(final MethodCoverageImpl coverage) {
-
-        // System.out.println("----------10.5-------" + "MethodCoverageCalculator # calculate");
-        // System.out.println(coverage);
-        // System.out.println(instructions);
-
         applyMerges();
         applyReplacements();
         ensureCapacity(coverage);
 
-        for (final Entry<AbstractInsnNode, Instruction> entry : instructions.entrySet()) {
-            if (!ignored.contains(entry.getKey())) {
-                final Instruction instruction = entry.getValue();
+        for (int i = 0; i < length; i++) {
+            final Instruction instruction = instructions[i];
+            if (instruction != null && !ignored[i]) {
                 coverage.increment(instruction.getInstructionCounter(),
                         instruction.getBranchCounter(), instruction.getLine());
             }
         }
 
-        // System.out.println("----------10.8-------" + "MethodCoverageCalculator # calculate");
         coverage.incrementMethodCounter();
     }
 
     private void applyMerges() {
         // 合并到 representative:
-        for (final Entry<AbstractInsnNode, AbstractInsnNode> entry : merged.entrySet()) {
-            final AbstractInsnNode node = entry.getKey();
-            final Instruction instruction = instructions.get(node);
-            final AbstractInsnNode representativeNode = findRepresentative(node);
-            ignored.add(node);
-            instructions.put(representativeNode, instructions.get(representativeNode).merge(instruction));
-            entry.setValue(representativeNode);
+        for (int i = 0; i < length; i++) {
+            if (merged[i] != 0) {
+                final int representative = findRepresentative(i);
+                ignored[i] = true;
+                instructions[representative] = instructions[representative]
+                        .merge(instructions[i]);
+                merged[i] = representative + 1;
+            }
         }
 
         // 从 representative 处获取合并值
-        for (final Entry<AbstractInsnNode, AbstractInsnNode> entry : merged.entrySet()) {
-            instructions.put(entry.getKey(), instructions.get(entry.getValue()));
+        for (int i = 0; i < length; i++) {
+            if (merged[i] != 0) {
+                instructions[i] = instructions[merged[i] - 1];
+            }
         }
     }
 
@@ -102,10 +115,10 @@ class MethodCoverageCalculator implements IFilterOutput {
             final Set<AbstractInsnNode> replacements = entry.getValue();
             final List<Instruction> newBranches = new ArrayList<Instruction>(replacements.size());
             for (final AbstractInsnNode b : replacements) {
-                newBranches.add(instructions.get(b));
+                newBranches.add(instructions[list.indexOf(b)]);
             }
-            final AbstractInsnNode node = entry.getKey();
-            instructions.put(node, instructions.get(node).replaceBranches(newBranches));
+            final int node = list.indexOf(entry.getKey());
+            instructions[node] = instructions[node].replaceBranches(newBranches);
         }
     }
 
@@ -117,10 +130,10 @@ class MethodCoverageCalculator implements IFilterOutput {
         // 确定线路范围
         int firstLine = ISourceFileCoverage.UNKNOWN_LINE;
         int lastLine = ISourceFileCoverage.UNKNOWN_LINE;
-        for (final Entry<AbstractInsnNode, Instruction> entry : instructions.entrySet()) {
-
-            if (!ignored.contains(entry.getKey())) {
-                final int line = entry.getValue().getLine();
+        for (int i = 0; i < length; i++) {
+            final Instruction instruction = instructions[i];
+            if (instruction != null && !ignored[i]) {
+                final int line = instruction.getLine();
 
                 if (line != ISourceNode.UNKNOWN_LINE) {
                     if (firstLine > line || lastLine == ISourceNode.UNKNOWN_LINE) {
@@ -137,10 +150,10 @@ class MethodCoverageCalculator implements IFilterOutput {
         coverage.ensureCapacity(firstLine, lastLine);
     }
 
-    private AbstractInsnNode findRepresentative(AbstractInsnNode i) {
-        AbstractInsnNode r;
-        while ((r = merged.get(i)) != null) {
-            i = r;
+    private int findRepresentative(int i) {
+        int r;
+        while ((r = merged[i]) != 0) {
+            i = r - 1;
         }
         return i;
     }
@@ -148,18 +161,18 @@ class MethodCoverageCalculator implements IFilterOutput {
     // === IFilterOutput API ===
 
     public void ignore(final AbstractInsnNode fromInclusive, final AbstractInsnNode toInclusive) {
-
-        for (AbstractInsnNode i = fromInclusive; i != toInclusive; i = i.getNext()) {
-            ignored.add(i);
+        final int from = list.indexOf(fromInclusive);
+        final int to = list.indexOf(toInclusive);
+        for (int i = from; i <= to; i++) {
+            ignored[i] = true;
         }
-        ignored.add(toInclusive);
     }
 
-    public void merge(AbstractInsnNode i1, AbstractInsnNode i2) {
-        i1 = findRepresentative(i1);
-        i2 = findRepresentative(i2);
-        if (i1 != i2) {
-            merged.put(i2, i1);
+    public void merge(final AbstractInsnNode i1, final AbstractInsnNode i2) {
+        final int r1 = findRepresentative(list.indexOf(i1));
+        final int r2 = findRepresentative(list.indexOf(i2));
+        if (r1 != r2) {
+            merged[r2] = r1 + 1;
         }
     }
 
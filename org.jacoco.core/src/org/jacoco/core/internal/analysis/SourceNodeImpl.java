@@ -28,6 +28,12 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
     /** {@link #lines}中的第一行数字  */
     private int offset;
 
+    /** {@link #lines} 数组被其他节点引用, 写入前必须先复制 */
+    private boolean copyOnWrite;
+
+    /** {@link #lines} 中的行实例可能被其他节点引用, 递增时不能修改这些实例 */
+    private boolean sharedLines;
+
     /**
      * 创建新的源节点实现实例。
      *
@@ -66,6 +72,7 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
                 System.arraycopy(lines, 0, newLines, offset - newFirst, lines.length);
                 offset = newFirst;
                 lines = newLines;
+                copyOnWrite = false;
             }
         }
     }
@@ -94,6 +101,22 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
         complexityCounter = complexityCounter.increment(child.getComplexityCounter());
         methodCounter = methodCounter.increment(child.getMethodCounter());
         classCounter = classCounter.increment(child.getClassCounter());
+        incrementLines(child);
+    }
+
+    /**
+     * 只用给定子代的行数据递增行和行计数器, 其他计数器不变。
+     *
+     * @param child     要添加行数据的子节点
+     */
+    protected void incrementLines(final ISourceNode child) {
+        if (lines == null && child instanceof SourceNodeImpl) {
+            final SourceNodeImpl source = (SourceNodeImpl) child;
+            if (source.lines != null) {
+                adoptLines(source);
+                return;
+            }
+        }
         final int firstLine = child.getFirstLine();
         if (firstLine != UNKNOWN_LINE) {
             final int lastLine = child.getLastLine();
@@ -105,6 +128,21 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
         }
     }
 
+    /**
+     * 还没有行数据时直接引用子节点的行数组, 而不是逐行复制。
+     * 例如只包含一个类的源文件和该类共享同一份行数据。
+     * 两个节点之后的写入都会先复制数组, 并且不再修改共享的行实例。
+     *
+     * @param child 行数据已完整的子节点
+     */
+    private void adoptLines(final SourceNodeImpl child) {
+        lines = child.lines;
+        offset = child.offset;
+        lineCounter = lineCounter.increment(child.lineCounter);
+        copyOnWrite = sharedLines = true;
+        child.copyOnWrite = child.sharedLines = true;
+    }
+
     /**
      * 将指令和分支增加给定的计数器值。
      * 如果指定了可选行号，则指令和分支将被添加到给定行。
@@ -132,7 +170,15 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
         final LineImpl l = getLine(line);
         final int oldTotal = l.getInstructionCounter().getTotalCount();
         final int oldCovered = l.getInstructionCounter().getCoveredCount();
-        lines[line - offset] = l.increment(instructions, branches);
+        if (copyOnWrite) {
+            lines = lines.clone();
+            copyOnWrite = false;
+        }
+        if (sharedLines) {
+            lines[line - offset] = l.add(instructions, branches);
+        } else {
+            lines[line - offset] = l.increment(instructions, branches);
+        }
 
         // Increment line counter:
         if (instructions.getTotalCount() > 0) {
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Cheap features of a method and its enclosing class which are collected in a
+ * single pass before filtering. Each filter declares the features it requires
+ * and is only invoked if all of them are present. The features are chosen
+ * conservatively: a filter is skipped only if it can not possibly produce any
+ * output for the method.
+ */
+final class FilterFeatures {
+
+	/** No requirements, the filter is always invoked. */
+	static final int NONE = 0;
+
+	/** The method has at least one try/catch block. */
+	static final int TRY_CATCH = 1;
+
+	/** The method contains a TABLESWITCH or LOOKUPSWITCH instruction. */
+	static final int SWITCH = 1 << 1;
+
+	/** The method contains an IFNONNULL instruction. */
+	static final int IFNONNULL = 1 << 2;
+
+	/** The method contains an ATHROW instruction. */
+	static final int ATHROW = 1 << 3;
+
+	/** The method contains a MONITOREXIT instruction. */
+	static final int MONITOREXIT = 1 << 4;
+
+	/** The method is synthetic. */
+	static final int SYNTHETIC = 1 << 5;
+
+	/** The method is private. */
+	static final int PRIVATE = 1 << 6;
+
+	/** The enclosing class is an enum. */
+	static final int ENUM = 1 << 7;
+
+	/** The enclosing class has been compiled by the Kotlin compiler. */
+	static final int KOTLIN = 1 << 8;
+
+	/** The enclosing class has a SourceDebugExtension attribute. */
+	static final int SOURCE_DEBUG_EXTENSION = 1 << 9;
+
+	private FilterFeatures() {
+		// no instances
+	}
+
+	/**
+	 * Collects the features of the given method.
+	 * 
+	 * @param methodNode
+	 *            method to inspect
+	 * @param context
+	 *            context of the enclosing class
+	 * @return bit set of features present
+	 */
+	static int of(final MethodNode methodNode, final IFilterContext context) {
+		int features = NONE;
+		if (!methodNode.tryCatchBlocks.isEmpty()) {
+			features |= TRY_CATCH;
+		}
+		if ((methodNode.access & Opcodes.ACC_SYNTHETIC) != 0) {
+			features |= SYNTHETIC;
+		}
+		if ((methodNode.access & Opcodes.ACC_PRIVATE) != 0) {
+			features |= PRIVATE;
+		}
+		if ("java/lang/Enum".equals(context.getSuperClassName())) {
+			features |= ENUM;
+		}
+		if (KotlinGeneratedFilter.isKotlinClass(context)) {
+			features |= KOTLIN;
+		}
+		if (context.getSourceDebugExtension() != null) {
+			features |= SOURCE_DEBUG_EXTENSION;
+		}
+		for (AbstractInsnNode i = methodNode.instructions
+				.getFirst(); i != null; i = i.getNext()) {
+			switch (i.getOpcode()) {
+			case Opcodes.TABLESWITCH:
+			case Opcodes.LOOKUPSWITCH:
+				features |= SWITCH;
+				break;
+			case Opcodes.IFNONNULL:
+				features |= IFNONNULL;
+				break;
+			case Opcodes.ATHROW:
+				features |= ATHROW;
+				break;
+			case Opcodes.MONITOREXIT:
+				features |= MONITOREXIT;
+				break;
+			default:
+				break;
+			}
+		}
+		return features;
+	}
+
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Collects a per-filter timing breakdown for benchmarking. An instance can be
+ * passed to {@link Filters#all(FilterTimings)} and may be shared between
+ * several filter instances and threads.
+ */
+public final class FilterTimings {
+
+	private final Map<String, long[]> entries = new TreeMap<String, long[]>();
+
+	private static final int NANOS = 0;
+	private static final int INVOCATIONS = 1;
+	private static final int SKIPPED = 2;
+
+	/**
+	 * Records an invocation of the given filter.
+	 * 
+	 * @param filter
+	 *            invoked filter
+	 * @param nanos
+	 *            time taken by the invocation in nanoseconds
+	 */
+	synchronized void invoked(final IFilter filter, final long nanos) {
+		final long[] entry = entry(filter);
+		entry[NANOS] += nanos;
+		entry[INVOCATIONS]++;
+	}
+
+	/**
+	 * Records that the given filter has been skipped because its preconditions
+	 * did not match.
+	 * 
+	 * @param filter
+	 *            skipped filter
+	 */
+	synchronized void skipped(final IFilter filter) {
+		entry(filter)[SKIPPED]++;
+	}
+
+	private long[] entry(final IFilter filter) {
+		final String name = filter.getClass().getSimpleName();
+		long[] entry = entries.get(name);
+		if (entry == null) {
+			entry = new long[3];
+			entries.put(name, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * @return simple class names of all filters seen so far in alphabetical
+	 *         order
+	 */
+	public synchronized Set<String> getFilterNames() {
+		return new TreeMap<String, long[]>(entries).keySet();
+	}
+
+	/**
+	 * @param filter
+	 *            simple class name of the filter
+	 * @return total time spent in the given filter in nanoseconds
+	 */
+	public synchronized long getNanos(final String filter) {
+		return get(filter, NANOS);
+	}
+
+	/**
+	 * @param filter
+	 *            simple class name of the filter
+	 * @return number of methods the given filter has been invoked for
+	 */
+	public synchronized long getInvocations(final String filter) {
+		return get(filter, INVOCATIONS);
+	}
+
+	/**
+	 * @param filter
+	 *            simple class name of the filter
+	 * @return number of methods the given filter has been skipped for
+	 */
+	public synchronized long getSkipped(final String filter) {
+		return get(filter, SKIPPED);
+	}
+
+	private long get(final String filter, final int index) {
+		final long[] entry = entries.get(filter);
+		return entry == null ? 0 : entry[index];
+	}
+
+	/**
+	 * Discards all recorded timings.
+	 */
+	public synchronized void reset() {
+		entries.clear();
+	}
+
+}
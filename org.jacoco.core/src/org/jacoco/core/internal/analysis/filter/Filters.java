@@ -11,19 +11,40 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis.filter;
 
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.ATHROW;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.ENUM;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.IFNONNULL;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.KOTLIN;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.MONITOREXIT;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.PRIVATE;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.SOURCE_DEBUG_EXTENSION;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.SWITCH;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.SYNTHETIC;
+import static org.jacoco.core.internal.analysis.filter.FilterFeatures.TRY_CATCH;
+
+import java.util.Arrays;
+
 import org.objectweb.asm.tree.MethodNode;
 
 /**
- * Filter that combines other filters.
+ * Filter that combines other filters. Every method is pre-screened once with
+ * {@link FilterFeatures} and only those filters are invoked whose required
+ * features are all present.
  */
 public final class Filters implements IFilter {
 
 	/**
 	 * Filter that does nothing.
 	 */
-	public static final IFilter NONE = new Filters();
+	public static final IFilter NONE = new Filters(null);
+
+	private final FilterTimings timings;
+
+	private IFilter[] filters;
+
+	private int[] requirements;
 
-	private final IFilter[] filters;
+	private int size;
 
 	/**
 	 * Creates filter that combines all other filters.
@@ -31,30 +52,86 @@ public final class Filters implements IFilter {
 	 * @return filter that combines all other filters
 	 */
 	public static IFilter all() {
-		return new Filters(new EnumFilter(), new SyntheticFilter(),
-				new SynchronizedFilter(), new TryWithResourcesJavac11Filter(),
-				new TryWithResourcesJavacFilter(),
-				new TryWithResourcesEcjFilter(), new FinallyFilter(),
-				new PrivateEmptyNoArgConstructorFilter(),
-				new StringSwitchJavacFilter(), new StringSwitchEcjFilter(),
-				new EnumEmptyConstructorFilter(),
-				new AnnotationGeneratedFilter(), new KotlinGeneratedFilter(),
-				new KotlinLateinitFilter(), new KotlinWhenFilter(),
-				new KotlinWhenStringFilter(),
-				new KotlinUnsafeCastOperatorFilter(),
-				new KotlinNotNullOperatorFilter(),
-				new KotlinDefaultArgumentsFilter(), new KotlinInlineFilter(),
-				new KotlinCoroutineFilter());
+		return all(null);
 	}
 
-	private Filters(final IFilter... filters) {
-		this.filters = filters;
+	/**
+	 * Creates filter that combines all other filters and records the time
+	 * spent in each of them.
+	 * 
+	 * @param timings
+	 *            receives the per-filter timing breakdown, may be
+	 *            <code>null</code>
+	 * @return filter that combines all other filters
+	 */
+	public static IFilter all(final FilterTimings timings) {
+		return new Filters(timings)
+				.add(new EnumFilter(), ENUM)
+				.add(new SyntheticFilter(), SYNTHETIC)
+				.add(new SynchronizedFilter(), TRY_CATCH | MONITOREXIT)
+				.add(new TryWithResourcesJavac11Filter(), TRY_CATCH)
+				.add(new TryWithResourcesJavacFilter(), TRY_CATCH)
+				.add(new TryWithResourcesEcjFilter(), TRY_CATCH)
+				.add(new FinallyFilter(), TRY_CATCH)
+				.add(new PrivateEmptyNoArgConstructorFilter(), PRIVATE)
+				.add(new StringSwitchJavacFilter(), SWITCH)
+				.add(new StringSwitchEcjFilter(), SWITCH)
+				.add(new EnumEmptyConstructorFilter(), ENUM)
+				.add(new AnnotationGeneratedFilter(), FilterFeatures.NONE)
+				.add(new KotlinGeneratedFilter(), KOTLIN)
+				.add(new KotlinLateinitFilter(), IFNONNULL)
+				.add(new KotlinWhenFilter(), ATHROW)
+				.add(new KotlinWhenStringFilter(), SWITCH)
+				.add(new KotlinUnsafeCastOperatorFilter(), IFNONNULL | ATHROW)
+				.add(new KotlinNotNullOperatorFilter(), IFNONNULL)
+				.add(new KotlinDefaultArgumentsFilter(), KOTLIN | SYNTHETIC)
+				.add(new KotlinInlineFilter(), KOTLIN | SOURCE_DEBUG_EXTENSION)
+				.add(new KotlinCoroutineFilter(), KOTLIN);
+	}
+
+	private Filters(final FilterTimings timings) {
+		this.timings = timings;
+		this.filters = new IFilter[0];
+		this.requirements = new int[0];
+		this.size = 0;
+	}
+
+	/**
+	 * Adds a filter which is only invoked for methods with all of the given
+	 * features.
+	 */
+	Filters add(final IFilter filter, final int required) {
+		if (size == filters.length) {
+			filters = Arrays.copyOf(filters, size + 8);
+			requirements = Arrays.copyOf(requirements, size + 8);
+		}
+		filters[size] = filter;
+		requirements[size] = required;
+		size++;
+		return this;
 	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
-		for (final IFilter filter : filters) {
-			filter.filter(methodNode, context, output);
+		if (size == 0) {
+			return;
+		}
+		final int features = FilterFeatures.of(methodNode, context);
+		for (int i = 0; i < size; i++) {
+			final IFilter filter = filters[i];
+			if ((features & requirements[i]) != requirements[i]) {
+				if (timings != null) {
+					timings.skipped(filter);
+				}
+				continue;
+			}
+			if (timings == null) {
+				filter.filter(methodNode, context, output);
+			} else {
+				final long start = System.nanoTime();
+				filter.filter(methodNode, context, output);
+				timings.invoked(filter, System.nanoTime() - start);
+			}
 		}
 	}
 
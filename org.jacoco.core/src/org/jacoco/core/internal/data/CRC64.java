@@ -21,15 +21,21 @@ import org.objectweb.asm.Opcodes;
  * <li>http://en.wikipedia.org/wiki/Cyclic_redundancy_check</li>
  * <li>http://www.geocities.com/SiliconValley/Pines/8659/crc.htm</li>
  * </ul>
+ * 
+ * Eight bytes at a time are processed with the "slicing-by-8" technique: the
+ * table <code>LOOKUPTABLES[k]</code> contains the checksum update of a byte
+ * followed by <code>k</code> zero bytes, so the updates for eight input bytes
+ * can be looked up independently and combined with XOR.
  */
 public final class CRC64 {
 
 	private static final long POLY64REV = 0xd800000000000000L;
 
-	private static final long[] LOOKUPTABLE;
+	private static final long[][] LOOKUPTABLES;
 
 	static {
-		LOOKUPTABLE = new long[0x100];
+		LOOKUPTABLES = new long[8][0x100];
+		final long[] table0 = LOOKUPTABLES[0];
 		for (int i = 0; i < 0x100; i++) {
 			long v = i;
 			for (int j = 0; j < 8; j++) {
@@ -39,10 +45,25 @@ public final class CRC64 {
 					v = (v >>> 1);
 				}
 			}
-			LOOKUPTABLE[i] = v;
+			table0[i] = v;
+		}
+		for (int k = 1; k < 8; k++) {
+			for (int i = 0; i < 0x100; i++) {
+				final long v = LOOKUPTABLES[k - 1][i];
+				LOOKUPTABLES[k][i] = (v >>> 8) ^ table0[(int) v & 0xff];
+			}
 		}
 	}
 
+	private static final long[] T0 = LOOKUPTABLES[0];
+	private static final long[] T1 = LOOKUPTABLES[1];
+	private static final long[] T2 = LOOKUPTABLES[2];
+	private static final long[] T3 = LOOKUPTABLES[3];
+	private static final long[] T4 = LOOKUPTABLES[4];
+	private static final long[] T5 = LOOKUPTABLES[5];
+	private static final long[] T6 = LOOKUPTABLES[6];
+	private static final long[] T7 = LOOKUPTABLES[7];
+
 	/**
 	 * Updates given checksum by given byte.
 	 *
@@ -54,7 +75,7 @@ public final class CRC64 {
 	 */
 	private static long update(final long sum, final byte b) {
 		final int lookupidx = ((int) sum ^ b) & 0xff;
-		return (sum >>> 8) ^ LOOKUPTABLE[lookupidx];
+		return (sum >>> 8) ^ T0[lookupidx];
 	}
 
 	/**
@@ -72,7 +93,26 @@ public final class CRC64 {
 	 */
 	private static long update(long sum, final byte[] bytes,
 			final int fromIndexInclusive, final int toIndexExclusive) {
-		for (int i = fromIndexInclusive; i < toIndexExclusive; i++) {
+		int i = fromIndexInclusive;
+		final int blockEnd = toIndexExclusive - 7;
+		for (; i < blockEnd; i += 8) {
+			// The lowest checksum byte is combined with the first input byte:
+			final long v = sum ^ ((bytes[i] & 0xffL)
+					| (bytes[i + 1] & 0xffL) << 8
+					| (bytes[i + 2] & 0xffL) << 16
+					| (bytes[i + 3] & 0xffL) << 24
+					| (bytes[i + 4] & 0xffL) << 32
+					| (bytes[i + 5] & 0xffL) << 40
+					| (bytes[i + 6] & 0xffL) << 48
+					| (bytes[i + 7] & 0xffL) << 56);
+			sum = T7[(int) v & 0xff] ^ T6[(int) (v >>> 8) & 0xff]
+					^ T5[(int) (v >>> 16) & 0xff]
+					^ T4[(int) (v >>> 24) & 0xff]
+					^ T3[(int) (v >>> 32) & 0xff]
+					^ T2[(int) (v >>> 40) & 0xff]
+					^ T1[(int) (v >>> 48) & 0xff] ^ T0[(int) (v >>> 56)];
+		}
+		for (; i < toIndexExclusive; i++) {
 			sum = update(sum, bytes[i]);
 		}
 		return sum;
@@ -11,14 +11,16 @@
  *******************************************************************************/
 package org.jacoco.core.internal.flow;
 
+import org.jacoco.core.analysis.ChangeSet;
+import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.analysis.ClassAnalyzer;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.commons.AnalyzerAdapter;
-
-import java.util.Arrays;
-import java.util.Map;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * 一个为每种方法计算探针的类访问者。
@@ -36,7 +38,9 @@ public class ClassProbesAdapter extends ClassVisitor implements IProbeIdGenerato
 
     private String name;
 
-    private final Map<String, String> diffMethod;
+    private String sourceFileName;
+
+    private final ChangeSet changeSet;
 
     /**
      * 创建委托给给定访问者的新适配器。
@@ -48,7 +52,7 @@ public class ClassProbesAdapter extends ClassVisitor implements IProbeIdGenerato
         super(InstrSupport.ASM_API_VERSION, cv);
         this.cv = cv;
         this.trackFrames = trackFrames;
-        this.diffMethod = null;
+        this.changeSet = null;
     }
 
     /**
@@ -56,14 +60,16 @@ public class ClassProbesAdapter extends ClassVisitor implements IProbeIdGenerato
      *
      * @param cv            要委托给的实例
      * @param trackFrames   如果为真则，跟踪并提供stackmap帧
+     * @param changeSet     变更集合, 未变更的方法只计算探针而不委托给 <code>cv</code>;
+     *                      为 <code>null</code> 时委托所有方法
      */
     public ClassProbesAdapter(final ClassProbesVisitor cv,
                               final boolean trackFrames,
-                              final Map<String, String> diffMethod) {
+                              final ChangeSet changeSet) {
         super(InstrSupport.ASM_API_VERSION, cv);
         this.cv = cv;
         this.trackFrames = trackFrames;
-        this.diffMethod = diffMethod;
+        this.changeSet = changeSet;
     }
 
     /**
@@ -99,6 +105,12 @@ public class ClassProbesAdapter extends ClassVisitor implements IProbeIdGenerato
         super.visit(version, access, name, signature, superName, interfaces);
     }
 
+    @Override
+    public void visitSource(final String source, final String debug) {
+        this.sourceFileName = source;
+        super.visitSource(source, debug);
+    }
+
     /**
      * 此方法每次调用时都必须返回一个新的{@link MethodVisitor}实例(或{null})，即不应该返回以前返回的实例
      *
@@ -131,7 +143,6 @@ public class ClassProbesAdapter extends ClassVisitor implements IProbeIdGenerato
         // System.out.println(name);
         // System.out.println("----------------");
 
-        // if (mv != null && (diffMethod == null || diffMethod.isEmpty() || diffMethod.containsKey(name))) {
         if (mv != null) {
             methodProbes = mv;
         } else {
@@ -151,8 +162,11 @@ public class ClassProbesAdapter extends ClassVisitor implements IProbeIdGenerato
                 // 标记流量分析器    标记标签
                 LabelFlowAnalyzer.markLabels(this);
 
+                // 未变更的方法只计算探针, 以保证探针 id 不变
+                final MethodProbesVisitor target = isChanged(this) ? methodProbes : EMPTY_METHOD_PROBES_VISITOR;
+
                 // 初始化 MethodVisitor 类
-                final MethodProbesAdapter probesAdapter = new MethodProbesAdapter(methodProbes, ClassProbesAdapter.this);
+                final MethodProbesAdapter probesAdapter = new MethodProbesAdapter(target, ClassProbesAdapter.this);
 
                 if (trackFrames) {
 
@@ -160,14 +174,34 @@ public class ClassProbesAdapter extends ClassVisitor implements IProbeIdGenerato
 
                     probesAdapter.setAnalyzer(analyzer);
 
-                    methodProbes.accept(this, analyzer);
+                    target.accept(this, analyzer);
                 } else {
-                    methodProbes.accept(this, probesAdapter);
+                    target.accept(this, probesAdapter);
                 }
             }
         };
     }
 
+    private boolean isChanged(final MethodNode method) {
+        if (changeSet == null) {
+            return true;
+        }
+        int firstLine = ISourceNode.UNKNOWN_LINE;
+        int lastLine = ISourceNode.UNKNOWN_LINE;
+        for (AbstractInsnNode i = method.instructions.getFirst(); i != null; i = i.getNext()) {
+            if (i.getType() == AbstractInsnNode.LINE) {
+                final int line = ((LineNumberNode) i).line;
+                if (firstLine == ISourceNode.UNKNOWN_LINE || line < firstLine) {
+                    firstLine = line;
+                }
+                if (line > lastLine) {
+                    lastLine = line;
+                }
+            }
+        }
+        return changeSet.containsMethod(name, sourceFileName, method.name, method.desc, firstLine, lastLine);
+    }
+
     @Override
     public void visitEnd() {
         cv.visitTotalProbeCount(counter);
@@ -15,17 +15,38 @@ import org.jacoco.core.internal.flow.ClassProbesVisitor;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 
 /**
  * 为覆盖跟踪检测一个类的适配器。
  */
 public class ClassInstrumenter extends ClassProbesVisitor {
 
+    /**
+     * Frame locals of the conditional probe method.
+     */
+    private static final Object[] FRAME_LOCALS_PROBE = new Object[] { InstrSupport.DATAFIELD_DESC, Opcodes.INTEGER };
+
+    /**
+     * Empty frame stack.
+     */
+    private static final Object[] FRAME_STACK_EMPTY = new Object[0];
+
     private final IProbeArrayStrategy probeArrayStrategy;
 
+    private final boolean conditionalProbes;
+
     private String className;
 
+    private boolean probeMethodItf;
+
+    private boolean withFrames;
+
+    /** 条件探针辅助方法所在的类，为<code>null</code>时探针直接写入数组。 */
+    private String probeMethodOwner;
+
     /**
      * 该方法未被执行
      *
@@ -36,8 +57,25 @@ public class ClassInstrumenter extends ClassProbesVisitor {
      */
     public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
                              final ClassVisitor cv) {
+        this(probeArrayStrategy, false, cv);
+    }
+
+    /**
+     * 向给定的类访问者发出此类的检测版本
+     *
+     * 启用条件探针时，探针不直接写入探针数组，而是调用类中新增的辅助方法
+     * {@link InstrSupport#PROBEMETHOD_NAME}，该方法仅在探针尚未设置时写入。
+     * 多个线程执行同一个类时，已设置的探针不再产生写操作，从而避免缓存行争用。
+     *
+     * @param probeArrayStrategy    该策略将用于访问探针阵列
+     * @param conditionalProbes     是否启用条件探针
+     * @param cv                    访问者链中的下一个委托将接收检测类
+     */
+    public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
+                             final boolean conditionalProbes, final ClassVisitor cv) {
         super(cv);
         this.probeArrayStrategy = probeArrayStrategy;
+        this.conditionalProbes = conditionalProbes;
     }
 
     /**
@@ -48,6 +86,13 @@ public class ClassInstrumenter extends ClassProbesVisitor {
                       final String signature, final String superName,
                       final String[] interfaces) {
         this.className = name;
+        this.probeMethodItf = (access & Opcodes.ACC_INTERFACE) != 0;
+        this.withFrames = InstrSupport.needsFrames(version);
+        // Interfaces may only declare private static methods since Java 8,
+        // the minor version is stored in the upper 16 bits:
+        if (conditionalProbes && (!probeMethodItf || (version & 0xFFFF) >= Opcodes.V1_8)) {
+            this.probeMethodOwner = name;
+        }
         super.visit(version, access, name, signature, superName, interfaces);
     }
 
@@ -77,7 +122,8 @@ public class ClassInstrumenter extends ClassProbesVisitor {
             return null;
         }
         final MethodVisitor frameEliminator = new DuplicateFrameEliminator(mv);
-        final ProbeInserter probeVariableInserter = new ProbeInserter(access, name, desc, frameEliminator, probeArrayStrategy);
+        final ProbeInserter probeVariableInserter = new ProbeInserter(access, name, desc, frameEliminator, probeArrayStrategy,
+                probeMethodOwner, probeMethodItf);
         return new MethodInstrumenter(probeVariableInserter, probeVariableInserter);
     }
 
@@ -93,6 +139,48 @@ public class ClassInstrumenter extends ClassProbesVisitor {
     @Override
     public void visitTotalProbeCount(final int count) {
         probeArrayStrategy.addMembers(cv, count);
+        if (probeMethodOwner != null && count > 0) {
+            createProbeMethod();
+        }
+    }
+
+    /**
+     * 生成条件探针辅助方法：
+     *
+     * <pre>
+     * private static void $jacocoProbe(boolean[] probes, int id) {
+     *     if (!probes[id]) {
+     *         probes[id] = true;
+     *     }
+     * }
+     * </pre>
+     */
+    private void createProbeMethod() {
+        final MethodVisitor mv = cv.visitMethod(InstrSupport.PROBEMETHOD_ACC, InstrSupport.PROBEMETHOD_NAME,
+                InstrSupport.PROBEMETHOD_DESC, null, null);
+        mv.visitCode();
+
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitInsn(Opcodes.BALOAD);
+
+        // Skip the store when the probe is already set:
+        final Label alreadySet = new Label();
+        mv.visitJumpInsn(Opcodes.IFNE, alreadySet);
+
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitInsn(Opcodes.BASTORE);
+
+        mv.visitLabel(alreadySet);
+        if (withFrames) {
+            mv.visitFrame(Opcodes.F_NEW, 2, FRAME_LOCALS_PROBE, 0, FRAME_STACK_EMPTY);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+
+        mv.visitMaxs(3, 2);
+        mv.visitEnd();
     }
 
 }
@@ -85,6 +85,23 @@ public final class InstrSupport {
      */
     public static final int INITMETHOD_ACC = Opcodes.ACC_SYNTHETIC | Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC;
 
+    // === Probe Method ===
+
+    /**
+     * 条件探针辅助方法的名称。该方法仅在探针尚未设置时才写入探针数组。
+     */
+    public static final String PROBEMETHOD_NAME = "$jacocoProbe";
+
+    /**
+     * 条件探针辅助方法的描述符。
+     */
+    public static final String PROBEMETHOD_DESC = "([ZI)V";
+
+    /**
+     * 条件探针辅助方法的访问修饰符
+     */
+    public static final int PROBEMETHOD_ACC = Opcodes.ACC_SYNTHETIC | Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC;
+
     /**
      * 接口初始化方法的名称
      *
@@ -36,6 +36,14 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
     /** Maximum stack usage of the code to access the probe array. */
     private int accessorStackSize;
 
+    /**
+     * 条件探针辅助方法所在的类，为<code>null</code>时探针直接写入数组。
+     */
+    private final String probeMethodOwner;
+
+    /** 条件探针辅助方法所在的类是否为接口。 */
+    private final boolean probeMethodItf;
+
     /**
      * 该构造器未被执行
      *
@@ -55,9 +63,40 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
      */
     ProbeInserter(final int access, final String name, final String desc, final MethodVisitor mv,
                   final IProbeArrayStrategy arrayStrategy) {
+        this(access, name, desc, mv, arrayStrategy, null, false);
+    }
+
+    /**
+     * Creates a new {@link ProbeInserter} which optionally delegates every
+     * probe to the conditional probe method
+     * {@link InstrSupport#PROBEMETHOD_NAME} of the given owner. That method
+     * only writes to the probe array if the probe is not set yet.
+     *
+     * @param access
+     *            access flags of the adapted method
+     * @param name
+     *            the method's name
+     * @param desc
+     *            the method's descriptor
+     * @param mv
+     *            the method visitor to which this adapter delegates calls
+     * @param arrayStrategy
+     *            callback to create the code that retrieves the reference to
+     *            the probe array
+     * @param probeMethodOwner
+     *            VM name of the class declaring the conditional probe method
+     *            or <code>null</code> if probes should be written directly
+     * @param probeMethodItf
+     *            <code>true</code> if the owner is an interface
+     */
+    ProbeInserter(final int access, final String name, final String desc, final MethodVisitor mv,
+                  final IProbeArrayStrategy arrayStrategy, final String probeMethodOwner,
+                  final boolean probeMethodItf) {
         super(InstrSupport.ASM_API_VERSION, mv);
         this.clinit = InstrSupport.CLINIT_NAME.equals(name);
         this.arrayStrategy = arrayStrategy;
+        this.probeMethodOwner = probeMethodOwner;
+        this.probeMethodItf = probeMethodItf;
         int pos = (Opcodes.ACC_STATIC & access) == 0 ? 1 : 0;
         for (final Type t : Type.getArgumentTypes(desc)) {
             pos += t.getSize();
@@ -79,6 +118,13 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
         // Stack[1]: I
         // Stack[0]: [Z
 
+        if (probeMethodOwner != null) {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, probeMethodOwner,
+                    InstrSupport.PROBEMETHOD_NAME, InstrSupport.PROBEMETHOD_DESC,
+                    probeMethodItf);
+            return;
+        }
+
         mv.visitInsn(Opcodes.ICONST_1);
 
         // Stack[2]: I
@@ -143,6 +143,32 @@ public final class AgentOptions {
 		 */
 		tcpclient,
 
+		/**
+		 * Value for the {@link AgentOptions#OUTPUT} parameter: The agent
+		 * connects in the background to a collector listening on the TCP port
+		 * specified by the {@link AgentOptions#ADDRESS} and
+		 * {@link AgentOptions#PORT} attribute. Lost connections are
+		 * re-established and dumps are queued until they can be delivered.
+		 */
+		tcpcollector,
+
+		/**
+		 * Value for the {@link AgentOptions#OUTPUT} parameter: The probes are
+		 * continuously published in a memory mapped file at the location
+		 * given by {@link AgentOptions#DESTFILE}, which can be read by other
+		 * processes on the same host at any time.
+		 */
+		mmap,
+
+		/**
+		 * Value for the {@link AgentOptions#OUTPUT} parameter: Every dump is
+		 * appended as a checksummed chunk to the file specified by
+		 * {@link AgentOptions#DESTFILE}. Only classes with newly executed
+		 * probes are written and a chunk cut off by a killed process does not
+		 * affect the rest of the file.
+		 */
+		chunkedfile,
+
 		/**
 		 * Value for the {@link AgentOptions#OUTPUT} parameter: Do not produce
 		 * any output.
@@ -188,10 +214,60 @@ public final class AgentOptions {
 	 */
 	public static final String JMX = "jmx";
 
+	/**
+	 * Specifies whether probes should only be written if they are not set
+	 * yet. This avoids repeated writes to the shared probe arrays from
+	 * multiple threads at the cost of an additional method call per probe.
+	 * Default is <code>false</code>.
+	 */
+	public static final String CONDITIONALPROBES = "conditionalprobes";
+
+	/**
+	 * Specifies the interval in seconds in which the agent periodically dumps
+	 * the current execution data to a file next to the
+	 * <code>destfile</code>. The value <code>0</code> disables periodic
+	 * dumps. Default is <code>0</code>.
+	 */
+	public static final String DUMPINTERVAL = "dumpinterval";
+
+	/**
+	 * Specifies the maximum number of seconds a random delay is added to each
+	 * periodic dump interval. This spreads the dumps of many agents started
+	 * at the same time. Default is <code>0</code>.
+	 */
+	public static final String DUMPJITTER = "dumpjitter";
+
+	/**
+	 * Specifies how many periodic dump files are retained. If set to a
+	 * positive value, every periodic dump is written to a new file with a
+	 * time stamp in its name and the oldest files beyond this number are
+	 * deleted. The value <code>0</code> writes every periodic dump to the
+	 * same file. Default is <code>0</code>.
+	 */
+	public static final String DUMPRETENTION = "dumpretention";
+
+	/**
+	 * Specifies the interval in seconds in which the agent counts the executed
+	 * probes for its instrumentation metrics. The value <code>0</code>
+	 * disables sampling, only the counters maintained during instrumentation
+	 * are available then. Default is <code>0</code>.
+	 */
+	public static final String METRICSINTERVAL = "metricsinterval";
+
+	/**
+	 * Specifies for how many of the most recently instrumented classes the
+	 * agent records the instrumentation cost. The records are written as CSV
+	 * to a file next to the <code>destfile</code>. The value <code>0</code>
+	 * disables recording. Default is <code>0</code>.
+	 */
+	public static final String PROFILESIZE = "profilesize";
+
 	private static final Collection<String> VALID_OPTIONS = Arrays.asList(
 			DESTFILE, APPEND, INCLUDES, EXCLUDES, EXCLCLASSLOADER,
 			INCLBOOTSTRAPCLASSES, INCLNOLOCATIONCLASSES, SESSIONID, DUMPONEXIT,
-			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX);
+			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX, CONDITIONALPROBES,
+			DUMPINTERVAL, DUMPJITTER, DUMPRETENTION, METRICSINTERVAL,
+			PROFILESIZE);
 
 	private final Map<String, String> options;
 
@@ -250,6 +326,11 @@ public final class AgentOptions {
 	private void validateAll() {
 		validatePort(getPort());
 		getOutput();
+		validateNotNegative(DUMPINTERVAL, getDumpInterval());
+		validateNotNegative(DUMPJITTER, getDumpJitter());
+		validateNotNegative(DUMPRETENTION, getDumpRetention());
+		validateNotNegative(METRICSINTERVAL, getMetricsInterval());
+		validateNotNegative(PROFILESIZE, getProfileSize());
 	}
 
 	private void validatePort(final int port) {
@@ -258,6 +339,13 @@ public final class AgentOptions {
 		}
 	}
 
+	private void validateNotNegative(final String key, final int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException(
+					format("%s must not be negative", key));
+		}
+	}
+
 	/**
 	 * Returns the output file location.
 	 * 
@@ -556,6 +644,135 @@ public final class AgentOptions {
 		setOption(JMX, jmx);
 	}
 
+	/**
+	 * Returns whether probes should only be written if they are not set yet.
+	 * 
+	 * @return <code>true</code> if conditional probes are enabled
+	 */
+	public boolean getConditionalProbes() {
+		return getOption(CONDITIONALPROBES, false);
+	}
+
+	/**
+	 * Sets whether probes should only be written if they are not set yet.
+	 * 
+	 * @param conditionalProbes
+	 *            <code>true</code> if conditional probes should be enabled
+	 */
+	public void setConditionalProbes(final boolean conditionalProbes) {
+		setOption(CONDITIONALPROBES, conditionalProbes);
+	}
+
+	/**
+	 * Returns the interval in seconds for periodic dumps.
+	 * 
+	 * @return interval in seconds or <code>0</code> if periodic dumps are
+	 *         disabled
+	 */
+	public int getDumpInterval() {
+		return getOption(DUMPINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval in seconds for periodic dumps.
+	 * 
+	 * @param interval
+	 *            interval in seconds or <code>0</code> to disable periodic
+	 *            dumps
+	 */
+	public void setDumpInterval(final int interval) {
+		validateNotNegative(DUMPINTERVAL, interval);
+		setOption(DUMPINTERVAL, interval);
+	}
+
+	/**
+	 * Returns the maximum random delay in seconds added to each periodic dump
+	 * interval.
+	 * 
+	 * @return maximum delay in seconds
+	 */
+	public int getDumpJitter() {
+		return getOption(DUMPJITTER, 0);
+	}
+
+	/**
+	 * Sets the maximum random delay in seconds added to each periodic dump
+	 * interval.
+	 * 
+	 * @param jitter
+	 *            maximum delay in seconds
+	 */
+	public void setDumpJitter(final int jitter) {
+		validateNotNegative(DUMPJITTER, jitter);
+		setOption(DUMPJITTER, jitter);
+	}
+
+	/**
+	 * Returns the number of periodic dump files which are retained.
+	 * 
+	 * @return number of files or <code>0</code> if every periodic dump is
+	 *         written to the same file
+	 */
+	public int getDumpRetention() {
+		return getOption(DUMPRETENTION, 0);
+	}
+
+	/**
+	 * Sets the number of periodic dump files which are retained.
+	 * 
+	 * @param retention
+	 *            number of files or <code>0</code> to write every periodic
+	 *            dump to the same file
+	 */
+	public void setDumpRetention(final int retention) {
+		validateNotNegative(DUMPRETENTION, retention);
+		setOption(DUMPRETENTION, retention);
+	}
+
+	/**
+	 * Returns the interval in seconds in which executed probes are counted for
+	 * the instrumentation metrics.
+	 * 
+	 * @return interval in seconds or <code>0</code> if sampling is disabled
+	 */
+	public int getMetricsInterval() {
+		return getOption(METRICSINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval in seconds in which executed probes are counted for
+	 * the instrumentation metrics.
+	 * 
+	 * @param interval
+	 *            interval in seconds or <code>0</code> to disable sampling
+	 */
+	public void setMetricsInterval(final int interval) {
+		validateNotNegative(METRICSINTERVAL, interval);
+		setOption(METRICSINTERVAL, interval);
+	}
+
+	/**
+	 * Returns the number of most recently instrumented classes for which the
+	 * instrumentation cost is recorded.
+	 * 
+	 * @return number of classes or <code>0</code> if recording is disabled
+	 */
+	public int getProfileSize() {
+		return getOption(PROFILESIZE, 0);
+	}
+
+	/**
+	 * Sets the number of most recently instrumented classes for which the
+	 * instrumentation cost is recorded.
+	 * 
+	 * @param size
+	 *            number of classes or <code>0</code> to disable recording
+	 */
+	public void setProfileSize(final int size) {
+		validateNotNegative(PROFILESIZE, size);
+		setOption(PROFILESIZE, size);
+	}
+
 	private void setOption(final String key, final int value) {
 		setOption(key, Integer.toString(value));
 	}
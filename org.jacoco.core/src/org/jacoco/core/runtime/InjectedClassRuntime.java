@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -20,12 +21,23 @@ import org.objectweb.asm.Opcodes;
  * {@code java.lang.invoke.MethodHandles.Lookup.defineClass} introduced in Java
  * 9. Module where class will be defined must be opened to at least module of
  * this class.
+ * 
+ * The defined class provides a static method with the signature
+ * <code>(JLjava/lang/String;I)[Z</code> which delegates to
+ * {@link RuntimeData#getProbes(long, String, int)} through a bound
+ * {@code java.lang.invoke.MethodHandle}. Instrumented classes call this method
+ * directly, therefore neither argument arrays nor boxed values are allocated
+ * to obtain the probe array.
  */
 public class InjectedClassRuntime extends AbstractRuntime {
 
-	private static final String FIELD_NAME = "data";
+	private static final String FIELD_NAME = "probes";
 
-	private static final String FIELD_TYPE = "Ljava/lang/Object;";
+	private static final String FIELD_TYPE = "Ljava/lang/invoke/MethodHandle;";
+
+	private static final String METHOD_NAME = "getProbes";
+
+	private static final String METHOD_DESC = "(JLjava/lang/String;I)[Z";
 
 	private final Class<?> locator;
 
@@ -50,11 +62,15 @@ public class InjectedClassRuntime extends AbstractRuntime {
 	@Override
 	public void startup(final RuntimeData data) throws Exception {
 		super.startup(data);
+		final Object probesAccessor = Lookup.lookup() //
+				.findVirtual(RuntimeData.class, METHOD_NAME, boolean[].class,
+						long.class, String.class, int.class) //
+				.bindTo(data);
 		Lookup //
 				.privateLookupIn(locator, Lookup.lookup()) //
 				.defineClass(createClass(injectedClassName)) //
 				.getField(FIELD_NAME) //
-				.set(null, data);
+				.set(null, probesAccessor);
 	}
 
 	public void shutdown() {
@@ -63,12 +79,12 @@ public class InjectedClassRuntime extends AbstractRuntime {
 
 	public int generateDataAccessor(final long classid, final String classname,
 			final int probecount, final MethodVisitor mv) {
-		mv.visitFieldInsn(Opcodes.GETSTATIC, injectedClassName, FIELD_NAME,
-				FIELD_TYPE);
-
-		RuntimeData.generateAccessCall(classid, classname, probecount, mv);
-
-		return 6;
+		mv.visitLdcInsn(Long.valueOf(classid));
+		mv.visitLdcInsn(classname);
+		InstrSupport.push(mv, probecount);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, injectedClassName,
+				METHOD_NAME, METHOD_DESC, false);
+		return 4;
 	}
 
 	private static byte[] createClass(final String name) {
@@ -77,6 +93,22 @@ public class InjectedClassRuntime extends AbstractRuntime {
 				name.replace('.', '/'), null, "java/lang/Object", null);
 		cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, FIELD_NAME,
 				FIELD_TYPE, null, null);
+
+		final MethodVisitor mv = cw.visitMethod(
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, METHOD_NAME,
+				METHOD_DESC, null, null);
+		mv.visitCode();
+		mv.visitFieldInsn(Opcodes.GETSTATIC, name, FIELD_NAME, FIELD_TYPE);
+		mv.visitVarInsn(Opcodes.LLOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitVarInsn(Opcodes.ILOAD, 3);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+				"java/lang/invoke/MethodHandle", "invokeExact", METHOD_DESC,
+				false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(5, 4);
+		mv.visitEnd();
+
 		cw.visitEnd();
 		return cw.toByteArray();
 	}
@@ -136,6 +168,62 @@ public class InjectedClassRuntime extends AbstractRuntime {
 					.invoke(this.instance, new Object[] { bytes });
 		}
 
+		/**
+		 * See corresponding method introduced in Java 7.
+		 *
+		 * @param refc
+		 *            the class from which the method is accessed
+		 * @param name
+		 *            the name of the method
+		 * @param rtype
+		 *            the return type of the method
+		 * @param ptypes
+		 *            the parameter types of the method
+		 * @return the desired method handle
+		 */
+		MethodHandle findVirtual(final Class<?> refc, final String name,
+				final Class<?> rtype, final Class<?>... ptypes)
+				throws Exception {
+			final Class<?> methodTypeClass = Class
+					.forName("java.lang.invoke.MethodType");
+			final Object type = methodTypeClass //
+					.getMethod("methodType", Class.class, Class[].class) //
+					.invoke(null, rtype, ptypes);
+			return new MethodHandle(Class //
+					.forName("java.lang.invoke.MethodHandles$Lookup")
+					.getMethod("findVirtual", Class.class, String.class,
+							methodTypeClass)
+					.invoke(this.instance, refc, name, type));
+		}
+
+	}
+
+	/**
+	 * Provides access to class {@code java.lang.invoke.MethodHandle}
+	 * introduced in Java 7.
+	 */
+	private static class MethodHandle {
+
+		private final Object instance;
+
+		private MethodHandle(final Object instance) {
+			this.instance = instance;
+		}
+
+		/**
+		 * See corresponding method introduced in Java 7.
+		 *
+		 * @param x
+		 *            the value to bind to the first parameter
+		 * @return the underlying handle with the first parameter bound
+		 */
+		Object bindTo(final Object x) throws Exception {
+			return Class //
+					.forName("java.lang.invoke.MethodHandle") //
+					.getMethod("bindTo", Object.class) //
+					.invoke(this.instance, x);
+		}
+
 	}
 
 }
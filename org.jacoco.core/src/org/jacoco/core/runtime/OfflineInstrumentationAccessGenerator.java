@@ -31,7 +31,21 @@ public class OfflineInstrumentationAccessGenerator implements
 	 * Creates a new instance for offline instrumentation.
 	 */
 	public OfflineInstrumentationAccessGenerator() {
-		this(JaCoCo.RUNTIMEPACKAGE.replace('.', '/') + "/Offline");
+		this(false);
+	}
+
+	/**
+	 * Creates a new instance for offline instrumentation. With the static
+	 * runtime instrumented classes do not start the agent, they can be
+	 * initialized at build time of ahead-of-time compiled images. Execution
+	 * data has to be dumped explicitly then.
+	 * 
+	 * @param staticRuntime
+	 *            <code>true</code> if classes should use the static runtime
+	 */
+	public OfflineInstrumentationAccessGenerator(final boolean staticRuntime) {
+		this(JaCoCo.RUNTIMEPACKAGE.replace('.', '/')
+				+ (staticRuntime ? "/StaticOffline" : "/Offline"));
 	}
 
 	/**
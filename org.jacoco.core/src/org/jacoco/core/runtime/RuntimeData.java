@@ -148,6 +148,28 @@ public class RuntimeData {
 		args[0] = getExecutionData(classid, name, probecount).getProbes();
 	}
 
+	/**
+	 * Retrieves the execution probe array for a given class. In contrast to
+	 * {@link #getProbes(Object[])} this method uses a primitive calling
+	 * convention, so no argument array and no boxed values need to be
+	 * allocated by the caller. This is a synchronized access to the
+	 * underlying store.
+	 * 
+	 * @param classid
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return probe array
+	 */
+	public boolean[] getProbes(final long classid, final String name,
+			final int probecount) {
+		synchronized (store) {
+			return store.get(classid, name, probecount).getProbes();
+		}
+	}
+
 	/**
 	 * In violation of the regular semantic of {@link Object#equals(Object)}
 	 * this implementation is used as the interface to the execution data store.
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfoStore;
+
+/**
+ * 对 *.exec 文件的探针进行集合运算 (并集, 交集, 差集, 对称差集)。
+ * 文件按顺序逐个流式读取, 每个操作数与当前结果运算:
+ *
+ * <pre>
+ * result = file1 op file2 op file3 ...
+ * </pre>
+ *
+ * 初始结果为空, 因此第一个文件通常用 {@link Operation#UNION} 读入。
+ * 探针以 64 位字的位集合保存, 运算按字进行。
+ * 内存只与不同类的数量和探针数量有关, 与文件数量无关。
+ * 一个文件中多次出现的同一个类 (例如追加的转储) 先合并再参与运算。
+ * 所有文件的会话信息都会被保留。
+ */
+public class ExecFileCombiner {
+
+    /**
+     * 支持的集合运算。
+     */
+    public enum Operation {
+
+        /** 在任一操作数中执行过的探针 */
+        UNION,
+
+        /** 在两个操作数中都执行过的探针 */
+        INTERSECTION,
+
+        /** 在当前结果中执行过, 但在新操作数中未执行的探针 */
+        DIFFERENCE,
+
+        /** 只在其中一个操作数中执行过的探针 */
+        SYMMETRIC_DIFFERENCE
+
+    }
+
+    private final SessionInfoStore sessionInfos;
+
+    private final Map<Long, Entry> entries;
+
+    /**
+     * 创建结果为空的新实例。
+     */
+    public ExecFileCombiner() {
+        sessionInfos = new SessionInfoStore();
+        entries = new HashMap<Long, Entry>();
+    }
+
+    /**
+     * 将给定文件的内容与当前结果进行运算。
+     *
+     * @param operation     集合运算
+     * @param file          要读取的 exec 文件
+     * @throws IOException  in case of problems while reading from the file
+     * @throws IllegalStateException 如果同一个类 id 的名称或探针数量不一致
+     */
+    public void apply(final Operation operation, final File file)
+            throws IOException {
+        final InputStream stream = new FileInputStream(file);
+        try {
+            apply(operation, stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * 将给定流的内容与当前结果进行运算。
+     *
+     * @param operation     集合运算
+     * @param stream        要读取的执行数据流
+     * @throws IOException  in case of problems while reading from the stream
+     * @throws IllegalStateException 如果同一个类 id 的名称或探针数量不一致
+     */
+    public void apply(final Operation operation, final InputStream stream)
+            throws IOException {
+        final ExecutionDataReader reader = new ExecutionDataReader(
+                new BufferedInputStream(stream));
+        reader.setSessionInfoVisitor(sessionInfos);
+        switch (operation) {
+            case UNION:
+                reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+                    public void visitClassExecution(final ExecutionData data) {
+                        getOrCreate(data).or(data.getProbes());
+                    }
+                });
+                reader.read();
+                break;
+            case DIFFERENCE:
+                reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+                    public void visitClassExecution(final ExecutionData data) {
+                        final Entry entry = get(data);
+                        if (entry != null) {
+                            entry.andNot(data.getProbes());
+                        }
+                    }
+                });
+                reader.read();
+                break;
+            case INTERSECTION:
+            case SYMMETRIC_DIFFERENCE:
+                readOperand(operation, reader);
+                break;
+            default:
+                throw new AssertionError(operation);
+        }
+    }
+
+    /**
+     * 交集和对称差集需要一个类在操作数中的全部探针, 因此先在
+     * {@link Entry#operand} 中收集, 读完后再与结果运算。
+     */
+    private void readOperand(final Operation operation,
+            final ExecutionDataReader reader) throws IOException {
+        final boolean intersection = operation == Operation.INTERSECTION;
+        reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+            public void visitClassExecution(final ExecutionData data) {
+                // 交集中不在结果里的类不会出现在新结果中, 无需收集
+                final Entry entry = intersection ? get(data) : getOrCreate(data);
+                if (entry != null) {
+                    entry.collectOperand(data.getProbes());
+                }
+            }
+        });
+        reader.read();
+        for (final Entry entry : entries.values()) {
+            if (intersection) {
+                entry.and();
+            } else {
+                entry.xor();
+            }
+        }
+    }
+
+    private Entry get(final ExecutionData data) {
+        final Entry entry = entries.get(Long.valueOf(data.getId()));
+        if (entry != null) {
+            entry.assertCompatibility(data);
+        }
+        return entry;
+    }
+
+    private Entry getOrCreate(final ExecutionData data) {
+        Entry entry = get(data);
+        if (entry == null) {
+            entry = new Entry(data.getId(), data.getName(),
+                    data.getProbes().length);
+            entries.put(Long.valueOf(data.getId()), entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 将所有会话信息和结果中至少有一个探针被执行的类发送给给定的访问者。
+     *
+     * @param sessionInfoVisitor    会话信息的访问者
+     * @param executionDataVisitor  执行数据的访问者
+     */
+    public void accept(final ISessionInfoVisitor sessionInfoVisitor,
+            final IExecutionDataVisitor executionDataVisitor) {
+        sessionInfos.accept(sessionInfoVisitor);
+        for (final Entry entry : entries.values()) {
+            if (!entry.isEmpty()) {
+                executionDataVisitor.visitClassExecution(entry.toExecutionData());
+            }
+        }
+    }
+
+    /**
+     * 将结果保存到给定的输出流中。
+     *
+     * @param stream        要保存内容的流
+     * @throws IOException  in case of problems while writing to the stream
+     */
+    public void save(final OutputStream stream) throws IOException {
+        final ExecutionDataWriter writer = new ExecutionDataWriter(stream);
+        accept(writer, writer);
+    }
+
+    /**
+     * 将结果保存到给定文件中, 父目录是根据需要创建的。
+     *
+     * @param file          保存内容的文件
+     * @throws IOException  in case of problems while writing to the file
+     */
+    public void save(final File file) throws IOException {
+        final File folder = file.getAbsoluteFile().getParentFile();
+        if (folder != null) {
+            folder.mkdirs();
+        }
+        final OutputStream stream = new BufferedOutputStream(
+                new FileOutputStream(file));
+        try {
+            save(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * 一个类的结果探针, 每个 long 保存 64 个探针。
+     */
+    private static class Entry {
+
+        final long id;
+
+        final String name;
+
+        final int probeCount;
+
+        final long[] bits;
+
+        /** 当前操作数中的探针, 只在读取交集和对称差集的操作数时使用 */
+        long[] operand;
+
+        Entry(final long id, final String name, final int probeCount) {
+            this.id = id;
+            this.name = name;
+            this.probeCount = probeCount;
+            this.bits = new long[(probeCount + 63) >>> 6];
+        }
+
+        void assertCompatibility(final ExecutionData data) {
+            if (!name.equals(data.getName())) {
+                throw new IllegalStateException(String.format(
+                        "Different class names %s and %s for id %016x.", name,
+                        data.getName(), Long.valueOf(id)));
+            }
+            if (probeCount != data.getProbes().length) {
+                throw new IllegalStateException(String.format(
+                        "Incompatible execution data for class %s with id %016x.",
+                        name, Long.valueOf(id)));
+            }
+        }
+
+        void or(final boolean[] probes) {
+            or(bits, probes);
+        }
+
+        void andNot(final boolean[] probes) {
+            for (int i = 0; i < probes.length; i++) {
+                if (probes[i]) {
+                    bits[i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+
+        void collectOperand(final boolean[] probes) {
+            if (operand == null) {
+                operand = new long[bits.length];
+            }
+            or(operand, probes);
+        }
+
+        void and() {
+            for (int w = 0; w < bits.length; w++) {
+                bits[w] &= operand == null ? 0 : operand[w];
+            }
+            operand = null;
+        }
+
+        void xor() {
+            if (operand != null) {
+                for (int w = 0; w < bits.length; w++) {
+                    bits[w] ^= operand[w];
+                }
+                operand = null;
+            }
+        }
+
+        boolean isEmpty() {
+            for (final long w : bits) {
+                if (w != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        ExecutionData toExecutionData() {
+            final boolean[] probes = new boolean[probeCount];
+            for (int i = 0; i < probeCount; i++) {
+                probes[i] = (bits[i >>> 6] & (1L << i)) != 0;
+            }
+            return new ExecutionData(id, name, probes);
+        }
+
+        private static void or(final long[] words, final boolean[] probes) {
+            for (int i = 0; i < probes.length; i++) {
+                if (probes[i]) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+}
@@ -19,6 +19,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
@@ -31,6 +38,9 @@ import org.jacoco.core.data.SessionInfoStore;
  */
 public class ExecFileLoader {
 
+    /** 并行读取时每个线程的文件组数量, 使大小不同的文件分布更均匀 */
+    private static final int GROUPS_PER_THREAD = 4;
+
     private final SessionInfoStore sessionInfos;
     private final ExecutionDataStore executionData;
 
@@ -72,6 +82,99 @@ public class ExecFileLoader {
         }
     }
 
+    /**
+     * 使用最多给定数量的线程读取给定文件中的所有数据。
+     * 文件按顺序分成连续的组, 每组在线程池中读入各自的存储,
+     * 然后相邻的存储以合并树的方式两两合并, 最后并入当前内容。
+     * 结果与按顺序对每个文件调用 {@link #load(File)} 相同:
+     * 会话信息的顺序保持不变, 同一个类 id 的名称或探针数量不一致时
+     * 同样抛出 {@link IllegalStateException}。
+     *
+     * @param files         要从中读取数据的文件
+     * @param threads       最大线程数, 小于 2 时按顺序读取
+     * @throws IOException  in case of problems while reading from the files
+     */
+    public void load(final List<File> files, final int threads)
+            throws IOException {
+        if (threads <= 1 || files.size() <= 1) {
+            for (final File file : files) {
+                load(file);
+            }
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(threads, files.size()));
+        try {
+            List<Future<ExecFileLoader>> level = new ArrayList<Future<ExecFileLoader>>();
+            final int groups = Math.min(files.size(), threads * GROUPS_PER_THREAD);
+            for (int g = 0; g < groups; g++) {
+                final List<File> group = files.subList(g * files.size() / groups,
+                        (g + 1) * files.size() / groups);
+                level.add(executor.submit(new Callable<ExecFileLoader>() {
+                    public ExecFileLoader call() throws IOException {
+                        final ExecFileLoader loader = new ExecFileLoader();
+                        for (final File file : group) {
+                            loader.load(file);
+                        }
+                        return loader;
+                    }
+                }));
+            }
+            // 合并任务只等待先提交的任务, 因此固定大小的线程池不会死锁
+            while (level.size() > 1) {
+                final List<Future<ExecFileLoader>> next = new ArrayList<Future<ExecFileLoader>>();
+                for (int i = 0; i < level.size(); i += 2) {
+                    if (i + 1 == level.size()) {
+                        next.add(level.get(i));
+                        continue;
+                    }
+                    final Future<ExecFileLoader> left = level.get(i);
+                    final Future<ExecFileLoader> right = level.get(i + 1);
+                    next.add(executor.submit(new Callable<ExecFileLoader>() {
+                        public ExecFileLoader call() throws IOException {
+                            final ExecFileLoader loader = get(left);
+                            loader.add(get(right));
+                            return loader;
+                        }
+                    }));
+                }
+                level = next;
+            }
+            add(get(level.get(0)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void add(final ExecFileLoader other) {
+        other.sessionInfos.accept(sessionInfos);
+        other.executionData.accept(executionData);
+    }
+
+    private static ExecFileLoader get(final Future<ExecFileLoader> future)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading execution data.");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            final IOException ex = new IOException(cause.getMessage());
+            ex.initCause(cause);
+            throw ex;
+        }
+    }
+
     /**
      * 将当前内容保存到给定的输出流中。
      *
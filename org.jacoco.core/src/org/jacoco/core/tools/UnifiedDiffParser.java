@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.analysis.ChangeSet;
+
+/**
+ * Parser for unified diffs, e.g. the output of <code>git diff</code>, which
+ * creates a {@link ChangeSet} with the added and modified lines of all source
+ * files. Lines are taken from the new version of each file. Source file paths
+ * are made relative to the source root by stripping everything up to and
+ * including the first matching source root, e.g.
+ * <code>module/src/main/java/org/example/Foo.java</code> becomes
+ * <code>org/example/Foo.java</code>.
+ * 
+ * Large diffs are split into files which are parsed in parallel.
+ */
+public class UnifiedDiffParser {
+
+	/** Number of files below which a diff is parsed in the calling thread */
+	private static final int PARALLEL_THRESHOLD = 64;
+
+	private static final String FILE_HEADER = "diff --git ";
+
+	private final List<String> sourceRoots;
+
+	private final List<String> extensions;
+
+	private int threads;
+
+	/**
+	 * Creates a new parser for the source roots
+	 * <code>src/main/java/</code>, <code>src/main/kotlin/</code> and
+	 * <code>src/main/groovy/</code> and the file extensions
+	 * <code>.java</code>, <code>.kt</code>, <code>.groovy</code> and
+	 * <code>.scala</code>.
+	 */
+	public UnifiedDiffParser() {
+		this.sourceRoots = new ArrayList<String>(Arrays.asList(
+				"src/main/java/", "src/main/kotlin/", "src/main/groovy/"));
+		this.extensions = Arrays.asList(".java", ".kt", ".groovy", ".scala");
+		this.threads = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Replaces the source roots.
+	 * 
+	 * @param roots
+	 *            source roots with <code>/</code> as separator
+	 */
+	public void setSourceRoots(final List<String> roots) {
+		sourceRoots.clear();
+		for (final String root : roots) {
+			sourceRoots.add(root.endsWith("/") ? root : root + "/");
+		}
+	}
+
+	/**
+	 * Sets the maximum number of threads used for parsing.
+	 * 
+	 * @param threads
+	 *            number of threads, <code>1</code> parses in the calling
+	 *            thread
+	 */
+	public void setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException(
+					"Number of threads must be positive: " + threads);
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Parses the given diff. The reader is not closed by this method.
+	 * 
+	 * @param reader
+	 *            diff in unified format
+	 * @return changed lines of all source files
+	 * @throws IOException
+	 *             if the diff can't be read
+	 */
+	public ChangeSet parse(final Reader reader) throws IOException {
+		final List<List<String>> files = split(reader);
+		final ChangeSet result = new ChangeSet();
+		if (threads == 1 || files.size() < PARALLEL_THRESHOLD) {
+			for (final List<String> file : files) {
+				parseFile(file, result);
+			}
+			return result;
+		}
+
+		final ExecutorService executor = Executors
+				.newFixedThreadPool(Math.min(threads, files.size()));
+		try {
+			final List<Future<ChangeSet>> futures = new ArrayList<Future<ChangeSet>>();
+			final int chunk = (files.size() + threads - 1) / threads;
+			for (int i = 0; i < files.size(); i += chunk) {
+				final List<List<String>> part = files.subList(i,
+						Math.min(i + chunk, files.size()));
+				futures.add(executor.submit(new Callable<ChangeSet>() {
+					public ChangeSet call() {
+						final ChangeSet changes = new ChangeSet();
+						for (final List<String> file : part) {
+							parseFile(file, changes);
+						}
+						return changes;
+					}
+				}));
+			}
+			for (final Future<ChangeSet> f : futures) {
+				result.addAll(f.get());
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing diff.");
+		} catch (final ExecutionException e) {
+			final IOException ex = new IOException("Error while parsing diff.");
+			ex.initCause(e.getCause());
+			throw ex;
+		} finally {
+			executor.shutdown();
+		}
+		return result;
+	}
+
+	/**
+	 * Splits the diff into the sections of the individual files. Diffs
+	 * without <code>diff --git</code> headers are returned as a single
+	 * section.
+	 */
+	private static List<List<String>> split(final Reader reader)
+			throws IOException {
+		final BufferedReader in = new BufferedReader(reader);
+		final List<List<String>> files = new ArrayList<List<String>>();
+		List<String> current = new ArrayList<String>();
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (line.startsWith(FILE_HEADER) && !current.isEmpty()) {
+				files.add(current);
+				current = new ArrayList<String>();
+			}
+			current.add(line);
+		}
+		if (!current.isEmpty()) {
+			files.add(current);
+		}
+		return files;
+	}
+
+	private void parseFile(final List<String> lines, final ChangeSet changes) {
+		String path = null;
+		int newLine = 0;
+		int remaining = 0;
+		for (final String line : lines) {
+			// content lines always start with ' ', '+', '-' or '\'
+			if (line.startsWith("@@ ")) {
+				final int[] hunk = parseHunkHeader(line);
+				newLine = hunk[0];
+				remaining = hunk[1];
+				if (remaining == 0 && path != null && newLine > 0) {
+					// pure deletion after the given line
+					changes.addLines(path, newLine, newLine);
+				}
+				continue;
+			}
+			if (remaining > 0) {
+				if (line.startsWith("+")) {
+					if (path != null) {
+						changes.addLines(path, newLine, newLine);
+					}
+					newLine++;
+					remaining--;
+				} else if (line.startsWith(" ") || line.length() == 0) {
+					newLine++;
+					remaining--;
+				}
+				// removed lines and "\ No newline at end of file" do not
+				// advance the new file
+				continue;
+			}
+			if (line.startsWith("+++ ")) {
+				path = getSourcePath(line.substring(4));
+			}
+		}
+	}
+
+	/**
+	 * @return start line and line count of the new file
+	 */
+	static int[] parseHunkHeader(final String line) {
+		// @@ -l,s +l,s @@ optional section heading
+		final int plus = line.indexOf(" +");
+		int end = line.indexOf(' ', plus + 2);
+		if (plus == -1 || end == -1) {
+			throw new IllegalArgumentException("Invalid hunk header: " + line);
+		}
+		final String range = line.substring(plus + 2, end);
+		final int comma = range.indexOf(',');
+		if (comma == -1) {
+			return new int[] { Integer.parseInt(range), 1 };
+		}
+		return new int[] { Integer.parseInt(range.substring(0, comma)),
+				Integer.parseInt(range.substring(comma + 1)) };
+	}
+
+	/**
+	 * @return path relative to the source root or <code>null</code> if the
+	 *         file is not a source file
+	 */
+	String getSourcePath(String path) {
+		final int tab = path.indexOf('\t');
+		if (tab != -1) {
+			path = path.substring(0, tab);
+		}
+		if ("/dev/null".equals(path)) {
+			return null;
+		}
+		if (path.startsWith("b/")) {
+			path = path.substring(2);
+		}
+		if (!isSourceFile(path)) {
+			return null;
+		}
+		for (final String root : sourceRoots) {
+			final int pos = indexOfRoot(path, root);
+			if (pos != -1) {
+				return path.substring(pos + root.length());
+			}
+		}
+		return path;
+	}
+
+	private boolean isSourceFile(final String path) {
+		for (final String ext : extensions) {
+			if (path.endsWith(ext)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int indexOfRoot(final String path, final String root) {
+		int pos = path.indexOf(root);
+		while (pos > 0 && path.charAt(pos - 1) != '/') {
+			pos = path.indexOf(root, pos + 1);
+		}
+		return pos;
+	}
+
+}
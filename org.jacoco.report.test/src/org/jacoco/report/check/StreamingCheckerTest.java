@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.check;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StreamingChecker}.
+ */
+public class StreamingCheckerTest implements IViolationsOutput {
+
+	private RulesChecker rulesChecker;
+	private List<Rule> rules;
+	private List<String> messages;
+
+	@Before
+	public void setup() {
+		rulesChecker = new RulesChecker();
+		rules = new ArrayList<Rule>();
+		rulesChecker.setRules(rules);
+		messages = new ArrayList<String>();
+	}
+
+	@Test
+	public void testBundleLimit() {
+		addRule(ElementType.BUNDLE);
+		check(createClass("FooClass", 1001, 5, 1));
+		assertMessage("Rule violated for bundle Test: instructions covered ratio is 0.50, but expected minimum is 0.75");
+	}
+
+	@Test
+	public void testPackageLimit() {
+		addRule(ElementType.PACKAGE);
+		check(createClass("FooClass", 1001, 5, 1));
+		assertMessage("Rule violated for package org.jacoco.example: instructions covered ratio is 0.50, but expected minimum is 0.75");
+	}
+
+	@Test
+	public void testSourceFileLimit() {
+		addRule(ElementType.SOURCEFILE);
+		check(createClass("FooClass", 1001, 5, 1));
+		assertMessage("Rule violated for source file org/jacoco/example/FooClass.java: instructions covered ratio is 0.50, but expected minimum is 0.75");
+	}
+
+	@Test
+	public void testClassLimit() {
+		addRule(ElementType.CLASS);
+		final StreamingChecker checker = rulesChecker.createStreamingChecker(
+				"Test", this);
+		checker.visitCoverage(createClass("FooClass", 1001, 5, 1));
+		assertMessage("Rule violated for class org.jacoco.example.FooClass: instructions covered ratio is 0.50, but expected minimum is 0.75");
+		checker.visitEnd();
+		assertEquals(1, checker.getViolationCount());
+	}
+
+	@Test
+	public void testMethodLimit() {
+		addRule(ElementType.METHOD);
+		check(createClass("FooClass", 1001, 5, 1));
+		assertMessage("Rule violated for method org.jacoco.example.FooClass.fooMethod(): instructions covered ratio is 0.50, but expected minimum is 0.75");
+	}
+
+	@Test
+	public void testLimitOk() {
+		addRule(ElementType.BUNDLE).getLimits().get(0).setMinimum("0.25");
+		check(createClass("FooClass", 1001, 5, 1));
+		assertEquals(Collections.emptyList(), messages);
+	}
+
+	@Test
+	public void testPackageCountersSummed() {
+		addRule(ElementType.PACKAGE);
+		check(createClass("FooClass", 1001, 5, 1),
+				createClass("BarClass", 1002, 5, 2));
+		assertMessage("Rule violated for package org.jacoco.example: instructions covered ratio is 0.50, but expected minimum is 0.75");
+	}
+
+	@Test
+	public void testLinesOfSourceFileMerged() {
+		final Rule rule = addRule(ElementType.BUNDLE);
+		rule.getLimits().get(0).setCounter("LINE");
+		rule.getLimits().get(0).setMinimum("1.0");
+
+		// Two classes of the same source file share line 1, one of them
+		// covers it. Summing class counters would give 1 of 2 lines.
+		final ClassCoverageImpl c1 = createClass("FooClass", 1001, 0, 1);
+		final ClassCoverageImpl c2 = createClass("FooClass$1", 1002, 10, 1);
+		c2.setSourceFileName("FooClass.java");
+		check(c1, c2);
+		assertEquals(Collections.emptyList(), messages);
+	}
+
+	@Test
+	public void testDuplicateClassIgnored() {
+		addRule(ElementType.BUNDLE).getLimits().get(0).setCounter("CLASS");
+		check(createClass("FooClass", 1001, 0, 1),
+				createClass("FooClass", 1001, 0, 1),
+				createClass("BarClass", 1002, 10, 2));
+		assertMessage("Rule violated for bundle Test: classes covered ratio is 0.50, but expected minimum is 0.75");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDifferentClassWithSameName() {
+		check(createClass("FooClass", 1001, 0, 1),
+				createClass("FooClass", 1002, 0, 1));
+	}
+
+	@Test
+	public void testFailFast() {
+		addRule(ElementType.CLASS);
+		final StreamingChecker checker = rulesChecker.createStreamingChecker(
+				"Test", this);
+		checker.setFailFast(true);
+		try {
+			checker.visitCoverage(createClass("FooClass", 1001, 5, 1));
+			fail("RulesViolatedException expected");
+		} catch (final RulesViolatedException e) {
+			assertEquals(messages.get(0), e.getMessage());
+		}
+		assertEquals(1, checker.getViolationCount());
+	}
+
+	@Test
+	public void testFind() {
+		final RulesViolatedException e = new RulesViolatedException("msg");
+		final IOException wrapped = new IOException("Error");
+		wrapped.initCause(e);
+		assertSame(e, RulesViolatedException.find(wrapped));
+		assertNull(RulesViolatedException.find(new IOException()));
+	}
+
+	private Rule addRule(ElementType elementType) {
+		final Rule rule = new Rule();
+		rule.setElement(elementType);
+		final Limit limit = rule.createLimit();
+		limit.setMinimum("0.75");
+		rules.add(rule);
+		return rule;
+	}
+
+	private ClassCoverageImpl createClass(final String name, final long id,
+			final int covered, final int line) {
+		final MethodCoverageImpl m = new MethodCoverageImpl("fooMethod", "()V",
+				null);
+		m.increment(CounterImpl.getInstance(10 - covered, covered),
+				CounterImpl.COUNTER_0_0, line);
+		m.incrementMethodCounter();
+
+		final ClassCoverageImpl c = new ClassCoverageImpl(
+				"org/jacoco/example/" + name, id, false);
+		c.setSourceFileName(name + ".java");
+		c.addMethod(m);
+		return c;
+	}
+
+	private void check(final ClassCoverageImpl... classes) {
+		final StreamingChecker checker = rulesChecker.createStreamingChecker(
+				"Test", this);
+		for (final ClassCoverageImpl c : classes) {
+			checker.visitCoverage(c);
+		}
+		checker.visitEnd();
+	}
+
+	private void assertMessage(String expected) {
+		assertEquals(Collections.singletonList(expected), messages);
+	}
+
+	public void onViolation(ICoverageNode node, Rule rule, Limit limit,
+			String message) {
+		messages.add(message);
+	}
+
+}
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataHistory;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.index.ElementIndex;
@@ -146,4 +147,50 @@ public class SessionsPageTest extends PageTestBase {
 				support.findStr(doc, "/html/body/table[1]/tbody/tr[3]/td[1]"));
 	}
 
+	@Test
+	public void testHistoryContent() throws Exception {
+		final ExecutionDataHistory history = new ExecutionDataHistory();
+		history.visitSessionInfo(new SessionInfo("Session-A", 0, 0));
+		history.visitClassExecution(
+				new ExecutionData(0x1000, "ClassA", new boolean[] { true,
+						false, true }));
+		history.visitSessionInfo(new SessionInfo("Session-B", 0, 0));
+		history.visitClassExecution(
+				new ExecutionData(0x1000, "ClassA", new boolean[] { true,
+						true, true }));
+		final SessionsPage page = new SessionsPage(
+				history.getSessionInfos(), noExecutionData, index, null,
+				rootFolder, context);
+		page.setHistory(history);
+		page.render();
+		final Document doc = support.parse(output
+				.getFile("jacoco-sessions.html"));
+		assertEquals("Probes executed for the first time in each session:",
+				support.findStr(doc, "/html/body/p[2]"));
+		assertEquals("Session-A", support.findStr(doc,
+				"/html/body/table[2]/tbody/tr[1]/td[1]/span"));
+		assertEquals("2",
+				support.findStr(doc, "/html/body/table[2]/tbody/tr[1]/td[3]"));
+		assertEquals("2",
+				support.findStr(doc, "/html/body/table[2]/tbody/tr[1]/td[4]"));
+		assertEquals("Session-B", support.findStr(doc,
+				"/html/body/table[2]/tbody/tr[2]/td[1]/span"));
+		assertEquals("1",
+				support.findStr(doc, "/html/body/table[2]/tbody/tr[2]/td[3]"));
+		assertEquals("3",
+				support.findStr(doc, "/html/body/table[2]/tbody/tr[2]/td[4]"));
+	}
+
+	@Test
+	public void testEmptyHistory() throws Exception {
+		final SessionsPage page = new SessionsPage(noSessions, noExecutionData,
+				index, null, rootFolder, context);
+		page.setHistory(new ExecutionDataHistory());
+		page.render();
+		final Document doc = support.parse(output
+				.getFile("jacoco-sessions.html"));
+		assertEquals("No execution data available.",
+				support.findStr(doc, "/html/body/p[2]"));
+	}
+
 }
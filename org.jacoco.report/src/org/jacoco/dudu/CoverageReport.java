@@ -6,13 +6,16 @@ import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.internal.analysis.ClassCoverageImpl;
 import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.UnifiedDiffParser;
 import org.jacoco.report.DirectorySourceFileLocator;
 import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.html.HTMLFormatter;
 
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
 
 public class CoverageReport {
@@ -22,6 +25,7 @@ public class CoverageReport {
     private final File classesDirectory = new File(projectDirectory,"target\\classes");
     private final File sourceDirectory = new File(projectDirectory,"src\\main\\java");
     private final File reportDirectory = new File(projectDirectory,"report");
+    private final File diffFile = new File(projectDirectory,"changes.diff");
 
     public static void main(String[] args) throws IOException {
 
@@ -40,18 +44,18 @@ public class CoverageReport {
         // 数据存储
         ExecutionDataStore executionDataStore = execFileLoader.getExecutionDataStore();
 
-        // 覆盖率生成器
-        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        // 覆盖率生成器, 打印计数器不需要行数据, 源文件的行数据在 HTML 报告读取时才合并
+        CoverageBuilder coverageBuilder = new CoverageBuilder(true);
 
-        // code diff methods
-        Map<String, String> diffMethod = new HashMap<>(16);
-
-        diffMethod.put("configure", null);
-        diffMethod.put("paly", null);
-        diffMethod.put("listUser", null);
+        // code diff: 由 git diff 生成的变更行
+        ChangeSet changeSet;
+        try (Reader reader = new FileReader(diffFile)) {
+            changeSet = new UnifiedDiffParser().parse(reader);
+        }
 
-        // 初始化覆盖率分析器
-        Analyzer analyzer = new Analyzer(executionDataStore, coverageBuilder, diffMethod);
+        // 初始化覆盖率分析器, 只统计变更的行
+        Analyzer analyzer = new Analyzer(executionDataStore,
+                new ChangedLinesCoverageVisitor(changeSet, coverageBuilder), changeSet);
 
         /*
          * 分析该class文件或目录
@@ -121,9 +121,7 @@ public class MergeExecFile {
      * @param loader 加载器
      */
     private void loadExecFile(final ExecFileLoader loader) throws IOException {
-        for (File execFile : execList) {
-            loader.load(execFile);
-        }
+        loader.load(execList, Runtime.getRuntime().availableProcessors());
     }
 
     /**
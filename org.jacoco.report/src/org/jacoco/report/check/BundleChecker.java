@@ -17,6 +17,7 @@ import java.util.Collection;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
 import org.jacoco.core.analysis.IMethodCoverage;
 import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.analysis.ISourceFileCoverage;
@@ -78,8 +79,7 @@ class BundleChecker {
 	}
 
 	public void checkBundle(final IBundleCoverage bundleCoverage) {
-		final String name = bundleCoverage.getName();
-		checkRules(bundleCoverage, bundleRules, "bundle", name);
+		checkBundleRules(bundleCoverage);
 		if (traversePackages) {
 			for (final IPackageCoverage p : bundleCoverage.getPackages()) {
 				check(p);
@@ -88,8 +88,7 @@ class BundleChecker {
 	}
 
 	private void check(final IPackageCoverage packageCoverage) {
-		final String name = names.getPackageName(packageCoverage.getName());
-		checkRules(packageCoverage, packageRules, "package", name);
+		checkPackageRules(packageCoverage);
 		if (traverseClasses) {
 			for (final IClassCoverage c : packageCoverage.getClasses()) {
 				check(c);
@@ -102,7 +101,61 @@ class BundleChecker {
 		}
 	}
 
-	private void check(final IClassCoverage classCoverage) {
+	/**
+	 * Checks the bundle rules against the given node without traversing its
+	 * children.
+	 */
+	void checkBundleRules(final ICoverageNode bundleCoverage) {
+		checkRules(bundleCoverage, bundleRules, "bundle",
+				bundleCoverage.getName());
+	}
+
+	/**
+	 * Checks the package rules against the given node without traversing its
+	 * children.
+	 */
+	void checkPackageRules(final ICoverageNode packageCoverage) {
+		final String name = names.getPackageName(packageCoverage.getName());
+		checkRules(packageCoverage, packageRules, "package", name);
+	}
+
+	boolean hasBundleRules() {
+		return !bundleRules.isEmpty();
+	}
+
+	boolean hasPackageRules() {
+		return !packageRules.isEmpty();
+	}
+
+	boolean hasSourceFileRules() {
+		return traverseSourceFiles;
+	}
+
+	boolean hasClassRules() {
+		return traverseClasses;
+	}
+
+	/**
+	 * @return <code>true</code> if a bundle or package rule has a limit on the
+	 *         line counter, which can only be calculated from the merged lines
+	 *         of the source files
+	 */
+	boolean hasAggregatedLineLimits() {
+		return hasLineLimit(bundleRules) || hasLineLimit(packageRules);
+	}
+
+	private static boolean hasLineLimit(final Collection<Rule> rules) {
+		for (final Rule rule : rules) {
+			for (final Limit limit : rule.getLimits()) {
+				if (limit.getEntity() == CounterEntity.LINE) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	void check(final IClassCoverage classCoverage) {
 		final String name = names
 				.getQualifiedClassName(classCoverage.getName());
 		checkRules(classCoverage, classRules, "class", name);
@@ -113,7 +166,7 @@ class BundleChecker {
 		}
 	}
 
-	private void check(final ISourceFileCoverage sourceFile) {
+	void check(final ISourceFileCoverage sourceFile) {
 		final String name = sourceFile.getPackageName() + "/"
 				+ sourceFile.getName();
 		checkRules(sourceFile, sourceFileRules, "source file", name);
@@ -95,4 +95,19 @@ public class RulesChecker {
 		};
 	}
 
+	/**
+	 * Creates a new checker which processes the configured checks while
+	 * classes are analyzed, without a complete coverage model.
+	 *
+	 * @param bundleName
+	 *            name of the bundle used for bundle rules
+	 * @param output
+	 *            call-back to report violations to
+	 * @return checker to emit the class coverage data to
+	 */
+	public StreamingChecker createStreamingChecker(final String bundleName,
+			final IViolationsOutput output) {
+		return new StreamingChecker(bundleName, rules, languageNames, output);
+	}
+
 }
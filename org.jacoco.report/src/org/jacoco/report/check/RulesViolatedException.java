@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.check;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a {@link StreamingChecker} in fail fast mode to abort the analysis
+ * after the first violation. The violation has already been reported to the
+ * {@link IViolationsOutput} when this exception is thrown.
+ */
+public class RulesViolatedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a new exception for the given violation.
+	 *
+	 * @param message
+	 *            message of the violation
+	 */
+	public RulesViolatedException(final String message) {
+		super(message);
+	}
+
+	/**
+	 * Returns the {@link RulesViolatedException} which caused the given
+	 * exception. This is useful as the {@link org.jacoco.core.analysis.Analyzer}
+	 * reports exceptions of visitors as {@link IOException}.
+	 *
+	 * @param e
+	 *            exception thrown during analysis
+	 * @return the causing {@link RulesViolatedException} or <code>null</code>
+	 */
+	public static RulesViolatedException find(final Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof RulesViolatedException) {
+				return (RulesViolatedException) t;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.check;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+import org.jacoco.report.ILanguageNames;
+
+/**
+ * Checks a set of rules while classes are emitted by an
+ * {@link org.jacoco.core.analysis.Analyzer}, without building a
+ * {@link org.jacoco.core.analysis.IBundleCoverage}. Class and method rules are
+ * checked as soon as a class is visited, afterwards only the coverage counters
+ * required by the configured source file, package and bundle rules are kept.
+ * Line data of source files is only retained if a source file rule exists or a
+ * package or bundle rule limits the line counter, as lines of different classes
+ * in the same source file have to be merged to get exact line counts.
+ *
+ * The remaining rules are checked by {@link #visitEnd()}. The violations are
+ * the same as for {@link RulesChecker#createVisitor(IViolationsOutput)}, but
+ * class and method violations are reported first.
+ */
+public class StreamingChecker implements ICoverageVisitor {
+
+	private final BundleChecker checker;
+	private final IViolationsOutput output;
+
+	private final Map<String, Long> classIds;
+
+	private final CoverageNodeImpl bundle;
+	private final Map<String, CoverageNodeImpl> packages;
+	private final Map<String, SourceFileCoverageImpl> sourceFiles;
+	private final boolean mergeLines;
+
+	private boolean failFast;
+	private int violations;
+
+	StreamingChecker(final String bundleName, final Collection<Rule> rules,
+			final ILanguageNames names, final IViolationsOutput output) {
+		this.output = output;
+		this.checker = new BundleChecker(rules, names,
+				new IViolationsOutput() {
+					public void onViolation(final ICoverageNode node,
+							final Rule rule, final Limit limit,
+							final String message) {
+						violation(node, rule, limit, message);
+					}
+				});
+		this.classIds = new HashMap<String, Long>();
+		this.bundle = checker.hasBundleRules() ? new CoverageNodeImpl(
+				ElementType.BUNDLE, bundleName) : null;
+		this.packages = checker.hasPackageRules() ? new TreeMap<String, CoverageNodeImpl>()
+				: null;
+		this.mergeLines = checker.hasAggregatedLineLimits();
+		this.sourceFiles = mergeLines || checker.hasSourceFileRules() ? new TreeMap<String, SourceFileCoverageImpl>()
+				: null;
+	}
+
+	/**
+	 * Stops checking with a {@link RulesViolatedException} as soon as the
+	 * first violation has been reported. By default all rules are checked.
+	 *
+	 * @param failFast
+	 *            <code>true</code> to stop at the first violation
+	 */
+	public void setFailFast(final boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	/**
+	 * @return number of violations reported so far
+	 */
+	public int getViolationCount() {
+		return violations;
+	}
+
+	// === ICoverageVisitor ===
+
+	/**
+	 * @throws IllegalStateException
+	 *             if a different class with the same name has been visited
+	 *             before
+	 * @throws RulesViolatedException
+	 *             if fail fast is enabled and a rule is violated
+	 */
+	public void visitCoverage(final IClassCoverage coverage) {
+		final String className = coverage.getName();
+		final Long id = Long.valueOf(coverage.getId());
+		final Long dup = classIds.put(className, id);
+		if (dup != null) {
+			if (!dup.equals(id)) {
+				throw new IllegalStateException(
+						"Can't add different class with same name: "
+								+ className);
+			}
+			return;
+		}
+
+		if (checker.hasClassRules()) {
+			checker.check(coverage);
+		}
+
+		final String source = coverage.getSourceFileName();
+		if (source != null && sourceFiles != null) {
+			getSourceFile(source, coverage.getPackageName()).increment(
+					coverage);
+		}
+		if (source == null || !mergeLines) {
+			increment(coverage.getPackageName(), coverage);
+		}
+	}
+
+	/**
+	 * Checks the source file, package and bundle rules against the counters
+	 * collected from all visited classes.
+	 *
+	 * @throws RulesViolatedException
+	 *             if fail fast is enabled and a rule is violated
+	 */
+	public void visitEnd() {
+		if (sourceFiles != null) {
+			for (final SourceFileCoverageImpl s : sourceFiles.values()) {
+				if (checker.hasSourceFileRules()) {
+					checker.check(s);
+				}
+				if (mergeLines) {
+					increment(s.getPackageName(), s);
+				}
+			}
+		}
+		if (packages != null) {
+			for (final CoverageNodeImpl p : packages.values()) {
+				checker.checkPackageRules(p);
+			}
+		}
+		if (bundle != null) {
+			checker.checkBundleRules(bundle);
+		}
+	}
+
+	private void increment(final String packageName, final ICoverageNode node) {
+		if (packages != null) {
+			CoverageNodeImpl p = packages.get(packageName);
+			if (p == null) {
+				p = new CoverageNodeImpl(ElementType.PACKAGE, packageName);
+				packages.put(packageName, p);
+			}
+			p.increment(node);
+		}
+		if (bundle != null) {
+			bundle.increment(node);
+		}
+	}
+
+	private SourceFileCoverageImpl getSourceFile(final String filename,
+			final String packagename) {
+		final String key = packagename + '/' + filename;
+		SourceFileCoverageImpl sourcefile = sourceFiles.get(key);
+		if (sourcefile == null) {
+			sourcefile = new SourceFileCoverageImpl(filename, packagename);
+			sourceFiles.put(key, sourcefile);
+		}
+		return sourcefile;
+	}
+
+	private void violation(final ICoverageNode node, final Rule rule,
+			final Limit limit, final String message) {
+		violations++;
+		output.onViolation(node, rule, limit, message);
+		if (failFast) {
+			throw new RulesViolatedException(message);
+		}
+	}
+
+}
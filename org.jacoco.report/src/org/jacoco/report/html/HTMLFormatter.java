@@ -19,6 +19,7 @@ import java.util.Locale;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
 import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataHistory;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.IMultiReportOutput;
@@ -63,6 +64,8 @@ public class HTMLFormatter implements IHTMLReportContext {
 
     private SessionsPage sessionsPage;
 
+    private ExecutionDataHistory history;
+
     private Table table;
 
     /**
@@ -115,6 +118,18 @@ public class HTMLFormatter implements IHTMLReportContext {
         this.outputEncoding = outputEncoding;
     }
 
+    /**
+     * Sets an optional history of the execution data. If set, the sessions
+     * page shows how many probes have been executed for the first time in
+     * each session.
+     *
+     * @param history
+     *            history of the execution data or <code>null</code>
+     */
+    public void setExecutionDataHistory(final ExecutionDataHistory history) {
+        this.history = history;
+    }
+
     // === IHTMLReportContext ===
 
     public ILanguageNames getLanguageNames() {
@@ -227,6 +242,7 @@ public class HTMLFormatter implements IHTMLReportContext {
             private void createSessionsPage(final ReportPage rootpage) {
                 sessionsPage = new SessionsPage(sessionInfos, executionData,
                         index, rootpage, root, HTMLFormatter.this);
+                sessionsPage.setHistory(history);
             }
 
             public void visitEnd() throws IOException {
@@ -21,6 +21,7 @@ import java.util.Date;
 import java.util.List;
 
 import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataHistory;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.internal.ReportOutputFolder;
@@ -39,6 +40,9 @@ public class SessionsPage extends ReportPage {
 
 	private static final String MSG_NO_SESSIONS = "No session information available.";
 
+	private static final String MSG_HISTORY = "Probes executed for the "
+			+ "first time in each session:";
+
 	private static final String MSG_EXECDATA = "Execution data for the "
 			+ "following classes is considered in this report:";
 
@@ -52,6 +56,8 @@ public class SessionsPage extends ReportPage {
 
 	private final ElementIndex index;
 
+	private ExecutionDataHistory history;
+
 	/**
 	 * Creates a new page page to display session information.
 	 * 
@@ -87,6 +93,16 @@ public class SessionsPage extends ReportPage {
 		});
 	}
 
+	/**
+	 * Sets an optional history of the sessions to display the coverage growth.
+	 * 
+	 * @param history
+	 *            history of the execution data or <code>null</code>
+	 */
+	public void setHistory(final ExecutionDataHistory history) {
+		this.history = history;
+	}
+
 	@Override
 	protected void content(final HTMLElement body) throws IOException {
 		if (sessionInfos.isEmpty()) {
@@ -95,6 +111,10 @@ public class SessionsPage extends ReportPage {
 			body.p().text(MSG_SESSIONS);
 			sessionTable(body);
 		}
+		if (history != null && !history.getSessionInfos().isEmpty()) {
+			body.p().text(MSG_HISTORY);
+			historyTable(body);
+		}
 		if (executionData.isEmpty()) {
 			body.p().text(MSG_NO_EXECDATA);
 		} else {
@@ -120,6 +140,30 @@ public class SessionsPage extends ReportPage {
 		}
 	}
 
+	private void historyTable(final HTMLElement body) throws IOException {
+		final HTMLElement table = body.table(Styles.COVERAGETABLE);
+		{
+			final HTMLElement tr = table.thead().tr();
+			tr.td().text("Session");
+			tr.td().text("Dump Time");
+			tr.td(Styles.CTR2).text("New Probes");
+			tr.td(Styles.CTR2).text("Total Probes");
+		}
+		final HTMLElement tbody = table.tbody();
+		final List<SessionInfo> infos = history.getSessionInfos();
+		int total = 0;
+		for (int s = 0; s < infos.size(); s++) {
+			final SessionInfo i = infos.get(s);
+			final int newHits = history.getNewHitCount(s);
+			total += newHits;
+			final HTMLElement tr = tbody.tr();
+			tr.td().span(Styles.EL_SESSION).text(i.getId());
+			tr.td().text(dateFormat.format(new Date(i.getDumpTimeStamp())));
+			tr.td(Styles.CTR2).text(String.valueOf(newHits));
+			tr.td(Styles.CTR2).text(String.valueOf(total));
+		}
+	}
+
 	private void executionDataTable(final HTMLElement body) throws IOException {
 		final HTMLElement table = body.table(Styles.COVERAGETABLE);
 		{